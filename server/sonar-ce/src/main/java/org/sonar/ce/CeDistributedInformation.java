@@ -39,4 +39,9 @@ public interface CeDistributedInformation {
    * Acquire a lock among all the Compute Engines
    */
   Lock acquireCleanJobLock();
+
+  /**
+   * Acquire the lock of the purge of project histories among all the Compute Engines
+   */
+  Lock acquirePurgeJobLock();
 }
@@ -67,6 +67,11 @@ public class CeDistributedInformationImpl implements CeDistributedInformation, S
     return hazelcastMember.getLock(HazelcastObjects.CE_CLEANING_JOB_LOCK);
   }
 
+  @Override
+  public Lock acquirePurgeJobLock() {
+    return hazelcastMember.getLock(HazelcastObjects.CE_PURGE_JOB_LOCK);
+  }
+
   @Override
   public void start() {
     // Nothing to do here
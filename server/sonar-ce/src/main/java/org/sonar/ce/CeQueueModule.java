@@ -20,6 +20,7 @@
 package org.sonar.ce;
 
 import org.sonar.ce.monitoring.CEQueueStatusImpl;
+import org.sonar.ce.monitoring.CeStepsMBeanImpl;
 import org.sonar.ce.monitoring.CeTasksMBeanImpl;
 import org.sonar.ce.queue.CeQueueInitializer;
 import org.sonar.ce.queue.InternalCeQueueImpl;
@@ -35,6 +36,7 @@ public class CeQueueModule extends Module {
       // queue monitoring
       CEQueueStatusImpl.class,
       CeTasksMBeanImpl.class,
+      CeStepsMBeanImpl.class,
 
       // init queue state and queue processing
       CeQueueInitializer.class);
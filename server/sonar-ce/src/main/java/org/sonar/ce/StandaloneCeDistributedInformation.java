@@ -35,6 +35,7 @@ public class StandaloneCeDistributedInformation implements CeDistributedInformat
   private Set<String> workerUUIDs;
 
   private Lock cleanJobLock = new NonConcurrentLock();
+  private Lock purgeJobLock = new NonConcurrentLock();
 
   public StandaloneCeDistributedInformation(CeWorkerFactory ceCeWorkerFactory) {
     this.ceCeWorkerFactory = ceCeWorkerFactory;
@@ -60,6 +61,14 @@ public class StandaloneCeDistributedInformation implements CeDistributedInformat
     return cleanJobLock;
   }
 
+  /**
+   * Same as {@link #acquireCleanJobLock()}, the returned lock provides no concurrency support at all.
+   */
+  @Override
+  public Lock acquirePurgeJobLock() {
+    return purgeJobLock;
+  }
+
   private static class NonConcurrentLock implements Lock {
     @Override
     public void lock() {
@@ -52,6 +52,7 @@ import org.sonar.ce.db.ReadOnlyPropertiesDao;
 import org.sonar.ce.log.CeProcessLogging;
 import org.sonar.ce.notification.ReportAnalysisFailureNotificationModule;
 import org.sonar.ce.platform.ComputeEngineExtensionInstaller;
+import org.sonar.ce.purge.CePurgeModule;
 import org.sonar.ce.queue.CeQueueCleaner;
 import org.sonar.ce.queue.PurgeCeActivities;
 import org.sonar.ce.settings.ProjectConfigurationFactory;
@@ -431,7 +432,8 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       WebhookModule.class,
 
       // cleaning
-      CeCleaningModule.class);
+      CeCleaningModule.class,
+      CePurgeModule.class);
 
     if (props.valueAsBoolean(ProcessProperties.CLUSTER_ENABLED)) {
       container.add(
@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.monitoring;
 
+import org.sonar.server.computation.util.Histogram;
+
 public interface CEQueueStatus {
 
   /**
@@ -61,6 +63,17 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds the time a batch report waited in queue before its processing started.
+   *
+   * @param queueWaitTime duration of wait in ms
+   *
+   * @see #getQueueWaitTime()
+   *
+   * @throws IllegalArgumentException if queueWaitTime is < 0
+   */
+  void addQueueWaitTime(long queueWaitTime);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +98,9 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Times batch reports waited in queue before their processing started since instance startup, in milliseconds.
+   */
+  Histogram getQueueWaitTime();
 }
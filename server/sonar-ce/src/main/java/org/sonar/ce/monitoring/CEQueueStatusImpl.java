@@ -23,6 +23,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.server.computation.util.Histogram;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -33,6 +34,7 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final Histogram queueWaitTime = new Histogram();
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -62,6 +64,12 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     processingTime.addAndGet(ms);
   }
 
+  @Override
+  public void addQueueWaitTime(long queueWaitTimeInMs) {
+    checkArgument(queueWaitTimeInMs >= 0, "Queue wait time can not be < 0");
+    queueWaitTime.record(queueWaitTimeInMs);
+  }
+
   @Override
   public long getPendingCount() {
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -88,4 +96,9 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public Histogram getQueueWaitTime() {
+    return queueWaitTime;
+  }
 }
@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+public interface CePurgeMBean {
+
+  String OBJECT_NAME = "SonarQube:name=ComputeEnginePurge";
+
+  /**
+   * Number of projects, branches or portfolios which have analyses to purge, as of the last purge run.
+   */
+  long getPendingRootCount();
+
+  /**
+   * Number of analyses to purge, as of the last purge run.
+   */
+  long getPendingAnalysisCount();
+
+  /**
+   * Count of projects, branches or portfolios purged since startup.
+   */
+  long getPurgedRootCount();
+
+  /**
+   * Count of analyses purged since startup.
+   */
+  long getPurgedAnalysisCount();
+
+  /**
+   * Count of failed purges of projects, branches or portfolios since startup.
+   */
+  long getFailureCount();
+
+  /**
+   * Duration of the last purge run, in milliseconds.
+   */
+  long getLastRunDuration();
+}
@@ -0,0 +1,93 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import org.picocontainer.Startable;
+import org.sonar.ce.purge.PurgeStatistics;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+import static org.sonar.process.systeminfo.SystemInfoUtils.setAttribute;
+
+public class CePurgeMBeanImpl implements CePurgeMBean, Startable, SystemInfoSection {
+  private final PurgeStatistics statistics;
+
+  public CePurgeMBeanImpl(PurgeStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  @Override
+  public long getPendingRootCount() {
+    return statistics.getPendingRoots();
+  }
+
+  @Override
+  public long getPendingAnalysisCount() {
+    return statistics.getPendingAnalyses();
+  }
+
+  @Override
+  public long getPurgedRootCount() {
+    return statistics.getPurgedRoots();
+  }
+
+  @Override
+  public long getPurgedAnalysisCount() {
+    return statistics.getPurgedAnalyses();
+  }
+
+  @Override
+  public long getFailureCount() {
+    return statistics.getFailures();
+  }
+
+  @Override
+  public long getLastRunDuration() {
+    return statistics.getLastRunDuration();
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Purge");
+    setAttribute(builder, "Pending Roots", getPendingRootCount());
+    setAttribute(builder, "Pending Analyses", getPendingAnalysisCount());
+    setAttribute(builder, "Purged Roots", getPurgedRootCount());
+    setAttribute(builder, "Purged Analyses", getPurgedAnalysisCount());
+    setAttribute(builder, "Failures", getFailureCount());
+    setAttribute(builder, "Runs", statistics.getRuns());
+    setAttribute(builder, "Last Run Duration (ms)", getLastRunDuration());
+    return builder.build();
+  }
+}
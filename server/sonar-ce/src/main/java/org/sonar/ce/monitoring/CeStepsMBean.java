@@ -0,0 +1,67 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.util.Map;
+
+public interface CeStepsMBean {
+
+  String OBJECT_NAME = "SonarQube:name=ComputeEngineSteps";
+
+  /**
+   * Median of the durations of steps since startup, in milliseconds, by step description.
+   */
+  Map<String, Long> getDurationP50();
+
+  /**
+   * 95th percentile of the durations of steps since startup, in milliseconds, by step description.
+   */
+  Map<String, Long> getDurationP95();
+
+  /**
+   * 99th percentile of the durations of steps since startup, in milliseconds, by step description.
+   */
+  Map<String, Long> getDurationP99();
+
+  /**
+   * Count of DB rows inserted or updated by persistence steps since startup, by step description.
+   */
+  Map<String, Long> getRowsWritten();
+
+  /**
+   * Median of the number of components of analyzed trees.
+   */
+  long getComponentCountP50();
+
+  /**
+   * 95th percentile of the number of components of analyzed trees.
+   */
+  long getComponentCountP95();
+
+  /**
+   * Median of the number of issues processed by tasks.
+   */
+  long getIssueCountP50();
+
+  /**
+   * 95th percentile of the number of issues processed by tasks.
+   */
+  long getIssueCountP95();
+}
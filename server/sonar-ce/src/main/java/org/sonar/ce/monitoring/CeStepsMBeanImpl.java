@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+import org.picocontainer.Startable;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
+import org.sonar.server.computation.util.Histogram;
+
+import static java.lang.String.format;
+import static org.sonar.process.systeminfo.SystemInfoUtils.setAttribute;
+
+public class CeStepsMBeanImpl implements CeStepsMBean, Startable, SystemInfoSection {
+  private final ComputationStepStatistics statistics;
+
+  public CeStepsMBeanImpl(ComputationStepStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  @Override
+  public Map<String, Long> getDurationP50() {
+    return durations(h -> h.getPercentile(50));
+  }
+
+  @Override
+  public Map<String, Long> getDurationP95() {
+    return durations(h -> h.getPercentile(95));
+  }
+
+  @Override
+  public Map<String, Long> getDurationP99() {
+    return durations(h -> h.getPercentile(99));
+  }
+
+  private Map<String, Long> durations(ToLongFunction<Histogram> function) {
+    Map<String, Long> res = new TreeMap<>();
+    statistics.getDurations().forEach((step, histogram) -> res.put(step, function.applyAsLong(histogram)));
+    return res;
+  }
+
+  @Override
+  public Map<String, Long> getRowsWritten() {
+    return new TreeMap<>(statistics.getRowsWritten());
+  }
+
+  @Override
+  public long getComponentCountP50() {
+    return statistics.getComponentsPerTask().getPercentile(50);
+  }
+
+  @Override
+  public long getComponentCountP95() {
+    return statistics.getComponentsPerTask().getPercentile(95);
+  }
+
+  @Override
+  public long getIssueCountP50() {
+    return statistics.getIssuesPerTask().getPercentile(50);
+  }
+
+  @Override
+  public long getIssueCountP95() {
+    return statistics.getIssuesPerTask().getPercentile(95);
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Steps");
+    setAttribute(builder, "Components per Task", toString(statistics.getComponentsPerTask()));
+    setAttribute(builder, "Issues per Task", toString(statistics.getIssuesPerTask()));
+    Map<String, Long> rowsWritten = statistics.getRowsWritten();
+    new TreeMap<>(statistics.getDurations()).forEach((step, durations) -> {
+      Long rows = rowsWritten.get(step);
+      String value = toString(durations) + " (ms)";
+      setAttribute(builder, step, rows == null ? value : format("%s, rows written=%d", value, rows));
+    });
+    return builder.build();
+  }
+
+  private static String toString(Histogram histogram) {
+    return format("count=%d, p50=%d, p95=%d, p99=%d, max=%d", histogram.getCount(),
+      histogram.getPercentile(50), histogram.getPercentile(95), histogram.getPercentile(99), histogram.getMax());
+  }
+}
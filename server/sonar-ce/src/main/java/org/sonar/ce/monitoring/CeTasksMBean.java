@@ -48,6 +48,31 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * Time spent creating and starting the containers of tasks since startup, in milliseconds.
+   */
+  long getContainerSetupTime();
+
+  /**
+   * Time spent stopping the containers of tasks since startup, in milliseconds.
+   */
+  long getContainerTeardownTime();
+
+  /**
+   * Median of the times batch reports waited in queue before their processing started, in milliseconds.
+   */
+  long getQueueWaitTimeP50();
+
+  /**
+   * 95th percentile of the times batch reports waited in queue before their processing started, in milliseconds.
+   */
+  long getQueueWaitTimeP95();
+
+  /**
+   * 99th percentile of the times batch reports waited in queue before their processing started, in milliseconds.
+   */
+  long getQueueWaitTimeP99();
+
   /**
    * Configured maximum number of workers.
    */
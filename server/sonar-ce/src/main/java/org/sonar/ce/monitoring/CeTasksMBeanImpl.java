@@ -24,14 +24,17 @@ import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 import org.sonar.ce.configuration.CeConfiguration;
+import org.sonar.server.computation.task.container.TaskContainerStatistics;
 
 public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSection {
   private final CEQueueStatus queueStatus;
   private final CeConfiguration ceConfiguration;
+  private final TaskContainerStatistics containerStatistics;
 
-  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration) {
+  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration, TaskContainerStatistics containerStatistics) {
     this.queueStatus = queueStatus;
     this.ceConfiguration = ceConfiguration;
+    this.containerStatistics = containerStatistics;
   }
 
   @Override
@@ -72,6 +75,31 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return queueStatus.getProcessingTime();
   }
 
+  @Override
+  public long getContainerSetupTime() {
+    return containerStatistics.getSetupTime();
+  }
+
+  @Override
+  public long getContainerTeardownTime() {
+    return containerStatistics.getTeardownTime();
+  }
+
+  @Override
+  public long getQueueWaitTimeP50() {
+    return queueStatus.getQueueWaitTime().getPercentile(50);
+  }
+
+  @Override
+  public long getQueueWaitTimeP95() {
+    return queueStatus.getQueueWaitTime().getPercentile(95);
+  }
+
+  @Override
+  public long getQueueWaitTimeP99() {
+    return queueStatus.getQueueWaitTime().getPercentile(99);
+  }
+
   @Override
   public int getWorkerMaxCount() {
     return ceConfiguration.getWorkerMaxCount();
@@ -91,6 +119,11 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("Processed With Error").setLongValue(getErrorCount()).build();
     builder.addAttributesBuilder().setKey("Processed With Success").setLongValue(getSuccessCount()).build();
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
+    builder.addAttributesBuilder().setKey("Container Setup Time (ms)").setLongValue(getContainerSetupTime()).build();
+    builder.addAttributesBuilder().setKey("Container Teardown Time (ms)").setLongValue(getContainerTeardownTime()).build();
+    builder.addAttributesBuilder().setKey("Queue Wait Time p50 (ms)").setLongValue(getQueueWaitTimeP50()).build();
+    builder.addAttributesBuilder().setKey("Queue Wait Time p95 (ms)").setLongValue(getQueueWaitTimeP95()).build();
+    builder.addAttributesBuilder().setKey("Queue Wait Time p99 (ms)").setLongValue(getQueueWaitTimeP99()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
     builder.addAttributesBuilder().setKey("Max Worker Count").setLongValue(getWorkerMaxCount()).build();
     return builder.build();
@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import com.google.common.base.Optional;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.CeDistributedInformation;
+import org.sonar.ce.settings.ProjectConfigurationFactory;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PendingPurgeDto;
+import org.sonar.server.computation.dbcleaner.ProjectCleaner;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Purges the history of projects, branches and portfolios in background, so that analyses only have to do cheap
+ * clean-up (see {@link ProjectCleaner#purgeAfterAnalysis}).
+ * <p>
+ * Each run is time-boxed and purges the root components with the most analyses to purge first. Progress is stored
+ * in DB (purge status of analyses), so that the next run, on any Compute Engine node, resumes where the previous
+ * one stopped. Root components which are being analyzed are skipped. As an analysis may still start in the meantime,
+ * the series of measures, which are also updated by analyses, are updated with optimistic locking.
+ * </p>
+ */
+public class PurgeSchedulerImpl implements PurgeScheduler {
+  private static final Logger LOG = Loggers.get(PurgeSchedulerImpl.class);
+
+  private static final long INITIAL_DELAY_MINUTES = 1;
+  private static final long DELAY_MINUTES = 1;
+  private static final long TIME_BOX_MS = 30_000L;
+  private static final int MAX_ROOTS_PER_RUN = 100;
+
+  private final PurgeExecutorService executorService;
+  private final CeDistributedInformation ceDistributedInformation;
+  private final DbClient dbClient;
+  private final ProjectCleaner projectCleaner;
+  private final ProjectConfigurationFactory configurationFactory;
+  private final PurgeStatistics statistics;
+  private final System2 system2;
+
+  public PurgeSchedulerImpl(PurgeExecutorService executorService, CeDistributedInformation ceDistributedInformation, DbClient dbClient,
+    ProjectCleaner projectCleaner, ProjectConfigurationFactory configurationFactory, PurgeStatistics statistics, System2 system2) {
+    this.executorService = executorService;
+    this.ceDistributedInformation = ceDistributedInformation;
+    this.dbClient = dbClient;
+    this.projectCleaner = projectCleaner;
+    this.configurationFactory = configurationFactory;
+    this.statistics = statistics;
+    this.system2 = system2;
+  }
+
+  @Override
+  public void startScheduling() {
+    executorService.scheduleWithFixedDelay(this::purge, INITIAL_DELAY_MINUTES, DELAY_MINUTES, MINUTES);
+  }
+
+  void purge() {
+    Lock purgeJobLock = ceDistributedInformation.acquirePurgeJobLock();
+
+    // If we cannot lock that means that another node is purging
+    if (purgeJobLock.tryLock()) {
+      try {
+        purgeUntilTimeBoxIsExhausted();
+      } catch (Exception e) {
+        LOG.warn("Failed to purge history of projects", e);
+      } finally {
+        purgeJobLock.unlock();
+      }
+    }
+  }
+
+  private void purgeUntilTimeBoxIsExhausted() {
+    long start = system2.now();
+    List<PendingPurgeDto> pendingPurges;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      pendingPurges = dbClient.purgeDao().selectPendingPurges(dbSession, MAX_ROOTS_PER_RUN);
+    }
+    statistics.setPending(pendingPurges.size(), pendingPurges.stream().mapToLong(PendingPurgeDto::getAnalysisCount).sum());
+
+    for (PendingPurgeDto pendingPurge : pendingPurges) {
+      if (system2.now() - start >= TIME_BOX_MS) {
+        LOG.debug("Purge time box is exhausted, {} root components will be purged later", statistics.getPendingRoots());
+        break;
+      }
+      purge(pendingPurge);
+    }
+    statistics.addRun(system2.now() - start);
+  }
+
+  private void purge(PendingPurgeDto pendingPurge) {
+    String rootUuid = pendingPurge.getRootUuid();
+    // not a batch session, so that conflicts with the analyses updating measure_series are detected
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      if (isBeingAnalyzed(dbSession, rootUuid)) {
+        return;
+      }
+      Optional<ComponentDto> root = dbClient.componentDao().selectByUuid(dbSession, rootUuid);
+      if (root.isPresent()) {
+        LOG.debug("Purge history of {}", root.get().getDbKey());
+        Configuration configuration = configurationFactory.newProjectConfiguration(dbSession, root.get());
+        projectCleaner.purgeHistory(dbSession, new IdUuidPair(root.get().getId(), rootUuid), configuration);
+      }
+      statistics.addPurged(pendingPurge.getAnalysisCount());
+    } catch (Exception e) {
+      statistics.addFailure();
+      LOG.warn(format("Failed to purge history of component with uuid '%s'", rootUuid), e);
+    }
+  }
+
+  private boolean isBeingAnalyzed(DbSession dbSession, String rootUuid) {
+    return dbClient.ceQueueDao().selectByComponentUuid(dbSession, rootUuid).stream()
+      .anyMatch(task -> task.getStatus() == CeQueueDto.Status.IN_PROGRESS);
+  }
+}
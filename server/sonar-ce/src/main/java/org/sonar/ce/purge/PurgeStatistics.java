@@ -0,0 +1,93 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Progress of the purge of project histories since startup.
+ */
+public class PurgeStatistics {
+  private final AtomicLong pendingRoots = new AtomicLong(0);
+  private final AtomicLong pendingAnalyses = new AtomicLong(0);
+  private final AtomicLong purgedRoots = new AtomicLong(0);
+  private final AtomicLong purgedAnalyses = new AtomicLong(0);
+  private final AtomicLong failures = new AtomicLong(0);
+  private final AtomicLong runs = new AtomicLong(0);
+  private final AtomicLong lastRunDuration = new AtomicLong(0);
+
+  /**
+   * Garbage found at the beginning of the last run, among the root components selected to be purged.
+   */
+  public void setPending(long roots, long analyses) {
+    checkArgument(roots >= 0, "Number of roots can not be < 0");
+    checkArgument(analyses >= 0, "Number of analyses can not be < 0");
+    pendingRoots.set(roots);
+    pendingAnalyses.set(analyses);
+  }
+
+  public void addPurged(long analyses) {
+    checkArgument(analyses >= 0, "Number of analyses can not be < 0");
+    purgedRoots.incrementAndGet();
+    purgedAnalyses.addAndGet(analyses);
+    pendingRoots.updateAndGet(l -> Math.max(0, l - 1));
+    pendingAnalyses.updateAndGet(l -> Math.max(0, l - analyses));
+  }
+
+  public void addFailure() {
+    failures.incrementAndGet();
+  }
+
+  public void addRun(long durationMs) {
+    checkArgument(durationMs >= 0, "Duration can not be < 0");
+    runs.incrementAndGet();
+    lastRunDuration.set(durationMs);
+  }
+
+  public long getPendingRoots() {
+    return pendingRoots.get();
+  }
+
+  public long getPendingAnalyses() {
+    return pendingAnalyses.get();
+  }
+
+  public long getPurgedRoots() {
+    return purgedRoots.get();
+  }
+
+  public long getPurgedAnalyses() {
+    return purgedAnalyses.get();
+  }
+
+  public long getFailures() {
+    return failures.get();
+  }
+
+  public long getRuns() {
+    return runs.get();
+  }
+
+  public long getLastRunDuration() {
+    return lastRunDuration.get();
+  }
+}
@@ -23,6 +23,7 @@ import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.platform.Server;
 import org.sonar.api.platform.ServerStartHandler;
 import org.sonar.ce.cleaning.CeCleaningScheduler;
+import org.sonar.ce.purge.PurgeScheduler;
 import org.sonar.ce.taskprocessor.CeProcessingScheduler;
 import org.sonar.ce.CeDistributedInformation;
 
@@ -36,13 +37,15 @@ public class CeQueueInitializer implements ServerStartHandler {
 
   private final CeProcessingScheduler processingScheduler;
   private final CeCleaningScheduler cleaningScheduler;
+  private final PurgeScheduler purgeScheduler;
   private final CeDistributedInformation ceDistributedInformation;
   private boolean done = false;
 
-  public CeQueueInitializer(CeProcessingScheduler processingScheduler, CeCleaningScheduler cleaningScheduler,
+  public CeQueueInitializer(CeProcessingScheduler processingScheduler, CeCleaningScheduler cleaningScheduler, PurgeScheduler purgeScheduler,
     CeDistributedInformation ceDistributedInformation) {
     this.processingScheduler = processingScheduler;
     this.cleaningScheduler = cleaningScheduler;
+    this.purgeScheduler = purgeScheduler;
     this.ceDistributedInformation = ceDistributedInformation;
   }
 
@@ -58,5 +61,6 @@ public class CeQueueInitializer implements ServerStartHandler {
     ceDistributedInformation.broadcastWorkerUUIDs();
     processingScheduler.startScheduling();
     cleaningScheduler.startScheduling();
+    purgeScheduler.startScheduling();
   }
 }
@@ -98,4 +98,16 @@ public class StandaloneCeDistributedInformationTest {
         }
       });
   }
+
+  @Test
+  public void acquirePurgeJobLock_returns_a_non_current_lock_distinct_from_clean_job_lock() {
+    StandaloneCeDistributedInformation underTest = new StandaloneCeDistributedInformation(mock(CeWorkerFactory.class));
+
+    Lock lock = underTest.acquirePurgeJobLock();
+
+    assertThat(lock).isNotSameAs(underTest.acquireCleanJobLock());
+    assertThat(lock.tryLock()).isTrue();
+    assertThat(lock.tryLock()).isTrue();
+    lock.unlock();
+  }
 }
@@ -93,13 +93,14 @@ public class ComputeEngineContainerImplTest {
         CONTAINER_ITSELF
           + 77 // level 4
           + 6 // content of CeConfigurationModule
-          + 4 // content of CeQueueModule
+          + 5 // content of CeQueueModule
           + 4 // content of CeHttpModule
           + 3 // content of CeTaskCommonsModule
-          + 4 // content of ProjectAnalysisTaskModule
+          + 6 // content of ProjectAnalysisTaskModule
           + 7 // content of CeTaskProcessorModule
           + 4 // content of ReportAnalysisFailureNotificationModule
           + 3 // CeCleaningModule + its content
+          + 5 // CePurgeModule + its content
           + 4 // WebhookModule
           + 1 // CeDistributedInformation
     );
@@ -115,7 +116,7 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getParent().getParent().getParent().getComponentAdapters()).hasSize(
       COMPONENTS_IN_LEVEL_1_AT_CONSTRUCTION
         + 26 // level 1
-        + 52 // content of DaoModule
+        + 53 // content of DaoModule
         + 3 // content of EsSearchModule
         + 67 // content of CorePropertyDefinitions
         + 1 // StopFlagContainer
@@ -133,6 +133,23 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(calls);
   }
 
+  @Test
+  public void addQueueWaitTime_throws_IAE_if_time_is_less_than_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Queue wait time can not be < 0");
+
+    underTest.addQueueWaitTime(-1);
+  }
+
+  @Test
+  public void addQueueWaitTime_records_time_in_histogram() {
+    underTest.addQueueWaitTime(10);
+    underTest.addQueueWaitTime(SOME_PROCESSING_TIME);
+
+    assertThat(underTest.getQueueWaitTime().getCount()).isEqualTo(2);
+    assertThat(underTest.getQueueWaitTime().getMax()).isEqualTo(SOME_PROCESSING_TIME);
+  }
+
   @Test
   public void count_Pending_from_database() {
     when(dbClient.ceQueueDao().countByStatus(any(DbSession.class), eq(CeQueueDto.Status.PENDING))).thenReturn(42);
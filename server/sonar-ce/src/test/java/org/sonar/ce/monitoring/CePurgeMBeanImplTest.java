@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.lang.management.ManagementFactory;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+import org.sonar.ce.purge.PurgeStatistics;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CePurgeMBeanImplTest {
+
+  private PurgeStatistics statistics = new PurgeStatistics();
+  private CePurgeMBeanImpl underTest = new CePurgeMBeanImpl(statistics);
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(CePurgeMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+
+  @Test
+  public void counts_delegate_to_statistics() {
+    statistics.setPending(5, 20);
+    statistics.addPurged(3);
+    statistics.addFailure();
+    statistics.addRun(150);
+
+    assertThat(underTest.getPendingRootCount()).isEqualTo(4);
+    assertThat(underTest.getPendingAnalysisCount()).isEqualTo(17);
+    assertThat(underTest.getPurgedRootCount()).isEqualTo(1);
+    assertThat(underTest.getPurgedAnalysisCount()).isEqualTo(3);
+    assertThat(underTest.getFailureCount()).isEqualTo(1);
+    assertThat(underTest.getLastRunDuration()).isEqualTo(150);
+  }
+
+  @Test
+  public void export_system_info() {
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(section.getName()).isEqualTo("Compute Engine Purge");
+    assertThat(section.getAttributesList()).extracting(ProtobufSystemInfo.Attribute::getKey)
+      .containsExactly("Pending Roots", "Pending Analyses", "Purged Roots", "Purged Analyses", "Failures", "Runs", "Last Run Duration (ms)");
+  }
+}
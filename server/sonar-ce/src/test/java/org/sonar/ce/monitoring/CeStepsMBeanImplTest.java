@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.lang.management.ManagementFactory;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class CeStepsMBeanImplTest {
+
+  private ComputationStepStatistics statistics = new ComputationStepStatistics();
+  private CeStepsMBeanImpl underTest = new CeStepsMBeanImpl(statistics);
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(CeStepsMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+
+  @Test
+  public void durations_are_grouped_by_step() {
+    statistics.addDuration("step1", 4);
+    statistics.addDuration("step2", 100);
+
+    assertThat(underTest.getDurationP50()).containsOnly(entry("step1", 4L), entry("step2", 100L));
+    assertThat(underTest.getDurationP95()).containsOnly(entry("step1", 4L), entry("step2", 100L));
+    assertThat(underTest.getDurationP99()).containsOnly(entry("step1", 4L), entry("step2", 100L));
+  }
+
+  @Test
+  public void rows_written_are_grouped_by_step() {
+    statistics.addRowsWritten("step1", 10);
+    statistics.addRowsWritten("step1", 5);
+
+    assertThat(underTest.getRowsWritten()).containsOnly(entry("step1", 15L));
+  }
+
+  @Test
+  public void component_and_issue_counts_delegate_to_statistics() {
+    statistics.addComponentsOfTask(12);
+    statistics.addIssuesOfTask(3);
+
+    assertThat(underTest.getComponentCountP50()).isEqualTo(12);
+    assertThat(underTest.getComponentCountP95()).isEqualTo(12);
+    assertThat(underTest.getIssueCountP50()).isEqualTo(3);
+    assertThat(underTest.getIssueCountP95()).isEqualTo(3);
+  }
+
+  @Test
+  public void export_system_info() {
+    statistics.addDuration("step1", 4);
+    statistics.addRowsWritten("step1", 10);
+    statistics.addDuration("step2", 100);
+
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(section.getName()).isEqualTo("Compute Engine Steps");
+    assertThat(section.getAttributesList()).extracting(ProtobufSystemInfo.Attribute::getKey)
+      .containsExactly("Components per Task", "Issues per Task", "step1", "step2");
+    assertThat(section.getAttributes(2).getStringValue()).isEqualTo("count=1, p50=4, p95=4, p99=4, max=4 (ms), rows written=10");
+    assertThat(section.getAttributes(3).getStringValue()).isEqualTo("count=1, p50=100, p95=100, p99=100, max=100 (ms)");
+  }
+}
@@ -27,6 +27,8 @@ import javax.management.ObjectName;
 import org.junit.Test;
 import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.container.TaskContainerStatistics;
+import org.sonar.server.computation.util.Histogram;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -38,8 +40,10 @@ public class CeTasksMBeanImplTest {
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_MAX_COUNT = 666;
   private static final int WORKER_COUNT = 56;
+  private static final Histogram QUEUE_WAIT_TIME = new Histogram();
 
-  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
+  private TaskContainerStatistics containerStatistics = new TaskContainerStatistics();
+  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration(), containerStatistics);
 
   @Test
   public void register_and_unregister() throws Exception {
@@ -74,6 +78,23 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(PROCESSING_TIME);
   }
 
+  @Test
+  public void container_times_delegate_to_the_TaskContainerStatistics_instance() {
+    containerStatistics.addSetup(12);
+    containerStatistics.addSetup(30);
+    containerStatistics.addTeardown(5);
+
+    assertThat(underTest.getContainerSetupTime()).isEqualTo(42);
+    assertThat(underTest.getContainerTeardownTime()).isEqualTo(5);
+  }
+
+  @Test
+  public void queue_wait_times_delegate_to_the_CEQueueStatus_instance() {
+    assertThat(underTest.getQueueWaitTimeP50()).isEqualTo(QUEUE_WAIT_TIME.getPercentile(50));
+    assertThat(underTest.getQueueWaitTimeP95()).isEqualTo(QUEUE_WAIT_TIME.getPercentile(95));
+    assertThat(underTest.getQueueWaitTimeP99()).isEqualTo(QUEUE_WAIT_TIME.getPercentile(99));
+  }
+
   @Test
   public void getWorkerCount_delegates_to_the_CEConfiguration_instance() {
     assertThat(underTest.getWorkerCount()).isEqualTo(WORKER_COUNT);
@@ -88,7 +109,7 @@ public class CeTasksMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(7);
+    assertThat(section.getAttributesCount()).isEqualTo(12);
   }
   private static class DumbCEQueueStatus implements CEQueueStatus {
 
@@ -132,6 +153,16 @@ public class CeTasksMBeanImplTest {
     public long getProcessingTime() {
       return PROCESSING_TIME;
     }
+
+    @Override
+    public void addQueueWaitTime(long queueWaitTime) {
+      methodNotImplemented();
+    }
+
+    @Override
+    public Histogram getQueueWaitTime() {
+      return QUEUE_WAIT_TIME;
+    }
     private long methodNotImplemented() {
       throw new UnsupportedOperationException("Not Implemented");
     }
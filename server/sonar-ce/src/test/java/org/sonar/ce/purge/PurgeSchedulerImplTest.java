@@ -0,0 +1,205 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import java.util.concurrent.locks.Lock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.CeDistributedInformation;
+import org.sonar.ce.settings.ProjectConfigurationFactory;
+import org.sonar.core.util.Uuids;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.server.computation.dbcleaner.ProjectCleaner;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.ce.CeTaskTypes.REPORT;
+import static org.sonar.db.property.PropertyTesting.newComponentPropertyDto;
+
+public class PurgeSchedulerImplTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+  private PurgeExecutorService executorService = mock(PurgeExecutorService.class);
+  private CeDistributedInformation ceDistributedInformation = mock(CeDistributedInformation.class);
+  private Lock lock = mock(Lock.class);
+  private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private PurgeStatistics statistics = new PurgeStatistics();
+  private PurgeSchedulerImpl underTest = new PurgeSchedulerImpl(executorService, ceDistributedInformation, db.getDbClient(), projectCleaner,
+    new ProjectConfigurationFactory(new MapSettings(), db.getDbClient()), statistics, system2);
+
+  @Test
+  public void startScheduling_schedules_purge_every_minute() {
+    underTest.startScheduling();
+
+    verify(executorService).scheduleWithFixedDelay(any(Runnable.class), eq(1L), eq(1L), eq(MINUTES));
+  }
+
+  @Test
+  public void purge_history_of_roots_with_the_most_analyses_to_purge_first() {
+    acquireLock(true);
+    ComponentDto project1 = insertProjectWithAnalysesToPurge(1);
+    ComponentDto project2 = insertProjectWithAnalysesToPurge(3);
+    ComponentDto projectWithoutAnalysesToPurge = insertProjectWithAnalysesToPurge(0);
+
+    underTest.purge();
+
+    InOrder inOrder = inOrder(projectCleaner);
+    inOrder.verify(projectCleaner).purgeHistory(any(DbSession.class), argThat(hasUuid(project2)), any(Configuration.class));
+    inOrder.verify(projectCleaner).purgeHistory(any(DbSession.class), argThat(hasUuid(project1)), any(Configuration.class));
+    verify(projectCleaner, never()).purgeHistory(any(DbSession.class), argThat(hasUuid(projectWithoutAnalysesToPurge)), any(Configuration.class));
+    assertThat(statistics.getPurgedRoots()).isEqualTo(2);
+    assertThat(statistics.getPurgedAnalyses()).isEqualTo(4);
+    assertThat(statistics.getPendingRoots()).isEqualTo(0);
+    assertThat(statistics.getPendingAnalyses()).isEqualTo(0);
+    assertThat(statistics.getRuns()).isEqualTo(1);
+    verify(lock).unlock();
+  }
+
+  @Test
+  public void purge_uses_configuration_of_root() {
+    acquireLock(true);
+    ComponentDto project = insertProjectWithAnalysesToPurge(1);
+    db.properties().insertProperties(newComponentPropertyDto(project).setKey("sonar.dbcleaner.weeksBeforeDeletingAllSnapshots").setValue("10"));
+
+    underTest.purge();
+
+    ArgumentCaptor<Configuration> configuration = ArgumentCaptor.forClass(Configuration.class);
+    verify(projectCleaner).purgeHistory(any(DbSession.class), any(IdUuidPair.class), configuration.capture());
+    assertThat(configuration.getValue().get("sonar.dbcleaner.weeksBeforeDeletingAllSnapshots")).hasValue("10");
+  }
+
+  @Test
+  public void do_not_purge_if_lock_is_held_by_another_node() {
+    acquireLock(false);
+    insertProjectWithAnalysesToPurge(1);
+
+    underTest.purge();
+
+    verifyZeroInteractions(projectCleaner);
+    verify(lock, never()).unlock();
+    assertThat(statistics.getRuns()).isEqualTo(0);
+  }
+
+  @Test
+  public void stop_purging_when_time_box_is_exhausted() {
+    acquireLock(true);
+    ComponentDto project1 = insertProjectWithAnalysesToPurge(2);
+    ComponentDto project2 = insertProjectWithAnalysesToPurge(1);
+    doAnswer(invocation -> {
+      system2.setNow(system2.now() + 30_000L);
+      return projectCleaner;
+    })
+      .when(projectCleaner).purgeHistory(any(DbSession.class), any(IdUuidPair.class), any(Configuration.class));
+
+    underTest.purge();
+
+    verify(projectCleaner).purgeHistory(any(DbSession.class), argThat(hasUuid(project1)), any(Configuration.class));
+    verify(projectCleaner, never()).purgeHistory(any(DbSession.class), argThat(hasUuid(project2)), any(Configuration.class));
+    assertThat(statistics.getPendingRoots()).isEqualTo(1);
+    assertThat(statistics.getPendingAnalyses()).isEqualTo(1);
+    assertThat(statistics.getLastRunDuration()).isEqualTo(30_000L);
+    assertThat(statistics.getFailures()).isEqualTo(0);
+  }
+
+  @Test
+  public void failure_of_purge_of_a_root_does_not_prevent_purge_of_other_roots() {
+    acquireLock(true);
+    ComponentDto project1 = insertProjectWithAnalysesToPurge(2);
+    ComponentDto project2 = insertProjectWithAnalysesToPurge(1);
+    doThrow(new IllegalStateException("BOOM"))
+      .when(projectCleaner).purgeHistory(any(DbSession.class), argThat(hasUuid(project1)), any(Configuration.class));
+
+    underTest.purge();
+
+    verify(projectCleaner).purgeHistory(any(DbSession.class), argThat(hasUuid(project2)), any(Configuration.class));
+    assertThat(statistics.getFailures()).isEqualTo(1);
+    assertThat(statistics.getPurgedRoots()).isEqualTo(1);
+    verify(lock).unlock();
+  }
+
+  @Test
+  public void do_not_purge_root_being_analyzed() {
+    acquireLock(true);
+    ComponentDto project = insertProjectWithAnalysesToPurge(1);
+    ComponentDto projectBeingAnalyzed = insertProjectWithAnalysesToPurge(2);
+    CeQueueDto task = new CeQueueDto()
+      .setUuid(Uuids.createFast())
+      .setTaskType(REPORT)
+      .setComponentUuid(projectBeingAnalyzed.uuid())
+      .setStatus(CeQueueDto.Status.IN_PROGRESS);
+    db.getDbClient().ceQueueDao().insert(db.getSession(), task);
+    db.commit();
+
+    underTest.purge();
+
+    verify(projectCleaner).purgeHistory(any(DbSession.class), argThat(hasUuid(project)), any(Configuration.class));
+    verify(projectCleaner, never()).purgeHistory(any(DbSession.class), argThat(hasUuid(projectBeingAnalyzed)), any(Configuration.class));
+  }
+
+  private void acquireLock(boolean acquired) {
+    when(ceDistributedInformation.acquirePurgeJobLock()).thenReturn(lock);
+    when(lock.tryLock()).thenReturn(acquired);
+  }
+
+  private ComponentDto insertProjectWithAnalysesToPurge(int analysesToPurge) {
+    ComponentDto project = db.components().insertPrivateProject();
+    for (int i = 0; i < analysesToPurge; i++) {
+      db.components().insertSnapshot(project, s -> s.setStatus(SnapshotDto.STATUS_PROCESSED).setLast(false));
+    }
+    db.components().insertSnapshot(project, s -> s.setStatus(SnapshotDto.STATUS_PROCESSED).setLast(true));
+    return project;
+  }
+
+  private static ArgumentMatcher<IdUuidPair> hasUuid(ComponentDto root) {
+    return new ArgumentMatcher<IdUuidPair>() {
+      @Override
+      public boolean matches(Object argument) {
+        return argument != null && root.uuid().equals(((IdUuidPair) argument).getUuid())
+          && root.getId().equals(((IdUuidPair) argument).getId());
+      }
+    };
+  }
+}
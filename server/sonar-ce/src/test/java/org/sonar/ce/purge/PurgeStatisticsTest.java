@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.purge;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PurgeStatisticsTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private PurgeStatistics underTest = new PurgeStatistics();
+
+  @Test
+  public void purged_roots_and_analyses_are_removed_from_pending_ones() {
+    underTest.setPending(3, 10);
+    underTest.addPurged(4);
+    underTest.addPurged(2);
+
+    assertThat(underTest.getPendingRoots()).isEqualTo(1);
+    assertThat(underTest.getPendingAnalyses()).isEqualTo(4);
+    assertThat(underTest.getPurgedRoots()).isEqualTo(2);
+    assertThat(underTest.getPurgedAnalyses()).isEqualTo(6);
+  }
+
+  @Test
+  public void pending_counts_never_become_negative() {
+    underTest.addPurged(4);
+
+    assertThat(underTest.getPendingRoots()).isEqualTo(0);
+    assertThat(underTest.getPendingAnalyses()).isEqualTo(0);
+  }
+
+  @Test
+  public void runs_and_failures_are_counted() {
+    underTest.addRun(10);
+    underTest.addRun(20);
+    underTest.addFailure();
+
+    assertThat(underTest.getRuns()).isEqualTo(2);
+    assertThat(underTest.getLastRunDuration()).isEqualTo(20);
+    assertThat(underTest.getFailures()).isEqualTo(1);
+  }
+
+  @Test
+  public void fail_if_duration_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Duration can not be < 0");
+
+    underTest.addRun(-1);
+  }
+
+  @Test
+  public void fail_if_number_of_analyses_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Number of analyses can not be < 0");
+
+    underTest.addPurged(-1);
+  }
+}
@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.sonar.api.platform.Server;
 import org.sonar.ce.cleaning.CeCleaningScheduler;
 import org.sonar.ce.CeDistributedInformation;
+import org.sonar.ce.purge.PurgeScheduler;
 import org.sonar.ce.taskprocessor.CeProcessingScheduler;
 
 import static org.mockito.Mockito.mock;
@@ -36,7 +37,8 @@ public class CeQueueInitializerTest {
   private Server server = mock(Server.class);
   private CeProcessingScheduler processingScheduler = mock(CeProcessingScheduler.class);
   private CeCleaningScheduler cleaningScheduler = mock(CeCleaningScheduler.class);
-  private CeQueueInitializer underTest = new CeQueueInitializer(processingScheduler, cleaningScheduler, mock(CeDistributedInformation.class));
+  private PurgeScheduler purgeScheduler = mock(PurgeScheduler.class);
+  private CeQueueInitializer underTest = new CeQueueInitializer(processingScheduler, cleaningScheduler, purgeScheduler, mock(CeDistributedInformation.class));
 
   @Test
   public void clean_queue_then_start_scheduler_of_workers() throws IOException {
@@ -44,16 +46,17 @@ public class CeQueueInitializerTest {
 
     verify(processingScheduler).startScheduling();
     verify(cleaningScheduler).startScheduling();
+    verify(purgeScheduler).startScheduling();
   }
 
   @Test
   public void onServerStart_has_no_effect_if_called_twice_to_support_medium_test_doing_startup_tasks_multiple_times() {
     underTest.onServerStart(server);
-    reset(processingScheduler, cleaningScheduler);
+    reset(processingScheduler, cleaningScheduler, purgeScheduler);
 
     underTest.onServerStart(server);
 
-    verifyZeroInteractions(processingScheduler, cleaningScheduler);
+    verifyZeroInteractions(processingScheduler, cleaningScheduler, purgeScheduler);
 
   }
 }
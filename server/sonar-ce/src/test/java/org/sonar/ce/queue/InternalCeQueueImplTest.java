@@ -328,6 +328,16 @@ public class InternalCeQueueImplTest {
     assertThat(ceQueueDto.getWorkerUuid()).isEqualTo(WORKER_UUID_1);
   }
 
+  @Test
+  public void peek_records_time_spent_in_queue() {
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    underTest.peek(WORKER_UUID_1);
+
+    assertThat(queueStatus.getQueueWaitTime().getCount()).isEqualTo(1);
+    assertThat(queueStatus.getQueueWaitTime().getMax()).isGreaterThan(0);
+  }
+
   @Test
   public void peek_nothing_if_application_status_stopping() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -71,6 +71,7 @@ public final class SqTables {
     "issue_changes",
     "live_measures",
     "manual_measures",
+    "measure_series",
     "metrics",
     "notifications",
     "organizations",
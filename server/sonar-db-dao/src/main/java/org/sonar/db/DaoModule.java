@@ -41,6 +41,7 @@ import org.sonar.db.issue.IssueChangeDao;
 import org.sonar.db.issue.IssueDao;
 import org.sonar.db.measure.LiveMeasureDao;
 import org.sonar.db.measure.MeasureDao;
+import org.sonar.db.measure.MeasureSeriesDao;
 import org.sonar.db.measure.custom.CustomMeasureDao;
 import org.sonar.db.metric.MetricDao;
 import org.sonar.db.notification.NotificationQueueDao;
@@ -94,6 +95,7 @@ public class DaoModule extends Module {
     ComponentKeyUpdaterDao.class,
     ComponentLinkDao.class,
     LiveMeasureDao.class,
+    MeasureSeriesDao.class,
     CustomMeasureDao.class,
     DefaultQProfileDao.class,
     DuplicationDao.class,
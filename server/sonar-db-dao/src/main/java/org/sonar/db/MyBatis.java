@@ -65,6 +65,7 @@ import org.sonar.db.issue.ShortBranchIssueDto;
 import org.sonar.db.measure.LiveMeasureMapper;
 import org.sonar.db.measure.MeasureDto;
 import org.sonar.db.measure.MeasureMapper;
+import org.sonar.db.measure.MeasureSeriesMapper;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.measure.custom.CustomMeasureMapper;
 import org.sonar.db.metric.MetricMapper;
@@ -209,6 +210,7 @@ public class MyBatis implements Startable {
       ComponentLinkMapper.class,
       ComponentMapper.class,
       LiveMeasureMapper.class,
+      MeasureSeriesMapper.class,
       CustomMeasureMapper.class,
       DefaultQProfileMapper.class,
       DuplicationMapper.class,
@@ -22,10 +22,12 @@ package org.sonar.db.duplication;
 import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
 
 public class DuplicationDao implements Dao {
 
@@ -46,6 +48,23 @@ public class DuplicationDao implements Dao {
     session.getMapper(DuplicationMapper.class).batchInsert(dto);
   }
   
+  /**
+   * Copies the rows of the specified components from an analysis to another one, for example to keep the rows of the
+   * files which did not change since the previous analysis. Rows of the previous analysis are left unchanged, they
+   * are deleted when this analysis is purged.
+   */
+  public void copyToAnalysis(DbSession session, String previousAnalysisUuid, String analysisUuid, Collection<String> componentUuids) {
+    DuplicationMapper mapper = session.getMapper(DuplicationMapper.class);
+    executeLargeUpdates(componentUuids, partition -> mapper.copyToAnalysis(previousAnalysisUuid, analysisUuid, partition));
+  }
+
+  /**
+   * Rows of the specified analysis, ordered by component and index in file.
+   */
+  public void scrollByAnalysisUuid(DbSession session, String analysisUuid, ResultHandler<DuplicationUnitDto> handler) {
+    session.getMapper(DuplicationMapper.class).scrollByAnalysisUuid(analysisUuid, handler);
+  }
+
   /**
    * @param componentUUid uuid of the component
    */
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 public interface DuplicationMapper {
 
@@ -34,4 +35,9 @@ public interface DuplicationMapper {
   void batchInsert(DuplicationUnitDto unit);
 
   List<DuplicationUnitDto> selectComponent(@Param("componentUuid") String componentUuid, @Param("analysisUuid") String analysisUuid);
+
+  void scrollByAnalysisUuid(@Param("analysisUuid") String analysisUuid, ResultHandler<DuplicationUnitDto> handler);
+
+  void copyToAnalysis(@Param("previousAnalysisUuid") String previousAnalysisUuid, @Param("analysisUuid") String analysisUuid,
+    @Param("componentUuids") List<String> componentUuids);
 }
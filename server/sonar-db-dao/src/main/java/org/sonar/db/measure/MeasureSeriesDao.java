@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.Uuids;
+import org.sonar.db.Dao;
+import org.sonar.db.DbSession;
+
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+
+public class MeasureSeriesDao implements Dao {
+
+  private final System2 system2;
+
+  public MeasureSeriesDao(System2 system2) {
+    this.system2 = system2;
+  }
+
+  public List<MeasureSeriesDto> selectByComponentUuidAndMetricIds(DbSession dbSession, String componentUuid, Collection<Integer> metricIds) {
+    if (metricIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return executeLargeInputs(metricIds, ids -> mapper(dbSession).selectByComponentUuidAndMetricIds(componentUuid, ids));
+  }
+
+  public List<MeasureSeriesDto> selectByComponentUuid(DbSession dbSession, String componentUuid) {
+    return mapper(dbSession).selectByComponentUuid(componentUuid);
+  }
+
+  public void insert(DbSession dbSession, MeasureSeriesDto dto) {
+    long now = system2.now();
+    dto.setUuid(Uuids.create());
+    dto.setCreatedAt(now);
+    dto.setUpdatedAt(now);
+    mapper(dbSession).insert(dto);
+  }
+
+  /**
+   * Series are updated by analyses and by the background purge. The column updated_at is used for optimistic
+   * locking: it is strictly increased by each update, and the row is updated only if it has not been changed
+   * since {@code dto} was loaded.
+   *
+   * @return {@code false} if the row has been changed in the meantime, in which case it must be reloaded before
+   * retrying the update. Must not be used with a batch session, which does not return the number of updated rows.
+   */
+  public boolean update(DbSession dbSession, MeasureSeriesDto dto) {
+    long oldUpdatedAt = dto.getUpdatedAt();
+    dto.setUpdatedAt(nextUpdatedAt(system2, oldUpdatedAt));
+    if (mapper(dbSession).update(dto, oldUpdatedAt) == 1) {
+      return true;
+    }
+    dto.setUpdatedAt(oldUpdatedAt);
+    return false;
+  }
+
+  public static long nextUpdatedAt(System2 system2, long oldUpdatedAt) {
+    return Math.max(system2.now(), oldUpdatedAt + 1);
+  }
+
+  private static MeasureSeriesMapper mapper(DbSession dbSession) {
+    return dbSession.getMapper(MeasureSeriesMapper.class);
+  }
+}
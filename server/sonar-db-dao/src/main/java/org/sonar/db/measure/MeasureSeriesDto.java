@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import org.sonar.core.timemachine.MeasureSeries;
+
+/**
+ * History of the measures of a metric on a project, stored as a single encoded {@link MeasureSeries}.
+ */
+public class MeasureSeriesDto {
+
+  private String uuid;
+  private String componentUuid;
+  private int metricId;
+  private byte[] data;
+  private long createdAt;
+  private long updatedAt;
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public MeasureSeriesDto setUuid(String s) {
+    this.uuid = s;
+    return this;
+  }
+
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public MeasureSeriesDto setComponentUuid(String s) {
+    this.componentUuid = s;
+    return this;
+  }
+
+  public int getMetricId() {
+    return metricId;
+  }
+
+  public MeasureSeriesDto setMetricId(int i) {
+    this.metricId = i;
+    return this;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+
+  public MeasureSeriesDto setData(byte[] data) {
+    this.data = data;
+    return this;
+  }
+
+  public MeasureSeries getSeries() {
+    return MeasureSeries.decode(data);
+  }
+
+  public MeasureSeriesDto setSeries(MeasureSeries series) {
+    this.data = series.encode();
+    return this;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public MeasureSeriesDto setCreatedAt(long l) {
+    this.createdAt = l;
+    return this;
+  }
+
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public MeasureSeriesDto setUpdatedAt(long l) {
+    this.updatedAt = l;
+    return this;
+  }
+}
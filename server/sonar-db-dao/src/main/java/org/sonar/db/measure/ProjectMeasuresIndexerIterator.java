@@ -26,6 +26,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -76,31 +77,48 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
 
   private static final String PROJECT_FILTER = " AND p.uuid=?";
 
-  private static final String SQL_MEASURES = "SELECT m.name, pm.value, pm.variation, pm.text_value FROM live_measures pm " +
+  private static final String ORDER_BY_PROJECT = " ORDER BY p.uuid";
+
+  /**
+   * Measures of all the projects returned by {@link #SQL_PROJECTS}, in the same order, so that they can be read along
+   * with projects in a single scan.
+   */
+  private static final String SQL_MEASURES = "SELECT p.uuid, m.name, pm.value, pm.variation, pm.text_value FROM live_measures pm " +
     "INNER JOIN metrics m ON m.id = pm.metric_id " +
-    "WHERE pm.component_uuid = ? " +
+    "INNER JOIN projects p ON p.uuid = pm.component_uuid " +
+    "WHERE p.enabled=? AND p.scope=? AND p.qualifier=? and p.main_branch_project_uuid is null " +
     "AND m.name IN ({metricNames}) " +
     "AND (pm.value IS NOT NULL OR pm.variation IS NOT NULL OR pm.text_value IS NOT NULL) " +
     "AND m.enabled = ? ";
   private static final boolean ENABLED = true;
-  private static final int FIELD_METRIC_NAME = 1;
-  private static final int FIELD_MEASURE_VALUE = 2;
-  private static final int FIELD_MEASURE_VARIATION = 3;
-  private static final int FIELD_MEASURE_TEXT_VALUE = 4;
+  private static final int FIELD_PROJECT_UUID = 1;
+  private static final int FIELD_METRIC_NAME = 2;
+  private static final int FIELD_MEASURE_VALUE = 3;
+  private static final int FIELD_MEASURE_VARIATION = 4;
+  private static final int FIELD_MEASURE_TEXT_VALUE = 5;
+  private static final int MEASURES_FETCH_SIZE = 1_000;
 
   private final PreparedStatement measuresStatement;
   private final Iterator<Project> projects;
+  /**
+   * Uuids of the projects which are not returned yet, including the current one
+   */
+  private final Set<String> pendingProjectUuids = new HashSet<>();
+  @CheckForNull
+  private ResultSet measures;
+  private boolean hasCurrentMeasure = false;
 
   private ProjectMeasuresIndexerIterator(PreparedStatement measuresStatement, List<Project> projects) {
     this.measuresStatement = measuresStatement;
     this.projects = projects.iterator();
+    projects.forEach(project -> pendingProjectUuids.add(project.getUuid()));
   }
 
   public static ProjectMeasuresIndexerIterator create(DbSession session, @Nullable String projectUuid) {
     try {
       List<Project> projects = selectProjects(session, projectUuid);
-      PreparedStatement projectsStatement = createMeasuresStatement(session);
-      return new ProjectMeasuresIndexerIterator(projectsStatement, projects);
+      PreparedStatement measuresStatement = createMeasuresStatement(session, projectUuid);
+      return new ProjectMeasuresIndexerIterator(measuresStatement, projects);
     } catch (SQLException e) {
       throw new IllegalStateException("Fail to execute request to select all project measures", e);
     }
@@ -132,6 +150,7 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
       if (projectUuid != null) {
         sql.append(PROJECT_FILTER);
       }
+      sql.append(ORDER_BY_PROJECT);
       PreparedStatement stmt = session.getConnection().prepareStatement(sql.toString());
       stmt.setBoolean(1, true);
       stmt.setBoolean(2, true);
@@ -146,11 +165,26 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     }
   }
 
-  private static PreparedStatement createMeasuresStatement(DbSession session) throws SQLException {
+  private static PreparedStatement createMeasuresStatement(DbSession session, @Nullable String projectUuid) throws SQLException {
     try {
       String metricNameQuestionMarks = METRIC_KEYS.stream().map(x -> "?").collect(Collectors.joining(","));
-      String sql = StringUtils.replace(SQL_MEASURES, "{metricNames}", metricNameQuestionMarks);
-      return session.getConnection().prepareStatement(sql);
+      StringBuilder sql = new StringBuilder(StringUtils.replace(SQL_MEASURES, "{metricNames}", metricNameQuestionMarks));
+      if (projectUuid != null) {
+        sql.append(PROJECT_FILTER);
+      }
+      sql.append(ORDER_BY_PROJECT);
+      PreparedStatement stmt = session.getConnection().prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      stmt.setFetchSize(MEASURES_FETCH_SIZE);
+      AtomicInteger index = new AtomicInteger(1);
+      stmt.setBoolean(index.getAndIncrement(), true);
+      stmt.setString(index.getAndIncrement(), Scopes.PROJECT);
+      stmt.setString(index.getAndIncrement(), Qualifiers.PROJECT);
+      METRIC_KEYS.forEach(DatabaseUtils.setStrings(stmt, index::getAndIncrement));
+      stmt.setBoolean(index.getAndIncrement(), ENABLED);
+      if (projectUuid != null) {
+        stmt.setString(index.getAndIncrement(), projectUuid);
+      }
+      return stmt;
     } catch (SQLException e) {
       throw new IllegalStateException("Fail to prepare SQL request to select measures", e);
     }
@@ -164,29 +198,46 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     }
     Project project = projects.next();
     Measures measures = selectMeasures(project.getUuid());
+    pendingProjectUuids.remove(project.getUuid());
     return new ProjectMeasures(project, measures);
   }
 
+  /**
+   * Reads the measures of the given project from the result set of {@link #SQL_MEASURES}. As projects and measures are
+   * sorted the same way, the measures of the project are the next rows, if any.
+   * <p>
+   * Both requests are not executed at the same time, so measures may relate to projects which are not returned, for
+   * example projects created in the meantime. Such rows are skipped, otherwise they would stop the scan and all
+   * following projects would have no measures.
+   * </p>
+   */
   private Measures selectMeasures(String projectUuid) {
-    Measures measures = new Measures();
-    ResultSet rs = null;
+    Measures projectMeasures = new Measures();
     try {
-      AtomicInteger index = new AtomicInteger(1);
-      measuresStatement.setString(index.getAndIncrement(), projectUuid);
-      METRIC_KEYS.forEach(DatabaseUtils.setStrings(measuresStatement, index::getAndIncrement));
-      measuresStatement.setBoolean(index.getAndIncrement(), ENABLED);
-      rs = measuresStatement.executeQuery();
-      while (rs.next()) {
-        readMeasure(rs, measures);
+      while (hasCurrentMeasure()) {
+        String measureProjectUuid = measures.getString(FIELD_PROJECT_UUID);
+        if (projectUuid.equals(measureProjectUuid)) {
+          readMeasure(measures, projectMeasures);
+        } else if (pendingProjectUuids.contains(measureProjectUuid)) {
+          // first measure of one of the next projects
+          break;
+        }
+        hasCurrentMeasure = measures.next();
       }
-      return measures;
+      return projectMeasures;
     } catch (Exception e) {
       throw new IllegalStateException(String.format("Fail to execute request to select measures of project %s", projectUuid), e);
-    } finally {
-      DatabaseUtils.closeQuietly(rs);
     }
   }
 
+  private boolean hasCurrentMeasure() throws SQLException {
+    if (measures == null) {
+      measures = measuresStatement.executeQuery();
+      hasCurrentMeasure = measures.next();
+    }
+    return hasCurrentMeasure;
+  }
+
   private static void readMeasure(ResultSet rs, Measures measures) throws SQLException {
     String metricKey = rs.getString(FIELD_METRIC_NAME);
     Optional<Double> value = metricKey.startsWith("new_") ? getDouble(rs, FIELD_MEASURE_VARIATION) : getDouble(rs, FIELD_MEASURE_VALUE);
@@ -213,6 +264,7 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
 
   @Override
   protected void doClose() throws Exception {
+    DatabaseUtils.closeQuietly(measures);
     measuresStatement.close();
   }
 
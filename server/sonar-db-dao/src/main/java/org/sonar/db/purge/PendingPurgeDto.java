@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+/**
+ * A root component (project, branch or portfolio) having analyses which are not purged yet.
+ */
+public class PendingPurgeDto {
+  private String rootUuid;
+  private long analysisCount;
+
+  public String getRootUuid() {
+    return rootUuid;
+  }
+
+  public PendingPurgeDto setRootUuid(String rootUuid) {
+    this.rootUuid = rootUuid;
+    return this;
+  }
+
+  /**
+   * Number of processed analyses of the root component which are neither the last one nor purged.
+   */
+  public long getAnalysisCount() {
+    return analysisCount;
+  }
+
+  public PendingPurgeDto setAnalysisCount(long analysisCount) {
+    this.analysisCount = analysisCount;
+    return this;
+  }
+}
@@ -22,9 +22,16 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.System2;
+import org.sonar.core.timemachine.MeasureSeries;
 import org.sonar.db.DbSession;
+import org.sonar.db.measure.MeasureSeriesDao;
+import org.sonar.db.measure.MeasureSeriesDto;
 
 class PurgeCommands {
 
@@ -34,16 +41,18 @@ class PurgeCommands {
   private final DbSession session;
   private final PurgeMapper purgeMapper;
   private final PurgeProfiler profiler;
+  private final System2 system2;
 
-  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler) {
+  PurgeCommands(DbSession session, PurgeMapper purgeMapper, PurgeProfiler profiler, System2 system2) {
     this.session = session;
     this.purgeMapper = purgeMapper;
     this.profiler = profiler;
+    this.system2 = system2;
   }
 
   @VisibleForTesting
-  PurgeCommands(DbSession session, PurgeProfiler profiler) {
-    this(session, session.getMapper(PurgeMapper.class), profiler);
+  PurgeCommands(DbSession session, PurgeProfiler profiler, System2 system2) {
+    this(session, session.getMapper(PurgeMapper.class), profiler, system2);
   }
 
   List<String> selectSnapshotUuids(PurgeSnapshotQuery query) {
@@ -100,6 +109,9 @@ class PurgeCommands {
     session.commit();
     profiler.stop();
 
+    // must be done before deletion of snapshots, which are used to find the series to be updated
+    purgeMeasureSeries(analysisUuidsPartitions, null);
+
     profiler.start("deleteAnalyses (project_measures)");
     analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisMeasures);
     session.commit();
@@ -130,12 +142,54 @@ class PurgeCommands {
     }
     profiler.stop();
 
+    if (!metricIdsWithoutHistoricalData.isEmpty()) {
+      purgeMeasureSeries(analysisUuidsPartitions, metricIdsWithoutHistoricalData);
+    }
+
     profiler.start("updatePurgeStatusToOne (snapshots)");
     analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
     session.commit();
     profiler.stop();
   }
 
+  /**
+   * Removes the points of the specified analyses from the series of their component. Only the series of the specified
+   * metrics are updated when {@code metricIds} is not {@code null}.
+   * <p>
+   * An analysis of the component may append a point to the same series at the same time, so each series is updated
+   * only if it has not been changed since it was read (see {@link MeasureSeriesDao#update}), otherwise it is
+   * reloaded and purged again. Each update is committed on its own, so that no lock is held while waiting for the
+   * lock of another series. With a batch session the number of updated rows is unknown: a conflicting update is then
+   * not retried, the points being left in the series rather than overwriting the changes of the analysis.
+   */
+  private void purgeMeasureSeries(List<List<String>> analysisUuidsPartitions, @Nullable List<Long> metricIds) {
+    profiler.start("purgeMeasureSeries (measure_series)");
+    for (List<String> analysisUuidsPartition : analysisUuidsPartitions) {
+      Set<String> analysisUuids = new HashSet<>(analysisUuidsPartition);
+      for (MeasureSeriesDto dto : purgeMapper.selectMeasureSeriesByAnalysisUuids(analysisUuidsPartition, metricIds)) {
+        purgeMeasureSeries(dto, analysisUuids);
+      }
+    }
+    profiler.stop();
+  }
+
+  private void purgeMeasureSeries(MeasureSeriesDto loadedDto, Set<String> analysisUuids) {
+    MeasureSeriesDto dto = loadedDto;
+    while (dto != null) {
+      MeasureSeries series = dto.getSeries();
+      if (!series.removeIf(point -> analysisUuids.contains(point.getAnalysisUuid()))) {
+        return;
+      }
+      long updatedAt = MeasureSeriesDao.nextUpdatedAt(system2, dto.getUpdatedAt());
+      if (purgeMapper.updateMeasureSeriesData(dto.getUuid(), series.encode(), updatedAt, dto.getUpdatedAt()) != 0) {
+        session.commit();
+        return;
+      }
+      session.commit();
+      dto = purgeMapper.selectMeasureSeriesByUuid(dto.getUuid());
+    }
+  }
+
   private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
     profiler.start("deleteAnalysisDuplications (duplications_index)");
     snapshotUuidsPartitions.forEach(purgeMapper::deleteAnalysisDuplications);
@@ -274,6 +328,13 @@ class PurgeCommands {
     profiler.stop();
   }
 
+  void deleteMeasureSeries(String rootUuid) {
+    profiler.start("deleteMeasureSeries (measure_series)");
+    purgeMapper.deleteMeasureSeriesByComponentUuid(rootUuid);
+    session.commit();
+    profiler.stop();
+  }
+
   void deleteLiveMeasures(String rootUuid) {
     profiler.start("deleteLiveMeasures (live_measures)");
     purgeMapper.deleteLiveMeasuresByProjectUuid(rootUuid);
@@ -27,6 +27,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import org.apache.ibatis.session.RowBounds;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -46,6 +47,7 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 public class PurgeDao implements Dao {
   private static final Logger LOG = Loggers.get(PurgeDao.class);
   private static final String[] UNPROCESSED_STATUS = new String[] {"U"};
+  private static final String[] PROCESSED_STATUS = new String[] {"P"};
   private static final ImmutableSet<String> QUALIFIERS_PROJECT_VIEW = ImmutableSet.of("TRK", "VW");
   private static final ImmutableSet<String> QUALIFIERS_MODULE_SUBVIEW = ImmutableSet.of("BRC", "SVW");
   private static final String SCOPE_PROJECT = "PRJ";
@@ -58,18 +60,47 @@ public class PurgeDao implements Dao {
     this.system2 = system2;
   }
 
+  /**
+   * Same as {@link #purgeAfterAnalysis(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)} followed by
+   * {@link #purgeHistory(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}.
+   */
   public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
-    PurgeMapper mapper = session.getMapper(PurgeMapper.class);
-    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    purgeAfterAnalysis(session, conf, listener, profiler);
+    purgeHistory(session, conf, listener, profiler);
+  }
+
+  /**
+   * Deletes the aborted analyses of the root component and the data of its disabled components. This is cheap and
+   * must be done by the task which analyzed the root component, as no other analysis of it can be in progress.
+   */
+  public void purgeAfterAnalysis(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    PurgeCommands commands = new PurgeCommands(session, mapper(session), profiler, system2);
+    deleteAbortedAnalyses(conf.rootProjectIdUuid().getUuid(), commands);
+    purgeDisabledComponents(session, conf, listener);
+  }
+
+  /**
+   * Purges the processed analyses of the root component which are not the last one, old closed issues and stale
+   * branches. Analyses in progress are left untouched, so that it can be run at any time.
+   */
+  public void purgeHistory(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    PurgeMapper mapper = mapper(session);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler, system2);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
-    deleteAbortedAnalyses(rootUuid, commands);
     deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.getScopesWithoutHistoricalData(), commands);
     purgeAnalyses(commands, rootUuid);
-    purgeDisabledComponents(session, conf, listener);
     deleteOldClosedIssues(conf, mapper, listener);
     purgeStaleBranches(commands, conf, mapper, rootUuid);
   }
 
+  /**
+   * Root components having processed analyses which are not purged yet, the ones with the most of them first. Root
+   * components being analyzed are excluded.
+   */
+  public List<PendingPurgeDto> selectPendingPurges(DbSession session, int limit) {
+    return mapper(session).selectPendingPurges(new RowBounds(0, limit));
+  }
+
   private static void purgeStaleBranches(PurgeCommands commands, PurgeConfiguration conf, PurgeMapper mapper, String rootUuid) {
     Optional<Date> maxDate = conf.maxLiveDateOfInactiveShortLivingBranches();
     if (!maxDate.isPresent()) {
@@ -90,6 +121,7 @@ public class PurgeDao implements Dao {
       new PurgeSnapshotQuery()
         .setComponentUuid(rootUuid)
         .setIslast(false)
+        .setStatus(PROCESSED_STATUS)
         .setNotPurged(true));
     commands.purgeAnalyses(analysisUuids);
   }
@@ -127,6 +159,7 @@ public class PurgeDao implements Dao {
       new PurgeSnapshotQuery()
         .setComponentUuid(rootUuid)
         .setIslast(false)
+        .setStatus(PROCESSED_STATUS)
         .setNotPurged(true));
     List<String> componentWithoutHistoricalDataUuids = componentDao
       .selectDescendants(
@@ -168,14 +201,14 @@ public class PurgeDao implements Dao {
   public void deleteBranch(DbSession session, String uuid) {
     PurgeProfiler profiler = new PurgeProfiler();
     PurgeMapper purgeMapper = mapper(session);
-    PurgeCommands purgeCommands = new PurgeCommands(session, profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(session, profiler, system2);
     deleteRootComponent(uuid, purgeMapper, purgeCommands);
   }
 
   public void deleteProject(DbSession session, String uuid) {
     PurgeProfiler profiler = new PurgeProfiler();
     PurgeMapper purgeMapper = mapper(session);
-    PurgeCommands purgeCommands = new PurgeCommands(session, profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(session, profiler, system2);
 
     session.getMapper(BranchMapper.class).selectByProjectUuid(uuid)
       .stream()
@@ -204,6 +237,7 @@ public class PurgeDao implements Dao {
     commands.deleteWebhookDeliveries(rootUuid);
     commands.deleteBranch(rootUuid);
     commands.deleteLiveMeasures(rootUuid);
+    commands.deleteMeasureSeries(rootUuid);
   }
 
   /**
@@ -220,7 +254,7 @@ public class PurgeDao implements Dao {
     }
 
     PurgeProfiler profiler = new PurgeProfiler();
-    PurgeCommands purgeCommands = new PurgeCommands(dbSession, profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(dbSession, profiler, system2);
     deleteNonRootComponentsInView(nonRootComponents, purgeCommands);
   }
 
@@ -248,7 +282,7 @@ public class PurgeDao implements Dao {
   }
 
   public void deleteAnalyses(DbSession session, PurgeProfiler profiler, List<IdUuidPair> analysisIdUuids) {
-    new PurgeCommands(session, profiler).deleteAnalyses(analysisIdUuids);
+    new PurgeCommands(session, profiler, system2).deleteAnalyses(analysisIdUuids);
   }
 
   private static PurgeMapper mapper(DbSession session) {
@@ -20,13 +20,18 @@
 package org.sonar.db.purge;
 
 import java.util.List;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.RowBounds;
+import org.sonar.db.measure.MeasureSeriesDto;
 
 public interface PurgeMapper {
 
   List<IdUuidPair> selectAnalysisIdsAndUuids(PurgeSnapshotQuery query);
 
+  List<PendingPurgeDto> selectPendingPurges(RowBounds rowBounds);
+
   /**
    * Returns the list of modules/subviews and the application/view/project for the specified project_uuid.
    */
@@ -99,4 +104,17 @@ public interface PurgeMapper {
   void deleteBranchByUuid(@Param("uuid") String uuid);
 
   void deleteLiveMeasuresByProjectUuid(@Param("projectUuid") String projectUuid);
+
+  /**
+   * Returns the series of the components of the specified analyses, restricted to the specified metrics when
+   * {@code metricIds} is not {@code null}.
+   */
+  List<MeasureSeriesDto> selectMeasureSeriesByAnalysisUuids(@Param("analysisUuids") List<String> analysisUuids, @Nullable @Param("metricIds") List<Long> metricIds);
+
+  @CheckForNull
+  MeasureSeriesDto selectMeasureSeriesByUuid(@Param("uuid") String uuid);
+
+  int updateMeasureSeriesData(@Param("uuid") String uuid, @Param("data") byte[] data, @Param("updatedAt") long updatedAt, @Param("oldUpdatedAt") long oldUpdatedAt);
+
+  void deleteMeasureSeriesByComponentUuid(@Param("componentUuid") String componentUuid);
 }
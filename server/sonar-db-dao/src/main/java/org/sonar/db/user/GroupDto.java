@@ -87,6 +87,17 @@ public class GroupDto {
     return this.updatedAt;
   }
 
+  public GroupDto copy() {
+    GroupDto copy = new GroupDto();
+    copy.id = id;
+    copy.name = name;
+    copy.description = description;
+    copy.organizationUuid = organizationUuid;
+    copy.createdAt = createdAt == null ? null : new Date(createdAt.getTime());
+    copy.updatedAt = updatedAt == null ? null : new Date(updatedAt.getTime());
+    return copy;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder("GroupDto{");
@@ -255,6 +255,28 @@ public class UserDto {
     return DigestUtils.sha1Hex("--" + salt + "--" + password + "--");
   }
 
+  public UserDto copy() {
+    UserDto copy = new UserDto();
+    copy.id = id;
+    copy.login = login;
+    copy.name = name;
+    copy.email = email;
+    copy.active = active;
+    copy.scmAccounts = scmAccounts;
+    copy.externalIdentity = externalIdentity;
+    copy.externalIdentityProvider = externalIdentityProvider;
+    copy.cryptedPassword = cryptedPassword;
+    copy.salt = salt;
+    copy.createdAt = createdAt;
+    copy.updatedAt = updatedAt;
+    copy.homepageType = homepageType;
+    copy.homepageParameter = homepageParameter;
+    copy.local = local;
+    copy.root = root;
+    copy.onboarded = onboarded;
+    return copy;
+  }
+
   public DefaultUser toUser() {
     return new DefaultUser()
       .setLogin(login)
@@ -19,6 +19,7 @@
  */
 package org.sonar.db.duplication;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
@@ -26,8 +27,10 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 public class DuplicationDaoTest {
 
@@ -95,4 +98,51 @@ public class DuplicationDaoTest {
     db.assertDbUnit(getClass(), "insert-result.xml", "duplications_index");
   }
 
+  @Test
+  public void scroll_by_analysis_uuid_orders_by_component_and_index_in_file() {
+    insert("u1", "uuid_2", "cc", 0);
+    insert("u1", "uuid_1", "bb", 1);
+    insert("u1", "uuid_1", "aa", 0);
+    insert("u2", "uuid_1", "dd", 0);
+    dbSession.commit();
+
+    List<DuplicationUnitDto> blocks = new ArrayList<>();
+    dao.scrollByAnalysisUuid(dbSession, "u1", context -> blocks.add(context.getResultObject()));
+
+    assertThat(blocks)
+      .extracting(DuplicationUnitDto::getComponentUuid, DuplicationUnitDto::getHash, DuplicationUnitDto::getIndexInFile)
+      .containsExactly(tuple("uuid_1", "aa", 0), tuple("uuid_1", "bb", 1), tuple("uuid_2", "cc", 0));
+  }
+
+  @Test
+  public void copy_rows_of_components_to_analysis() {
+    insert("u1", "uuid_1", "aa", 0);
+    insert("u1", "uuid_1", "bb", 1);
+    insert("u1", "uuid_2", "cc", 0);
+    insert("u1", "uuid_3", "dd", 0);
+    dbSession.commit();
+
+    dao.copyToAnalysis(dbSession, "u1", "u2", asList("uuid_1", "uuid_3"));
+    dbSession.commit();
+
+    assertThat(dao.selectComponent(dbSession, "uuid_1", "u2"))
+      .extracting(DuplicationUnitDto::getHash, DuplicationUnitDto::getIndexInFile, DuplicationUnitDto::getStartLine, DuplicationUnitDto::getEndLine)
+      .containsOnly(tuple("aa", 0, 1, 2), tuple("bb", 1, 1, 2));
+    assertThat(dao.selectComponent(dbSession, "uuid_2", "u2")).isEmpty();
+    assertThat(dao.selectComponent(dbSession, "uuid_3", "u2")).extracting(DuplicationUnitDto::getHash).containsExactly("dd");
+    // rows of the previous analysis are kept
+    assertThat(dao.selectComponent(dbSession, "uuid_1", "u1")).extracting(DuplicationUnitDto::getHash).containsOnly("aa", "bb");
+    assertThat(dao.selectComponent(dbSession, "uuid_2", "u1")).extracting(DuplicationUnitDto::getHash).containsExactly("cc");
+    assertThat(dao.selectComponent(dbSession, "uuid_3", "u1")).extracting(DuplicationUnitDto::getHash).containsExactly("dd");
+  }
+
+  private void insert(String analysisUuid, String componentUuid, String hash, int indexInFile) {
+    dao.insert(dbSession, new DuplicationUnitDto()
+      .setAnalysisUuid(analysisUuid)
+      .setComponentUuid(componentUuid)
+      .setHash(hash)
+      .setIndexInFile(indexInFile)
+      .setStartLine(1)
+      .setEndLine(2));
+  }
 }
@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.core.timemachine.MeasureSeries;
+import org.sonar.db.DbTester;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MeasureSeriesDaoTest {
+
+  private System2 system2 = mock(System2.class);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
+
+  private MeasureSeriesDao underTest = db.getDbClient().measureSeriesDao();
+
+  @Test
+  public void insert_and_select_by_component_and_metrics() {
+    when(system2.now()).thenReturn(1_000L);
+    insert("P1", 10, new MeasureSeries().add(new MeasureSeries.Point("A1", 100L, 1.5d, null)));
+    insert("P1", 11, new MeasureSeries().add(new MeasureSeries.Point("A1", 100L, 3d, 2d)));
+    insert("P2", 10, new MeasureSeries().add(new MeasureSeries.Point("A2", 100L, 4d, null)));
+
+    List<MeasureSeriesDto> selected = underTest.selectByComponentUuidAndMetricIds(db.getSession(), "P1", asList(10, 12));
+
+    assertThat(selected)
+      .extracting(MeasureSeriesDto::getComponentUuid, MeasureSeriesDto::getMetricId, MeasureSeriesDto::getCreatedAt, MeasureSeriesDto::getUpdatedAt)
+      .containsExactly(tuple("P1", 10, 1_000L, 1_000L));
+    assertThat(selected.get(0).getUuid()).isNotEmpty();
+    assertThat(selected.get(0).getSeries().getPoints())
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getDate, MeasureSeries.Point::getValue, MeasureSeries.Point::getVariation)
+      .containsExactly(tuple("A1", 100L, 1.5d, null));
+  }
+
+  @Test
+  public void selectByComponentUuidAndMetricIds_returns_empty_list_if_no_metrics() {
+    insert("P1", 10, new MeasureSeries().add(new MeasureSeries.Point("A1", 100L, 1d, null)));
+
+    assertThat(underTest.selectByComponentUuidAndMetricIds(db.getSession(), "P1", emptyList())).isEmpty();
+  }
+
+  @Test
+  public void selectByComponentUuid_returns_series_of_all_metrics() {
+    insert("P1", 10, new MeasureSeries().add(new MeasureSeries.Point("A1", 100L, 1d, null)));
+    insert("P1", 11, new MeasureSeries().add(new MeasureSeries.Point("A1", 100L, 2d, null)));
+    insert("P2", 10, new MeasureSeries().add(new MeasureSeries.Point("A2", 100L, 3d, null)));
+
+    assertThat(underTest.selectByComponentUuid(db.getSession(), "P1"))
+      .extracting(MeasureSeriesDto::getMetricId)
+      .containsExactlyInAnyOrder(10, 11);
+    assertThat(underTest.selectByComponentUuid(db.getSession(), "P3")).isEmpty();
+  }
+
+  @Test
+  public void update_series() {
+    when(system2.now()).thenReturn(1_000L);
+    MeasureSeriesDto dto = insert("P1", 10, new MeasureSeries().add(new MeasureSeries.Point("A1", 100L, 1d, null)));
+
+    when(system2.now()).thenReturn(2_000L);
+    MeasureSeries series = dto.getSeries().add(new MeasureSeries.Point("A2", 200L, 2d, 1d));
+    underTest.update(db.getSession(), dto.setSeries(series));
+
+    MeasureSeriesDto reloaded = underTest.selectByComponentUuid(db.getSession(), "P1").get(0);
+    assertThat(reloaded.getCreatedAt()).isEqualTo(1_000L);
+    assertThat(reloaded.getUpdatedAt()).isEqualTo(2_000L);
+    assertThat(reloaded.getSeries().getPoints())
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getValue, MeasureSeries.Point::getVariation)
+      .containsExactly(tuple("A1", 1d, null), tuple("A2", 2d, 1d));
+  }
+
+  @Test
+  public void update_fails_if_series_has_been_updated_since_it_was_loaded() {
+    when(system2.now()).thenReturn(1_000L);
+    insert("P1", 10, new MeasureSeries().add(new MeasureSeries.Point("A1", 100L, 1d, null)));
+    MeasureSeriesDto loaded = underTest.selectByComponentUuid(db.getSession(), "P1").get(0);
+    db.getSession().clearCache();
+    MeasureSeriesDto stale = underTest.selectByComponentUuid(db.getSession(), "P1").get(0);
+    // same millisecond: updated_at must change anyway
+    assertThat(underTest.update(db.getSession(), loaded.setSeries(loaded.getSeries().add(new MeasureSeries.Point("A2", 200L, 2d, null))))).isTrue();
+    assertThat(loaded.getUpdatedAt()).isEqualTo(1_001L);
+
+    boolean updated = underTest.update(db.getSession(), stale.setSeries(new MeasureSeries()));
+
+    assertThat(updated).isFalse();
+    assertThat(stale.getUpdatedAt()).isEqualTo(1_000L);
+    assertThat(underTest.selectByComponentUuid(db.getSession(), "P1").get(0).getSeries().getPoints())
+      .extracting(MeasureSeries.Point::getAnalysisUuid)
+      .containsExactly("A1", "A2");
+  }
+
+  private MeasureSeriesDto insert(String componentUuid, int metricId, MeasureSeries series) {
+    MeasureSeriesDto dto = new MeasureSeriesDto()
+      .setComponentUuid(componentUuid)
+      .setMetricId(metricId)
+      .setSeries(series);
+    underTest.insert(db.getSession(), dto);
+    db.commit();
+    return dto;
+  }
+}
@@ -48,6 +48,7 @@ import static org.sonar.api.measures.Metric.ValueType.LEVEL;
 import static org.sonar.api.measures.Metric.ValueType.STRING;
 import static org.sonar.db.component.ComponentTesting.newView;
 import static org.sonar.db.component.SnapshotTesting.newAnalysis;
+import static org.sonar.db.measure.MeasureTesting.newLiveMeasure;
 
 public class ProjectMeasuresIndexerIteratorTest {
 
@@ -207,6 +208,36 @@ public class ProjectMeasuresIndexerIteratorTest {
     assertThat(createResultSetAndReturnDocsById()).hasSize(3);
   }
 
+  @Test
+  public void return_measures_of_large_number_of_projects() {
+    OrganizationDto organization = dbTester.organizations().insert();
+    MetricDto ncloc = dbTester.measures().insertMetric(m -> m.setValueType(INT.name()).setKey("ncloc"));
+    MetricDto coverage = dbTester.measures().insertMetric(m -> m.setValueType(INT.name()).setKey("coverage"));
+    int nbProjects = 30_000;
+    for (int i = 0; i < nbProjects; i++) {
+      ComponentDto project = ComponentTesting.newPrivateProjectDto(organization);
+      dbClient.componentDao().insert(dbSession, project);
+      // one project out of three has no measures
+      if (i % 3 != 0) {
+        dbClient.liveMeasureDao().insert(dbSession, newLiveMeasure(project, ncloc).setValue((double) i));
+        dbClient.liveMeasureDao().insert(dbSession, newLiveMeasure(project, coverage).setValue(i + 0.5d));
+      }
+    }
+    dbSession.commit();
+
+    Map<String, ProjectMeasures> docsById = createResultSetAndReturnDocsById();
+
+    assertThat(docsById).hasSize(nbProjects);
+    assertThat(docsById.values().stream().filter(doc -> doc.getMeasures().getNumericMeasures().isEmpty())).hasSize(nbProjects / 3);
+    docsById.values().stream()
+      .filter(doc -> !doc.getMeasures().getNumericMeasures().isEmpty())
+      .forEach(doc -> {
+        Map<String, Double> measures = doc.getMeasures().getNumericMeasures();
+        assertThat(measures).containsOnlyKeys("ncloc", "coverage");
+        assertThat(measures.get("coverage")).isEqualTo(measures.get("ncloc") + 0.5d);
+      });
+  }
+
   @Test
   public void return_project_without_analysis() throws Exception {
     ComponentDto project = dbTester.components().insertComponent(ComponentTesting.newPrivateProjectDto(dbTester.organizations().insert()));
@@ -258,6 +289,30 @@ public class ProjectMeasuresIndexerIteratorTest {
     assertThat(doc.getProject().getAnalysisDate()).isNotNull().isEqualTo(analysis1.getCreatedAt());
   }
 
+  @Test
+  public void skip_measures_of_projects_created_after_projects_are_loaded() {
+    OrganizationDto organization = dbTester.organizations().insert();
+    MetricDto metric = dbTester.measures().insertMetric(m -> m.setValueType(INT.name()).setKey("ncloc"));
+    ComponentDto project1 = dbTester.components().insertPrivateProject(organization, p -> p.setUuid("P2"));
+    ComponentDto project2 = dbTester.components().insertPrivateProject(organization, p -> p.setUuid("P4"));
+    dbTester.measures().insertLiveMeasure(project1, metric, m -> m.setValue(10d));
+    dbTester.measures().insertLiveMeasure(project2, metric, m -> m.setValue(20d));
+
+    try (ProjectMeasuresIndexerIterator it = ProjectMeasuresIndexerIterator.create(dbTester.getSession(), null)) {
+      // measures are loaded lazily, after projects
+      ComponentDto orphan1 = dbTester.components().insertPrivateProject(organization, p -> p.setUuid("P1"));
+      ComponentDto orphan2 = dbTester.components().insertPrivateProject(organization, p -> p.setUuid("P3"));
+      dbTester.measures().insertLiveMeasure(orphan1, metric, m -> m.setValue(1d));
+      dbTester.measures().insertLiveMeasure(orphan2, metric, m -> m.setValue(3d));
+
+      Map<String, ProjectMeasures> docsById = Maps.uniqueIndex(it, pm -> pm.getProject().getUuid());
+
+      assertThat(docsById).containsOnlyKeys("P2", "P4");
+      assertThat(docsById.get("P2").getMeasures().getNumericMeasures()).containsOnly(entry("ncloc", 10d));
+      assertThat(docsById.get("P4").getMeasures().getNumericMeasures()).containsOnly(entry("ncloc", 20d));
+    }
+  }
+
   @Test
   public void return_nothing_on_unknown_project() throws Exception {
     OrganizationDto organization = dbTester.organizations().insert();
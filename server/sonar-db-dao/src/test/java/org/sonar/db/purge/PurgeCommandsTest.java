@@ -24,8 +24,13 @@ import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.core.timemachine.MeasureSeries;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.measure.MeasureSeriesDao;
+import org.sonar.db.measure.MeasureSeriesDto;
+import org.sonar.db.metric.MetricDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.db.user.GroupDto;
@@ -34,6 +39,10 @@ import org.sonar.db.user.UserDto;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
 
 public class PurgeCommandsTest {
@@ -56,7 +65,7 @@ public class PurgeCommandsTest {
    */
   @Test
   public void should_not_fail_when_deleting_huge_number_of_analyses() {
-    new PurgeCommands(dbTester.getSession(), profiler).deleteAnalyses(getHugeNumberOfIdUuidPairs());
+    new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE).deleteAnalyses(getHugeNumberOfIdUuidPairs());
     // The goal of this test is only to check that the query do no fail, not to check result
   }
 
@@ -67,7 +76,7 @@ public class PurgeCommandsTest {
   public void shouldPurgeAnalysis() {
     dbTester.prepareDbUnit(getClass(), "shouldPurgeAnalysis.xml");
 
-    new PurgeCommands(dbTester.getSession(), profiler).purgeAnalyses(singletonList(new IdUuidPair(1, "u1")));
+    new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE).purgeAnalyses(singletonList(new IdUuidPair(1, "u1")));
 
     dbTester.assertDbUnit(getClass(), "shouldPurgeAnalysis-result.xml", "snapshots", "analysis_properties", "project_measures", "duplications_index", "events");
   }
@@ -76,7 +85,7 @@ public class PurgeCommandsTest {
   public void delete_wasted_measures_when_purging_analysis() {
     dbTester.prepareDbUnit(getClass(), "shouldDeleteWastedMeasuresWhenPurgingAnalysis.xml");
 
-    new PurgeCommands(dbTester.getSession(), profiler).purgeAnalyses(singletonList(new IdUuidPair(1, "u1")));
+    new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE).purgeAnalyses(singletonList(new IdUuidPair(1, "u1")));
 
     dbTester.assertDbUnit(getClass(), "shouldDeleteWastedMeasuresWhenPurgingAnalysis-result.xml", "project_measures");
   }
@@ -86,7 +95,7 @@ public class PurgeCommandsTest {
    */
   @Test
   public void should_not_fail_when_purging_huge_number_of_analyses() {
-    new PurgeCommands(dbTester.getSession(), profiler).purgeAnalyses(getHugeNumberOfIdUuidPairs());
+    new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE).purgeAnalyses(getHugeNumberOfIdUuidPairs());
     // The goal of this test is only to check that the query do no fail, not to check result
   }
 
@@ -94,7 +103,7 @@ public class PurgeCommandsTest {
   public void shouldDeleteComponentsAndChildrenTables() {
     dbTester.prepareDbUnit(getClass(), "shouldDeleteResource.xml");
 
-    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE);
     purgeCommands.deleteComponents("uuid_1");
 
     assertThat(dbTester.countRowsOfTable("projects")).isZero();
@@ -109,7 +118,7 @@ public class PurgeCommandsTest {
   public void shouldDeleteAnalyses() {
     dbTester.prepareDbUnit(getClass(), "shouldDeleteResource.xml");
 
-    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE);
     purgeCommands.deleteAnalyses("uuid_1");
 
     assertThat(dbTester.countRowsOfTable("projects")).isEqualTo(1);
@@ -125,7 +134,7 @@ public class PurgeCommandsTest {
   public void shouldDeleteIssuesAndIssueChanges() {
     dbTester.prepareDbUnit(getClass(), "shouldDeleteResource.xml");
 
-    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE);
     purgeCommands.deleteIssues("uuid_1");
 
     assertThat(dbTester.countRowsOfTable("projects")).isEqualTo(1);
@@ -141,7 +150,7 @@ public class PurgeCommandsTest {
     ComponentDto project = dbTester.components().insertPublicProject(organization);
     addPermissions(organization, project);
 
-    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE);
     purgeCommands.deletePermissions(project.getId());
 
     assertThat(dbTester.countRowsOfTable("group_roles")).isEqualTo(2);
@@ -154,7 +163,7 @@ public class PurgeCommandsTest {
     ComponentDto project = dbTester.components().insertPrivateProject(organization);
     addPermissions(organization, project);
 
-    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE);
     purgeCommands.deletePermissions(project.getId());
 
     assertThat(dbTester.countRowsOfTable("group_roles")).isEqualTo(1);
@@ -167,13 +176,45 @@ public class PurgeCommandsTest {
     ComponentDto project = dbTester.components().insertPublicPortfolio(organization);
     addPermissions(organization, project);
 
-    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler);
+    PurgeCommands purgeCommands = new PurgeCommands(dbTester.getSession(), profiler, System2.INSTANCE);
     purgeCommands.deletePermissions(project.getId());
 
     assertThat(dbTester.countRowsOfTable("group_roles")).isEqualTo(2);
     assertThat(dbTester.countRowsOfTable("user_roles")).isEqualTo(1);
   }
 
+  @Test
+  public void purge_of_measure_series_does_not_overwrite_points_appended_by_an_analysis_in_the_meantime() {
+    MetricDto metric = dbTester.measures().insertMetric();
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    SnapshotDto purgedAnalysis = dbTester.components().insertSnapshot(project);
+    SnapshotDto newAnalysis = dbTester.components().insertSnapshot(project);
+    MeasureSeriesDao measureSeriesDao = dbTester.getDbClient().measureSeriesDao();
+    measureSeriesDao.insert(dbTester.getSession(), new MeasureSeriesDto()
+      .setComponentUuid(project.uuid())
+      .setMetricId(metric.getId())
+      .setSeries(new MeasureSeries().add(new MeasureSeries.Point(purgedAnalysis.getUuid(), 1_000L, 1d, null))));
+    dbTester.commit();
+    PurgeMapper dbMapper = dbTester.getSession().getMapper(PurgeMapper.class);
+    PurgeMapper purgeMapper = mock(PurgeMapper.class, delegatesTo(dbMapper));
+    doAnswer(invocation -> {
+      List<MeasureSeriesDto> loaded = dbMapper.selectMeasureSeriesByAnalysisUuids(invocation.getArgumentAt(0, List.class), invocation.getArgumentAt(1, List.class));
+      // the analysis appends its point after the series has been loaded by the purge
+      MeasureSeriesDto concurrent = measureSeriesDao.selectByComponentUuid(dbTester.getSession(), project.uuid()).get(0);
+      assertThat(measureSeriesDao.update(dbTester.getSession(), concurrent.setSeries(concurrent.getSeries().add(new MeasureSeries.Point(newAnalysis.getUuid(), 2_000L, 2d, null)))))
+        .isTrue();
+      dbTester.commit();
+      return loaded;
+    }).when(purgeMapper).selectMeasureSeriesByAnalysisUuids(anyList(), anyList());
+
+    new PurgeCommands(dbTester.getSession(), purgeMapper, profiler, System2.INSTANCE)
+      .deleteAnalyses(singletonList(new IdUuidPair(purgedAnalysis.getId(), purgedAnalysis.getUuid())));
+
+    assertThat(measureSeriesDao.selectByComponentUuid(dbTester.getSession(), project.uuid()).get(0).getSeries().getPoints())
+      .extracting(MeasureSeries.Point::getAnalysisUuid)
+      .containsExactly(newAnalysis.getUuid());
+  }
+
   private void addPermissions(OrganizationDto organization, ComponentDto root) {
     if (!root.isPrivate()) {
       dbTester.users().insertProjectPermissionOnAnyone("foo1", root);
@@ -37,6 +37,7 @@ import org.junit.rules.ExpectedException;
 import org.mockito.ArgumentCaptor;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.System2;
+import org.sonar.core.timemachine.MeasureSeries;
 import org.sonar.core.util.Uuids;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -48,7 +49,9 @@ import org.sonar.db.component.BranchType;
 import org.sonar.db.component.ComponentDbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureSeriesDto;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.property.PropertyDto;
@@ -59,6 +62,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphabetic;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -131,6 +135,85 @@ public class PurgeDaoTest {
     assertThat(getUuidsInTableProjects()).containsOnly(project.uuid(), longBranch.uuid(), recentShortBranch.uuid());
   }
 
+  @Test
+  public void purgeAfterAnalysis_deletes_aborted_analyses_but_does_not_purge_history() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    SnapshotDto aborted = insertAnalysis(project, SnapshotDto.STATUS_UNPROCESSED, false);
+    SnapshotDto previous = insertAnalysis(project, SnapshotDto.STATUS_PROCESSED, false);
+    SnapshotDto last = insertAnalysis(project, SnapshotDto.STATUS_PROCESSED, true);
+
+    underTest.purgeAfterAnalysis(dbSession, newConfigurationWith30Days(system2, project.uuid()), PurgeListener.EMPTY, new PurgeProfiler());
+    dbSession.commit();
+
+    assertThat(selectAnalysisUuids(project)).containsOnly(previous.getUuid(), last.getUuid());
+    assertThat(isPurged(previous)).isFalse();
+  }
+
+  @Test
+  public void purgeHistory_purges_processed_analyses_but_does_not_touch_analyses_in_progress() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    SnapshotDto inProgress = insertAnalysis(project, SnapshotDto.STATUS_UNPROCESSED, false);
+    SnapshotDto previous = insertAnalysis(project, SnapshotDto.STATUS_PROCESSED, false);
+    SnapshotDto last = insertAnalysis(project, SnapshotDto.STATUS_PROCESSED, true);
+
+    underTest.purgeHistory(dbSession, newConfigurationWith30Days(system2, project.uuid()), PurgeListener.EMPTY, new PurgeProfiler());
+    dbSession.commit();
+
+    assertThat(selectAnalysisUuids(project)).containsOnly(inProgress.getUuid(), previous.getUuid(), last.getUuid());
+    assertThat(isPurged(inProgress)).isFalse();
+    assertThat(isPurged(previous)).isTrue();
+    assertThat(isPurged(last)).isFalse();
+  }
+
+  @Test
+  public void selectPendingPurges_returns_roots_with_the_most_analyses_to_purge_first() {
+    ComponentDto project1 = dbTester.components().insertPrivateProject();
+    insertAnalysis(project1, SnapshotDto.STATUS_PROCESSED, false);
+    insertAnalysis(project1, SnapshotDto.STATUS_PROCESSED, true);
+    ComponentDto project2 = dbTester.components().insertPrivateProject();
+    insertAnalysis(project2, SnapshotDto.STATUS_PROCESSED, false);
+    insertAnalysis(project2, SnapshotDto.STATUS_PROCESSED, false);
+    insertAnalysis(project2, SnapshotDto.STATUS_UNPROCESSED, false);
+    dbTester.components().insertSnapshot(project2, s -> s.setLast(false).setPurgeStatus(1));
+    ComponentDto projectWithoutAnalysesToPurge = dbTester.components().insertPrivateProject();
+    insertAnalysis(projectWithoutAnalysesToPurge, SnapshotDto.STATUS_PROCESSED, true);
+    dbTester.components().insertSnapshot(projectWithoutAnalysesToPurge, s -> s.setLast(false).setPurgeStatus(1));
+    ComponentDto projectBeingAnalyzed = dbTester.components().insertPrivateProject();
+    insertAnalysis(projectBeingAnalyzed, SnapshotDto.STATUS_PROCESSED, false);
+    dbClient.ceQueueDao().insert(dbSession, createCeQueue(projectBeingAnalyzed, Status.IN_PROGRESS));
+    ComponentDto projectWaitingForAnalysis = dbTester.components().insertPrivateProject();
+    insertAnalysis(projectWaitingForAnalysis, SnapshotDto.STATUS_PROCESSED, false);
+    dbClient.ceQueueDao().insert(dbSession, createCeQueue(projectWaitingForAnalysis, Status.PENDING));
+    dbSession.commit();
+
+    List<PendingPurgeDto> pendingPurges = underTest.selectPendingPurges(dbSession, 10);
+    assertThat(pendingPurges)
+      .extracting(PendingPurgeDto::getRootUuid, PendingPurgeDto::getAnalysisCount)
+      .containsOnly(
+        tuple(project2.uuid(), 2L),
+        tuple(project1.uuid(), 1L),
+        tuple(projectWaitingForAnalysis.uuid(), 1L));
+    assertThat(pendingPurges.get(0).getRootUuid()).isEqualTo(project2.uuid());
+    assertThat(underTest.selectPendingPurges(dbSession, 1))
+      .extracting(PendingPurgeDto::getRootUuid)
+      .containsExactly(project2.uuid());
+  }
+
+  private SnapshotDto insertAnalysis(ComponentDto root, String status, boolean last) {
+    return dbTester.components().insertSnapshot(root, s -> s.setStatus(status).setLast(last));
+  }
+
+  private List<String> selectAnalysisUuids(ComponentDto root) {
+    return dbTester.select("select uuid as \"UUID\" from snapshots where component_uuid='" + root.uuid() + "'")
+      .stream()
+      .map(row -> (String) row.get("UUID"))
+      .collect(Collectors.toList());
+  }
+
+  private boolean isPurged(SnapshotDto analysis) {
+    return dbTester.countSql("select count(*) from snapshots where uuid='" + analysis.getUuid() + "' and purge_status=1") == 1;
+  }
+
   @Test
   public void shouldDeleteHistoricalDataOfDirectoriesAndFiles() {
     dbTester.prepareDbUnit(getClass(), "shouldDeleteHistoricalDataOfDirectoriesAndFiles.xml");
@@ -416,6 +499,50 @@ public class PurgeDaoTest {
     assertThat(dbClient.liveMeasureDao().selectByComponentUuids(dbSession, asList(project2.uuid(), module2.uuid()), asList(metric.getId()))).hasSize(2);
   }
 
+  @Test
+  public void delete_measure_series_when_deleting_project() {
+    MetricDto metric = dbTester.measures().insertMetric();
+    ComponentDto project1 = dbTester.components().insertPublicProject();
+    ComponentDto project2 = dbTester.components().insertPublicProject();
+    insertMeasureSeries(project1, metric, new MeasureSeries().add(new MeasureSeries.Point("A1", 1_000L, 1d, null)));
+    insertMeasureSeries(project2, metric, new MeasureSeries().add(new MeasureSeries.Point("A2", 1_000L, 1d, null)));
+
+    underTest.deleteProject(dbSession, project1.uuid());
+
+    assertThat(dbClient.measureSeriesDao().selectByComponentUuid(dbSession, project1.uuid())).isEmpty();
+    assertThat(dbClient.measureSeriesDao().selectByComponentUuid(dbSession, project2.uuid())).hasSize(1);
+  }
+
+  @Test
+  public void deleteAnalyses_removes_points_of_deleted_analyses_from_measure_series() {
+    MetricDto metric = dbTester.measures().insertMetric();
+    ComponentDto project = dbTester.components().insertPublicProject();
+    SnapshotDto analysis1 = dbTester.components().insertSnapshot(project);
+    SnapshotDto analysis2 = dbTester.components().insertSnapshot(project);
+    insertMeasureSeries(project, metric, new MeasureSeries()
+      .add(new MeasureSeries.Point(analysis1.getUuid(), 1_000L, 1d, null))
+      .add(new MeasureSeries.Point(analysis2.getUuid(), 2_000L, 2d, null)));
+
+    when(system2.now()).thenReturn(5_000L);
+
+    underTest.deleteAnalyses(dbSession, new PurgeProfiler(), singletonList(new IdUuidPair(analysis1.getId(), analysis1.getUuid())));
+
+    List<MeasureSeriesDto> series = dbClient.measureSeriesDao().selectByComponentUuid(dbSession, project.uuid());
+    assertThat(series).hasSize(1);
+    assertThat(series.get(0).getUpdatedAt()).isEqualTo(5_000L);
+    assertThat(series.get(0).getSeries().getPoints())
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getValue)
+      .containsExactly(tuple(analysis2.getUuid(), 2d));
+  }
+
+  private void insertMeasureSeries(ComponentDto component, MetricDto metric, MeasureSeries series) {
+    dbClient.measureSeriesDao().insert(dbSession, new MeasureSeriesDto()
+      .setComponentUuid(component.uuid())
+      .setMetricId(metric.getId())
+      .setSeries(series));
+    dbSession.commit();
+  }
+
   private void verifyNoEffect(ComponentDto firstRoot, ComponentDto... otherRoots) {
     DbSession dbSession = mock(DbSession.class);
 
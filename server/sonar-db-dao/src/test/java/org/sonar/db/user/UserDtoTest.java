@@ -47,6 +47,21 @@ public class UserDtoTest {
     assertThat(UserDto.decodeScmAccounts("\nfoo\nbar\n")).containsOnly("foo", "bar");
   }
 
+  @Test
+  public void copy_is_an_independent_instance_with_same_values() {
+    UserDto user = UserTesting.newUserDto();
+    user.setRoot(true);
+
+    UserDto copy = user.copy();
+    user.setName("changed");
+    user.setRoot(false);
+
+    assertThat(copy).isNotSameAs(user);
+    assertThat(copy).isEqualToIgnoringGivenFields(user, "name", "root");
+    assertThat(copy.getName()).isNotEqualTo("changed");
+    assertThat(copy.isRoot()).isTrue();
+  }
+
   @Test
   public void encrypt_password() throws Exception {
     assertThat(UserDto.encryptPassword("PASSWORD", "0242b0b4c0a93ddfe09dd886de50bc25ba000b51")).isEqualTo("540e4fc4be4e047db995bc76d18374a5b5db08cc");
@@ -19,18 +19,33 @@
  */
 package org.sonar.server.platform.db.migration.step;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.ProgressLogger;
 import org.sonar.db.Database;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 public class MassUpdate {
 
+  private static final Logger LOG = Loggers.get(MassUpdate.class);
+  private static final int PARTITIONS_PER_WORKER = 10;
+
   @FunctionalInterface
   public interface Handler {
     /**
@@ -52,6 +67,11 @@ public class MassUpdate {
     boolean handle(Select.Row row, SqlStatement update, int updateIndex) throws SQLException;
   }
 
+  @FunctionalInterface
+  private interface RowProcessor {
+    void process(Select.Row row, List<UpsertImpl> updates) throws SQLException;
+  }
+
   private final Database db;
   private final Connection readConnection;
   private final Connection writeConnection;
@@ -60,6 +80,12 @@ public class MassUpdate {
 
   private Select select;
   private List<UpsertImpl> updates = new ArrayList<>(1);
+  private List<String> updateSqls = new ArrayList<>(1);
+  @CheckForNull
+  private String partitionedSelectSql;
+  @CheckForNull
+  private String boundsSql;
+  private int workers = 1;
 
   public MassUpdate(Database db, Connection readConnection, Connection writeConnection) {
     this.db = db;
@@ -72,8 +98,41 @@ public class MassUpdate {
     return this.select;
   }
 
+  /**
+   * Alternative to {@link #select(String)} for large tables: rows are read and updated by ranges of values of an
+   * integer column, usually the primary key. Ranges are processed concurrently by the {@link #workers(int) workers},
+   * each one using its own connections, and are committed as soon as they are processed. Consequently
+   * if the migration is interrupted, only the ranges which were not committed yet are processed again on next run,
+   * as long as the select excludes the rows which are already migrated.
+   * <p>
+   * When there are several workers, the {@link Handler} or {@link MultiHandler} given to {@code execute} is called
+   * concurrently by the threads of the workers. It must be thread-safe: a handler keeping state between rows, for
+   * example a cache or a counter, must synchronize it or use {@link #workers(int) a single worker}.
+   * </p>
+   *
+   * @param sql the select of a range of rows. Its two parameters are the inclusive lower bound and the exclusive
+   *            upper bound of the range, for example {@code "select id, kee from issues where kee is null and id >= ? and id < ?"}
+   * @param boundsSql the select of the minimum and maximum values of the column, for example {@code "select min(id), max(id) from issues"}
+   */
+  public MassUpdate partitionedSelect(String sql, String boundsSql) {
+    this.partitionedSelectSql = sql;
+    this.boundsSql = boundsSql;
+    return this;
+  }
+
+  /**
+   * Number of threads processing the ranges of rows defined by {@link #partitionedSelect(String, String)}. Default is 1.
+   * Handlers must be thread-safe when greater than 1.
+   */
+  public MassUpdate workers(int i) {
+    checkArgument(i > 0, "Number of workers must be greater than zero");
+    this.workers = i;
+    return this;
+  }
+
   public MassUpdate update(String sql) throws SQLException {
     this.updates.add(UpsertImpl.create(writeConnection, sql));
+    this.updateSqls.add(sql);
     return this;
   }
 
@@ -83,13 +142,31 @@ public class MassUpdate {
   }
 
   public void execute(Handler handler) throws SQLException {
-    checkState(select != null && !updates.isEmpty(), "SELECT or UPDATE requests are not defined");
+    checkState(isSelectDefined() && !updates.isEmpty(), "SELECT or UPDATE requests are not defined");
     checkState(updates.size() == 1, "There should be only one update when using a " + Handler.class.getName());
 
+    process((row, rowUpdates) -> callSingleHandler(handler, rowUpdates.get(0), row));
+  }
+
+  public void execute(MultiHandler handler) throws SQLException {
+    checkState(isSelectDefined() && !updates.isEmpty(), "SELECT or UPDATE(s) requests are not defined");
+
+    process((row, rowUpdates) -> callMultiHandler(handler, rowUpdates, row));
+  }
+
+  private boolean isSelectDefined() {
+    return select != null || partitionedSelectSql != null;
+  }
+
+  private void process(RowProcessor processor) throws SQLException {
     progress.start();
     try {
-      select.scroll(row -> callSingleHandler(handler, updates.iterator().next(), row));
-      closeUpdates();
+      if (partitionedSelectSql == null) {
+        select.scroll(row -> processor.process(row, updates));
+      } else {
+        executePartitioned(processor);
+      }
+      closeUpdates(updates);
 
       // log the total number of processed rows
       progress.log();
@@ -98,18 +175,96 @@ public class MassUpdate {
     }
   }
 
-  public void execute(MultiHandler handler) throws SQLException {
-    checkState(select != null && !updates.isEmpty(), "SELECT or UPDATE(s) requests are not defined");
+  private void executePartitioned(RowProcessor processor) throws SQLException {
+    long[] bounds = SelectImpl.create(db, readConnection, boundsSql)
+      .get(row -> {
+        Long min = row.getNullableLong(1);
+        Long max = row.getNullableLong(2);
+        return min == null || max == null ? null : new long[] {min, max};
+      });
+    if (bounds == null) {
+      // no rows
+      return;
+    }
 
-    progress.start();
+    Queue<long[]> partitions = createPartitions(bounds[0], bounds[1], workers * PARTITIONS_PER_WORKER);
+    LOG.info("Process {} ranges of rows with {} worker(s)", partitions.size(), workers);
+    AtomicBoolean failed = new AtomicBoolean(false);
+    ExecutorService executorService = Executors.newFixedThreadPool(workers, new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("MassUpdate-%d")
+      .build());
     try {
-      select.scroll(row -> callMultiHandler(handler, updates, row));
-      closeUpdates();
-
-      // log the total number of processed rows
-      progress.log();
+      List<Future<Void>> futures = new ArrayList<>(workers);
+      for (int i = 0; i < workers; i++) {
+        futures.add(executorService.submit(() -> processPartitions(partitions, processor, failed)));
+      }
+      for (Future<Void> future : futures) {
+        waitFor(future, failed);
+      }
     } finally {
-      progress.stop();
+      executorService.shutdownNow();
+    }
+  }
+
+  static Queue<long[]> createPartitions(long min, long max, int maxPartitions) {
+    // computed on doubles to not overflow
+    long size = Math.max(1L, (long) Math.ceil(((double) max - min + 1) / maxPartitions));
+    Queue<long[]> partitions = new ConcurrentLinkedQueue<>();
+    long from = min;
+    while (from <= max) {
+      long to = max - from < size ? (max + 1) : (from + size);
+      partitions.add(new long[] {from, to});
+      from = to;
+    }
+    return partitions;
+  }
+
+  private Void processPartitions(Queue<long[]> partitions, RowProcessor processor, AtomicBoolean failed) throws SQLException {
+    try (Connection workerReadConnection = DataChange.createReadUncommittedConnection(db);
+      Connection workerWriteConnection = DataChange.createDdlConnection(db)) {
+      long[] partition = partitions.poll();
+      while (partition != null && !failed.get()) {
+        processPartition(workerReadConnection, workerWriteConnection, partition, processor);
+        partition = partitions.poll();
+      }
+    } catch (SQLException | RuntimeException e) {
+      // stop the other workers
+      failed.set(true);
+      throw e;
+    }
+    return null;
+  }
+
+  private void processPartition(Connection workerReadConnection, Connection workerWriteConnection, long[] partition, RowProcessor processor) throws SQLException {
+    List<UpsertImpl> partitionUpdates = new ArrayList<>(updateSqls.size());
+    for (String sql : updateSqls) {
+      partitionUpdates.add(UpsertImpl.create(workerWriteConnection, sql));
+    }
+    SelectImpl.create(db, workerReadConnection, partitionedSelectSql)
+      .setLong(1, partition[0])
+      .setLong(2, partition[1])
+      .scroll(row -> processor.process(row, partitionUpdates));
+    closeUpdates(partitionUpdates);
+  }
+
+  private static void waitFor(Future<Void> future, AtomicBoolean failed) throws SQLException {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      failed.set(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the processing of rows", e);
+    } catch (ExecutionException e) {
+      failed.set(true);
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
     }
   }
 
@@ -131,7 +286,7 @@ public class MassUpdate {
     counter.getAndIncrement();
   }
 
-  private void closeUpdates() throws SQLException {
+  private static void closeUpdates(List<UpsertImpl> updates) throws SQLException {
     for (UpsertImpl update : updates) {
       if (update.getBatchCount() > 0L) {
         update.execute().commit();
@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.version.v70;
+
+import java.sql.SQLException;
+import java.util.Objects;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.System2;
+import org.sonar.core.timemachine.MeasureSeries;
+import org.sonar.core.util.Uuids;
+import org.sonar.db.Database;
+import org.sonar.server.platform.db.migration.step.DataChange;
+import org.sonar.server.platform.db.migration.step.Select;
+import org.sonar.server.platform.db.migration.step.Upsert;
+
+/**
+ * Builds the series of the numerical measures of root components (projects, views, applications and branches)
+ * from the processed analyses in table project_measures. As when analyses are processed, measures having
+ * neither value nor variation are not added to series.
+ */
+public class PopulateMeasureSeries extends DataChange {
+
+  private final System2 system2;
+
+  public PopulateMeasureSeries(Database db, System2 system2) {
+    super(db);
+    this.system2 = system2;
+  }
+
+  @Override
+  protected void execute(Context context) throws SQLException {
+    // reentrancy of migration
+    context.prepareUpsert("DELETE FROM measure_series").execute().commit();
+
+    Select select = context.prepareSelect("SELECT pm.component_uuid, pm.metric_id, s.uuid, s.created_at, pm.value, pm.variation_value_1 " +
+      "FROM project_measures pm " +
+      "INNER JOIN projects p on p.uuid = pm.component_uuid " +
+      "INNER JOIN snapshots s on s.uuid = pm.analysis_uuid " +
+      "INNER JOIN metrics m on m.id = pm.metric_id " +
+      "WHERE s.status = ? and p.uuid = p.project_uuid and pm.person_id is null " +
+      "and (pm.value is not null or pm.variation_value_1 is not null) " +
+      "and m.val_type in ('INT', 'FLOAT', 'PERCENT', 'BOOL', 'MILLISEC', 'RATING', 'WORK_DUR') " +
+      "ORDER BY pm.component_uuid, pm.metric_id, s.created_at")
+      .setString(1, "P");
+
+    try (Upsert upsert = context.prepareUpsert("INSERT INTO measure_series " +
+      "(uuid, component_uuid, metric_id, series_data, created_at, updated_at) " +
+      "values (?, ?, ?, ?, ?, ?)")) {
+      SeriesWriter writer = new SeriesWriter(upsert, system2.now());
+      select.scroll(row -> writer.add(row.getString(1), row.getInt(2),
+        new MeasureSeries.Point(row.getString(3), row.getLong(4), row.getNullableDouble(5), row.getNullableDouble(6))));
+      writer.flush();
+      if (writer.count > 0) {
+        upsert.execute().commit();
+      }
+    }
+  }
+
+  /**
+   * Accumulates the points of the current series, which is inserted as soon as the rows of another series are read.
+   */
+  private static class SeriesWriter {
+    private final Upsert upsert;
+    private final long now;
+    @CheckForNull
+    private String componentUuid;
+    private int metricId;
+    private MeasureSeries series = new MeasureSeries();
+    private long count = 0L;
+
+    private SeriesWriter(Upsert upsert, long now) {
+      this.upsert = upsert;
+      this.now = now;
+    }
+
+    private void add(String componentUuid, int metricId, MeasureSeries.Point point) throws SQLException {
+      if (!Objects.equals(this.componentUuid, componentUuid) || this.metricId != metricId) {
+        flush();
+        this.componentUuid = componentUuid;
+        this.metricId = metricId;
+        this.series = new MeasureSeries();
+      }
+      series.add(point);
+    }
+
+    private void flush() throws SQLException {
+      if (componentUuid == null || series.isEmpty()) {
+        return;
+      }
+      upsert
+        .setString(1, Uuids.create())
+        .setString(2, componentUuid)
+        .setInt(3, metricId)
+        .setBytes(4, series.encode())
+        .setLong(5, now)
+        .setLong(6, now)
+        .addBatch();
+      count++;
+    }
+  }
+}
@@ -426,6 +426,128 @@ public class DataChangeTest {
     }
   }
 
+  @Test
+  public void partitioned_mass_update() throws Exception {
+    db.prepareDbUnit(getClass(), "persons.xml");
+
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        MassUpdate massUpdate = context.prepareMassUpdate();
+        massUpdate.partitionedSelect("select id from persons where id>=2 and id>=? and id<?", "select min(id), max(id) from persons");
+        massUpdate.update("update persons set login=?, age=? where id=?");
+        massUpdate.workers(2);
+        massUpdate.execute((row, update) -> {
+          long id = row.getNullableLong(1);
+          update
+            .setString(1, "login" + id)
+            .setInt(2, 10 + (int) id)
+            .setLong(3, id);
+          return true;
+        });
+      }
+    }.execute();
+
+    db.assertDbUnit(getClass(), "mass-update-result.xml", "persons");
+  }
+
+  @Test
+  public void partitioned_mass_update_of_many_rows() throws Exception {
+    int count = 3 * MAX_BATCH_SIZE + 10;
+    insertPersons(count);
+
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        MassUpdate massUpdate = context.prepareMassUpdate();
+        massUpdate.partitionedSelect("select id from persons where id>=? and id<?", "select min(id), max(id) from persons");
+        massUpdate.update("update persons set login=? where id=?");
+        massUpdate.update("update persons set age=? where id=?");
+        massUpdate.workers(3);
+        massUpdate.execute((row, update, updateIndex) -> {
+          long id = row.getNullableLong(1);
+          if (updateIndex == 0) {
+            update.setString(1, "login" + id);
+          } else {
+            update.setInt(1, (int) id);
+          }
+          update.setLong(2, id);
+          return true;
+        });
+      }
+    }.execute();
+
+    assertThat(db.countSql("select count(1) from persons where login = concat('login', id) and age = id")).isEqualTo(count);
+  }
+
+  @Test
+  public void partitioned_mass_update_of_empty_table() throws Exception {
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        MassUpdate massUpdate = context.prepareMassUpdate();
+        massUpdate.partitionedSelect("select id from persons where id>=? and id<?", "select min(id), max(id) from persons");
+        massUpdate.update("update persons set login=? where id=?");
+        massUpdate.workers(2);
+        massUpdate.execute((row, update) -> {
+          throw new IllegalStateException("No rows expected");
+        });
+      }
+    }.execute();
+
+    assertThat(db.countRowsOfTable("persons")).isZero();
+  }
+
+  @Test
+  public void display_current_row_details_if_error_during_partitioned_mass_update() throws Exception {
+    db.prepareDbUnit(getClass(), "persons.xml");
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Error during processing of row: [id=");
+
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        MassUpdate massUpdate = context.prepareMassUpdate();
+        massUpdate.partitionedSelect("select id from persons where id>=? and id<?", "select min(id), max(id) from persons");
+        massUpdate.update("update persons set login=?, age=? where id=?");
+        massUpdate.workers(2);
+        massUpdate.execute((row, update) -> {
+          throw new IllegalStateException("Unexpected error");
+        });
+      }
+    }.execute();
+  }
+
+  @Test
+  public void fail_if_no_workers() {
+    MassUpdate massUpdate = new MassUpdate(db.database(), null, null);
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Number of workers must be greater than zero");
+
+    massUpdate.workers(0);
+  }
+
+  private void insertPersons(int count) throws SQLException {
+    new DataChange(db.database()) {
+      @Override
+      public void execute(Context context) throws SQLException {
+        Upsert upsert = context.prepareUpsert("insert into persons(id,login,age,enabled,coeff) values (?,?,?,?,?)");
+        for (int i = 0; i < count; i++) {
+          upsert
+            .setLong(1, 10L + i)
+            .setString(2, "login")
+            .setInt(3, 0)
+            .setBoolean(4, true)
+            .setDouble(5, i + 0.5)
+            .addBatch();
+        }
+        upsert.execute().commit().close();
+      }
+    }.execute();
+  }
+
   @Test
   public void read_not_null_fields() throws Exception {
     db.prepareDbUnit(getClass(), "persons.xml");
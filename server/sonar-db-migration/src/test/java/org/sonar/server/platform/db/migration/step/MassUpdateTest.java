@@ -0,0 +1,46 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MassUpdateTest {
+
+  @Test
+  public void createPartitions_covers_the_range_of_values() {
+    assertThat(toStrings(MassUpdate.createPartitions(1, 10, 3))).containsExactly("1-5", "5-9", "9-11");
+    assertThat(toStrings(MassUpdate.createPartitions(1, 9, 3))).containsExactly("1-4", "4-7", "7-10");
+    assertThat(toStrings(MassUpdate.createPartitions(5, 5, 3))).containsExactly("5-6");
+    assertThat(toStrings(MassUpdate.createPartitions(0, 2, 10))).containsExactly("0-1", "1-2", "2-3");
+    assertThat(toStrings(MassUpdate.createPartitions(-10, 9, 2))).containsExactly("-10-0", "0-10");
+  }
+
+  private static List<String> toStrings(Iterable<long[]> partitions) {
+    List<String> result = new ArrayList<>();
+    for (long[] partition : partitions) {
+      result.add(partition[0] + "-" + partition[1]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.version.v70;
+
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.core.timemachine.MeasureSeries;
+import org.sonar.db.CoreDbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class PopulateMeasureSeriesTest {
+
+  private static final int NCLOC_ID = 1;
+  private static final int COVERAGE_ID = 2;
+  private static final int ALERT_STATUS_ID = 3;
+
+  private System2 system2 = new TestSystem2().setNow(1_500_000_000_000L);
+
+  @Rule
+  public CoreDbTester db = CoreDbTester.createForSchema(PopulateMeasureSeriesTest.class, "initial.sql");
+
+  private PopulateMeasureSeries underTest = new PopulateMeasureSeries(db.database(), system2);
+
+  @Test
+  public void do_nothing_when_no_data() throws SQLException {
+    underTest.execute();
+
+    assertThat(db.countRowsOfTable("MEASURE_SERIES")).isEqualTo(0);
+  }
+
+  @Test
+  public void create_series_of_numerical_measures_of_root_components() throws SQLException {
+    insertData();
+
+    underTest.execute();
+
+    verifySeries();
+  }
+
+  @Test
+  public void migration_is_reentrant() throws SQLException {
+    insertData();
+
+    underTest.execute();
+    underTest.execute();
+
+    verifySeries();
+  }
+
+  private void verifySeries() {
+    List<Map<String, Object>> rows = db.select("select component_uuid as \"COMPONENT_UUID\", metric_id as \"METRIC_ID\", series_data as \"DATA\", " +
+      "created_at as \"CREATED_AT\" from measure_series");
+    assertThat(rows).extracting(r -> r.get("COMPONENT_UUID"), r -> ((Number) r.get("METRIC_ID")).intValue(), r -> r.get("CREATED_AT"))
+      .containsExactlyInAnyOrder(
+        tuple("PRJ1", NCLOC_ID, 1_500_000_000_000L),
+        tuple("PRJ1", COVERAGE_ID, 1_500_000_000_000L),
+        tuple("PRJ2", NCLOC_ID, 1_500_000_000_000L));
+
+    assertThat(pointsOf(rows, "PRJ1", NCLOC_ID))
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getDate, MeasureSeries.Point::getValue, MeasureSeries.Point::getVariation)
+      .containsExactly(tuple("A1", 1_000L, 10d, null), tuple("A2", 2_000L, 15d, 5d));
+    assertThat(pointsOf(rows, "PRJ1", COVERAGE_ID))
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getValue)
+      .containsExactly(tuple("A2", 80.5d));
+    assertThat(pointsOf(rows, "PRJ2", NCLOC_ID))
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getValue)
+      .containsExactly(tuple("B1", 100d));
+  }
+
+  private static List<MeasureSeries.Point> pointsOf(List<Map<String, Object>> rows, String componentUuid, int metricId) {
+    return rows.stream()
+      .filter(r -> r.get("COMPONENT_UUID").equals(componentUuid) && ((Number) r.get("METRIC_ID")).intValue() == metricId)
+      .map(r -> MeasureSeries.decode(toBytes(r.get("DATA"))).getPoints())
+      .findFirst()
+      .orElseThrow(IllegalStateException::new);
+  }
+
+  private static byte[] toBytes(Object data) {
+    try {
+      Blob blob = (Blob) data;
+      return blob.getBytes(1, (int) blob.length());
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void insertData() {
+    insertMetric(NCLOC_ID, "ncloc", "INT");
+    insertMetric(COVERAGE_ID, "coverage", "PERCENT");
+    insertMetric(ALERT_STATUS_ID, "alert_status", "LEVEL");
+    insertComponent("PRJ1", "PRJ1");
+    insertComponent("MOD1", "PRJ1");
+    insertComponent("PRJ2", "PRJ2");
+    // inserted in reverse chronological order
+    insertAnalysis("A2", "PRJ1", 2_000L, "P");
+    insertAnalysis("A1", "PRJ1", 1_000L, "P");
+    insertAnalysis("A3", "PRJ1", 3_000L, "U");
+    insertAnalysis("B1", "PRJ2", 1_500L, "P");
+
+    insertMeasure("PRJ1", "A2", NCLOC_ID, 15d, 5d, null);
+    insertMeasure("PRJ1", "A1", NCLOC_ID, 10d, null, null);
+    insertMeasure("PRJ1", "A3", NCLOC_ID, 20d, null, null);
+    insertMeasure("PRJ1", "A2", COVERAGE_ID, 80.5d, null, null);
+    insertMeasure("PRJ1", "A2", ALERT_STATUS_ID, null, null, "OK");
+    insertMeasure("MOD1", "A2", NCLOC_ID, 15d, null, null);
+    insertMeasure("PRJ2", "B1", NCLOC_ID, 100d, null, null);
+    // neither value nor variation
+    insertMeasure("PRJ1", "A1", COVERAGE_ID, null, null, null);
+    insertMeasure("PRJ2", "B1", COVERAGE_ID, null, null, null);
+  }
+
+  private void insertMetric(int id, String key, String valueType) {
+    db.executeInsert("METRICS", "ID", id, "NAME", key, "VAL_TYPE", valueType);
+  }
+
+  private void insertComponent(String uuid, String projectUuid) {
+    db.executeInsert("PROJECTS",
+      "UUID", uuid,
+      "ORGANIZATION_UUID", "ORG1",
+      "UUID_PATH", "X",
+      "ROOT_UUID", projectUuid,
+      "PROJECT_UUID", projectUuid,
+      "PRIVATE", false);
+  }
+
+  private void insertAnalysis(String uuid, String componentUuid, long createdAt, String status) {
+    db.executeInsert("SNAPSHOTS",
+      "UUID", uuid,
+      "COMPONENT_UUID", componentUuid,
+      "CREATED_AT", createdAt,
+      "STATUS", status);
+  }
+
+  private void insertMeasure(String componentUuid, String analysisUuid, int metricId, Double value, Double variation, String textValue) {
+    db.executeInsert("PROJECT_MEASURES",
+      "COMPONENT_UUID", componentUuid,
+      "ANALYSIS_UUID", analysisUuid,
+      "METRIC_ID", metricId,
+      "VALUE", value,
+      "VARIATION_VALUE_1", variation,
+      "TEXT_VALUE", textValue);
+  }
+}
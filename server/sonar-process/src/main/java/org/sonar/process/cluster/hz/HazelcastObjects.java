@@ -53,6 +53,11 @@ public final class HazelcastObjects {
    * {@link CeCleaningSchedulerImpl}
    */
   public static final String CE_CLEANING_JOB_LOCK = "CE_CLEANING_JOB_LOCK";
+  /**
+   * The key of the lock for purging the history of projects
+   * {@link PurgeSchedulerImpl}
+   */
+  public static final String CE_PURGE_JOB_LOCK = "CE_PURGE_JOB_LOCK";
   /**
    * THe key of the replicated map holding the health state information of all SQ nodes.
    */
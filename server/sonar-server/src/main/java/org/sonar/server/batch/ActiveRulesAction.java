@@ -0,0 +1,182 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.collect.ListMultimap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.sonar.api.rule.RuleStatus;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.OrgActiveRuleDto;
+import org.sonar.db.qualityprofile.QProfileDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.rule.RuleParamDto;
+import org.sonar.scanner.protocol.Constants;
+import org.sonar.scanner.protocol.input.ActiveRulesETag;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerActiveRule;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonarqube.ws.MediaTypes;
+
+import static java.lang.String.format;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static org.sonar.core.util.Protobuf.setNullable;
+import static org.sonar.core.util.stream.MoreCollectors.index;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.core.util.stream.MoreCollectors.toSet;
+
+/**
+ * Streams the active rules of a set of quality profiles, so that the scanner loads all of them with a single call.
+ * The response has an ETag which is the hash of its content (see {@link ActiveRulesETag}), and is empty with status
+ * 304 when the ETag provided by the header If-None-Match is still valid. Profiles, active rules and parameters are
+ * written in a stable order, so that the content does not change as long as the active rules do not change.
+ */
+public class ActiveRulesAction implements BatchWsAction {
+
+  private static final String PARAM_QPROFILES = "qprofiles";
+
+  private final DbClient dbClient;
+
+  public ActiveRulesAction(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction("active_rules")
+      .setDescription("Return the active rules of quality profiles, with their parameters")
+      .setResponseExample(getClass().getResource("active_rules-example.proto"))
+      .setSince("7.0")
+      .setInternal(true)
+      .setHandler(this);
+
+    action
+      .createParam(PARAM_QPROFILES)
+      .setRequired(true)
+      .setDescription("Comma-separated list of quality profile keys")
+      .setExampleValue("AU-Tpxb--iU5OvuD2FLy,AU-TpxcA-iU5OvuD2FLz");
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws Exception {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      List<QProfileDto> profiles = loadProfiles(dbSession, request.mandatoryParamAsStrings(PARAM_QPROFILES));
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
+      ServerActiveRule.Builder ruleBuilder = ServerActiveRule.newBuilder();
+      profiles.stream()
+        .sorted(Comparator.comparing(QProfileDto::getKee))
+        .forEach(profile -> writeActiveRules(dbSession, profile, ruleBuilder, content));
+
+      String etag = ActiveRulesETag.of(content.toByteArray());
+      response.setHeader("ETag", etag);
+      if (request.header("If-None-Match").filter(etag::equals).isPresent()) {
+        response.stream().setStatus(HTTP_NOT_MODIFIED);
+        return;
+      }
+      response.stream().setMediaType(MediaTypes.PROTOBUF);
+      content.writeTo(response.stream().output());
+    }
+  }
+
+  private List<QProfileDto> loadProfiles(DbSession dbSession, List<String> keys) {
+    List<QProfileDto> profiles = dbClient.qualityProfileDao().selectByUuids(dbSession, keys);
+    Set<String> foundKeys = profiles.stream().map(QProfileDto::getKee).collect(toSet());
+    for (String key : keys) {
+      if (!foundKeys.contains(key)) {
+        throw new NotFoundException(format("Quality profile not found: %s", key));
+      }
+    }
+    return profiles;
+  }
+
+  private void writeActiveRules(DbSession dbSession, QProfileDto profile, ServerActiveRule.Builder ruleBuilder, OutputStream output) {
+    List<OrgActiveRuleDto> activeRules = dbClient.activeRuleDao().selectByProfile(dbSession, profile);
+    if (activeRules.isEmpty()) {
+      return;
+    }
+    List<Integer> ruleIds = activeRules.stream().map(OrgActiveRuleDto::getRuleId).collect(toList());
+    Map<Integer, RuleDefinitionDto> rulesById = loadRulesAndTheirTemplates(dbSession, ruleIds);
+    ListMultimap<Integer, RuleParamDto> ruleParamsByRuleId = dbClient.ruleDao().selectRuleParamsByRuleIds(dbSession, ruleIds).stream()
+      .collect(index(RuleParamDto::getRuleId));
+    ListMultimap<Integer, ActiveRuleParamDto> activeRuleParamsByActiveRuleId = dbClient.activeRuleDao()
+      .selectParamsByActiveRuleIds(dbSession, activeRules.stream().map(OrgActiveRuleDto::getId).collect(toList())).stream()
+      .collect(index(ActiveRuleParamDto::getActiveRuleId));
+
+    activeRules.sort(Comparator.comparing(OrgActiveRuleDto::getId));
+    for (OrgActiveRuleDto activeRule : activeRules) {
+      RuleDefinitionDto rule = rulesById.get(activeRule.getRuleId());
+      if (rule == null || rule.getStatus() == RuleStatus.REMOVED) {
+        continue;
+      }
+      ruleBuilder
+        .setQprofileKey(profile.getKee())
+        .setRuleRepository(rule.getRepositoryKey())
+        .setRuleKey(rule.getRuleKey())
+        .setSeverity(Constants.Severity.valueOf(activeRule.getSeverityString()))
+        .setCreatedAt(activeRule.getCreatedAt());
+      setNullable(rule.getName(), ruleBuilder::setName);
+      setNullable(rule.getLanguage(), ruleBuilder::setLanguage);
+      setNullable(rule.getConfigKey(), ruleBuilder::setInternalKey);
+      setNullable(rule.getTemplateId(), ruleBuilder::setTemplateRuleKey, templateId -> rulesById.containsKey(templateId) ? rulesById.get(templateId).getRuleKey() : null);
+      // values of the active rule override the default values of the rule
+      Map<String, String> params = new TreeMap<>();
+      ruleParamsByRuleId.get(rule.getId()).stream()
+        .filter(param -> param.getDefaultValue() != null)
+        .forEach(param -> params.put(param.getName(), param.getDefaultValue()));
+      activeRuleParamsByActiveRuleId.get(activeRule.getId()).stream()
+        .filter(param -> param.getValue() != null)
+        .forEach(param -> params.put(param.getKey(), param.getValue()));
+      ruleBuilder.putAllParamsByKey(params);
+      writeActiveRule(ruleBuilder, output);
+    }
+  }
+
+  private Map<Integer, RuleDefinitionDto> loadRulesAndTheirTemplates(DbSession dbSession, List<Integer> ruleIds) {
+    Map<Integer, RuleDefinitionDto> rulesById = new HashMap<>();
+    dbClient.ruleDao().selectDefinitionByIds(dbSession, ruleIds).forEach(rule -> rulesById.put(rule.getId(), rule));
+    List<Integer> templateIds = rulesById.values().stream()
+      .map(RuleDefinitionDto::getTemplateId)
+      .filter(id -> id != null && !rulesById.containsKey(id))
+      .distinct()
+      .collect(toList());
+    dbClient.ruleDao().selectDefinitionByIds(dbSession, templateIds).forEach(template -> rulesById.put(template.getId(), template));
+    return rulesById;
+  }
+
+  private static void writeActiveRule(ServerActiveRule.Builder ruleBuilder, OutputStream output) {
+    try {
+      ruleBuilder.build().writeDelimitedTo(output);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to serialize active rule", e);
+    }
+    ruleBuilder.clear();
+  }
+}
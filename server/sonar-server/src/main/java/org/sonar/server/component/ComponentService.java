@@ -26,6 +26,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.es.ProjectIndexer;
 import org.sonar.server.es.ProjectIndexers;
+import org.sonar.server.measure.ws.ComponentTreeCache;
 import org.sonar.server.user.UserSession;
 
 import static java.util.Collections.singletonList;
@@ -38,11 +39,13 @@ public class ComponentService {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final ProjectIndexers projectIndexers;
+  private final ComponentTreeCache componentTreeCache;
 
-  public ComponentService(DbClient dbClient, UserSession userSession, ProjectIndexers projectIndexers) {
+  public ComponentService(DbClient dbClient, UserSession userSession, ProjectIndexers projectIndexers, ComponentTreeCache componentTreeCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.projectIndexers = projectIndexers;
+    this.componentTreeCache = componentTreeCache;
   }
 
   // TODO should be moved to UpdateKeyAction
@@ -52,12 +55,14 @@ public class ComponentService {
     checkProjectOrModuleKeyFormat(newKey);
     dbClient.componentKeyUpdaterDao().updateKey(dbSession, projectOrModule.uuid(), newKey);
     projectIndexers.commitAndIndex(dbSession, singletonList(projectOrModule), ProjectIndexer.Cause.PROJECT_KEY_UPDATE);
+    componentTreeCache.evictProject(projectOrModule.projectUuid());
   }
 
   // TODO should be moved to BulkUpdateKeyAction
   public void bulkUpdateKey(DbSession dbSession, ComponentDto projectOrModule, String stringToReplace, String replacementString) {
     dbClient.componentKeyUpdaterDao().bulkUpdateKey(dbSession, projectOrModule.uuid(), stringToReplace, replacementString);
     projectIndexers.commitAndIndex(dbSession, singletonList(projectOrModule), ProjectIndexer.Cause.PROJECT_KEY_UPDATE);
+    componentTreeCache.evictProject(projectOrModule.projectUuid());
   }
 
   private static void checkProjectOrModuleKeyFormat(String key) {
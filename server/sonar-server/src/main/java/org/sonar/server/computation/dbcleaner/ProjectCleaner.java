@@ -20,6 +20,7 @@
 package org.sonar.server.computation.dbcleaner;
 
 import java.util.Collection;
+import java.util.Collections;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Configuration;
@@ -54,14 +55,28 @@ public class ProjectCleaner {
     this.purgeListener = purgeListener;
   }
 
-  public ProjectCleaner purge(DbSession session, IdUuidPair rootId, Configuration projectConfig, Collection<String> disabledComponentUuids) {
+  /**
+   * Cheap clean-up to be done by the task which analyzed the root component: aborted analyses and data of
+   * disabled components.
+   */
+  public ProjectCleaner purgeAfterAnalysis(DbSession session, IdUuidPair rootId, Configuration projectConfig, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, rootId, disabledComponentUuids);
+    purgeDao.purgeAfterAnalysis(session, configuration, purgeListener, new PurgeProfiler());
+    session.commit();
+    return this;
+  }
+
+  /**
+   * Purge of the history of the root component, which can be done in background at any time.
+   */
+  public ProjectCleaner purgeHistory(DbSession session, IdUuidPair rootId, Configuration projectConfig) {
     long start = System.currentTimeMillis();
     profiler.reset();
 
-    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, rootId, disabledComponentUuids);
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, rootId, Collections.emptyList());
 
     periodCleaner.clean(session, configuration.rootProjectIdUuid().getUuid(), projectConfig);
-    purgeDao.purge(session, configuration, purgeListener, profiler);
+    purgeDao.purgeHistory(session, configuration, purgeListener, profiler);
 
     session.commit();
     logProfiling(start, projectConfig);
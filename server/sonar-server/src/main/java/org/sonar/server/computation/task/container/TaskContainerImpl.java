@@ -19,7 +19,13 @@
  */
 package org.sonar.server.computation.task.container;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 import org.picocontainer.ComponentAdapter;
 import org.picocontainer.ComponentMonitor;
 import org.picocontainer.DefaultPicoContainer;
@@ -32,14 +38,37 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.platform.ComponentContainer;
 import org.sonar.core.platform.ContainerPopulator;
 import org.sonar.core.platform.Module;
+import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.StopSafeReflectionLifecycleStrategy;
 
 import static java.util.Objects.requireNonNull;
 
 public class TaskContainerImpl extends ComponentContainer implements TaskContainer {
 
+  /**
+   * Classes of components which properties are already declared, by instance of {@link PropertyDefinitions}. The
+   * instance is shared with the parent container and each task registers the same classes, so their annotations are
+   * scanned only once. Keys are weak and compared by identity, so that an instance and its classes are dropped
+   * together.
+   */
+  private static final LoadingCache<PropertyDefinitions, Set<Class<?>>> DECLARED_CLASSES = CacheBuilder.newBuilder()
+    .weakKeys()
+    .build(new CacheLoader<PropertyDefinitions, Set<Class<?>>>() {
+      @Override
+      public Set<Class<?>> load(PropertyDefinitions key) {
+        return ConcurrentHashMap.newKeySet();
+      }
+    });
+
+  private final Set<Class<?>> declaredClasses;
+
   public TaskContainerImpl(ComponentContainer parent, ContainerPopulator<TaskContainer> populator) {
-    super(createContainer(requireNonNull(parent)), parent.getComponentByType(PropertyDefinitions.class));
+    this(parent, parent.getComponentByType(PropertyDefinitions.class), populator);
+  }
+
+  private TaskContainerImpl(ComponentContainer parent, PropertyDefinitions propertyDefinitions, ContainerPopulator<TaskContainer> populator) {
+    super(createContainer(requireNonNull(parent)), propertyDefinitions);
+    this.declaredClasses = DECLARED_CLASSES.getUnchecked(propertyDefinitions);
 
     populateContainer(requireNonNull(populator));
   }
@@ -72,6 +101,13 @@ public class TaskContainerImpl extends ComponentContainer implements TaskContain
     return new DefaultPicoContainer(new OptInCaching(), lifecycleStrategy, parent.getPicoContainer(), componentMonitor);
   }
 
+  @Override
+  public void declareExtension(@Nullable PluginInfo pluginInfo, Object extension) {
+    if (!(extension instanceof Class) || declaredClasses.add((Class<?>) extension)) {
+      super.declareExtension(pluginInfo, extension);
+    }
+  }
+
   @Override
   public void bootup() {
     startComponents();
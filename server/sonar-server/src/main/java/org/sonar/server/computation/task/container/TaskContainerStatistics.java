@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.container;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Time spent by the Compute Engine to set up (create, populate and start) and to tear down (stop) the containers
+ * of tasks since startup.
+ */
+public class TaskContainerStatistics {
+
+  private final AtomicLong setupCount = new AtomicLong(0);
+  private final AtomicLong setupTime = new AtomicLong(0);
+  private final AtomicLong teardownTime = new AtomicLong(0);
+
+  /**
+   * @param ms duration of the setup of a container, in milliseconds
+   */
+  public void addSetup(long ms) {
+    checkArgument(ms >= 0, "Setup time can not be < 0");
+    setupTime.addAndGet(ms);
+    setupCount.incrementAndGet();
+  }
+
+  /**
+   * @param ms duration of the teardown of a container, in milliseconds
+   */
+  public void addTeardown(long ms) {
+    checkArgument(ms >= 0, "Teardown time can not be < 0");
+    teardownTime.addAndGet(ms);
+  }
+
+  /**
+   * Number of containers set up since startup
+   */
+  public long getSetupCount() {
+    return setupCount.get();
+  }
+
+  /**
+   * Total time spent setting up containers since startup, in milliseconds
+   */
+  public long getSetupTime() {
+    return setupTime.get();
+  }
+
+  /**
+   * Total time spent tearing down containers since startup, in milliseconds
+   */
+  public long getTeardownTime() {
+    return teardownTime.get();
+  }
+}
@@ -21,9 +21,11 @@ package org.sonar.server.computation.task.projectanalysis;
 
 import org.sonar.server.computation.queue.ReportSubmitter;
 import org.sonar.core.platform.Module;
+import org.sonar.server.computation.task.container.TaskContainerStatistics;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactoryImpl;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 
 public class ProjectAnalysisTaskModule extends Module {
   @Override
@@ -31,7 +33,9 @@ public class ProjectAnalysisTaskModule extends Module {
     add(
       // task
       ContainerFactoryImpl.class,
+      TaskContainerStatistics.class,
       ComputationStepExecutor.class,
+      ComputationStepStatistics.class,
       ReportTaskProcessor.class,
       ReportSubmitter.class);
   }
@@ -52,7 +52,8 @@ public class ComponentImpl implements Component {
     this.type = builder.type;
     this.status = builder.status;
     this.key = builder.key;
-    this.publicKey = builder.publicKey;
+    // public key is the same as the key unless on a branch, share the instance to save memory on large projects
+    this.publicKey = builder.key.equals(builder.publicKey) ? builder.key : builder.publicKey;
     this.name = builder.name;
     this.description = builder.description;
     this.uuid = builder.uuid;
@@ -19,7 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
@@ -62,6 +64,12 @@ public class ComponentTreeBuilder {
   @Nullable
   private final SnapshotDto baseAnalysis;
 
+  /**
+   * Values with a low cardinality, such as language keys, are shared across components instead of keeping one String
+   * instance per component as read from the report.
+   */
+  private final Map<String, String> sharedValues = new HashMap<>();
+
   public ComponentTreeBuilder(
     ComponentKeyGenerator keyGenerator,
     ComponentKeyGenerator publicKeyGenerator,
@@ -186,9 +194,9 @@ public class ComponentTreeBuilder {
     return DEFAULT_PROJECT_VERSION;
   }
 
-  private static ReportAttributes.Builder createAttributesBuilder(ScannerReport.Component component, @Nullable String scmBasePath) {
+  private ReportAttributes.Builder createAttributesBuilder(ScannerReport.Component component, @Nullable String scmBasePath) {
     return ReportAttributes.newBuilder(component.getRef())
-      .setVersion(trimToNull(component.getVersion()))
+      .setVersion(share(trimToNull(component.getVersion())))
       .setPath(trimToNull(component.getPath()))
       .setScmPath(computeScmPath(scmBasePath, component.getProjectRelativePath()));
   }
@@ -205,7 +213,7 @@ public class ComponentTreeBuilder {
   }
 
   @CheckForNull
-  private static FileAttributes createFileAttributes(ScannerReport.Component component) {
+  private FileAttributes createFileAttributes(ScannerReport.Component component) {
     if (component.getType() != ScannerReport.Component.ComponentType.FILE) {
       return null;
     }
@@ -213,10 +221,18 @@ public class ComponentTreeBuilder {
     checkArgument(component.getLines() > 0, "File '%s' has no line", component.getPath());
     return new FileAttributes(
       component.getIsTest(),
-      trimToNull(component.getLanguage()),
+      share(trimToNull(component.getLanguage())),
       component.getLines());
   }
 
+  @CheckForNull
+  private String share(@Nullable String value) {
+    if (value == null) {
+      return null;
+    }
+    return sharedValues.computeIfAbsent(value, Function.identity());
+  }
+
   private static Component.Type convertDirOrFileType(ScannerReport.Component.ComponentType type) {
     switch (type) {
       case DIRECTORY:
@@ -19,28 +19,61 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkState;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
 
 /**
  * Cache of persisted component (component id and snapshot id) that can be used in the persistence steps
+ * <p>
+ * Report components are identified by their ref, which are small and dense integers. Ids are therefore stored in a
+ * primitive array indexed by ref rather than in a {@link Map}, which would box both the ref and the id of every
+ * component of the project. Ids of developers are kept by a {@link MapBasedDbIdsRepository}.
+ * </p>
  */
 public class DbIdsRepositoryImpl implements MutableDbIdsRepository {
 
+  private static final int INITIAL_CAPACITY = 256;
+
+  private long[] componentIdsByRef = new long[INITIAL_CAPACITY];
+  private final BitSet registeredRefs = new BitSet(INITIAL_CAPACITY);
   private final MapBasedDbIdsRepository<Integer> delegate = new MapBasedDbIdsRepository<>(toReportRef());
 
   @Override
   public DbIdsRepository setComponentId(Component component, long componentId) {
-    return delegate.setComponentId(component, componentId);
+    int ref = component.getReportAttributes().getRef();
+    checkState(!registeredRefs.get(ref),
+      "Component id '%s' is already registered in repository for Component '%s', can not set new id '%s'", getIdIfRegistered(ref), component.getKey(), componentId);
+    ensureCapacity(ref);
+    componentIdsByRef[ref] = componentId;
+    registeredRefs.set(ref);
+    return this;
   }
 
   @Override
   public long getComponentId(Component component) {
-    return delegate.getComponentId(component);
+    int ref = component.getReportAttributes().getRef();
+    checkState(registeredRefs.get(ref), "No component id registered in repository for Component '%s'", component.getKey());
+    return componentIdsByRef[ref];
+  }
+
+  private Long getIdIfRegistered(int ref) {
+    return registeredRefs.get(ref) ? componentIdsByRef[ref] : null;
+  }
+
+  private void ensureCapacity(int ref) {
+    if (ref >= componentIdsByRef.length) {
+      componentIdsByRef = Arrays.copyOf(componentIdsByRef, Math.max(ref + 1, componentIdsByRef.length * 2));
+    }
   }
 
   @Override
   public DbIdsRepository setDeveloperId(Developer developer, long developerId) {
-    return delegate.setDeveloperId(developer, developerId);
+    delegate.setDeveloperId(developer, developerId);
+    return this;
   }
 
   @Override
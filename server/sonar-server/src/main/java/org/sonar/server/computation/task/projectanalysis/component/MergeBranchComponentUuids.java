@@ -44,20 +44,21 @@ public class MergeBranchComponentUuids {
     this.dbClient = dbClient;
   }
 
-  private void lazyInit() {
+  private synchronized void lazyInit() {
     if (uuidsByKey == null) {
       String mergeBranchUuid = analysisMetadataHolder.getBranch().getMergeBranchUuid().get();
 
-      uuidsByKey = new HashMap<>();
+      Map<String, String> uuids = new HashMap<>();
       try (DbSession dbSession = dbClient.openSession(false)) {
 
         List<ComponentDto> components = dbClient.componentDao().selectByProjectUuid(mergeBranchUuid, dbSession);
         for (ComponentDto dto : components) {
-          uuidsByKey.put(dto.getKey(), dto.uuid());
+          uuids.put(dto.getKey(), dto.uuid());
         }
 
         mergeBranchName = dbClient.branchDao().selectByUuid(dbSession, mergeBranchUuid).get().getKey();
       }
+      uuidsByKey = uuids;
     }
   }
 
@@ -19,8 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
-import com.google.common.collect.ImmutableMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.CheckForNull;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -32,8 +32,12 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Holds the reference to the root of the {@link Component} tree for the current CE run.
  */
 public class TreeRootHolderImpl implements MutableTreeRootHolder {
+  /**
+   * Components of the tree indexed by their ref. Refs in the report are small and dense integers so an array is much
+   * more compact than a map on large projects.
+   */
   @CheckForNull
-  private Map<Integer, Component> componentsByRef;
+  private Component[] componentsByRef;
 
   private Component root;
 
@@ -54,25 +58,33 @@ public class TreeRootHolderImpl implements MutableTreeRootHolder {
   public Component getComponentByRef(int ref) {
     checkInitialized();
     ensureComponentByRefIsPopulated();
-    Component component = componentsByRef.get(ref);
+    Component component = ref >= 0 && ref < componentsByRef.length ? componentsByRef[ref] : null;
     checkArgument(component != null, "Component with ref '%s' can't be found", ref);
     return component;
   }
 
-  private void ensureComponentByRefIsPopulated() {
+  private synchronized void ensureComponentByRefIsPopulated() {
     if (componentsByRef != null) {
       return;
     }
 
-    final ImmutableMap.Builder<Integer, Component> builder = ImmutableMap.builder();
+    List<Component> components = new ArrayList<>();
     new DepthTraversalTypeAwareCrawler(
       new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
         @Override
         public void visitAny(Component component) {
-          builder.put(component.getReportAttributes().getRef(), component);
+          components.add(component);
         }
       }).visit(this.root);
-    this.componentsByRef = builder.build();
+
+    int maxRef = components.stream().mapToInt(c -> c.getReportAttributes().getRef()).max().orElse(0);
+    Component[] byRef = new Component[maxRef + 1];
+    for (Component component : components) {
+      int ref = component.getReportAttributes().getRef();
+      checkState(byRef[ref] == null, "Component ref '%s' is used by more than one component", ref);
+      byRef[ref] = component;
+    }
+    this.componentsByRef = byRef;
   }
 
   private void checkInitialized() {
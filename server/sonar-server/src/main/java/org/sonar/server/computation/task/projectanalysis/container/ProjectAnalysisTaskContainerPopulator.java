@@ -84,6 +84,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.TrackerBaseInputF
 import org.sonar.server.computation.task.projectanalysis.issue.TrackerExecution;
 import org.sonar.server.computation.task.projectanalysis.issue.TrackerMergeBranchInputFactory;
 import org.sonar.server.computation.task.projectanalysis.issue.TrackerRawInputFactory;
+import org.sonar.server.computation.task.projectanalysis.issue.TrackingResultPrefetcher;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.BranchCoverageRule;
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.CommentDensityRule;
@@ -250,6 +251,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       ComponentIssuesLoader.class,
       BaseIssuesLoader.class,
       IssueTrackingDelegator.class,
+      TrackingResultPrefetcher.class,
       BranchPersisterImpl.class,
       ShortBranchIssuesLoader.class,
       ShortBranchIssueMerger.class,
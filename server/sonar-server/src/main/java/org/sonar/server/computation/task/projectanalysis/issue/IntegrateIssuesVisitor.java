@@ -37,13 +37,13 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private final IssueCache issueCache;
   private final IssueLifecycle issueLifecycle;
   private final IssueVisitors issueVisitors;
-  private final IssueTrackingDelegator issueTracking;
+  private final TrackingResultPrefetcher issueTracking;
   private final ShortBranchIssueMerger issueStatusCopier;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final MergeBranchComponentUuids mergeBranchComponentUuids;
 
   public IntegrateIssuesVisitor(IssueCache issueCache, IssueLifecycle issueLifecycle, IssueVisitors issueVisitors,
-    AnalysisMetadataHolder analysisMetadataHolder, IssueTrackingDelegator issueTracking, ShortBranchIssueMerger issueStatusCopier,
+    AnalysisMetadataHolder analysisMetadataHolder, TrackingResultPrefetcher issueTracking, ShortBranchIssueMerger issueStatusCopier,
     MergeBranchComponentUuids mergeBranchComponentUuids) {
     super(CrawlerDepthLimit.FILE, POST_ORDER);
     this.issueCache = issueCache;
@@ -0,0 +1,162 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+
+/**
+ * Computes the issue tracking of files concurrently, ahead of {@link IntegrateIssuesVisitor}.
+ * <p>
+ * Tracking of a file only reads the report, the DB and repositories populated by previous steps, so it does not depend
+ * on the order in which the component tree is crawled. Integration of the tracked issues (lifecycle, issue visitors,
+ * issue cache) is not thread-safe and is still done sequentially by {@link IntegrateIssuesVisitor}, in crawling order.
+ * </p>
+ * <p>
+ * Only a bounded number of files are tracked ahead of the file currently visited, so that memory consumption does not
+ * depend on the size of the project. Components which are not files, as well as files which are not expected (ie. not
+ * in the tree of {@link TreeRootHolder}) are tracked synchronously.
+ * </p>
+ */
+public class TrackingResultPrefetcher implements Startable {
+
+  private static final int FILES_AHEAD_PER_THREAD = 8;
+
+  private final IssueTrackingDelegator issueTracking;
+  private final TreeRootHolder treeRootHolder;
+  private final int threads;
+
+  @CheckForNull
+  private ExecutorService executorService;
+  @CheckForNull
+  private List<Component> files;
+  private final Map<Integer, Integer> filePositionsByRef = new HashMap<>();
+  private final Map<Integer, Future<TrackingResult>> pendingByRef = new HashMap<>();
+  private int nextFileToSubmit = 0;
+
+  public TrackingResultPrefetcher(IssueTrackingDelegator issueTracking, TreeRootHolder treeRootHolder) {
+    this(issueTracking, treeRootHolder, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  }
+
+  TrackingResultPrefetcher(IssueTrackingDelegator issueTracking, TreeRootHolder treeRootHolder, int threads) {
+    checkArgument(threads > 0, "Number of threads must be greater than zero");
+    this.issueTracking = issueTracking;
+    this.treeRootHolder = treeRootHolder;
+    this.threads = threads;
+  }
+
+  @Override
+  public void start() {
+    if (threads > 1) {
+      this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("IssueTracking-%d")
+        .build());
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+      executorService = null;
+    }
+  }
+
+  /**
+   * Same as {@link IssueTrackingDelegator#track(Component)}, returning the result computed ahead when available.
+   */
+  public TrackingResult track(Component component) {
+    if (executorService == null || component.getType() != Component.Type.FILE) {
+      return issueTracking.track(component);
+    }
+
+    int ref = component.getReportAttributes().getRef();
+    submitFilesAhead(ref);
+    Future<TrackingResult> future = pendingByRef.remove(ref);
+    if (future == null) {
+      return issueTracking.track(component);
+    }
+    return getResult(future);
+  }
+
+  private void submitFilesAhead(int ref) {
+    ensureFilesInitialized();
+    Integer position = filePositionsByRef.get(ref);
+    if (position == null) {
+      return;
+    }
+    int end = Math.min(files.size(), position + threads * FILES_AHEAD_PER_THREAD);
+    for (int i = Math.max(position, nextFileToSubmit); i < end; i++) {
+      Component file = files.get(i);
+      pendingByRef.put(file.getReportAttributes().getRef(), executorService.submit(() -> issueTracking.track(file)));
+    }
+    nextFileToSubmit = Math.max(nextFileToSubmit, end);
+  }
+
+  private void ensureFilesInitialized() {
+    if (files != null) {
+      return;
+    }
+    List<Component> list = new ArrayList<>();
+    // same order as the one of the crawler of IntegrateIssuesVisitor
+    new DepthTraversalTypeAwareCrawler(
+      new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
+        @Override
+        public void visitFile(Component file) {
+          filePositionsByRef.put(file.getReportAttributes().getRef(), list.size());
+          list.add(file);
+        }
+      }).visit(treeRootHolder.getRoot());
+    this.files = list;
+  }
+
+  private static TrackingResult getResult(Future<TrackingResult> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for issue tracking", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -21,20 +21,20 @@ package org.sonar.server.computation.task.projectanalysis.measure;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.SetMultimap;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import javax.annotation.Nonnull;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.collect.FluentIterable.from;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -45,7 +45,7 @@ import static java.util.Objects.requireNonNull;
  */
 public final class MapBasedRawMeasureRepository<T> implements MeasureRepository {
   private final Function<Component, T> componentToKey;
-  private final Map<T, Map<MeasureKey, Measure>> measures = new HashMap<>();
+  private final Map<T, ComponentMeasures> measures = new HashMap<>();
 
   public MapBasedRawMeasureRepository(Function<Component, T> componentToKey) {
     this.componentToKey = requireNonNull(componentToKey);
@@ -65,7 +65,7 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     requireNonNull(component);
     requireNonNull(metric);
 
-    return find(component, metric);
+    return find(component, metric, null);
   }
 
   @Override
@@ -73,7 +73,7 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     requireNonNull(component);
     checkValueTypeConsistency(metric, measure);
 
-    Optional<Measure> existingMeasure = find(component, metric, measure);
+    Optional<Measure> existingMeasure = find(component, metric, measure.getDeveloper());
     if (existingMeasure.isPresent()) {
       throw new UnsupportedOperationException(
         format(
@@ -89,7 +89,7 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     requireNonNull(component);
     checkValueTypeConsistency(metric, measure);
 
-    Optional<Measure> existingMeasure = find(component, metric, measure);
+    Optional<Measure> existingMeasure = find(component, metric, measure.getDeveloper());
     if (!existingMeasure.isPresent()) {
       throw new UnsupportedOperationException(
         format(
@@ -112,61 +112,67 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     requireNonNull(metric);
     requireNonNull(component);
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> rawMeasures = measures.get(componentKey);
-    if (rawMeasures == null) {
+    ComponentMeasures componentMeasures = measures.get(componentKey);
+    if (componentMeasures == null) {
       return Collections.emptySet();
     }
-    return from(rawMeasures.entrySet()).filter(new MatchMetric(metric)).transform(ToMeasure.INSTANCE).toSet();
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    Measure measure = componentMeasures.byMetricKey.get(metric.getKey());
+    if (measure != null) {
+      builder.add(measure);
+    }
+    if (componentMeasures.byDeveloper != null) {
+      componentMeasures.byDeveloper.entrySet().stream()
+        .filter(entry -> entry.getKey().getMetricKey().equals(metric.getKey()))
+        .forEach(entry -> builder.add(entry.getValue()));
+    }
+    return builder.build();
   }
 
   @Override
   public SetMultimap<String, Measure> getRawMeasures(Component component) {
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> rawMeasures = measures.get(componentKey);
-    if (rawMeasures == null) {
+    ComponentMeasures componentMeasures = measures.get(componentKey);
+    if (componentMeasures == null) {
       return ImmutableSetMultimap.of();
     }
 
     ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
-    for (Map.Entry<MeasureKey, Measure> entry : rawMeasures.entrySet()) {
-      builder.put(entry.getKey().getMetricKey(), entry.getValue());
+    for (Map.Entry<String, Measure> entry : componentMeasures.byMetricKey.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue());
     }
-    return builder.build();
-  }
-
-  private Optional<Measure> find(Component component, Metric metric) {
-    T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(componentKey);
-    if (measuresPerMetric == null) {
-      return Optional.absent();
+    if (componentMeasures.byDeveloper != null) {
+      for (Map.Entry<MeasureKey, Measure> entry : componentMeasures.byDeveloper.entrySet()) {
+        builder.put(entry.getKey().getMetricKey(), entry.getValue());
+      }
     }
-    return Optional.fromNullable(measuresPerMetric.get(new MeasureKey(metric.getKey(), null)));
+    return builder.build();
   }
 
-  private Optional<Measure> find(Component component, Metric metric, Measure measure) {
+  private Optional<Measure> find(Component component, Metric metric, @Nullable Developer developer) {
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(componentKey);
-    if (measuresPerMetric == null) {
+    ComponentMeasures componentMeasures = measures.get(componentKey);
+    if (componentMeasures == null) {
       return Optional.absent();
     }
-    return Optional.fromNullable(measuresPerMetric.get(new MeasureKey(metric.getKey(), measure.getDeveloper())));
+    return Optional.fromNullable(componentMeasures.get(metric.getKey(), developer));
   }
 
   public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
     requireNonNull(component);
     requireNonNull(measure);
-    requireNonNull(measure);
     requireNonNull(overridePolicy);
 
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(componentKey);
-    if (measuresPerMetric == null) {
-      measuresPerMetric = new HashMap<>();
-      measures.put(componentKey, measuresPerMetric);
+    ComponentMeasures componentMeasures = measures.get(componentKey);
+    if (componentMeasures == null) {
+      componentMeasures = new ComponentMeasures();
+      measures.put(componentKey, componentMeasures);
     }
-    MeasureKey key = new MeasureKey(metric.getKey(), measure.getDeveloper());
-    if (!measuresPerMetric.containsKey(key) || overridePolicy == OverridePolicy.OVERRIDE) {
-      measuresPerMetric.put(key, measure);
+    String metricKey = metric.getKey();
+    Developer developer = measure.getDeveloper();
+    if (overridePolicy == OverridePolicy.OVERRIDE || componentMeasures.get(metricKey, developer) == null) {
+      componentMeasures.put(metricKey, developer, measure);
     }
   }
 
@@ -174,26 +180,35 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     OVERRIDE, DO_NOT_OVERRIDE
   }
 
-  private static class MatchMetric implements Predicate<Map.Entry<MeasureKey, Measure>> {
-    private final Metric metric;
-
-    public MatchMetric(Metric metric) {
-      this.metric = metric;
-    }
-
-    @Override
-    public boolean apply(@Nonnull Map.Entry<MeasureKey, Measure> input) {
-      return input.getKey().getMetricKey().equals(metric.getKey());
+  /**
+   * Measures of a single component.
+   * <p>
+   * Measures which are not related to a developer, ie. almost all of them, are stored by metric key so that looking them
+   * up does not require to allocate a {@link MeasureKey}.
+   * </p>
+   */
+  private static final class ComponentMeasures {
+    private final Map<String, Measure> byMetricKey = new HashMap<>();
+    @CheckForNull
+    private Map<MeasureKey, Measure> byDeveloper;
+
+    @CheckForNull
+    private Measure get(String metricKey, @Nullable Developer developer) {
+      if (developer == null) {
+        return byMetricKey.get(metricKey);
+      }
+      return byDeveloper == null ? null : byDeveloper.get(new MeasureKey(metricKey, developer));
     }
-  }
-
-  private enum ToMeasure implements Function<Map.Entry<MeasureKey, Measure>, Measure> {
-    INSTANCE;
 
-    @Nullable
-    @Override
-    public Measure apply(@Nonnull Map.Entry<MeasureKey, Measure> input) {
-      return input.getValue();
+    private void put(String metricKey, @Nullable Developer developer, Measure measure) {
+      if (developer == null) {
+        byMetricKey.put(metricKey, measure);
+        return;
+      }
+      if (byDeveloper == null) {
+        byDeveloper = new HashMap<>();
+      }
+      byDeveloper.put(new MeasureKey(metricKey, developer), measure);
     }
   }
 }
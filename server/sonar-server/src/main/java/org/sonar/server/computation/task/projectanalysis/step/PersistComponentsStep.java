@@ -52,6 +52,7 @@ import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisi
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 
 import static com.google.common.collect.FluentIterable.from;
 import static java.util.Optional.ofNullable;
@@ -72,11 +73,12 @@ public class PersistComponentsStep implements ComputationStep {
   private final MutableDisabledComponentsHolder disabledComponentsHolder;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final BranchPersister branchPersister;
+  private final ComputationStepStatistics statistics;
 
   public PersistComponentsStep(DbClient dbClient, TreeRootHolder treeRootHolder,
     MutableDbIdsRepository dbIdsRepository, System2 system2,
     MutableDisabledComponentsHolder disabledComponentsHolder, AnalysisMetadataHolder analysisMetadataHolder,
-    BranchPersister branchPersister) {
+    BranchPersister branchPersister, ComputationStepStatistics statistics) {
     this.dbClient = dbClient;
     this.treeRootHolder = treeRootHolder;
     this.dbIdsRepository = dbIdsRepository;
@@ -84,6 +86,7 @@ public class PersistComponentsStep implements ComputationStep {
     this.disabledComponentsHolder = disabledComponentsHolder;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.branchPersister = branchPersister;
+    this.statistics = statistics;
   }
 
   @Override
@@ -107,13 +110,16 @@ public class PersistComponentsStep implements ComputationStep {
 
       // Insert or update the components in database. They are removed from existingDtosByKeys
       // at the same time.
-      new PathAwareCrawler<>(new PersistComponentStepsVisitor(existingDtosByKeys, dbSession, mainBranchProjectUuid))
+      PersistComponentStepsVisitor visitor = new PersistComponentStepsVisitor(existingDtosByKeys, dbSession, mainBranchProjectUuid);
+      new PathAwareCrawler<>(visitor)
         .visit(treeRootHolder.getRoot());
 
       disableRemainingComponents(dbSession, existingDtosByKeys.values());
       ensureConsistentVisibility(dbSession, projectUuid, isRootPrivate);
 
       dbSession.commit();
+      statistics.addComponentsOfTask(visitor.componentCount);
+      statistics.addRowsWritten(getDescription(), visitor.rowCount);
     }
   }
 
@@ -170,6 +176,8 @@ public class PersistComponentsStep implements ComputationStep {
     private final DbSession dbSession;
     @Nullable
     private final String mainBranchProjectUuid;
+    private long componentCount = 0;
+    private long rowCount = 0;
 
     PersistComponentStepsVisitor(Map<String, ComponentDto> existingComponentDtosByKey, DbSession dbSession, @Nullable String mainBranchProjectUuid) {
       super(
@@ -247,15 +255,18 @@ public class PersistComponentsStep implements ComputationStep {
     }
 
     private ComponentDto persistComponent(ComponentDto componentDto) {
+      componentCount++;
       ComponentDto existingComponent = existingComponentDtosByKey.remove(componentDto.getDbKey());
       if (existingComponent == null) {
         dbClient.componentDao().insert(dbSession, componentDto);
+        rowCount++;
         return componentDto;
       }
       Optional<ComponentUpdateDto> update = compareForUpdate(existingComponent, componentDto);
       if (update.isPresent()) {
         ComponentUpdateDto updateDto = update.get();
         dbClient.componentDao().update(dbSession, updateDto);
+        rowCount++;
 
         // update the fields in memory in order the PathAwareVisitor.Path
         // to be up-to-date
@@ -19,11 +19,23 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.duplication.DuplicationUnitDto;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -34,13 +46,23 @@ import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisi
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 /**
- * Persist cross project duplications text blocks into DUPLICATIONS_INDEX table
+ * Persist cross project duplications text blocks into DUPLICATIONS_INDEX table.
+ * <p>
+ * Text blocks of the files which did not change since the base analysis are not sent again to the database: the rows
+ * of the base analysis are copied to the current one by a single statement. The rows of the base analysis are not
+ * moved, as it remains the last analysis of the project until the current one succeeds, and they are deleted when
+ * the base analysis is purged.
+ * </p>
  */
 public class PersistCrossProjectDuplicationIndexStep implements ComputationStep {
 
+  private static final Logger LOGGER = Loggers.get(PersistCrossProjectDuplicationIndexStep.class);
+  private static final HashFunction BLOCKS_HASH_FUNCTION = Hashing.md5();
+
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
   private final AnalysisMetadataHolder analysisMetadataHolder;
@@ -65,8 +87,62 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
 
     try (DbSession dbSession = dbClient.openSession(true)) {
       Component project = treeRootHolder.getRoot();
-      new DepthTraversalTypeAwareCrawler(new DuplicationVisitor(dbSession, analysisMetadataHolder.getUuid())).visit(project);
+      String baseAnalysisUuid = getBaseAnalysisUuid();
+      Map<String, HashCode> baseHashesByFileUuid = baseAnalysisUuid == null ? new HashMap<>() : loadBaseHashes(dbSession, baseAnalysisUuid);
+      DuplicationVisitor visitor = new DuplicationVisitor(dbSession, analysisMetadataHolder.getUuid(), baseHashesByFileUuid);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(project);
+      if (baseAnalysisUuid != null && !visitor.unchangedFileUuids.isEmpty()) {
+        dbClient.duplicationDao().copyToAnalysis(dbSession, baseAnalysisUuid, analysisMetadataHolder.getUuid(), visitor.unchangedFileUuids);
+      }
       dbSession.commit();
+      LOGGER.debug("Cross project duplications index: {} unchanged files copied, {} files inserted ({} blocks)",
+        visitor.unchangedFileUuids.size(), visitor.insertedFiles, visitor.insertedBlocks);
+    }
+  }
+
+  @CheckForNull
+  private String getBaseAnalysisUuid() {
+    Analysis baseAnalysis = analysisMetadataHolder.getBaseAnalysis();
+    return baseAnalysis == null ? null : baseAnalysis.getUuid();
+  }
+
+  /**
+   * Blocks are read ordered by file and by index in file, so that hashes are computed in the same order as the one
+   * of the report.
+   */
+  private Map<String, HashCode> loadBaseHashes(DbSession dbSession, String baseAnalysisUuid) {
+    Map<String, HashCode> hashesByFileUuid = new HashMap<>();
+    BlocksHash current = new BlocksHash();
+    dbClient.duplicationDao().scrollByAnalysisUuid(dbSession, baseAnalysisUuid, context -> {
+      DuplicationUnitDto dto = context.getResultObject();
+      if (current.fileUuid != null && !current.fileUuid.equals(dto.getComponentUuid())) {
+        hashesByFileUuid.put(current.fileUuid, current.hash());
+        current.reset();
+      }
+      current.fileUuid = dto.getComponentUuid();
+      current.add(dto.getHash(), dto.getStartLine(), dto.getEndLine());
+    });
+    if (current.fileUuid != null) {
+      hashesByFileUuid.put(current.fileUuid, current.hash());
+    }
+    return hashesByFileUuid;
+  }
+
+  private static class BlocksHash {
+    private String fileUuid;
+    private Hasher hasher = BLOCKS_HASH_FUNCTION.newHasher();
+
+    private void add(String hash, int startLine, int endLine) {
+      hasher.putString(hash, UTF_8).putInt(startLine).putInt(endLine);
+    }
+
+    private HashCode hash() {
+      return hasher.hash();
+    }
+
+    private void reset() {
+      fileUuid = null;
+      hasher = BLOCKS_HASH_FUNCTION.newHasher();
     }
   }
 
@@ -74,11 +150,16 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
 
     private final DbSession session;
     private final String analysisUuid;
+    private final Map<String, HashCode> baseHashesByFileUuid;
+    private final List<String> unchangedFileUuids = new ArrayList<>();
+    private int insertedFiles = 0;
+    private int insertedBlocks = 0;
 
-    private DuplicationVisitor(DbSession session, String analysisUuid) {
+    private DuplicationVisitor(DbSession session, String analysisUuid, Map<String, HashCode> baseHashesByFileUuid) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
       this.analysisUuid = analysisUuid;
+      this.baseHashesByFileUuid = baseHashesByFileUuid;
     }
 
     @Override
@@ -87,26 +168,48 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
     }
 
     private void visitComponent(Component component) {
-      readFromReport(component);
+      List<ScannerReport.CpdTextBlock> blocks = readFromReport(component);
+      if (blocks.isEmpty()) {
+        return;
+      }
+      HashCode baseHash = baseHashesByFileUuid.get(component.getUuid());
+      if (baseHash != null && baseHash.equals(hash(blocks))) {
+        unchangedFileUuids.add(component.getUuid());
+      } else {
+        insert(component, blocks);
+      }
     }
 
-    private void readFromReport(Component component) {
-      int indexInFile = 0;
+    private List<ScannerReport.CpdTextBlock> readFromReport(Component component) {
+      List<ScannerReport.CpdTextBlock> result = new ArrayList<>();
       try (CloseableIterator<ScannerReport.CpdTextBlock> blocks = reportReader.readCpdTextBlocks(component.getReportAttributes().getRef())) {
-        while (blocks.hasNext()) {
-          ScannerReport.CpdTextBlock block = blocks.next();
-          dbClient.duplicationDao().insert(
-            session,
-            new DuplicationUnitDto()
-              .setHash(block.getHash())
-              .setStartLine(block.getStartLine())
-              .setEndLine(block.getEndLine())
-              .setIndexInFile(indexInFile)
-              .setAnalysisUuid(analysisUuid)
-              .setComponentUuid(component.getUuid()));
-          indexInFile++;
-        }
+        blocks.forEachRemaining(result::add);
+      }
+      return result;
+    }
+
+    private HashCode hash(List<ScannerReport.CpdTextBlock> blocks) {
+      BlocksHash blocksHash = new BlocksHash();
+      blocks.forEach(block -> blocksHash.add(block.getHash(), block.getStartLine(), block.getEndLine()));
+      return blocksHash.hash();
+    }
+
+    private void insert(Component component, List<ScannerReport.CpdTextBlock> blocks) {
+      int indexInFile = 0;
+      for (ScannerReport.CpdTextBlock block : blocks) {
+        dbClient.duplicationDao().insert(
+          session,
+          new DuplicationUnitDto()
+            .setHash(block.getHash())
+            .setStartLine(block.getStartLine())
+            .setEndLine(block.getEndLine())
+            .setIndexInFile(indexInFile)
+            .setAnalysisUuid(analysisUuid)
+            .setComponentUuid(component.getUuid()));
+        indexInFile++;
       }
+      insertedFiles++;
+      insertedBlocks += blocks.size();
     }
 
   }
@@ -21,10 +21,15 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -57,11 +62,32 @@ import org.sonar.server.computation.task.projectanalysis.source.ScmLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SymbolsLineReader;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
+/**
+ * Persists the sources of files.
+ * <p>
+ * Data of a file (source lines merged with coverage, SCM, highlighting, symbols and duplications) is computed,
+ * encoded and hashed concurrently by a pool of workers, each one reading the report on its own. Only a bounded
+ * number of files, totalling at most {@link #MAX_LINES_AHEAD} lines, are computed ahead of the file being persisted,
+ * so that memory consumption depends neither on the size of the project nor on the size of its files. A file bigger
+ * than this limit is computed by the thread executing the step, once it is the next file to persist.
+ * </p>
+ * <p>
+ * Rows are written in the crawling order by the thread executing the step. Files whose hashes and revision are
+ * unchanged are not written at all. Other ones are inserted or updated by batch, which is committed as soon as the
+ * size of the pending binary data exceeds {@link #MAX_PENDING_BYTES}, so that big files are not kept in memory.
+ * </p>
+ */
 public class PersistFileSourcesStep implements ComputationStep {
 
+  private static final int FILES_AHEAD_PER_THREAD = 4;
+  static final int MAX_LINES_AHEAD = 100_000;
+  private static final int MAX_PENDING_BYTES = 8 * 1024 * 1024;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -69,9 +95,18 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final ComputationStepStatistics statistics;
+  private final int threads;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
-    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, ComputationStepStatistics statistics) {
+    this(dbClient, system2, treeRootHolder, reportReader, sourceLinesRepository, scmInfoRepository, duplicationRepository, statistics,
+      Math.min(4, Runtime.getRuntime().availableProcessors()));
+  }
+
+  PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, ComputationStepStatistics statistics, int threads) {
+    checkArgument(threads > 0, "Number of threads must be greater than zero");
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -79,27 +114,50 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    this.statistics = statistics;
+    this.threads = threads;
   }
 
   @Override
   public void execute() {
-    // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(dbSession))
+    ExecutorService executorService = threads > 1 ? Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("FileSources-%d")
+      .build()) : null;
+    try (DbSession dbSession = dbClient.openSession(true)) {
+      FileSourceVisitor visitor = new FileSourceVisitor(dbSession, executorService);
+      new DepthTraversalTypeAwareCrawler(visitor)
         .visit(treeRootHolder.getRoot());
+      dbSession.commit();
+      statistics.addRowsWritten(getDescription(), visitor.rowCount);
+    } finally {
+      if (executorService != null) {
+        executorService.shutdownNow();
+      }
     }
   }
 
   private class FileSourceVisitor extends TypeAwareVisitorAdapter {
 
     private final DbSession session;
+    @CheckForNull
+    private final ExecutorService executorService;
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
+    private long rowCount = 0;
+    private long pendingBytes = 0;
+
+    private final List<Component> files = new ArrayList<>();
+    private final Map<Integer, Integer> filePositionsByRef = new HashMap<>();
+    private final Map<Integer, Future<FileSourceData>> pendingByRef = new HashMap<>();
+    private int nextFileToSubmit = 0;
+    private long linesAhead = 0;
 
-    private FileSourceVisitor(DbSession session) {
+    private FileSourceVisitor(DbSession session, @Nullable ExecutorService executorService) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
+      this.executorService = executorService;
     }
 
     @Override
@@ -110,69 +168,163 @@ public class PersistFileSourcesStep implements ComputationStep {
           FileSourceDto dto = (FileSourceDto) context.getResultObject();
           previousFileSourcesByUuid.put(dto.getFileUuid(), dto);
         });
+      if (executorService != null) {
+        // same order as the one of the crawler of this visitor
+        new DepthTraversalTypeAwareCrawler(
+          new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, PRE_ORDER) {
+            @Override
+            public void visitFile(Component file) {
+              filePositionsByRef.put(file.getReportAttributes().getRef(), files.size());
+              files.add(file);
+            }
+          }).visit(project);
+      }
     }
 
     @Override
     public void visitFile(Component file) {
-      try (CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
-        LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file)) {
-        ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
-        ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+      try {
+        persistSource(getFileSourceData(file), file.getUuid());
       } catch (Exception e) {
         throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
-      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
+    private FileSourceData getFileSourceData(Component file) throws Exception {
+      if (executorService == null) {
+        return computeFileSourceData(file, scmInfoRepository.getScmInfo(file));
+      }
+      submitFilesAhead(file.getReportAttributes().getRef());
+      Future<FileSourceData> future = pendingByRef.remove(file.getReportAttributes().getRef());
+      if (future == null) {
+        return computeFileSourceData(file, scmInfoRepository.getScmInfo(file));
+      }
+      linesAhead -= file.getFileAttributes().getLines();
+      return getResult(future);
+    }
+
+    private void submitFilesAhead(int ref) {
+      Integer position = filePositionsByRef.get(ref);
+      if (position == null) {
+        return;
+      }
+      int end = Math.min(files.size(), position + threads * FILES_AHEAD_PER_THREAD);
+      for (int i = Math.max(position, nextFileToSubmit); i < end; i++) {
+        Component file = files.get(i);
+        int lines = file.getFileAttributes().getLines();
+        if (lines > MAX_LINES_AHEAD && i == position) {
+          // too big to be computed ahead, computed by the current thread while workers process the next files
+          nextFileToSubmit = i + 1;
+          continue;
+        }
+        if (linesAhead + lines > MAX_LINES_AHEAD) {
+          // submitted once enough files are persisted
+          return;
+        }
+        // ScmInfoRepository is not thread-safe and may load data from DB, SCM info is therefore read by the current thread
+        Optional<ScmInfo> scmInfo = scmInfoRepository.getScmInfo(file);
+        pendingByRef.put(file.getReportAttributes().getRef(), executorService.submit(() -> computeFileSourceData(file, scmInfo)));
+        linesAhead += lines;
+        nextFileToSubmit = i + 1;
+      }
+    }
 
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
-      String srcHash = fileSourceData.getSrcHash();
-      String lineHashes = fileSourceData.getLineHashes();
+    private void persistSource(FileSourceData fileSourceData, String componentUuid) {
       FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
+      String revision = fileSourceData.revision;
 
       if (previousDto == null) {
         FileSourceDto dto = new FileSourceDto()
           .setProjectUuid(projectUuid)
           .setFileUuid(componentUuid)
           .setDataType(Type.SOURCE)
-          .setBinaryData(data)
-          .setSrcHash(srcHash)
-          .setDataHash(dataHash)
-          .setLineHashes(lineHashes)
+          .setBinaryData(fileSourceData.data)
+          .setSrcHash(fileSourceData.srcHash)
+          .setDataHash(fileSourceData.dataHash)
+          .setLineHashes(fileSourceData.lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
-          .setRevision(computeRevision(latestChange));
+          .setRevision(revision);
         dbClient.fileSourceDao().insert(session, dto);
-        session.commit();
+        onRowWritten(fileSourceData);
       } else {
         // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
-        boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
-        boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
-        String revision = computeRevision(latestChange);
+        boolean binaryDataUpdated = !fileSourceData.dataHash.equals(previousDto.getDataHash());
+        boolean srcHashUpdated = !fileSourceData.srcHash.equals(previousDto.getSrcHash());
         boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
         if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
           previousDto
-            .setBinaryData(data)
-            .setDataHash(dataHash)
-            .setSrcHash(srcHash)
-            .setLineHashes(lineHashes)
+            .setBinaryData(fileSourceData.data)
+            .setDataHash(fileSourceData.dataHash)
+            .setSrcHash(fileSourceData.srcHash)
+            .setLineHashes(fileSourceData.lineHashes)
             .setRevision(revision)
             .setUpdatedAt(system2.now());
           dbClient.fileSourceDao().update(session, previousDto);
-          session.commit();
+          onRowWritten(fileSourceData);
         }
       }
     }
 
-    @CheckForNull
-    private String computeRevision(@Nullable Changeset latestChange) {
-      if (latestChange == null) {
-        return null;
+    private void onRowWritten(FileSourceData fileSourceData) {
+      rowCount++;
+      pendingBytes += fileSourceData.data.length;
+      if (pendingBytes >= MAX_PENDING_BYTES) {
+        session.commit();
+        pendingBytes = 0;
+      }
+    }
+  }
+
+  private FileSourceData computeFileSourceData(Component file, Optional<ScmInfo> scmInfo) {
+    try (CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
+      LineReaders lineReaders = new LineReaders(reportReader, scmInfo, duplicationRepository, file)) {
+      ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
+      ComputeFileSourceData.Data data = computeFileSourceData.compute();
+      return new FileSourceData(data, computeRevision(lineReaders.getLatestChange()));
+    }
+  }
+
+  @CheckForNull
+  private static String computeRevision(@Nullable Changeset latestChange) {
+    if (latestChange == null) {
+      return null;
+    }
+    return latestChange.getRevision();
+  }
+
+  private static FileSourceData getResult(Future<FileSourceData> future) throws Exception {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for computation of sources", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
       }
-      return latestChange.getRevision();
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Encoded data and hashes of a file. The protobuf message is not kept once encoded.
+   */
+  private static class FileSourceData {
+    private final byte[] data;
+    private final String dataHash;
+    private final String srcHash;
+    private final String lineHashes;
+    @CheckForNull
+    private final String revision;
+
+    private FileSourceData(ComputeFileSourceData.Data fileSourceData, @Nullable String revision) {
+      this.data = FileSourceDto.encodeSourceData(fileSourceData.getFileSourceData());
+      this.dataHash = DigestUtils.md5Hex(data);
+      this.srcHash = fileSourceData.getSrcHash();
+      this.lineHashes = fileSourceData.getLineHashes();
+      this.revision = revision;
     }
   }
 
@@ -182,13 +334,12 @@ public class PersistFileSourcesStep implements ComputationStep {
     @CheckForNull
     private final ScmLineReader scmLineReader;
 
-    LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component) {
+    LineReaders(BatchReportReader reportReader, Optional<ScmInfo> scmInfoOptional, DuplicationRepository duplicationRepository, Component component) {
       int componentRef = component.getReportAttributes().getRef();
       CloseableIterator<ScannerReport.LineCoverage> coverageIt = reportReader.readComponentCoverage(componentRef);
       closeables.add(coverageIt);
       readers.add(new CoverageLineReader(coverageIt));
 
-      Optional<ScmInfo> scmInfoOptional = scmInfoRepository.getScmInfo(component);
       if (scmInfoOptional.isPresent()) {
         this.scmLineReader = new ScmLineReader(scmInfoOptional.get());
         readers.add(scmLineReader);
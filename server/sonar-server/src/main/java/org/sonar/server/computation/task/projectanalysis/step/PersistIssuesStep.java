@@ -31,6 +31,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 import org.sonar.server.issue.IssueStorage;
 
 public class PersistIssuesStep implements ComputationStep {
@@ -40,14 +41,16 @@ public class PersistIssuesStep implements ComputationStep {
   private final UpdateConflictResolver conflictResolver;
   private final RuleRepository ruleRepository;
   private final IssueCache issueCache;
+  private final ComputationStepStatistics statistics;
 
   public PersistIssuesStep(DbClient dbClient, System2 system2, UpdateConflictResolver conflictResolver,
-    RuleRepository ruleRepository, IssueCache issueCache) {
+    RuleRepository ruleRepository, IssueCache issueCache, ComputationStepStatistics statistics) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.conflictResolver = conflictResolver;
     this.ruleRepository = ruleRepository;
     this.issueCache = issueCache;
+    this.statistics = statistics;
   }
 
   @Override
@@ -57,15 +60,21 @@ public class PersistIssuesStep implements ComputationStep {
 
       IssueMapper mapper = dbSession.getMapper(IssueMapper.class);
       IssueChangeMapper changeMapper = dbSession.getMapper(IssueChangeMapper.class);
+      long count = 0;
+      long saveCount = 0;
       while (issues.hasNext()) {
         DefaultIssue issue = issues.next();
+        count++;
         boolean saved = persistIssueIfRequired(mapper, issue);
         if (saved) {
+          saveCount++;
           IssueStorage.insertChanges(changeMapper, issue);
         }
       }
       dbSession.flushStatements();
       dbSession.commit();
+      statistics.addIssuesOfTask(count);
+      statistics.addRowsWritten(getDescription(), saveCount);
     }
   }
 
@@ -42,6 +42,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureToMeasur
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableSet;
@@ -65,14 +66,16 @@ public class PersistLiveMeasuresStep implements ComputationStep {
   private final MeasureToMeasureDto measureToMeasureDto;
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
+  private final ComputationStepStatistics statistics;
 
   public PersistLiveMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
-    TreeRootHolder treeRootHolder, MeasureRepository measureRepository) {
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, ComputationStepStatistics statistics) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
+    this.statistics = statistics;
   }
 
   @Override
@@ -85,15 +88,18 @@ public class PersistLiveMeasuresStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(false)) {
       String marker = Uuids.create();
       Component root = treeRootHolder.getRoot();
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession, marker)).visit(root);
+      MeasureVisitor visitor = new MeasureVisitor(dbSession, marker);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(root);
       dbClient.liveMeasureDao().deleteByProjectUuidExcludingMarker(dbSession, root.getUuid(), marker);
       dbSession.commit();
+      statistics.addRowsWritten(getDescription(), visitor.rowCount);
     }
   }
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession dbSession;
     private final String marker;
+    private long rowCount = 0;
 
     private MeasureVisitor(DbSession dbSession, String marker) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
@@ -116,7 +122,10 @@ public class PersistLiveMeasuresStep implements ComputationStep {
           .filter(NonEmptyMeasure.INSTANCE)
           .filter(notBestValueOptimized)
           .map(measure -> measureToMeasureDto.toLiveMeasureDto(measure, metric, component))
-          .forEach(dto -> dao.insertOrUpdate(dbSession, dto, marker));
+          .forEach(dto -> {
+            dao.insertOrUpdate(dbSession, dto, marker);
+            rowCount++;
+          });
       }
     }
   }
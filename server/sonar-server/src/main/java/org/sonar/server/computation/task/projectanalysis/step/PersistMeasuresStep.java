@@ -22,14 +22,19 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Multimap;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import org.sonar.core.config.PurgeConstants;
+import org.sonar.core.timemachine.MeasureSeries;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.measure.MeasureDao;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureSeriesDao;
+import org.sonar.db.measure.MeasureSeriesDto;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ConfigurationRepository;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -42,7 +47,10 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureToMeasur
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 
+import static java.util.Collections.singletonList;
+import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 public class PersistMeasuresStep implements ComputationStep {
@@ -52,22 +60,27 @@ public class PersistMeasuresStep implements ComputationStep {
   private final MeasureToMeasureDto measureToMeasureDto;
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
+  private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final ComputationStepStatistics statistics;
   private final boolean persistDirectories;
 
   public PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
-    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, ConfigurationRepository settings) {
-    this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder,measureRepository,
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, AnalysisMetadataHolder analysisMetadataHolder, ConfigurationRepository settings,
+    ComputationStepStatistics statistics) {
+    this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder, measureRepository, analysisMetadataHolder, statistics,
       !settings.getConfiguration().getBoolean(PurgeConstants.PROPERTY_CLEAN_DIRECTORY).orElseThrow(() -> new IllegalStateException("Missing default value")));
   }
 
   @VisibleForTesting
   PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto, TreeRootHolder treeRootHolder,
-    MeasureRepository measureRepository, boolean persistDirectories) {
+    MeasureRepository measureRepository, AnalysisMetadataHolder analysisMetadataHolder, ComputationStepStatistics statistics, boolean persistDirectories) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
+    this.analysisMetadataHolder = analysisMetadataHolder;
+    this.statistics = statistics;
     this.persistDirectories = persistDirectories;
   }
 
@@ -78,14 +91,54 @@ public class PersistMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
+    MeasureVisitor visitor;
     try (DbSession dbSession = dbClient.openSession(true)) {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
+      visitor = new MeasureVisitor(dbSession);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
       dbSession.commit();
     }
+    // not a batch session, so that conflicts with the background purge of measure_series are detected
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      persistSeries(dbSession, visitor.rootMeasuresByMetricId);
+      dbSession.commit();
+    }
+    statistics.addRowsWritten(getDescription(), visitor.rowCount + visitor.rootMeasuresByMetricId.size());
+  }
+
+  /**
+   * Appends the numerical measures of the root component to its {@link MeasureSeries}, which are read by api/measures/search_history.
+   * Series may be purged in background at the same time, in which case they are reloaded before appending the point again.
+   */
+  private void persistSeries(DbSession dbSession, Map<Integer, MeasureDto> measuresByMetricId) {
+    if (measuresByMetricId.isEmpty()) {
+      return;
+    }
+    String rootUuid = treeRootHolder.getRoot().getUuid();
+    long analysisDate = analysisMetadataHolder.getAnalysisDate();
+    MeasureSeriesDao measureSeriesDao = dbClient.measureSeriesDao();
+    Map<Integer, MeasureSeriesDto> seriesByMetricId = measureSeriesDao.selectByComponentUuidAndMetricIds(dbSession, rootUuid, measuresByMetricId.keySet())
+      .stream()
+      .collect(uniqueIndex(MeasureSeriesDto::getMetricId));
+    measuresByMetricId.forEach((metricId, measureDto) -> {
+      MeasureSeries.Point point = new MeasureSeries.Point(measureDto.getAnalysisUuid(), analysisDate, measureDto.getValue(), measureDto.getVariation());
+      MeasureSeriesDto seriesDto = seriesByMetricId.get(metricId);
+      if (seriesDto == null) {
+        measureSeriesDao.insert(dbSession, new MeasureSeriesDto()
+          .setComponentUuid(rootUuid)
+          .setMetricId(metricId)
+          .setSeries(new MeasureSeries().add(point)));
+        return;
+      }
+      while (!measureSeriesDao.update(dbSession, seriesDto.setSeries(seriesDto.getSeries().add(point)))) {
+        seriesDto = measureSeriesDao.selectByComponentUuidAndMetricIds(dbSession, rootUuid, singletonList(metricId)).get(0);
+      }
+    });
   }
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession session;
+    private final Map<Integer, MeasureDto> rootMeasuresByMetricId = new HashMap<>();
+    private long rowCount = 0;
 
     private MeasureVisitor(DbSession session) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
@@ -133,6 +186,10 @@ public class PersistMeasuresStep implements ComputationStep {
         measuresByMetricKey.getValue().stream().filter(NonEmptyMeasure.INSTANCE).forEach(measure -> {
           MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
           measureDao.insert(session, measureDto);
+          rowCount++;
+          if (component.equals(treeRootHolder.getRoot()) && MeasureSeries.supportsValueType(metric.getType().name())) {
+            rootMeasuresByMetricId.put(metric.getId(), measureDto);
+          }
         });
       }
     }
@@ -23,7 +23,9 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -62,6 +64,12 @@ public class SendIssueNotificationsStep implements ComputationStep {
    */
   static final Set<String> NOTIF_TYPES = ImmutableSet.of(IssueChangeNotification.TYPE, NewIssuesNotification.TYPE, MyNewIssuesNotification.MY_NEW_ISSUES_NOTIF_TYPE);
 
+  /**
+   * Maximum number of {@link IssueChangeNotification} kept in memory before being delivered. Recipients of
+   * the notifications are loaded once per batch.
+   */
+  static final int CHANGE_NOTIFICATIONS_BATCH_SIZE = 1_000;
+
   private final IssueCache issueCache;
   private final RuleRepository rules;
   private final TreeRootHolder treeRootHolder;
@@ -113,23 +121,31 @@ public class SendIssueNotificationsStep implements ComputationStep {
   }
 
   private void processIssues(NewIssuesStatistics newIssuesStats, CloseableIterator<DefaultIssue> issues, Component project) {
+    List<IssueChangeNotification> changeNotifications = new ArrayList<>();
     while (issues.hasNext()) {
       DefaultIssue issue = issues.next();
       if (issue.isNew() && issue.resolution() == null) {
         newIssuesStats.add(issue);
       } else if (issue.isChanged() && issue.mustSendNotifications()) {
-        sendIssueChangeNotification(issue, project);
+        changeNotifications.add(createIssueChangeNotification(issue, project));
+        if (changeNotifications.size() >= CHANGE_NOTIFICATIONS_BATCH_SIZE) {
+          service.deliver(changeNotifications);
+          changeNotifications = new ArrayList<>();
+        }
       }
     }
+    if (!changeNotifications.isEmpty()) {
+      service.deliver(changeNotifications);
+    }
   }
 
-  private void sendIssueChangeNotification(DefaultIssue issue, Component project) {
+  private IssueChangeNotification createIssueChangeNotification(DefaultIssue issue, Component project) {
     IssueChangeNotification changeNotification = new IssueChangeNotification();
     changeNotification.setRuleName(rules.getByKey(issue.ruleKey()).getName());
     changeNotification.setIssue(issue);
     changeNotification.setProject(project.getPublicKey(), project.getName(), getBranchName());
     getComponentKey(issue).ifPresent(c -> changeNotification.setComponent(c.getPublicKey(), c.getName()));
-    service.deliver(changeNotification);
+    return changeNotification;
   }
 
   private void sendNewIssuesNotification(NewIssuesStatistics statistics, Component project, long analysisDate) {
@@ -145,6 +161,7 @@ public class SendIssueNotificationsStep implements ComputationStep {
   }
 
   private void sendNewIssuesNotificationToAssignees(NewIssuesStatistics statistics, Component project, long analysisDate) {
+    List<MyNewIssuesNotification> notifications = new ArrayList<>();
     statistics.getAssigneesStatistics().entrySet()
       .stream()
       .filter(e -> e.getValue().hasIssuesOnLeak())
@@ -161,8 +178,11 @@ public class SendIssueNotificationsStep implements ComputationStep {
           .setStatistics(project.getName(), assigneeStatistics)
           .setDebt(Duration.create(assigneeStatistics.effort().getOnLeak()));
 
-        service.deliver(myNewIssuesNotification);
+        notifications.add(myNewIssuesNotification);
       });
+    if (!notifications.isEmpty()) {
+      service.deliver(notifications);
+    }
   }
 
   private Optional<Component> getComponentKey(DefaultIssue issue) {
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.taskprocessor;
 import java.util.Collections;
 import java.util.Set;
 import javax.annotation.CheckForNull;
+import org.sonar.api.utils.System2;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.taskprocessor.CeTaskProcessor;
@@ -29,6 +30,7 @@ import org.sonar.core.platform.ComponentContainer;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
 import org.sonar.server.computation.task.container.TaskContainer;
+import org.sonar.server.computation.task.container.TaskContainerStatistics;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactory;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 import org.sonar.server.computation.taskprocessor.TaskResultHolder;
@@ -39,24 +41,32 @@ public class ReportTaskProcessor implements CeTaskProcessor {
 
   private final ContainerFactory containerFactory;
   private final ComponentContainer serverContainer;
+  private final TaskContainerStatistics containerStatistics;
+  private final System2 system2;
   @CheckForNull
   private final ReportAnalysisComponentProvider[] componentProviders;
 
   /**
    * Used when at least one Privileged plugin is installed
    */
-  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, ReportAnalysisComponentProvider[] componentProviders) {
+  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, TaskContainerStatistics containerStatistics,
+    System2 system2, ReportAnalysisComponentProvider[] componentProviders) {
     this.containerFactory = containerFactory;
     this.serverContainer = serverContainer;
+    this.containerStatistics = containerStatistics;
+    this.system2 = system2;
     this.componentProviders = componentProviders;
   }
 
   /**
    * Used when no privileged plugin is installed
    */
-  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer) {
+  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, TaskContainerStatistics containerStatistics,
+    System2 system2) {
     this.containerFactory = containerFactory;
     this.serverContainer = serverContainer;
+    this.containerStatistics = containerStatistics;
+    this.system2 = system2;
     this.componentProviders = null;
   }
 
@@ -67,11 +77,18 @@ public class ReportTaskProcessor implements CeTaskProcessor {
 
   @Override
   public CeTaskResult process(CeTask task) {
-    try (TaskContainer ceContainer = containerFactory.create(serverContainer, task, componentProviders)) {
+    long setupStart = system2.now();
+    TaskContainer ceContainer = containerFactory.create(serverContainer, task, componentProviders);
+    try {
       ceContainer.bootup();
+      containerStatistics.addSetup(system2.now() - setupStart);
 
       ceContainer.getComponentByType(ComputationStepExecutor.class).execute();
       return ceContainer.getComponentByType(TaskResultHolder.class).getResult();
+    } finally {
+      long teardownStart = system2.now();
+      ceContainer.close();
+      containerStatistics.addTeardown(system2.now() - teardownStart);
     }
   }
 }
@@ -29,6 +29,7 @@ public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
 
   private final ComputationSteps steps;
+  private final ComputationStepStatistics statistics;
   @CheckForNull
   private final Listener listener;
 
@@ -36,12 +37,13 @@ public final class ComputationStepExecutor {
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
    * container.
    */
-  public ComputationStepExecutor(ComputationSteps steps) {
-    this(steps, null);
+  public ComputationStepExecutor(ComputationSteps steps, ComputationStepStatistics statistics) {
+    this(steps, statistics, null);
   }
 
-  public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+  public ComputationStepExecutor(ComputationSteps steps, ComputationStepStatistics statistics, @Nullable Listener listener) {
     this.steps = steps;
+    this.statistics = statistics;
     this.listener = listener;
   }
 
@@ -62,7 +64,8 @@ public final class ComputationStepExecutor {
     for (ComputationStep step : steps.instances()) {
       stepProfiler.start();
       step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      String description = step.getDescription();
+      statistics.addDuration(description, stepProfiler.stopDebug(description));
     }
   }
 
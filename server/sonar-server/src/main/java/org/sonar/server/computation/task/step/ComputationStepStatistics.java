@@ -0,0 +1,91 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.sonar.server.computation.util.Histogram;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Statistics about the execution of {@link ComputationStep}s since startup, shared by all the tasks of the
+ * Compute Engine. Steps are identified by their {@link ComputationStep#getDescription() description}.
+ */
+public class ComputationStepStatistics {
+
+  private final Map<String, Histogram> durationsByStep = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> rowsWrittenByStep = new ConcurrentHashMap<>();
+  private final Histogram componentsPerTask = new Histogram();
+  private final Histogram issuesPerTask = new Histogram();
+
+  /**
+   * @param ms duration of the execution of a step, in milliseconds
+   */
+  public void addDuration(String step, long ms) {
+    checkArgument(ms >= 0, "Duration can not be < 0");
+    durationsByStep.computeIfAbsent(step, s -> new Histogram()).record(ms);
+  }
+
+  public void addRowsWritten(String step, long rows) {
+    checkArgument(rows >= 0, "Number of rows can not be < 0");
+    rowsWrittenByStep.computeIfAbsent(step, s -> new LongAdder()).add(rows);
+  }
+
+  /**
+   * @param components number of components of the tree of a task
+   */
+  public void addComponentsOfTask(long components) {
+    componentsPerTask.record(components);
+  }
+
+  /**
+   * @param issues number of issues processed by a task, whatever their status
+   */
+  public void addIssuesOfTask(long issues) {
+    issuesPerTask.record(issues);
+  }
+
+  /**
+   * Durations of steps, in milliseconds, by step description
+   */
+  public Map<String, Histogram> getDurations() {
+    return unmodifiableMap(durationsByStep);
+  }
+
+  /**
+   * Number of DB rows written (inserted or updated) since startup, by step description
+   */
+  public Map<String, Long> getRowsWritten() {
+    Map<String, Long> res = new ConcurrentHashMap<>();
+    rowsWrittenByStep.forEach((step, rows) -> res.put(step, rows.sum()));
+    return res;
+  }
+
+  public Histogram getComponentsPerTask() {
+    return componentsPerTask;
+  }
+
+  public Histogram getIssuesPerTask() {
+    return issuesPerTask;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Lock-free histogram of positive values (durations, counts, ...) which can be recorded concurrently.
+ * <p>
+ * Values are counted in buckets of powers of two, so recording is a single atomic increment and memory does not depend
+ * on the number of recorded values. As a consequence, percentiles are approximations: the returned value is the upper
+ * bound of the bucket of the requested rank, which is at most twice the exact value, and never more than the greatest
+ * recorded value.
+ * </p>
+ */
+public class Histogram {
+
+  private static final int BUCKETS = Long.SIZE;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong max = new AtomicLong(0);
+
+  public void record(long value) {
+    checkArgument(value >= 0, "Value can not be < 0");
+    counts.incrementAndGet(bucketOf(value));
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @param percentile a percentile in ]0, 100], for example 95 for the 95th percentile
+   * @return the approximated value of the percentile, or 0 if no value has been recorded
+   */
+  public long getPercentile(double percentile) {
+    checkArgument(percentile > 0 && percentile <= 100, "Percentile must be in ]0, 100]");
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile * count / 100);
+    long cumulated = 0;
+    int bucket = 0;
+    while (bucket < BUCKETS - 1) {
+      cumulated += snapshot[bucket];
+      if (cumulated >= rank) {
+        break;
+      }
+      bucket++;
+    }
+    return Math.min(upperBoundOf(bucket), max.get());
+  }
+
+  private static int bucketOf(long value) {
+    return BUCKETS - Long.numberOfLeadingZeros(value);
+  }
+
+  private static long upperBoundOf(int bucket) {
+    if (bucket == BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    return (1L << bucket) - 1;
+  }
+}
@@ -19,7 +19,18 @@
  */
 package org.sonar.server.es;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthAction;
 import org.elasticsearch.client.Client;
@@ -30,11 +41,28 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.server.es.metadata.MetadataIndex;
 
-import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toSet;
 
+/**
+ * Indexes the types which are not initialized yet, for example after an upgrade or a loss of the Elasticsearch data.
+ * <p>
+ * Indexers are executed concurrently, as each one opens its own DB session and bulk indexer. Indexers which
+ * share an index are still executed sequentially, in the order of declaration, because a bulk indexer of size
+ * {@link BulkIndexer.Size#LARGE} temporarily changes the settings of the index it writes to. Number of threads is
+ * defined by property {@link #PROPERTY_THREADS}.
+ * </p>
+ * <p>
+ * An indexer which writes into several indexes joins their groups, unless it supports
+ * {@link StartupIndexer#supportsIndexingByIndexOnStartup() indexing each index separately}, as
+ * {@link org.sonar.server.permission.index.PermissionIndexer} does for the authorization types of the issues,
+ * components and project measures indexes. Such an indexer is then called once per index, in the group of
+ * that index.
+ * </p>
+ */
 public class IndexerStartupTask {
 
+  static final String PROPERTY_THREADS = "sonar.internal.es.startupIndexing.threads";
+  private static final int DEFAULT_THREADS = 4;
   private static final Logger LOG = Loggers.get(IndexerStartupTask.class);
 
   private final EsClient esClient;
@@ -50,9 +78,89 @@ public class IndexerStartupTask {
   }
 
   public void execute() {
-    if (indexesAreEnabled()) {
-      stream(indexers)
-        .forEach(this::indexUninitializedTypes);
+    if (!indexesAreEnabled()) {
+      return;
+    }
+    List<StartupIndexing> indexings = new ArrayList<>();
+    for (StartupIndexer indexer : indexers) {
+      Set<IndexType> uninitializedTypes = getUninitializedTypes(indexer);
+      if (uninitializedTypes.isEmpty()) {
+        continue;
+      }
+      if (indexer.supportsIndexingByIndexOnStartup()) {
+        uninitializedTypes.stream()
+          .collect(Collectors.groupingBy(IndexType::getIndex, TreeMap::new, toSet()))
+          .values()
+          .forEach(types -> indexings.add(new StartupIndexing(indexer, types)));
+      } else {
+        indexings.add(new StartupIndexing(indexer, uninitializedTypes));
+      }
+    }
+    List<List<StartupIndexing>> groups = groupBySharedIndex(indexings);
+    int threads = Math.min(groups.size(), Math.max(1, config.getInt(PROPERTY_THREADS).orElse(DEFAULT_THREADS)));
+    if (threads <= 1) {
+      indexings.forEach(this::indexUninitializedTypes);
+      return;
+    }
+
+    Profiler profiler = Profiler.create(LOG).startInfo(String.format("Indexing of %d groups of types with %d threads...", groups.size(), threads));
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat("StartupIndexer-%d")
+      .build());
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      groups.forEach(group -> futures.add(executor.submit(() -> group.forEach(this::indexUninitializedTypes))));
+      for (Future<?> future : futures) {
+        waitFor(future);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    profiler.stopInfo("Indexing of types done");
+  }
+
+  /**
+   * Groups the indexings which write into the same indexes, keeping the order of declaration in each group.
+   */
+  private static List<List<StartupIndexing>> groupBySharedIndex(List<StartupIndexing> indexings) {
+    List<Set<String>> groupIndexes = new ArrayList<>();
+    List<List<StartupIndexing>> groups = new ArrayList<>();
+    for (StartupIndexing indexing : indexings) {
+      Set<String> indexes = indexing.types.stream().map(IndexType::getIndex).collect(Collectors.toCollection(HashSet::new));
+      List<StartupIndexing> group = new ArrayList<>();
+      Iterator<Set<String>> indexesIt = groupIndexes.iterator();
+      Iterator<List<StartupIndexing>> groupsIt = groups.iterator();
+      while (indexesIt.hasNext()) {
+        Set<String> otherIndexes = indexesIt.next();
+        List<StartupIndexing> otherGroup = groupsIt.next();
+        if (otherIndexes.stream().anyMatch(indexes::contains)) {
+          indexes.addAll(otherIndexes);
+          group.addAll(otherGroup);
+          indexesIt.remove();
+          groupsIt.remove();
+        }
+      }
+      group.add(indexing);
+      // merged groups are not sorted anymore
+      group.sort(Comparator.comparingInt(indexings::indexOf));
+      groupIndexes.add(indexes);
+      groups.add(group);
+    }
+    return groups;
+  }
+
+  private static void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while indexing on startup", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Fail to index on startup", cause);
     }
   }
 
@@ -60,15 +168,12 @@ public class IndexerStartupTask {
     return !config.getBoolean("sonar.internal.es.disableIndexes").orElse(false);
   }
 
-  private void indexUninitializedTypes(StartupIndexer indexer) {
-    Set<IndexType> uninitializedTypes = getUninitializedTypes(indexer);
-    if (!uninitializedTypes.isEmpty()) {
-      Profiler profiler = Profiler.create(LOG);
-      profiler.startInfo(getLogMessage(uninitializedTypes, "..."));
-      indexer.indexOnStartup(uninitializedTypes);
-      uninitializedTypes.forEach(this::setInitialized);
-      profiler.stopInfo(getLogMessage(uninitializedTypes, "done"));
-    }
+  private void indexUninitializedTypes(StartupIndexing indexing) {
+    Profiler profiler = Profiler.create(LOG);
+    profiler.startInfo(getLogMessage(indexing.types, "..."));
+    indexing.indexer.indexOnStartup(indexing.types);
+    indexing.types.forEach(this::setInitialized);
+    profiler.stopInfo(getLogMessage(indexing.types, "done"));
   }
 
   private Set<IndexType> getUninitializedTypes(StartupIndexer indexer) {
@@ -91,4 +196,17 @@ public class IndexerStartupTask {
     String typeList = emptyTypes.stream().map(Object::toString).collect(Collectors.joining(","));
     return String.format("Indexing of type%s %s %s", s, typeList, suffix);
   }
+
+  /**
+   * Call of {@link StartupIndexer#indexOnStartup(Set)} for some of the uninitialized types of an indexer
+   */
+  private static class StartupIndexing {
+    private final StartupIndexer indexer;
+    private final Set<IndexType> types;
+
+    private StartupIndexing(StartupIndexer indexer, Set<IndexType> types) {
+      this.indexer = indexer;
+      this.types = types;
+    }
+  }
 }
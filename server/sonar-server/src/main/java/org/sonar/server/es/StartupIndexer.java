@@ -34,4 +34,13 @@ public interface StartupIndexer {
 
   Set<IndexType> getIndexTypes();
 
+  /**
+   * Whether {@link #indexOnStartup(Set)} only indexes the given types. If so, it is called once per index, so that
+   * the indexes are populated concurrently with the other indexers writing into them. Otherwise it is called once
+   * with the uninitialized types of all the indexes.
+   */
+  default boolean supportsIndexingByIndexOnStartup() {
+    return false;
+  }
+
 }
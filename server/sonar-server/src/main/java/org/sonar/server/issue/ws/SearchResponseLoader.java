@@ -19,16 +19,26 @@
  */
 package org.sonar.server.issue.ws;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.picocontainer.Startable;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.util.stream.MoreCollectors;
@@ -65,19 +75,42 @@ import static org.sonar.server.issue.ws.SearchAdditionalField.USERS;
 
 /**
  * Loads all the information required for the response of api/issues/search.
+ * <p>
+ * Rules, comments and users do not depend on components. They are loaded by another thread, with a distinct DB session,
+ * while components and organizations are loaded.
+ * </p>
  */
-public class SearchResponseLoader {
+public class SearchResponseLoader implements Startable {
 
   private final UserSession userSession;
   private final DbClient dbClient;
   private final TransitionService transitionService;
 
+  @CheckForNull
+  private ExecutorService executorService;
+
   public SearchResponseLoader(UserSession userSession, DbClient dbClient, TransitionService transitionService) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.transitionService = transitionService;
   }
 
+  @Override
+  public void start() {
+    this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("IssueSearchResponseLoader-%d")
+      .build());
+  }
+
+  @Override
+  public void stop() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+      executorService = null;
+    }
+  }
+
   /**
    * The issue keys are given by the multi-criteria search in Elasticsearch index.
    */
@@ -86,13 +119,11 @@ public class SearchResponseLoader {
       SearchResponseData result = new SearchResponseData(dbClient.issueDao().selectByOrderedKeys(dbSession, collector.getIssueKeys()));
       collector.collect(result.getIssues());
 
-      loadRules(collector, dbSession, result);
-      // order is important - loading of comments complete the list of users: loadComments() is
-      // before loadUsers()
-      loadComments(collector, dbSession, result);
-      loadUsers(collector, dbSession, result);
+      FutureTask<IssueReferences> references = submit(dbSession,
+        session -> loadIssueReferences(null, IssueReferencesRequest.of(collector), session));
       loadComponents(collector, dbSession, result);
       loadOrganizations(dbSession, result);
+      applyIssueReferences(getResult(references), collector, result);
       loadActionsAndTransitions(collector, result);
       completeTotalEffortFromFacet(facets, result);
       return result;
@@ -112,19 +143,96 @@ public class SearchResponseLoader {
       SearchResponseData result = new SearchResponseData(loadIssues(preloadedResponseData, collector, dbSession));
       collector.collect(result.getIssues());
 
-      loadRules(preloadedResponseData, collector, dbSession, result);
-      // order is important - loading of comments complete the list of users: loadComments() is
-      // before loadUsers()
-      loadComments(collector, dbSession, result);
-      loadUsers(preloadedResponseData, collector, dbSession, result);
+      FutureTask<IssueReferences> references = submit(dbSession,
+        session -> loadIssueReferences(preloadedResponseData, IssueReferencesRequest.of(collector), session));
       loadComponents(preloadedResponseData, collector, dbSession, result);
       loadOrganizations(dbSession, result);
+      applyIssueReferences(getResult(references), collector, result);
       loadActionsAndTransitions(collector, result);
       completeTotalEffortFromFacet(facets, result);
       return result;
     }
   }
 
+  /**
+   * Executes the loading by another thread, with its own DB session, if the loader is started. Otherwise loading is
+   * executed by {@link #getResult(FutureTask)}, with the given DB session.
+   */
+  private FutureTask<IssueReferences> submit(DbSession dbSession, Function<DbSession, IssueReferences> loading) {
+    ExecutorService executor = this.executorService;
+    if (executor == null) {
+      return new FutureTask<>(() -> loading.apply(dbSession));
+    }
+    FutureTask<IssueReferences> task = new FutureTask<>(() -> {
+      try (DbSession session = dbClient.openSession(false)) {
+        return loading.apply(session);
+      }
+    });
+    executor.execute(task);
+    return task;
+  }
+
+  private static <T> T getResult(FutureTask<T> task) {
+    // does nothing if the task is already started by the executor. Otherwise the current thread executes it
+    // instead of waiting for an available thread of the executor.
+    task.run();
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while loading issues data", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Loads rules, comments and users. It does not read nor update {@link Collector}, {@link UserSession} or
+   * the response, as it's executed concurrently.
+   */
+  private IssueReferences loadIssueReferences(@Nullable SearchResponseData preloadedResponseData, IssueReferencesRequest request, DbSession dbSession) {
+    IssueReferences references = new IssueReferences();
+    if (request.ruleKeys != null) {
+      references.rules = preloadedResponseData == null ? dbClient.ruleDao().selectDefinitionByKeys(dbSession, newArrayList(request.ruleKeys))
+        : loadRules(preloadedResponseData, request.ruleKeys, dbSession);
+    }
+    Set<String> logins = request.logins == null ? null : new HashSet<>(request.logins);
+    if (request.loadComments) {
+      references.comments = dbClient.issueChangeDao().selectByTypeAndIssueKeys(dbSession, request.issueKeys, IssueChangeDto.TYPE_COMMENT);
+      if (logins != null) {
+        // loading of comments completes the list of users
+        references.comments.stream().map(IssueChangeDto::getUserLogin).filter(Objects::nonNull).forEach(logins::add);
+      }
+    }
+    if (logins != null) {
+      references.users = preloadedResponseData == null ? dbClient.userDao().selectByLogins(dbSession, logins)
+        : loadUsers(preloadedResponseData, logins, dbSession);
+    }
+    return references;
+  }
+
+  private void applyIssueReferences(IssueReferences references, Collector collector, SearchResponseData result) {
+    if (collector.contains(RULES)) {
+      result.setRules(references.rules);
+    }
+    if (collector.contains(COMMENTS)) {
+      result.setComments(references.comments);
+      for (IssueChangeDto comment : references.comments) {
+        collector.add(USERS, comment.getUserLogin());
+        if (canEditOrDelete(comment)) {
+          result.addUpdatableComment(comment.getKey());
+        }
+      }
+    }
+    if (collector.contains(USERS)) {
+      result.setUsers(references.users);
+    }
+  }
+
   private List<IssueDto> loadIssues(SearchResponseData preloadedResponseData, Collector collector, DbSession dbSession) {
     List<IssueDto> preloadedIssues = preloadedResponseData.getIssues();
     Set<String> preloadedIssueKeys = preloadedIssues.stream().map(IssueDto::getKey).collect(MoreCollectors.toSet(preloadedIssues.size()));
@@ -138,20 +246,16 @@ public class SearchResponseLoader {
       .collect(toList(preloadedIssues.size() + loadedIssues.size()));
   }
 
-  private void loadUsers(SearchResponseData preloadedResponseData, Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(USERS)) {
-      List<UserDto> preloadedUsers = firstNonNull(preloadedResponseData.getUsers(), emptyList());
-      Set<String> preloadedLogins = preloadedUsers.stream().map(UserDto::getLogin).collect(MoreCollectors.toSet(preloadedUsers.size()));
-      Set<String> requestedLogins = collector.get(USERS);
-      Set<String> loginsToLoad = copyOf(difference(requestedLogins, preloadedLogins));
-
-      if (loginsToLoad.isEmpty()) {
-        result.setUsers(preloadedUsers);
-      } else {
-        List<UserDto> loadedUsers = dbClient.userDao().selectByLogins(dbSession, loginsToLoad);
-        result.setUsers(concat(preloadedUsers.stream(), loadedUsers.stream()).collect(toList(preloadedUsers.size() + loadedUsers.size())));
-      }
+  private List<UserDto> loadUsers(SearchResponseData preloadedResponseData, Set<String> requestedLogins, DbSession dbSession) {
+    List<UserDto> preloadedUsers = firstNonNull(preloadedResponseData.getUsers(), emptyList());
+    Set<String> preloadedLogins = preloadedUsers.stream().map(UserDto::getLogin).collect(MoreCollectors.toSet(preloadedUsers.size()));
+    Set<String> loginsToLoad = copyOf(difference(requestedLogins, preloadedLogins));
+
+    if (loginsToLoad.isEmpty()) {
+      return preloadedUsers;
     }
+    List<UserDto> loadedUsers = dbClient.userDao().selectByLogins(dbSession, loginsToLoad);
+    return concat(preloadedUsers.stream(), loadedUsers.stream()).collect(toList(preloadedUsers.size() + loadedUsers.size()));
   }
 
   private void loadComponents(SearchResponseData preloadedResponseData, Collector collector, DbSession dbSession, SearchResponseData result) {
@@ -183,49 +287,21 @@ public class SearchResponseLoader {
     }
   }
 
-  private void loadRules(SearchResponseData preloadedResponseData, Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(RULES)) {
-      List<RuleDefinitionDto> preloadedRules = firstNonNull(preloadedResponseData.getRules(), emptyList());
-      Set<RuleKey> preloaedRuleKeys = preloadedRules.stream().map(RuleDefinitionDto::getKey).collect(MoreCollectors.toSet());
-      Set<RuleKey> ruleKeysToLoad = copyOf(difference(collector.get(RULES), preloaedRuleKeys));
-      if (ruleKeysToLoad.isEmpty()) {
-        result.setRules(preloadedResponseData.getRules());
-      } else {
-        List<RuleDefinitionDto> loadedRules = dbClient.ruleDao().selectDefinitionByKeys(dbSession, ruleKeysToLoad);
-        result.setRules(concat(preloadedRules.stream(), loadedRules.stream()).collect(toList(preloadedRules.size() + loadedRules.size())));
-      }
-    }
-  }
-
-  private void loadUsers(Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(USERS)) {
-      result.setUsers(dbClient.userDao().selectByLogins(dbSession, collector.getList(USERS)));
-    }
-  }
-
-  private void loadComments(Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(COMMENTS)) {
-      List<IssueChangeDto> comments = dbClient.issueChangeDao().selectByTypeAndIssueKeys(dbSession, collector.getIssueKeys(), IssueChangeDto.TYPE_COMMENT);
-      result.setComments(comments);
-      for (IssueChangeDto comment : comments) {
-        collector.add(USERS, comment.getUserLogin());
-        if (canEditOrDelete(comment)) {
-          result.addUpdatableComment(comment.getKey());
-        }
-      }
+  private List<RuleDefinitionDto> loadRules(SearchResponseData preloadedResponseData, Set<RuleKey> requestedRuleKeys, DbSession dbSession) {
+    List<RuleDefinitionDto> preloadedRules = firstNonNull(preloadedResponseData.getRules(), emptyList());
+    Set<RuleKey> preloaedRuleKeys = preloadedRules.stream().map(RuleDefinitionDto::getKey).collect(MoreCollectors.toSet());
+    Set<RuleKey> ruleKeysToLoad = copyOf(difference(requestedRuleKeys, preloaedRuleKeys));
+    if (ruleKeysToLoad.isEmpty()) {
+      return preloadedResponseData.getRules();
     }
+    List<RuleDefinitionDto> loadedRules = dbClient.ruleDao().selectDefinitionByKeys(dbSession, ruleKeysToLoad);
+    return concat(preloadedRules.stream(), loadedRules.stream()).collect(toList(preloadedRules.size() + loadedRules.size()));
   }
 
   private boolean canEditOrDelete(IssueChangeDto dto) {
     return userSession.isLoggedIn() && userSession.getLogin().equals(dto.getUserLogin());
   }
 
-  private void loadRules(Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(RULES)) {
-      result.setRules(dbClient.ruleDao().selectDefinitionByKeys(dbSession, collector.getList(RULES)));
-    }
-  }
-
   private void loadComponents(Collector collector, DbSession dbSession, SearchResponseData result) {
     // always load components and projects, because some issue fields still relate to component ids/keys.
     // They should be dropped but are kept for backward-compatibility (see SearchResponseFormat)
@@ -292,6 +368,35 @@ public class SearchResponseLoader {
     }
   }
 
+  /**
+   * Immutable copy of the keys of rules, users and comments to be loaded, which can be read by another thread.
+   */
+  private static class IssueReferencesRequest {
+    @Nullable
+    private final Set<RuleKey> ruleKeys;
+    @Nullable
+    private final Set<String> logins;
+    private final boolean loadComments;
+    private final List<String> issueKeys;
+
+    private IssueReferencesRequest(Collector collector) {
+      this.ruleKeys = collector.contains(RULES) ? copyOf(collector.<RuleKey>get(RULES)) : null;
+      this.logins = collector.contains(USERS) ? copyOf(collector.<String>get(USERS)) : null;
+      this.loadComments = collector.contains(COMMENTS);
+      this.issueKeys = ImmutableList.copyOf(collector.getIssueKeys());
+    }
+
+    static IssueReferencesRequest of(Collector collector) {
+      return new IssueReferencesRequest(collector);
+    }
+  }
+
+  private static class IssueReferences {
+    private List<RuleDefinitionDto> rules;
+    private List<IssueChangeDto> comments;
+    private List<UserDto> users;
+  }
+
   /**
    * Collects the keys of all the data to be loaded (users, rules, ...)
    */
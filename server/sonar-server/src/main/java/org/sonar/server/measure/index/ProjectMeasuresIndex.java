@@ -23,10 +23,11 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -165,10 +166,19 @@ public class ProjectMeasuresIndex {
     this.system2 = system2;
   }
 
+  /**
+   * Results are cached by the shard request cache of Elasticsearch, as they only change when projects are analysed or
+   * when permissions change. The cache key is the request itself, including the authorization filter of the user,
+   * so the request must be built in a deterministic way from the query. As this filter contains the user id, entries
+   * are only reused by the searches of a same user (or of anonymous users). Entries are invalidated as soon as the index
+   * is refreshed, which is done by {@link ProjectMeasuresIndexer} and {@link org.sonar.server.permission.index.PermissionIndexer}
+   * after each indexing, whatever the node and process that indexed the documents.
+   */
   public SearchIdResult<String> search(ProjectMeasuresQuery query, SearchOptions searchOptions) {
     SearchRequestBuilder requestBuilder = client
       .prepareSearch(INDEX_TYPE_PROJECT_MEASURES)
       .setFetchSource(false)
+      .setRequestCache(true)
       .setFrom(searchOptions.getOffset())
       .setSize(searchOptions.getLimit());
 
@@ -273,16 +283,18 @@ public class ProjectMeasuresIndex {
   }
 
   private static void addLanguagesFacet(SearchRequestBuilder esSearch, ProjectMeasuresQuery query, StickyFacetBuilder facetBuilder) {
-    esSearch.addAggregation(facetBuilder.buildStickyFacet(FIELD_LANGUAGES, FILTER_LANGUAGES, query.getLanguages().map(Set::toArray).orElseGet(() -> new Object[] {})));
+    esSearch.addAggregation(facetBuilder.buildStickyFacet(FIELD_LANGUAGES, FILTER_LANGUAGES, query.getLanguages().map(TreeSet::new).map(Set::toArray).orElseGet(() -> new Object[] {})));
   }
 
   private static void addTagsFacet(SearchRequestBuilder esSearch, ProjectMeasuresQuery query, StickyFacetBuilder facetBuilder) {
-    esSearch.addAggregation(facetBuilder.buildStickyFacet(FIELD_TAGS, FILTER_TAGS, query.getTags().map(Set::toArray).orElseGet(() -> new Object[] {})));
+    esSearch.addAggregation(facetBuilder.buildStickyFacet(FIELD_TAGS, FILTER_TAGS, query.getTags().map(TreeSet::new).map(Set::toArray).orElseGet(() -> new Object[] {})));
   }
 
   private static void addFacets(SearchRequestBuilder esSearch, SearchOptions options, Map<String, QueryBuilder> filters, ProjectMeasuresQuery query) {
     StickyFacetBuilder facetBuilder = new StickyFacetBuilder(matchAllQuery(), filters);
     options.getFacets().stream()
+      .distinct()
+      .sorted()
       .filter(FACET_FACTORIES::containsKey)
       .map(FACET_FACTORIES::get)
       .forEach(factory -> factory.addFacet(esSearch, query, facetBuilder));
@@ -347,7 +359,8 @@ public class ProjectMeasuresIndex {
   }
 
   private Map<String, QueryBuilder> createFilters(ProjectMeasuresQuery query) {
-    Map<String, QueryBuilder> filters = new HashMap<>();
+    // sorted map and sets, so that the same query always gives the same request and hits the request cache
+    Map<String, QueryBuilder> filters = new TreeMap<>();
     filters.put("__authorization", authorizationTypeSupport.createQueryFilter());
     Multimap<String, MetricCriterion> metricCriterionMultimap = ArrayListMultimap.create();
     query.getMetricCriteria().forEach(metricCriterion -> metricCriterionMultimap.put(metricCriterion.getMetricKey(), metricCriterion));
@@ -364,16 +377,16 @@ public class ProjectMeasuresIndex {
       .ifPresent(qualityGateStatus -> filters.put(ALERT_STATUS_KEY, termQuery(FIELD_QUALITY_GATE_STATUS, QUALITY_GATE_STATUS.get(qualityGateStatus.name()))));
 
     query.getProjectUuids()
-      .ifPresent(projectUuids -> filters.put("ids", termsQuery("_id", projectUuids)));
+      .ifPresent(projectUuids -> filters.put("ids", termsQuery("_id", new TreeSet<>(projectUuids))));
 
     query.getLanguages()
-      .ifPresent(languages -> filters.put(FILTER_LANGUAGES, termsQuery(FIELD_LANGUAGES, languages)));
+      .ifPresent(languages -> filters.put(FILTER_LANGUAGES, termsQuery(FIELD_LANGUAGES, new TreeSet<>(languages))));
 
     query.getOrganizationUuid()
       .ifPresent(organizationUuid -> filters.put(FIELD_ORGANIZATION_UUID, termQuery(FIELD_ORGANIZATION_UUID, organizationUuid)));
 
     query.getTags()
-      .ifPresent(tags -> filters.put(FIELD_TAGS, termsQuery(FIELD_TAGS, tags)));
+      .ifPresent(tags -> filters.put(FIELD_TAGS, termsQuery(FIELD_TAGS, new TreeSet<>(tags))));
 
     query.getQueryText()
       .map(ProjectsTextSearchQueryFactory::createQuery)
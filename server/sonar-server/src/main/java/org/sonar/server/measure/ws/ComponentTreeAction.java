@@ -162,14 +162,16 @@ public class ComponentTreeAction implements MeasuresWsAction {
   private final UserSession userSession;
   private final I18n i18n;
   private final ResourceTypes resourceTypes;
+  private final ComponentTreeCache componentTreeCache;
 
   public ComponentTreeAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, I18n i18n,
-    ResourceTypes resourceTypes) {
+    ResourceTypes resourceTypes, ComponentTreeCache componentTreeCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
     this.i18n = i18n;
     this.resourceTypes = resourceTypes;
+    this.componentTreeCache = componentTreeCache;
   }
 
   @Override
@@ -403,15 +405,11 @@ public class ComponentTreeAction implements MeasuresWsAction {
       }
 
       ComponentTreeQuery componentTreeQuery = toComponentTreeQuery(wsRequest, baseComponent);
-      List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
-      List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
-      Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
-              components,
-              metrics);
-
-      components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
-      components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
+      ComponentTreeCache.SortedTree sortedTree = componentTreeCache.get(
+        new ComponentTreeCache.Key(baseComponent, baseSnapshot.get().getUuid(), componentTreeQuery, wsRequest),
+        () -> loadSortedTree(dbSession, baseComponent, componentTreeQuery, wsRequest));
 
+      List<ComponentDto> components = sortedTree.getComponents();
       int componentCount = components.size();
       components = paginateComponents(components, wsRequest);
 
@@ -419,14 +417,27 @@ public class ComponentTreeAction implements MeasuresWsAction {
               .setBaseComponent(baseComponent)
               .setComponentsFromDb(components)
               .setComponentCount(componentCount)
-              .setMeasuresByComponentUuidAndMetric(measuresByComponentUuidAndMetric)
-              .setMetrics(metrics)
+              .setMeasuresByComponentUuidAndMetric(sortedTree.getMeasuresByComponentUuidAndMetric())
+              .setMetrics(sortedTree.getMetrics())
               .setPeriods(snapshotToWsPeriods(baseSnapshot.get()))
               .setReferenceComponentsByUuid(searchReferenceComponentsById(dbSession, components))
               .build();
     }
   }
 
+  private ComponentTreeCache.SortedTree loadSortedTree(DbSession dbSession, ComponentDto baseComponent, ComponentTreeQuery componentTreeQuery,
+    ComponentTreeRequest wsRequest) {
+    List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
+    List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
+    Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
+      components,
+      metrics);
+
+    components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
+    components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
+    return new ComponentTreeCache.SortedTree(components, metrics, measuresByComponentUuidAndMetric);
+  }
+
   private ComponentDto loadComponent(DbSession dbSession, ComponentTreeRequest request) {
     String componentKey = request.getComponent();
     String componentId = request.getBaseComponentId();
@@ -0,0 +1,194 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.ws;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Table;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTreeQuery;
+import org.sonar.db.metric.MetricDto;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cache of the filtered and sorted components, and of their measures, returned by api/measures/component_tree, so
+ * that browsing the pages of a big tree does not load and sort the whole tree on each request.
+ * <p>
+ * Entries are keyed by the last analysis of the project, so they are not used anymore as soon as a new analysis
+ * is processed. The stale entries of a project are evicted when the tree of its new analysis is loaded. Changes
+ * made between analyses, like the update of the key of a project, must evict the project through
+ * {@link #evictProject(String)}. Entries expire {@link #TTL_MINUTES} minutes after being loaded, whatever their
+ * accesses, so that other changes are not hidden longer. Memory is bounded by the total number of components
+ * and measures in cache.
+ * </p>
+ */
+@ServerSide
+public class ComponentTreeCache {
+
+  static final long MAX_WEIGHT = 1_000_000L;
+  static final long TTL_MINUTES = 10L;
+
+  private final Cache<Key, SortedTree> cache;
+
+  public ComponentTreeCache() {
+    this(Ticker.systemTicker(), MAX_WEIGHT);
+  }
+
+  ComponentTreeCache(Ticker ticker, long maxWeight) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .weigher((Key key, SortedTree tree) -> tree.weight())
+      .expireAfterWrite(TTL_MINUTES, TimeUnit.MINUTES)
+      .ticker(ticker)
+      .build();
+  }
+
+  public SortedTree get(Key key, Supplier<SortedTree> loader) {
+    SortedTree tree = cache.getIfPresent(key);
+    if (tree != null) {
+      return tree;
+    }
+    cache.asMap().keySet().removeIf(k -> k.projectUuid.equals(key.projectUuid) && !k.analysisUuid.equals(key.analysisUuid));
+    tree = loader.get();
+    cache.put(key, tree);
+    return tree;
+  }
+
+  public void evictProject(String projectUuid) {
+    cache.asMap().keySet().removeIf(k -> k.projectUuid.equals(projectUuid));
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  static final class Key {
+    private final String projectUuid;
+    private final String analysisUuid;
+    private final String baseComponentUuid;
+    private final ComponentTreeQuery.Strategy strategy;
+    @CheckForNull
+    private final Set<String> qualifiers;
+    @CheckForNull
+    private final String query;
+    private final List<String> metricKeys;
+    @CheckForNull
+    private final List<String> sort;
+    @CheckForNull
+    private final Boolean asc;
+    @CheckForNull
+    private final String metricSort;
+    @CheckForNull
+    private final String metricSortFilter;
+    @CheckForNull
+    private final Integer metricPeriodSort;
+
+    Key(ComponentDto baseComponent, String analysisUuid, ComponentTreeQuery componentTreeQuery, ComponentTreeRequest request) {
+      this.projectUuid = baseComponent.projectUuid();
+      this.analysisUuid = requireNonNull(analysisUuid);
+      this.baseComponentUuid = componentTreeQuery.getBaseUuid();
+      this.strategy = componentTreeQuery.getStrategy();
+      this.qualifiers = toSet(componentTreeQuery.getQualifiers());
+      this.query = componentTreeQuery.getNameOrKeyQuery();
+      this.metricKeys = requireNonNull(request.getMetricKeys());
+      this.sort = request.getSort();
+      this.asc = request.getAsc();
+      this.metricSort = request.getMetricSort();
+      this.metricSortFilter = request.getMetricSortFilter();
+      this.metricPeriodSort = request.getMetricPeriodSort();
+    }
+
+    @CheckForNull
+    private static Set<String> toSet(@Nullable Collection<String> qualifiers) {
+      return qualifiers == null ? null : new HashSet<>(qualifiers);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return analysisUuid.equals(key.analysisUuid)
+        && baseComponentUuid.equals(key.baseComponentUuid)
+        && strategy == key.strategy
+        && Objects.equals(qualifiers, key.qualifiers)
+        && Objects.equals(query, key.query)
+        && metricKeys.equals(key.metricKeys)
+        && Objects.equals(sort, key.sort)
+        && Objects.equals(asc, key.asc)
+        && Objects.equals(metricSort, key.metricSort)
+        && Objects.equals(metricSortFilter, key.metricSortFilter)
+        && Objects.equals(metricPeriodSort, key.metricPeriodSort);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(analysisUuid, baseComponentUuid, strategy, qualifiers, query, metricKeys, sort, asc, metricSort, metricSortFilter, metricPeriodSort);
+    }
+  }
+
+  /**
+   * Components of a tree, filtered and sorted as requested, with their measures. Must not be modified.
+   */
+  static final class SortedTree {
+    private final List<ComponentDto> components;
+    private final List<MetricDto> metrics;
+    private final Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric;
+
+    SortedTree(List<ComponentDto> components, List<MetricDto> metrics, Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric) {
+      this.components = unmodifiableList(components);
+      this.metrics = unmodifiableList(metrics);
+      this.measuresByComponentUuidAndMetric = measuresByComponentUuidAndMetric;
+    }
+
+    List<ComponentDto> getComponents() {
+      return components;
+    }
+
+    List<MetricDto> getMetrics() {
+      return metrics;
+    }
+
+    Table<String, MetricDto, ComponentTreeData.Measure> getMeasuresByComponentUuidAndMetric() {
+      return measuresByComponentUuidAndMetric;
+    }
+
+    private int weight() {
+      return (int) Math.min(Integer.MAX_VALUE, 1L + components.size() + (long) measuresByComponentUuidAndMetric.size());
+    }
+  }
+}
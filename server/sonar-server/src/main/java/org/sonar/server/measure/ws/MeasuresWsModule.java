@@ -27,6 +27,7 @@ public class MeasuresWsModule extends Module {
     add(
       MeasuresWs.class,
       ComponentTreeAction.class,
+      ComponentTreeCache.class,
       ComponentAction.class,
       SearchAction.class,
       SearchHistoryAction.class);
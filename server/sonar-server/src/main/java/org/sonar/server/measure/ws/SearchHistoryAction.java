@@ -20,6 +20,7 @@
 package org.sonar.server.measure.ws;
 
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -30,6 +31,7 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.web.UserRole;
+import org.sonar.core.timemachine.MeasureSeries;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -39,6 +41,7 @@ import org.sonar.db.component.SnapshotQuery;
 import org.sonar.db.component.SnapshotQuery.SORT_FIELD;
 import org.sonar.db.component.SnapshotQuery.SORT_ORDER;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureSeriesDto;
 import org.sonar.db.measure.PastMeasureQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
@@ -161,15 +164,35 @@ public class SearchHistoryAction implements MeasuresWsAction {
     return component;
   }
 
+  /**
+   * History of numerical measures of projects is read from table MEASURE_SERIES, which stores a single row per metric.
+   * Table PROJECT_MEASURES is read for the other metrics and components.
+   */
   private List<MeasureDto> searchMeasures(DbSession dbSession, SearchHistoryRequest request, SearchHistoryResult result) {
     Date from = parseStartingDateOrDateTime(request.getFrom());
     Date to = parseEndingDateOrDateTime(request.getTo());
-    PastMeasureQuery dbQuery = new PastMeasureQuery(
-      result.getComponent().uuid(),
-      result.getMetrics().stream().map(MetricDto::getId).collect(MoreCollectors.toList()),
-      from == null ? null : from.getTime(),
-      to == null ? null : (to.getTime() + 1_000L));
-    return dbClient.measureDao().selectPastMeasures(dbSession, dbQuery);
+    Long fromTime = from == null ? null : from.getTime();
+    Long toTime = to == null ? null : (to.getTime() + 1_000L);
+    String componentUuid = result.getComponent().uuid();
+    Set<Integer> metricIds = result.getMetrics().stream().map(MetricDto::getId).collect(MoreCollectors.toHashSet());
+
+    List<MeasureDto> measures = new ArrayList<>();
+    for (MeasureSeriesDto seriesDto : dbClient.measureSeriesDao().selectByComponentUuidAndMetricIds(dbSession, componentUuid, metricIds)) {
+      metricIds.remove(seriesDto.getMetricId());
+      MeasureSeries.decode(seriesDto.getData(), fromTime, toTime).getPoints().stream()
+        .map(point -> new MeasureDto()
+          .setComponentUuid(componentUuid)
+          .setAnalysisUuid(point.getAnalysisUuid())
+          .setMetricId(seriesDto.getMetricId())
+          .setValue(point.getValue())
+          .setVariation(point.getVariation()))
+        .forEach(measures::add);
+    }
+    if (!metricIds.isEmpty()) {
+      PastMeasureQuery dbQuery = new PastMeasureQuery(componentUuid, new ArrayList<>(metricIds), fromTime, toTime);
+      measures.addAll(dbClient.measureDao().selectPastMeasures(dbSession, dbQuery));
+    }
+    return measures;
   }
 
   private List<SnapshotDto> searchAnalyses(DbSession dbSession, SearchHistoryRequest request, ComponentDto component) {
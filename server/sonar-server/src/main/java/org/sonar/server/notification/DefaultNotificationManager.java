@@ -27,7 +27,9 @@ import java.io.IOException;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -56,6 +58,7 @@ public class DefaultNotificationManager implements NotificationManager {
   private final DbClient dbClient;
 
   private boolean alreadyLoggedDeserializationIssue = false;
+  private final ThreadLocal<Map<List<Object>, Multimap<String, NotificationChannel>>> cachedRecipients = new ThreadLocal<>();
 
   /**
    * Default constructor used by Pico
@@ -121,6 +124,31 @@ public class DefaultNotificationManager implements NotificationManager {
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
     String projectKey, SubscriberPermissionsOnProject subscriberPermissionsOnProject) {
     requireNonNull(projectKey, "projectKey is mandatory");
+    Map<List<Object>, Multimap<String, NotificationChannel>> cache = cachedRecipients.get();
+    if (cache == null) {
+      return loadSubscribedRecipientsForDispatcher(dispatcher, projectKey, subscriberPermissionsOnProject);
+    }
+    return cache.computeIfAbsent(Arrays.asList(dispatcher.getKey(), projectKey, subscriberPermissionsOnProject),
+      k -> loadSubscribedRecipientsForDispatcher(dispatcher, projectKey, subscriberPermissionsOnProject));
+  }
+
+  @Override
+  public void withCachedRecipients(Runnable action) {
+    if (cachedRecipients.get() != null) {
+      // already within a batch
+      action.run();
+      return;
+    }
+    cachedRecipients.set(new HashMap<>());
+    try {
+      action.run();
+    } finally {
+      cachedRecipients.remove();
+    }
+  }
+
+  private Multimap<String, NotificationChannel> loadSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
+    String projectKey, SubscriberPermissionsOnProject subscriberPermissionsOnProject) {
     String dispatcherKey = dispatcher.getKey();
 
     Set<SubscriberAndChannel> subscriberAndChannels = Arrays.stream(notificationChannels)
@@ -61,6 +61,14 @@ public interface NotificationManager {
   Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher, String projectUuid,
     SubscriberPermissionsOnProject subscriberPermissionsOnProject);
 
+  /**
+   * Executes the given action in the current thread, the recipients returned by
+   * {@link #findSubscribedRecipientsForDispatcher(NotificationDispatcher, String, SubscriberPermissionsOnProject)} being
+   * loaded only once per dispatcher, project and permissions. It's intended to dispatch a batch of notifications,
+   * subscriptions being considered as unchanged during the execution of the action.
+   */
+  void withCachedRecipients(Runnable action);
+
   final class SubscriberPermissionsOnProject {
     public static final SubscriberPermissionsOnProject ALL_MUST_HAVE_ROLE_USER = new SubscriberPermissionsOnProject(UserRole.USER);
 
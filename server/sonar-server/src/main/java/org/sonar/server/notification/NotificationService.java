@@ -46,10 +46,17 @@ public class NotificationService {
 
   private final List<NotificationDispatcher> dispatchers;
   private final DbClient dbClient;
+  @Nullable
+  private final NotificationManager notificationManager;
 
-  public NotificationService(DbClient dbClient, NotificationDispatcher[] dispatchers) {
+  public NotificationService(DbClient dbClient, NotificationDispatcher[] dispatchers, @Nullable NotificationManager notificationManager) {
     this.dbClient = dbClient;
     this.dispatchers = ImmutableList.copyOf(dispatchers);
+    this.notificationManager = notificationManager;
+  }
+
+  public NotificationService(DbClient dbClient, NotificationDispatcher[] dispatchers) {
+    this(dbClient, dispatchers, null);
   }
 
   /**
@@ -59,6 +66,18 @@ public class NotificationService {
     this(dbClient, new NotificationDispatcher[0]);
   }
 
+  /**
+   * Same as {@link #deliver(Notification)} for many notifications at once. The recipients subscribed to
+   * the dispatchers are loaded from DB once per project for all the notifications, instead of once per notification.
+   */
+  public void deliver(Collection<? extends Notification> notifications) {
+    if (notificationManager == null) {
+      notifications.forEach(this::deliver);
+    } else {
+      notificationManager.withCachedRecipients(() -> notifications.forEach(this::deliver));
+    }
+  }
+
   public void deliver(Notification notification) {
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
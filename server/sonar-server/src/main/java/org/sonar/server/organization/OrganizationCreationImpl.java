@@ -50,6 +50,7 @@ import org.sonar.db.user.UserGroupDto;
 import org.sonar.server.qualityprofile.BuiltInQProfile;
 import org.sonar.server.qualityprofile.BuiltInQProfileRepository;
 import org.sonar.server.qualityprofile.QProfileName;
+import org.sonar.server.user.AuthenticatedUserCache;
 import org.sonar.server.user.index.UserIndexer;
 import org.sonar.server.usergroups.DefaultGroupCreator;
 
@@ -74,10 +75,11 @@ public class OrganizationCreationImpl implements OrganizationCreation {
   private final BuiltInQProfileRepository builtInQProfileRepository;
   private final DefaultGroupCreator defaultGroupCreator;
   private final UserIndexer userIndexer;
+  private final AuthenticatedUserCache authenticatedUserCache;
 
   public OrganizationCreationImpl(DbClient dbClient, System2 system2, UuidFactory uuidFactory,
     OrganizationValidation organizationValidation, Configuration config, UserIndexer userIndexer,
-    BuiltInQProfileRepository builtInQProfileRepository, DefaultGroupCreator defaultGroupCreator) {
+    BuiltInQProfileRepository builtInQProfileRepository, DefaultGroupCreator defaultGroupCreator, AuthenticatedUserCache authenticatedUserCache) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.uuidFactory = uuidFactory;
@@ -86,6 +88,7 @@ public class OrganizationCreationImpl implements OrganizationCreation {
     this.userIndexer = userIndexer;
     this.builtInQProfileRepository = builtInQProfileRepository;
     this.defaultGroupCreator = defaultGroupCreator;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
   @Override
@@ -112,6 +115,7 @@ public class OrganizationCreationImpl implements OrganizationCreation {
 
       // Elasticsearch is updated when DB session is committed
       userIndexer.commitAndIndex(dbSession, userCreator);
+      authenticatedUserCache.evictUser(userCreator.getLogin());
 
       return organization;
     }
@@ -151,6 +155,7 @@ public class OrganizationCreationImpl implements OrganizationCreation {
 
       // Elasticsearch is updated when DB session is committed
       userIndexer.commitAndIndex(dbSession, newUser);
+      authenticatedUserCache.evictUser(newUser.getLogin());
 
       return Optional.of(organization);
     }
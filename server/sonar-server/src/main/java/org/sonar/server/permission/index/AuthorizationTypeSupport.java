@@ -116,6 +116,9 @@ public class AuthorizationTypeSupport {
     userSession.getGroups()
       .stream()
       .map(GroupDto::getId)
+      // sorted so that the filter of a given user does not depend on the order of the groups, see request cache of
+      // Elasticsearch. The filter includes the user id, so cached requests are not shared between users.
+      .sorted()
       .forEach(groupId -> filter.should(termQuery(FIELD_GROUP_IDS, groupId)));
 
     return JoinQueryBuilders.hasParentQuery(
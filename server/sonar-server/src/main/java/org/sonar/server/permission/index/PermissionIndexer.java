@@ -87,6 +87,15 @@ public class PermissionIndexer implements ProjectIndexer {
     index(authorizations, scopes, Size.LARGE);
   }
 
+  /**
+   * The authorization type of each index is populated on its own. Note that authorizations are then loaded from
+   * database once per index.
+   */
+  @Override
+  public boolean supportsIndexingByIndexOnStartup() {
+    return true;
+  }
+
   @VisibleForTesting
   void index(List<Dto> authorizations) {
     index(authorizations, authorizationScopes.stream(), Size.REGULAR);
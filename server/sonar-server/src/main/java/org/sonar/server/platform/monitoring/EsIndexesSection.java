@@ -19,10 +19,12 @@
  */
 package org.sonar.server.platform.monitoring;
 
+import java.util.Locale;
 import java.util.Map;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.admin.indices.stats.IndexStats;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.process.systeminfo.Global;
@@ -62,6 +64,17 @@ public class EsIndexesSection implements SystemInfoSection, Global {
       setAttribute(protobuf, prefix + "Docs", indexStats.getValue().getPrimaries().getDocs().getCount());
       setAttribute(protobuf, prefix + "Shards", indexStats.getValue().getShards().length);
       setAttribute(protobuf, prefix + "Store Size", byteCountToDisplaySize(indexStats.getValue().getPrimaries().getStore().getSizeInBytes()));
+      RequestCacheStats requestCache = indexStats.getValue().getTotal().getRequestCache();
+      setAttribute(protobuf, prefix + "Request Cache Memory", byteCountToDisplaySize(requestCache.getMemorySizeInBytes()));
+      setAttribute(protobuf, prefix + "Request Cache Hit Ratio", hitRatio(requestCache));
     }
   }
+
+  private static String hitRatio(RequestCacheStats stats) {
+    long requests = stats.getHitCount() + stats.getMissCount();
+    if (requests == 0) {
+      return "-";
+    }
+    return String.format(Locale.ENGLISH, "%.1f%%", 100.0 * stats.getHitCount() / requests);
+  }
 }
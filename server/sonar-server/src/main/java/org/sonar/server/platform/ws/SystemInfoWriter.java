@@ -35,7 +35,7 @@ public abstract class SystemInfoWriter {
 
     // cluster
     "Web JVM State", "Web Database Connection", "Web Logging", "Web JVM Properties",
-    "Compute Engine Tasks", "Compute Engine JVM State", "Compute Engine Database Connection", "Compute Engine Logging", "Compute Engine JVM Properties",
+    "Compute Engine Tasks", "Compute Engine Steps", "Compute Engine Purge", "Compute Engine JVM State", "Compute Engine Database Connection", "Compute Engine Logging", "Compute Engine JVM Properties",
     "Search State", "Search Indexes"};
 
   private final TelemetryDataLoader telemetry;
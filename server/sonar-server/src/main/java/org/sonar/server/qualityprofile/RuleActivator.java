@@ -20,9 +20,10 @@
 package org.sonar.server.qualityprofile;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
@@ -154,12 +155,12 @@ public class RuleActivator {
 
   private void updateProfileDates(DbSession dbSession, RuleActivatorContext context) {
     QProfileDto profile = context.getProfile();
-    if (profile != null) {
-      profile.setRulesUpdatedAtAsDate(context.getInitDate());
-      if (userSession.isLoggedIn()) {
-        profile.setUserUpdatedAt(context.getInitDate().getTime());
-      }
-      db.qualityProfileDao().update(dbSession, profile);
+    RuleActivatorCache cache = context.getCache();
+    if (profile != null && cache != null) {
+      // profile is updated only once at the end of the bulk change
+      cache.addUpdatedProfile(profile);
+    } else if (profile != null) {
+      updateProfileDates(dbSession, profile, context.getInitDate());
     } else {
       // built-in profile, change rules_profiles.rules_updated_at
       RulesProfileDto rulesProfile = context.getRulesProfile();
@@ -168,6 +169,14 @@ public class RuleActivator {
     }
   }
 
+  private void updateProfileDates(DbSession dbSession, QProfileDto profile, Date date) {
+    profile.setRulesUpdatedAtAsDate(date);
+    if (userSession.isLoggedIn()) {
+      profile.setUserUpdatedAt(date.getTime());
+    }
+    db.qualityProfileDao().update(dbSession, profile);
+  }
+
   /**
    * Severity and parameter values are :
    * 1. defined by end-user
@@ -243,13 +252,25 @@ public class RuleActivator {
 
     // get all inherited profiles
     getChildren(dbSession, context).forEach(child -> {
-      RuleActivatorContext childContext = contextFactory.create(dbSession, activation.getRuleKey(), child, true);
+      RuleActivatorContext childContext = createChildContext(dbSession, context, activation.getRuleKey(), child);
       changes.addAll(doActivate(dbSession, activation, childContext));
     });
     return changes;
   }
 
+  private RuleActivatorContext createChildContext(DbSession dbSession, RuleActivatorContext parentContext, RuleKey ruleKey, QProfileDto child) {
+    RuleActivatorCache cache = parentContext.getCache();
+    if (cache != null) {
+      return contextFactory.create(cache, ruleKey, child, true);
+    }
+    return contextFactory.create(dbSession, ruleKey, child, true);
+  }
+
   protected List<QProfileDto> getChildren(DbSession session, RuleActivatorContext context) {
+    RuleActivatorCache cache = context.getCache();
+    if (cache != null && context.getProfile() != null) {
+      return cache.getChildren(context.getProfile());
+    }
     if (context.getProfile() != null) {
       return db.qualityProfileDao().selectChildren(session, context.getProfile());
     }
@@ -269,6 +290,19 @@ public class RuleActivator {
     }
     change.setActiveRule(activeRule);
     db.qProfileChangeDao().insert(dbSession, change.toDto(userSession.getLogin()));
+    updateCache(change, context, activeRule);
+  }
+
+  private static void updateCache(ActiveRuleChange change, RuleActivatorContext context, @Nullable ActiveRuleDto activeRule) {
+    RuleActivatorCache cache = context.getCache();
+    if (cache == null) {
+      return;
+    }
+    if (change.getType() == ActiveRuleChange.Type.DEACTIVATED || activeRule == null) {
+      cache.removeActiveRule(context.activeRuleKey());
+    } else {
+      cache.putActiveRule(context.activeRuleKey(), activeRule, context.activeRuleParamsAsMap().values());
+    }
   }
 
   private ActiveRuleDto doInsert(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession) {
@@ -288,13 +322,16 @@ public class RuleActivator {
     activeRule.setUpdatedAt(system2.now());
     activeRule.setCreatedAt(system2.now());
     dao.insert(dbSession, activeRule);
+    List<ActiveRuleParamDto> params = new ArrayList<>();
     for (Map.Entry<String, String> param : change.getParameters().entrySet()) {
       if (param.getValue() != null) {
         ActiveRuleParamDto paramDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
         paramDto.setValue(param.getValue());
         dao.insertParam(dbSession, activeRule, paramDto);
+        params.add(paramDto);
       }
     }
+    context.setActiveRule(activeRule).setActiveRuleParams(params);
     return activeRule;
   }
 
@@ -321,6 +358,7 @@ public class RuleActivator {
             activeRuleParamDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
             activeRuleParamDto.setValue(param.getValue());
             dao.insertParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().put(param.getKey(), activeRuleParamDto);
           }
         } else {
           if (param.getValue() != null) {
@@ -328,6 +366,7 @@ public class RuleActivator {
             dao.updateParam(dbSession, activeRuleParamDto);
           } else {
             dao.deleteParam(dbSession, activeRuleParamDto);
+            context.activeRuleParamsAsMap().remove(param.getKey());
           }
         }
       }
@@ -398,7 +437,7 @@ public class RuleActivator {
     // get all inherited profiles (they are not built-in by design)
 
     getChildren(dbSession, context).forEach(child -> {
-      RuleActivatorContext childContext = contextFactory.create(dbSession, ruleKey, child, true);
+      RuleActivatorContext childContext = createChildContext(dbSession, context, ruleKey, child);
       changes.addAll(cascadeDeactivation(dbSession, childContext, ruleKey, force));
     });
 
@@ -423,14 +462,19 @@ public class RuleActivator {
     return value;
   }
 
+  /**
+   * Rules, profile descendants and active rules are loaded once for all the rules matching the query. Profile
+   * dates are updated once at the end.
+   */
   public BulkChangeResult bulkActivateAndCommit(DbSession dbSession, RuleQuery ruleQuery, QProfileDto profile, @Nullable String severity) {
     BulkChangeResult result = new BulkChangeResult();
-    Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-    while (rules.hasNext()) {
-      RuleKey ruleKey = rules.next();
+    List<RuleKey> ruleKeys = Lists.newArrayList(ruleIndex.searchAll(ruleQuery));
+    RuleActivatorCache cache = contextFactory.createCache(dbSession, profile, ruleKeys);
+    for (RuleKey ruleKey : ruleKeys) {
       try {
         RuleActivation activation = RuleActivation.create(ruleKey, severity, null);
-        List<ActiveRuleChange> changes = activate(dbSession, activation, profile);
+        RuleActivatorContext context = contextFactory.create(cache, ruleKey, profile, false);
+        List<ActiveRuleChange> changes = doActivate(dbSession, activation, context);
         result.addChanges(changes);
         if (!changes.isEmpty()) {
           result.incrementSucceeded();
@@ -442,17 +486,22 @@ public class RuleActivator {
         result.getErrors().addAll(e.errors());
       }
     }
+    updateProfileDates(dbSession, cache);
     activeRuleIndexer.commitAndIndex(dbSession, result.getChanges());
     return result;
   }
 
+  /**
+   * @see #bulkActivateAndCommit(DbSession, RuleQuery, QProfileDto, String)
+   */
   public BulkChangeResult bulkDeactivateAndCommit(DbSession dbSession, RuleQuery ruleQuery, QProfileDto profile) {
     BulkChangeResult result = new BulkChangeResult();
-    Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-    while (rules.hasNext()) {
+    List<RuleKey> ruleKeys = Lists.newArrayList(ruleIndex.searchAll(ruleQuery));
+    RuleActivatorCache cache = contextFactory.createCache(dbSession, profile, ruleKeys);
+    for (RuleKey ruleKey : ruleKeys) {
       try {
-        RuleKey ruleKey = rules.next();
-        List<ActiveRuleChange> changes = deactivate(dbSession, profile, ruleKey);
+        RuleActivatorContext context = contextFactory.create(cache, ruleKey, profile, false);
+        List<ActiveRuleChange> changes = cascadeDeactivation(dbSession, context, ruleKey, false);
         result.addChanges(changes);
         if (!changes.isEmpty()) {
           result.incrementSucceeded();
@@ -463,10 +512,16 @@ public class RuleActivator {
         result.getErrors().addAll(e.errors());
       }
     }
+    updateProfileDates(dbSession, cache);
     activeRuleIndexer.commitAndIndex(dbSession, result.getChanges());
     return result;
   }
 
+  private void updateProfileDates(DbSession dbSession, RuleActivatorCache cache) {
+    Date now = new Date(system2.now());
+    cache.getUpdatedProfiles().forEach(profile -> updateProfileDates(dbSession, profile, now));
+  }
+
   public List<ActiveRuleChange> setParentAndCommit(DbSession dbSession, QProfileDto profile, @Nullable QProfileDto parent) {
     checkRequest(
       parent == null || profile.getLanguage().equals(parent.getLanguage()),
@@ -0,0 +1,130 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QProfileDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.rule.RuleParamDto;
+
+/**
+ * Rules, profiles and active rules loaded once by {@link RuleActivatorContextFactory#createCache} for the bulk
+ * activation or deactivation of rules on a profile and its descendants. {@link RuleActivator} keeps it up-to-date
+ * with the changes it persists, so that the contexts of the cascading activations are not reloaded from DB.
+ */
+class RuleActivatorCache {
+
+  private final Map<RuleKey, RuleDefinitionDto> rulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, RuleParamDto> ruleParamsByRuleId = ArrayListMultimap.create();
+  private final Map<String, QProfileDto> profilesByUuid = new HashMap<>();
+  private final ListMultimap<String, QProfileDto> childrenByParentUuid = ArrayListMultimap.create();
+  private final Map<ActiveRuleKey, ActiveRuleDto> activeRulesByKey = new HashMap<>();
+  private final ListMultimap<ActiveRuleKey, ActiveRuleParamDto> activeRuleParamsByKey = ArrayListMultimap.create();
+  private final Map<String, QProfileDto> updatedProfilesByUuid = new LinkedHashMap<>();
+
+  void addRule(RuleDefinitionDto rule) {
+    rulesByKey.put(rule.getKey(), rule);
+  }
+
+  void addRuleParam(RuleParamDto ruleParam) {
+    ruleParamsByRuleId.put(ruleParam.getRuleId(), ruleParam);
+  }
+
+  void addProfile(QProfileDto profile) {
+    profilesByUuid.put(profile.getKee(), profile);
+  }
+
+  void addChild(QProfileDto child) {
+    addProfile(child);
+    childrenByParentUuid.put(child.getParentKee(), child);
+  }
+
+  void addActiveRule(ActiveRuleKey key, ActiveRuleDto activeRule) {
+    activeRulesByKey.put(key, activeRule);
+  }
+
+  void addActiveRuleParam(ActiveRuleKey key, ActiveRuleParamDto param) {
+    activeRuleParamsByKey.put(key, param);
+  }
+
+  @CheckForNull
+  RuleDefinitionDto getRule(RuleKey ruleKey) {
+    return rulesByKey.get(ruleKey);
+  }
+
+  boolean containsRule(RuleKey ruleKey) {
+    return rulesByKey.containsKey(ruleKey);
+  }
+
+  List<RuleParamDto> getRuleParams(RuleDefinitionDto rule) {
+    return ruleParamsByRuleId.get(rule.getId());
+  }
+
+  @CheckForNull
+  QProfileDto getParent(QProfileDto profile) {
+    String parentUuid = profile.getParentKee();
+    return parentUuid == null ? null : profilesByUuid.get(parentUuid);
+  }
+
+  List<QProfileDto> getChildren(QProfileDto profile) {
+    return childrenByParentUuid.get(profile.getKee());
+  }
+
+  @CheckForNull
+  ActiveRuleDto getActiveRule(ActiveRuleKey key) {
+    return activeRulesByKey.get(key);
+  }
+
+  List<ActiveRuleParamDto> getActiveRuleParams(ActiveRuleKey key) {
+    return activeRuleParamsByKey.get(key);
+  }
+
+  void putActiveRule(ActiveRuleKey key, ActiveRuleDto activeRule, Collection<ActiveRuleParamDto> params) {
+    activeRulesByKey.put(key, activeRule);
+    activeRuleParamsByKey.replaceValues(key, params);
+  }
+
+  void removeActiveRule(ActiveRuleKey key) {
+    activeRulesByKey.remove(key);
+    activeRuleParamsByKey.removeAll(key);
+  }
+
+  /**
+   * Profiles which dates must be updated once all the rules are processed
+   */
+  void addUpdatedProfile(QProfileDto profile) {
+    updatedProfilesByUuid.put(profile.getKee(), profile);
+  }
+
+  Collection<QProfileDto> getUpdatedProfiles() {
+    return updatedProfilesByUuid.values();
+  }
+}
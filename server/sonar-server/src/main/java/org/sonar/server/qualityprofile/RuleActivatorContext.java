@@ -51,11 +51,17 @@ class RuleActivatorContext {
   private final Map<String, ActiveRuleParamDto> activeRuleParams = new HashMap<>();
   private final Map<String, ActiveRuleParamDto> parentActiveRuleParams = new HashMap<>();
   private final boolean isCascade;
+  private final RuleActivatorCache cache;
 
   RuleActivatorContext(QProfileDto profile, boolean isCascade) {
+    this(profile, isCascade, null);
+  }
+
+  RuleActivatorContext(QProfileDto profile, boolean isCascade, @Nullable RuleActivatorCache cache) {
     this.profile = profile;
     this.rulesProfile = RulesProfileDto.from(profile);
     this.isCascade = isCascade;
+    this.cache = cache;
   }
 
   RuleActivatorContext(RulesProfileDto rulesProfile) {
@@ -63,6 +69,7 @@ class RuleActivatorContext {
     this.profile = null;
     this.rulesProfile = rulesProfile;
     this.isCascade = false;
+    this.cache = null;
   }
 
   @CheckForNull
@@ -82,6 +89,14 @@ class RuleActivatorContext {
     return isCascade;
   }
 
+  /**
+   * Cache of the bulk change this context belongs to, if any
+   */
+  @CheckForNull
+  RuleActivatorCache getCache() {
+    return cache;
+  }
+
   ActiveRuleKey activeRuleKey() {
     return ActiveRuleKey.of(rulesProfile, rule.getKey());
   }
@@ -19,8 +19,11 @@
  */
 package org.sonar.server.qualityprofile;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.ServerSide;
@@ -55,6 +58,71 @@ public class RuleActivatorContextFactory {
     return init(dbSession, ruleKey, context);
   }
 
+  /**
+   * Same as {@link #create(DbSession, RuleKey, QProfileDto, boolean)}, but reads rules, profiles and active rules
+   * from a cache loaded by {@link #createCache(DbSession, QProfileDto, Collection)}
+   */
+  RuleActivatorContext create(RuleActivatorCache cache, RuleKey ruleKey, QProfileDto profile, boolean cascade) {
+    RuleActivatorContext context = new RuleActivatorContext(profile, cascade, cache);
+    RuleDefinitionDto rule = cache.getRule(ruleKey);
+    checkRequest(rule != null, "Rule not found: %s", ruleKey);
+    context.setRule(rule);
+    context.setRuleParams(cache.getRuleParams(rule));
+
+    ActiveRuleKey key = ActiveRuleKey.of(profile, ruleKey);
+    ActiveRuleDto activeRule = cache.getActiveRule(key);
+    context.setActiveRule(activeRule);
+    context.setActiveRuleParams(activeRule == null ? null : cache.getActiveRuleParams(key));
+
+    QProfileDto parent = cache.getParent(profile);
+    if (parent != null) {
+      ActiveRuleKey parentKey = ActiveRuleKey.of(parent, ruleKey);
+      ActiveRuleDto parentActiveRule = cache.getActiveRule(parentKey);
+      context.setParentActiveRule(parentActiveRule);
+      context.setParentActiveRuleParams(parentActiveRule == null ? null : cache.getActiveRuleParams(parentKey));
+    }
+    return context;
+  }
+
+  /**
+   * Loads at once the given rules, the profile, its parent and its descendants, and the related active rules.
+   */
+  RuleActivatorCache createCache(DbSession dbSession, QProfileDto profile, Collection<RuleKey> ruleKeys) {
+    RuleActivatorCache cache = new RuleActivatorCache();
+    db.ruleDao().selectDefinitionByKeys(dbSession, ruleKeys).forEach(cache::addRule);
+    db.ruleDao().selectRuleParamsByRuleKeys(dbSession, ruleKeys).forEach(cache::addRuleParam);
+
+    List<QProfileDto> profiles = new ArrayList<>();
+    profiles.add(profile);
+    cache.addProfile(profile);
+    if (profile.getParentKee() != null) {
+      QProfileDto parent = db.qualityProfileDao().selectByUuid(dbSession, profile.getParentKee());
+      if (parent != null) {
+        profiles.add(parent);
+        cache.addProfile(parent);
+      }
+    }
+    for (QProfileDto descendant : db.qualityProfileDao().selectDescendants(dbSession, profile)) {
+      profiles.add(descendant);
+      cache.addChild(descendant);
+    }
+
+    Map<Integer, ActiveRuleKey> keysByActiveRuleId = new HashMap<>();
+    for (QProfileDto p : profiles) {
+      for (ActiveRuleDto activeRule : db.activeRuleDao().selectByProfile(dbSession, p)) {
+        if (cache.containsRule(activeRule.getRuleKey())) {
+          ActiveRuleKey key = ActiveRuleKey.of(p, activeRule.getRuleKey());
+          keysByActiveRuleId.put(activeRule.getId(), key);
+          cache.addActiveRule(key, activeRule);
+        }
+      }
+    }
+    for (ActiveRuleParamDto param : db.activeRuleDao().selectParamsByActiveRuleIds(dbSession, new ArrayList<>(keysByActiveRuleId.keySet()))) {
+      cache.addActiveRuleParam(keysByActiveRuleId.get(param.getActiveRuleId()), param);
+    }
+    return cache;
+  }
+
   private RuleActivatorContext init(DbSession dbSession, RuleKey ruleKey, RuleActivatorContext context) {
     initRule(ruleKey, context, dbSession);
     initActiveRules(context.getRulesProfile(), ruleKey, context, dbSession, false);
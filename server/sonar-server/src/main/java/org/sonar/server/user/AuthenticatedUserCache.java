@@ -0,0 +1,206 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.stream.MoreCollectors;
+import org.sonar.db.user.GroupDto;
+import org.sonar.db.user.UserDto;
+import org.sonar.process.ProcessId;
+import org.sonar.process.cluster.hz.DistributedCall;
+import org.sonar.process.cluster.hz.HazelcastMember;
+import org.sonar.process.cluster.hz.HazelcastMemberSelectors;
+
+/**
+ * Short-lived cache of the users authenticated by token or by JWT, including their groups, so that the web services
+ * called by CI systems do not load them from DB on each request.
+ * <p>
+ * Only found values are cached. Entries must be evicted through {@link #evictUser(String)} or {@link #evictAll()}
+ * as soon as tokens, users or group memberships are changed. In cluster mode the eviction is propagated to
+ * the other web nodes.
+ * </p>
+ */
+@ServerSide
+public class AuthenticatedUserCache implements Startable {
+
+  static final long MAX_SIZE = 10_000L;
+  static final long TTL_SECONDS = 30L;
+
+  private static final long CLUSTER_TIMEOUT_MILLIS = 5_000L;
+  private static final Logger LOGGER = Loggers.get(AuthenticatedUserCache.class);
+
+  /** Used for Hazelcast's distributed queries in cluster mode */
+  private static AuthenticatedUserCache instance;
+
+  @CheckForNull
+  private final HazelcastMember member;
+  private final Cache<String, String> loginsByTokenHash;
+  private final Cache<String, UserDto> activeUsersByLogin;
+  private final Cache<String, Collection<GroupDto>> groupsByLogin;
+  /**
+   * Incremented on each eviction, so that values loaded concurrently to an eviction are not cached
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  public AuthenticatedUserCache(HazelcastMember member) {
+    this(member, Ticker.systemTicker());
+  }
+
+  public AuthenticatedUserCache() {
+    this(null, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  AuthenticatedUserCache(@Nullable HazelcastMember member, Ticker ticker) {
+    this.member = member;
+    this.loginsByTokenHash = newCache(ticker);
+    this.activeUsersByLogin = newCache(ticker);
+    this.groupsByLogin = newCache(ticker);
+  }
+
+  private static <K, V> Cache<K, V> newCache(Ticker ticker) {
+    return CacheBuilder.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .expireAfterWrite(TTL_SECONDS, TimeUnit.SECONDS)
+      .ticker(ticker)
+      .build();
+  }
+
+  @Override
+  public void start() {
+    instance = this;
+  }
+
+  @Override
+  public void stop() {
+    instance = null;
+  }
+
+  public Optional<String> getLoginByTokenHash(String tokenHash, Supplier<Optional<String>> loader) {
+    return get(loginsByTokenHash, tokenHash, loader, UnaryOperator.identity());
+  }
+
+  /**
+   * DTOs are mutable, so each caller gets its own copy of the cached user.
+   */
+  public Optional<UserDto> getActiveUserByLogin(String login, Supplier<Optional<UserDto>> loader) {
+    return get(activeUsersByLogin, login, loader, UserDto::copy);
+  }
+
+  /**
+   * DTOs are mutable, so each caller gets its own copies of the cached groups.
+   */
+  public Collection<GroupDto> getGroupsByLogin(String login, Supplier<Collection<GroupDto>> loader) {
+    return get(groupsByLogin, login, () -> Optional.of(loader.get()), AuthenticatedUserCache::copy).get();
+  }
+
+  private static Collection<GroupDto> copy(Collection<GroupDto> groups) {
+    return groups.stream().map(GroupDto::copy).collect(MoreCollectors.toList(groups.size()));
+  }
+
+  private <V> Optional<V> get(Cache<String, V> cache, String key, Supplier<Optional<V>> loader, UnaryOperator<V> copier) {
+    V value = cache.getIfPresent(key);
+    if (value != null) {
+      return Optional.of(copier.apply(value));
+    }
+    long generationBeforeLoad = generation.get();
+    Optional<V> loaded = loader.get();
+    if (loaded.isPresent()) {
+      synchronized (this) {
+        if (generation.get() == generationBeforeLoad) {
+          cache.put(key, copier.apply(loaded.get()));
+        }
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Evicts the user, its groups and its tokens on all the web nodes. To be called once the change is committed.
+   */
+  public void evictUser(String login) {
+    evictUserLocally(login);
+    callOnCluster(() -> {
+      AuthenticatedUserCache cache = instance;
+      if (cache != null) {
+        cache.evictUserLocally(login);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Evicts all the entries on all the web nodes. To be called once the change is committed.
+   */
+  public void evictAll() {
+    evictAllLocally();
+    callOnCluster(() -> {
+      AuthenticatedUserCache cache = instance;
+      if (cache != null) {
+        cache.evictAllLocally();
+      }
+      return null;
+    });
+  }
+
+  synchronized void evictUserLocally(String login) {
+    generation.incrementAndGet();
+    activeUsersByLogin.invalidate(login);
+    groupsByLogin.invalidate(login);
+    loginsByTokenHash.asMap().values().removeIf(login::equals);
+  }
+
+  synchronized void evictAllLocally() {
+    generation.incrementAndGet();
+    activeUsersByLogin.invalidateAll();
+    groupsByLogin.invalidateAll();
+    loginsByTokenHash.invalidateAll();
+  }
+
+  private void callOnCluster(DistributedCall<Object> call) {
+    if (member == null) {
+      return;
+    }
+    try {
+      member.call(call, HazelcastMemberSelectors.selectorForProcessIds(ProcessId.WEB_SERVER), CLUSTER_TIMEOUT_MILLIS)
+        .propagateExceptions();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      // entries of the other nodes expire anyway after TTL_SECONDS
+      LOGGER.warn("Fail to evict authenticated users on other cluster nodes", e);
+    }
+  }
+}
@@ -54,6 +54,8 @@ public class ServerUserSession extends AbstractUserSession {
   private final DbClient dbClient;
   private final OrganizationFlags organizationFlags;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  @CheckForNull
+  private final AuthenticatedUserCache authenticatedUserCache;
   private final Supplier<Collection<GroupDto>> groups = Suppliers.memoize(this::loadGroups);
   private final Supplier<Boolean> isSystemAdministratorSupplier = Suppliers.memoize(this::loadIsSystemAdministrator);
   private final Map<String, String> projectUuidByComponentUuid = newHashMap();
@@ -62,18 +64,32 @@ public class ServerUserSession extends AbstractUserSession {
 
   ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags,
     DefaultOrganizationProvider defaultOrganizationProvider, @Nullable UserDto userDto) {
+    this(dbClient, organizationFlags, defaultOrganizationProvider, userDto, null);
+  }
+
+  ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags,
+    DefaultOrganizationProvider defaultOrganizationProvider, @Nullable UserDto userDto, @Nullable AuthenticatedUserCache authenticatedUserCache) {
     this.dbClient = dbClient;
     this.organizationFlags = organizationFlags;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.userDto = userDto;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
   private Collection<GroupDto> loadGroups() {
     if (this.userDto == null) {
       return Collections.emptyList();
     }
+    String login = userDto.getLogin();
+    if (authenticatedUserCache != null) {
+      return authenticatedUserCache.getGroupsByLogin(login, () -> selectGroups(login));
+    }
+    return selectGroups(login);
+  }
+
+  private Collection<GroupDto> selectGroups(String login) {
     try (DbSession dbSession = dbClient.openSession(false)) {
-      return dbClient.groupDao().selectByUserLogin(dbSession, userDto.getLogin());
+      return dbClient.groupDao().selectByUserLogin(dbSession, login);
     }
   }
 
@@ -31,6 +31,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserMembershipQuery;
+import org.sonar.server.user.AuthenticatedUserCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.UserGroups;
 
@@ -51,11 +52,13 @@ public class UpdateAction implements UserGroupsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final GroupWsSupport support;
+  private final AuthenticatedUserCache authenticatedUserCache;
 
-  public UpdateAction(DbClient dbClient, UserSession userSession, GroupWsSupport support) {
+  public UpdateAction(DbClient dbClient, UserSession userSession, GroupWsSupport support, AuthenticatedUserCache authenticatedUserCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.support = support;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
   @Override
@@ -116,6 +119,7 @@ public class UpdateAction implements UserGroupsWsAction {
       if (changed) {
         dbClient.groupDao().update(dbSession, group);
         dbSession.commit();
+        authenticatedUserCache.evictAll();
       }
 
       writeResponse(dbSession, request, response, org.get(), group);
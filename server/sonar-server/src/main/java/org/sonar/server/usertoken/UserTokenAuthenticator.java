@@ -23,23 +23,31 @@ import com.google.common.base.Optional;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.user.UserTokenDto;
+import org.sonar.server.user.AuthenticatedUserCache;
 
 public class UserTokenAuthenticator {
   private final TokenGenerator tokenGenerator;
   private final DbClient dbClient;
+  private final AuthenticatedUserCache authenticatedUserCache;
 
-  public UserTokenAuthenticator(TokenGenerator tokenGenerator, DbClient dbClient) {
+  public UserTokenAuthenticator(TokenGenerator tokenGenerator, DbClient dbClient, AuthenticatedUserCache authenticatedUserCache) {
     this.tokenGenerator = tokenGenerator;
     this.dbClient = dbClient;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
   /**
    * Returns the user login if the token hash is found, else {@code Optional.absent()}.
    * The returned login is not validated. If database is corrupted (table USER_TOKENS badly purged
    * for instance), then the login may not relate to a valid user.
+   * Logins are cached by {@link AuthenticatedUserCache} until the tokens of the user are revoked.
    */
   public java.util.Optional<String> authenticate(String token) {
     String tokenHash = tokenGenerator.hash(token);
+    return authenticatedUserCache.getLoginByTokenHash(tokenHash, () -> selectLoginByTokenHash(tokenHash));
+  }
+
+  private java.util.Optional<String> selectLoginByTokenHash(String tokenHash) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       Optional<UserTokenDto> userToken = dbClient.userTokenDao().selectByTokenHash(dbSession, tokenHash);
       if (userToken.isPresent()) {
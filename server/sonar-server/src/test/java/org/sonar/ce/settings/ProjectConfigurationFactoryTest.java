@@ -151,6 +151,33 @@ public class ProjectConfigurationFactoryTest {
     assertThat(config.get("sonar.leak.period")).hasValue("1");
   }
 
+  @Test
+  public void configuration_of_root_component_contains_its_settings() {
+    settings.setProperty("global", "global_value");
+    ComponentDto project = db.components().insertMainBranch();
+    db.properties().insertProperties(newComponentPropertyDto(project).setKey("key").setValue("value"));
+
+    Configuration config = underTest.newProjectConfiguration(db.getSession(), project);
+
+    assertThat(config.get("global")).hasValue("global_value");
+    assertThat(config.get("key")).hasValue("value");
+  }
+
+  @Test
+  public void configuration_of_root_branch_contains_settings_of_main_branch() {
+    ComponentDto project = db.components().insertMainBranch();
+    db.properties().insertProperties(
+      newComponentPropertyDto(project).setKey("key").setValue("value"),
+      newComponentPropertyDto(project).setKey("sonar.leak.period").setValue("1"));
+    ComponentDto branch = db.components().insertProjectBranch(project);
+    db.properties().insertProperties(newComponentPropertyDto(branch).setKey("sonar.leak.period").setValue("2"));
+
+    Configuration config = underTest.newProjectConfiguration(db.getSession(), branch);
+
+    assertThat(config.get("key")).hasValue("value");
+    assertThat(config.get("sonar.leak.period")).hasValue("2");
+  }
+
   private static Branch createBranch(String name, boolean isMain) {
     Branch branch = mock(Branch.class);
     when(branch.getName()).thenReturn(name);
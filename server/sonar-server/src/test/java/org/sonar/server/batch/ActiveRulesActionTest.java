@@ -0,0 +1,236 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.rule.RuleStatus;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.DbTester;
+import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QProfileDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.rule.RuleParamDto;
+import org.sonar.scanner.protocol.Constants.Severity;
+import org.sonar.scanner.protocol.input.ActiveRulesETag;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerActiveRule;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.ws.TestResponse;
+import org.sonar.server.ws.WsActionTester;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.sonar.core.util.Protobuf.readStream;
+
+public class ActiveRulesActionTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private WsActionTester ws = new WsActionTester(new ActiveRulesAction(db.getDbClient()));
+
+  @Test
+  public void definition() {
+    WebService.Action definition = ws.getDef();
+
+    assertThat(definition.key()).isEqualTo("active_rules");
+    assertThat(definition.isInternal()).isTrue();
+    assertThat(definition.since()).isEqualTo("7.0");
+    assertThat(definition.responseExampleAsString()).isNotEmpty();
+    assertThat(definition.params()).extracting(WebService.Param::key).containsExactly("qprofiles");
+    assertThat(definition.param("qprofiles").isRequired()).isTrue();
+  }
+
+  @Test
+  public void return_active_rules_of_all_profiles() {
+    OrganizationDto organization = db.organizations().insert();
+    RuleDefinitionDto javaRule = db.rules().insert(r -> r.setLanguage("java"));
+    RuleDefinitionDto jsRule = db.rules().insert(r -> r.setLanguage("js"));
+    RuleDefinitionDto otherRule = db.rules().insert(r -> r.setLanguage("java"));
+    QProfileDto javaProfile = db.qualityProfiles().insert(organization, p -> p.setLanguage("java"));
+    QProfileDto jsProfile = db.qualityProfiles().insert(organization, p -> p.setLanguage("js"));
+    QProfileDto otherProfile = db.qualityProfiles().insert(organization, p -> p.setLanguage("java"));
+    ActiveRuleDto javaActiveRule = db.qualityProfiles().activateRule(javaProfile, javaRule, ar -> ar.setSeverity("BLOCKER"));
+    db.qualityProfiles().activateRule(jsProfile, jsRule, ar -> ar.setSeverity("MINOR"));
+    db.qualityProfiles().activateRule(otherProfile, otherRule);
+
+    List<ServerActiveRule> result = call(javaProfile.getKee() + "," + jsProfile.getKee());
+
+    assertThat(result)
+      .extracting(ServerActiveRule::getQprofileKey, ServerActiveRule::getRuleRepository, ServerActiveRule::getRuleKey, ServerActiveRule::getSeverity,
+        ServerActiveRule::getLanguage)
+      .containsExactlyInAnyOrder(
+        tuple(javaProfile.getKee(), javaRule.getRepositoryKey(), javaRule.getRuleKey(), Severity.BLOCKER, "java"),
+        tuple(jsProfile.getKee(), jsRule.getRepositoryKey(), jsRule.getRuleKey(), Severity.MINOR, "js"));
+    ServerActiveRule javaResult = result.stream().filter(r -> r.getRuleKey().equals(javaRule.getRuleKey())).findFirst().get();
+    assertThat(javaResult.getName()).isEqualTo(javaRule.getName());
+    assertThat(javaResult.getInternalKey()).isEqualTo(javaRule.getConfigKey());
+    assertThat(javaResult.getCreatedAt()).isEqualTo(javaActiveRule.getCreatedAt());
+    assertThat(javaResult.hasTemplateRuleKey()).isFalse();
+  }
+
+  @Test
+  public void active_parameters_override_default_values_of_rule() {
+    OrganizationDto organization = db.organizations().insert();
+    RuleDefinitionDto rule = db.rules().insert();
+    RuleParamDto overriddenParam = db.rules().insertRuleParam(rule, p -> p.setName("format").setDefaultValue("^[a-z]+$"));
+    db.rules().insertRuleParam(rule, p -> p.setName("max").setDefaultValue("10"));
+    db.rules().insertRuleParam(rule, p -> p.setName("min").setDefaultValue(null));
+    QProfileDto profile = db.qualityProfiles().insert(organization);
+    ActiveRuleDto activeRule = db.qualityProfiles().activateRule(profile, rule);
+    db.getDbClient().activeRuleDao().insertParam(db.getSession(), activeRule, ActiveRuleParamDto.createFor(overriddenParam).setValue("^[A-Z]+$"));
+    db.commit();
+
+    List<ServerActiveRule> result = call(profile.getKee());
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getParamsByKey()).containsOnly(entry("format", "^[A-Z]+$"), entry("max", "10"));
+  }
+
+  @Test
+  public void return_key_of_template_of_custom_rule() {
+    OrganizationDto organization = db.organizations().insert();
+    RuleDefinitionDto template = db.rules().insert(r -> r.setIsTemplate(true));
+    RuleDefinitionDto customRule = db.rules().insert(r -> r.setTemplateId(template.getId()));
+    QProfileDto profile = db.qualityProfiles().insert(organization);
+    db.qualityProfiles().activateRule(profile, customRule);
+
+    List<ServerActiveRule> result = call(profile.getKee());
+
+    assertThat(result).extracting(ServerActiveRule::getRuleKey, ServerActiveRule::getTemplateRuleKey)
+      .containsExactly(tuple(customRule.getRuleKey(), template.getRuleKey()));
+  }
+
+  @Test
+  public void ignore_removed_rules() {
+    OrganizationDto organization = db.organizations().insert();
+    RuleDefinitionDto rule = db.rules().insert();
+    RuleDefinitionDto removedRule = db.rules().insert(r -> r.setStatus(RuleStatus.REMOVED));
+    QProfileDto profile = db.qualityProfiles().insert(organization);
+    db.qualityProfiles().activateRule(profile, rule);
+    db.qualityProfiles().activateRule(profile, removedRule);
+
+    List<ServerActiveRule> result = call(profile.getKee());
+
+    assertThat(result).extracting(ServerActiveRule::getRuleKey).containsExactly(rule.getRuleKey());
+  }
+
+  @Test
+  public void return_etag_based_on_content() throws IOException {
+    OrganizationDto organization = db.organizations().insert();
+    QProfileDto javaProfile = db.qualityProfiles().insert(organization, p -> p.setLanguage("java"));
+    QProfileDto jsProfile = db.qualityProfiles().insert(organization, p -> p.setLanguage("js"));
+    db.qualityProfiles().activateRule(javaProfile, db.rules().insert(r -> r.setLanguage("java")));
+    db.qualityProfiles().activateRule(jsProfile, db.rules().insert(r -> r.setLanguage("js")));
+
+    TestResponse response = ws.newRequest().setParam("qprofiles", javaProfile.getKee() + "," + jsProfile.getKee()).execute();
+
+    assertThat(response.getHeader("ETag")).isEqualTo(ActiveRulesETag.of(response.getInputStream()));
+    assertThat(ws.newRequest().setParam("qprofiles", jsProfile.getKee() + "," + javaProfile.getKee()).execute().getHeader("ETag"))
+      .isEqualTo(response.getHeader("ETag"));
+  }
+
+  @Test
+  public void etag_changes_when_parameter_of_custom_rule_is_updated() {
+    OrganizationDto organization = db.organizations().insert();
+    RuleDefinitionDto template = db.rules().insert(r -> r.setIsTemplate(true));
+    RuleDefinitionDto customRule = db.rules().insert(r -> r.setTemplateId(template.getId()));
+    RuleParamDto ruleParam = db.rules().insertRuleParam(customRule, p -> p.setName("regex").setDefaultValue("a.*"));
+    QProfileDto profile = db.qualityProfiles().insert(organization, p -> p.setRulesUpdatedAt("2017-10-20T10:00:00+0000"));
+    ActiveRuleDto activeRule = db.qualityProfiles().activateRule(profile, customRule);
+    ActiveRuleParamDto activeRuleParam = ActiveRuleParamDto.createFor(ruleParam).setValue("a.*");
+    db.getDbClient().activeRuleDao().insertParam(db.getSession(), activeRule, activeRuleParam);
+    db.commit();
+    String etag = ws.newRequest().setParam("qprofiles", profile.getKee()).execute().getHeader("ETag");
+
+    // as done when parameters of a custom rule are updated: the profile is not touched
+    db.getDbClient().ruleDao().updateRuleParam(db.getSession(), customRule, ruleParam.setDefaultValue("b.*"));
+    db.getDbClient().activeRuleDao().updateParam(db.getSession(), activeRuleParam.setValue("b.*"));
+    db.commit();
+    TestResponse response = ws.newRequest().setParam("qprofiles", profile.getKee()).setHeader("If-None-Match", etag).execute();
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeader("ETag")).isNotEqualTo(etag);
+    try (CloseableIterator<ServerActiveRule> result = readStream(response.getInputStream(), ServerActiveRule.parser())) {
+      assertThat(result.next().getParamsByKey()).containsOnly(entry("regex", "b.*"));
+    }
+  }
+
+  @Test
+  public void return_not_modified_if_etag_is_still_valid() {
+    OrganizationDto organization = db.organizations().insert();
+    RuleDefinitionDto rule = db.rules().insert();
+    QProfileDto profile = db.qualityProfiles().insert(organization, p -> p.setRulesUpdatedAt("2017-10-20T10:00:00+0000"));
+    db.qualityProfiles().activateRule(profile, rule);
+    String etag = ws.newRequest().setParam("qprofiles", profile.getKee()).execute().getHeader("ETag");
+
+    TestResponse response = ws.newRequest().setParam("qprofiles", profile.getKee()).setHeader("If-None-Match", etag).execute();
+
+    assertThat(response.getStatus()).isEqualTo(HTTP_NOT_MODIFIED);
+    assertThat(response.getHeader("ETag")).isEqualTo(etag);
+    assertThat(response.getInput()).isEmpty();
+  }
+
+  @Test
+  public void return_active_rules_if_etag_is_outdated() {
+    OrganizationDto organization = db.organizations().insert();
+    RuleDefinitionDto rule = db.rules().insert();
+    QProfileDto profile = db.qualityProfiles().insert(organization, p -> p.setRulesUpdatedAt("2017-10-20T10:00:00+0000"));
+    db.qualityProfiles().activateRule(profile, rule);
+    String outdatedEtag = ActiveRulesETag.of(new byte[0]);
+
+    TestResponse response = ws.newRequest().setParam("qprofiles", profile.getKee()).setHeader("If-None-Match", outdatedEtag).execute();
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    try (CloseableIterator<ServerActiveRule> result = readStream(response.getInputStream(), ServerActiveRule.parser())) {
+      assertThat(result).extracting(ServerActiveRule::getRuleKey).containsExactly(rule.getRuleKey());
+    }
+  }
+
+  @Test
+  public void fail_if_profile_does_not_exist() {
+    OrganizationDto organization = db.organizations().insert();
+    QProfileDto profile = db.qualityProfiles().insert(organization);
+
+    expectedException.expect(NotFoundException.class);
+    expectedException.expectMessage("Quality profile not found: unknown");
+
+    call(profile.getKee() + ",unknown");
+  }
+
+  private List<ServerActiveRule> call(String profileKeys) {
+    try (CloseableIterator<ServerActiveRule> result = readStream(ws.newRequest().setParam("qprofiles", profileKeys).execute().getInputStream(),
+      ServerActiveRule.parser())) {
+      return newArrayList(result);
+    }
+  }
+}
@@ -44,6 +44,7 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class ProjectCleanerTest {
 
@@ -63,7 +64,7 @@ public class ProjectCleanerTest {
   public void no_profiling_when_property_is_false() {
     settings.setProperty(CoreProperties.PROFILING_LOG_PROPERTY, false);
 
-    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+    underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig());
 
     verify(profiler, never()).dump(anyLong(), any(Logger.class));
   }
@@ -72,18 +73,30 @@ public class ProjectCleanerTest {
   public void profiling_when_property_is_true() {
     settings.setProperty(CoreProperties.PROFILING_LOG_PROPERTY, true);
 
-    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+    underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig());
 
     verify(profiler).dump(anyLong(), any(Logger.class));
   }
 
   @Test
-  public void call_period_cleaner_index_client_and_purge_dao() {
+  public void purgeHistory_calls_period_cleaner_and_purge_dao() {
     settings.setProperty(PurgeConstants.DAYS_BEFORE_DELETING_CLOSED_ISSUES, 5);
 
-    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+    underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig());
 
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Configuration.class));
-    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(dao).purgeHistory(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(dao, never()).purgeAfterAnalysis(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+  }
+
+  @Test
+  public void purgeAfterAnalysis_only_calls_purge_dao() {
+    settings.setProperty(CoreProperties.PROFILING_LOG_PROPERTY, true);
+
+    underTest.purgeAfterAnalysis(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+
+    verify(dao).purgeAfterAnalysis(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(dao, never()).purgeHistory(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verifyZeroInteractions(periodCleaner, profiler);
   }
 }
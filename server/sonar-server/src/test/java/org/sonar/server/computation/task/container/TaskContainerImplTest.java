@@ -21,6 +21,8 @@ package org.sonar.server.computation.task.container;
 
 import org.junit.Test;
 import org.picocontainer.Startable;
+import org.sonar.api.Property;
+import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.core.platform.ComponentContainer;
 import org.sonar.core.platform.ContainerPopulator;
 
@@ -91,6 +93,29 @@ public class TaskContainerImplTest {
     assertThat(eagerStartable.stopCalls).isEqualTo(1);
   }
 
+  @Test
+  public void properties_of_components_are_declared_in_PropertyDefinitions_of_parent() {
+    new TaskContainerImpl(parent, container -> container.add(ComponentWithProperty.class));
+    new TaskContainerImpl(parent, container -> container.add(ComponentWithProperty.class));
+
+    assertThat(parent.getComponentByType(PropertyDefinitions.class).get("sonar.taskContainerImplTest.property")).isNotNull();
+  }
+
+  @Test
+  public void properties_of_components_are_declared_in_PropertyDefinitions_of_each_parent() {
+    ComponentContainer otherParent = new ComponentContainer();
+
+    new TaskContainerImpl(parent, container -> container.add(ComponentWithProperty.class));
+    new TaskContainerImpl(otherParent, container -> container.add(ComponentWithProperty.class));
+
+    assertThat(parent.getComponentByType(PropertyDefinitions.class).get("sonar.taskContainerImplTest.property")).isNotNull();
+    assertThat(otherParent.getComponentByType(PropertyDefinitions.class).get("sonar.taskContainerImplTest.property")).isNotNull();
+  }
+
+  @Property(key = "sonar.taskContainerImplTest.property", name = "Property")
+  public static class ComponentWithProperty {
+  }
+
   public static class DefaultStartable implements Startable {
     protected int startCalls = 0;
     protected int stopCalls = 0;
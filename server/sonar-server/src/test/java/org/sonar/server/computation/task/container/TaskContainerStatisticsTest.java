@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.container;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskContainerStatisticsTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TaskContainerStatistics underTest = new TaskContainerStatistics();
+
+  @Test
+  public void times_are_zero_by_default() {
+    assertThat(underTest.getSetupCount()).isEqualTo(0);
+    assertThat(underTest.getSetupTime()).isEqualTo(0);
+    assertThat(underTest.getTeardownTime()).isEqualTo(0);
+  }
+
+  @Test
+  public void times_are_summed() {
+    underTest.addSetup(10);
+    underTest.addSetup(25);
+    underTest.addTeardown(3);
+    underTest.addTeardown(4);
+
+    assertThat(underTest.getSetupCount()).isEqualTo(2);
+    assertThat(underTest.getSetupTime()).isEqualTo(35);
+    assertThat(underTest.getTeardownTime()).isEqualTo(7);
+  }
+
+  @Test
+  public void addSetup_fails_if_time_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Setup time can not be < 0");
+
+    underTest.addSetup(-1);
+  }
+
+  @Test
+  public void addTeardown_fails_if_time_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Teardown time can not be < 0");
+
+    underTest.addTeardown(-1);
+  }
+}
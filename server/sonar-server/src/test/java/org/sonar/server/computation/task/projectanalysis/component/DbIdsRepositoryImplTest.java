@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 
 public class DbIdsRepositoryImplTest {
@@ -61,6 +62,29 @@ public class DbIdsRepositoryImplTest {
     cache.setComponentId(SOME_COMPONENT, 11L);
   }
 
+  @Test
+  public void add_and_get_component_ids_of_many_components() {
+    DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
+    for (int ref = 1; ref <= 10_000; ref++) {
+      cache.setComponentId(ReportComponent.builder(FILE, ref).build(), ref * 10L);
+    }
+
+    assertThat(cache.getComponentId(ReportComponent.builder(FILE, 1).build())).isEqualTo(10L);
+    assertThat(cache.getComponentId(ReportComponent.builder(FILE, 5_000).build())).isEqualTo(50_000L);
+    assertThat(cache.getComponentId(ReportComponent.builder(FILE, 10_000).build())).isEqualTo(100_000L);
+  }
+
+  @Test
+  public void fail_to_get_component_id_on_ref_greater_than_any_registered_ref() {
+    DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
+    cache.setComponentId(SOME_COMPONENT, 10L);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("No component id registered in repository for Component 'OTHER_KEY'");
+
+    cache.getComponentId(ReportComponent.builder(FILE, 1_000).setKey("OTHER_KEY").build());
+  }
+
   @Test
   public void add_and_get_developer_id() {
     DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TrackingResultPrefetcherTest {
+
+  private static final Component FILE_1 = ReportComponent.builder(Component.Type.FILE, 3).build();
+  private static final Component FILE_2 = ReportComponent.builder(Component.Type.FILE, 4).build();
+  private static final Component FILE_3 = ReportComponent.builder(Component.Type.FILE, 5).build();
+  private static final Component DIRECTORY = ReportComponent.builder(Component.Type.DIRECTORY, 2).addChildren(FILE_1, FILE_2, FILE_3).build();
+  private static final Component PROJECT = ReportComponent.builder(Component.Type.PROJECT, 1).addChildren(DIRECTORY).build();
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(PROJECT);
+
+  private IssueTrackingDelegator issueTracking = mock(IssueTrackingDelegator.class);
+  private Map<Component, TrackingResult> resultsByComponent = new HashMap<>();
+  private TrackingResultPrefetcher underTest = new TrackingResultPrefetcher(issueTracking, treeRootHolder, 2);
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void return_results_of_delegate_for_every_component() {
+    mockTrackingOf(PROJECT, DIRECTORY, FILE_1, FILE_2, FILE_3);
+    underTest.start();
+
+    for (Component component : new Component[] {FILE_1, FILE_2, FILE_3, DIRECTORY, PROJECT}) {
+      assertThat(underTest.track(component)).isSameAs(resultsByComponent.get(component));
+      verify(issueTracking, times(1)).track(component);
+    }
+  }
+
+  @Test
+  public void track_files_synchronously_if_not_started() {
+    mockTrackingOf(FILE_1, FILE_2, FILE_3);
+
+    assertThat(underTest.track(FILE_2)).isSameAs(resultsByComponent.get(FILE_2));
+
+    verify(issueTracking).track(FILE_2);
+    verify(issueTracking, times(0)).track(FILE_1);
+    verify(issueTracking, times(0)).track(FILE_3);
+  }
+
+  @Test
+  public void track_synchronously_file_which_is_not_in_tree() {
+    Component otherFile = ReportComponent.builder(Component.Type.FILE, 12).build();
+    mockTrackingOf(otherFile);
+    underTest.start();
+
+    assertThat(underTest.track(otherFile)).isSameAs(resultsByComponent.get(otherFile));
+  }
+
+  @Test
+  public void rethrow_failure_of_tracking() {
+    IllegalStateException failure = new IllegalStateException("failure");
+    when(issueTracking.track(FILE_1)).thenThrow(failure);
+    underTest.start();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("failure");
+
+    underTest.track(FILE_1);
+  }
+
+  @Test
+  public void fail_if_number_of_threads_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Number of threads must be greater than zero");
+
+    new TrackingResultPrefetcher(issueTracking, treeRootHolder, 0);
+  }
+
+  private void mockTrackingOf(Component... components) {
+    for (Component component : components) {
+      TrackingResult result = new TrackingResult(emptyMap(), emptyMap(), emptyList(), emptyList());
+      resultsByComponent.put(component, result);
+      when(issueTracking.track(component)).thenReturn(result);
+    }
+  }
+}
@@ -291,4 +291,17 @@ public class MapBasedRawMeasureRepositoryTest {
     assertThat(measures.iterator().next()).isSameAs(devMeasure);
   }
 
+  @Test
+  public void getRawMeasures_returns_measures_with_and_without_developer() {
+    Measure devMeasure = Measure.newMeasureBuilder().forDeveloper(SOME_DEVELOPER).createNoValue();
+    Measure measure = Measure.newMeasureBuilder().createNoValue();
+
+    underTest.add(FILE_COMPONENT, metric1, devMeasure);
+    underTest.add(FILE_COMPONENT, metric1, measure);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1).get()).isSameAs(measure);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, metric1)).containsOnly(devMeasure, measure);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT).get(METRIC_KEY_1)).containsOnly(devMeasure, measure);
+  }
+
 }
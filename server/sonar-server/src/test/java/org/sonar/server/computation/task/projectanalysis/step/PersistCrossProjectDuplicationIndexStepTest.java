@@ -31,6 +31,9 @@ import org.mockito.MockitoAnnotations;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
+import org.sonar.db.duplication.DuplicationUnitDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
@@ -44,6 +47,7 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.when;
 
 public class PersistCrossProjectDuplicationIndexStepTest {
@@ -154,4 +158,85 @@ public class PersistCrossProjectDuplicationIndexStepTest {
     assertThat(dbTester.countRowsOfTable("duplications_index")).isEqualTo(0);
   }
 
+  @Test
+  public void copy_blocks_of_unchanged_file_to_current_analysis() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    insertBaseBlock(FILE_2_UUID, CPD_TEXT_BLOCK, 0);
+    reportReader.putDuplicationBlocks(FILE_2_REF, singletonList(CPD_TEXT_BLOCK));
+
+    underTest.execute();
+
+    List<Map<String, Object>> dtos = dbTester.select("select HASH as \"hash\", COMPONENT_UUID as \"componentUuid\", ANALYSIS_UUID as \"analysisUuid\" from duplications_index");
+    assertThat(dtos).extracting(m -> m.get("hash"), m -> m.get("componentUuid"), m -> m.get("analysisUuid"))
+      .containsOnly(tuple(CPD_TEXT_BLOCK.getHash(), FILE_2_UUID, ANALYSIS_UUID), tuple(CPD_TEXT_BLOCK.getHash(), FILE_2_UUID, BASE_ANALYSIS_UUID));
+  }
+
+  @Test
+  public void base_analysis_keeps_blocks_of_unchanged_file_if_analysis_fails() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    insertBaseBlock(FILE_2_UUID, CPD_TEXT_BLOCK, 0);
+    reportReader.putDuplicationBlocks(FILE_2_REF, singletonList(CPD_TEXT_BLOCK));
+
+    underTest.execute();
+    // a later step fails: the current analysis is never enabled, then it is deleted as an aborted analysis
+    dbClient.purgeDao().deleteAnalyses(dbTester.getSession(), new PurgeProfiler(), singletonList(new IdUuidPair(1L, ANALYSIS_UUID)));
+    dbTester.commit();
+
+    assertThat(dbClient.duplicationDao().selectComponent(dbTester.getSession(), FILE_2_UUID, BASE_ANALYSIS_UUID))
+      .extracting(DuplicationUnitDto::getHash, DuplicationUnitDto::getStartLine, DuplicationUnitDto::getEndLine)
+      .containsExactly(tuple(CPD_TEXT_BLOCK.getHash(), 30, 45));
+    assertThat(dbClient.duplicationDao().selectComponent(dbTester.getSession(), FILE_2_UUID, ANALYSIS_UUID)).isEmpty();
+  }
+
+  @Test
+  public void insert_blocks_of_changed_file_and_keep_base_ones() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    insertBaseBlock(FILE_2_UUID, CPD_TEXT_BLOCK, 0);
+    ScannerReport.CpdTextBlock movedBlock = CPD_TEXT_BLOCK.toBuilder().setStartLine(31).setEndLine(46).build();
+    reportReader.putDuplicationBlocks(FILE_2_REF, singletonList(movedBlock));
+
+    underTest.execute();
+
+    List<Map<String, Object>> dtos = dbTester.select("select START_LINE as \"startLine\", ANALYSIS_UUID as \"analysisUuid\" from duplications_index");
+    assertThat(dtos).extracting(m -> m.get("startLine"), m -> m.get("analysisUuid"))
+      .containsOnly(tuple(30L, BASE_ANALYSIS_UUID), tuple(31L, ANALYSIS_UUID));
+  }
+
+  @Test
+  public void insert_blocks_of_unchanged_file_when_base_analysis_has_no_blocks() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    insertBaseBlock("other file", CPD_TEXT_BLOCK, 0);
+    reportReader.putDuplicationBlocks(FILE_2_REF, singletonList(CPD_TEXT_BLOCK));
+
+    underTest.execute();
+
+    List<Map<String, Object>> dtos = dbTester.select("select COMPONENT_UUID as \"componentUuid\", ANALYSIS_UUID as \"analysisUuid\" from duplications_index");
+    assertThat(dtos).extracting(m -> m.get("componentUuid"), m -> m.get("analysisUuid"))
+      .containsOnly(tuple("other file", BASE_ANALYSIS_UUID), tuple(FILE_2_UUID, ANALYSIS_UUID));
+  }
+
+  @Test
+  public void insert_blocks_when_first_analysis() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    analysisMetadataHolder.setBaseAnalysis(null);
+    reportReader.putDuplicationBlocks(FILE_2_REF, singletonList(CPD_TEXT_BLOCK));
+
+    underTest.execute();
+
+    Map<String, Object> dto = dbTester.selectFirst("select COMPONENT_UUID, ANALYSIS_UUID from duplications_index");
+    assertThat(dto.get("COMPONENT_UUID")).isEqualTo(FILE_2_UUID);
+    assertThat(dto.get("ANALYSIS_UUID")).isEqualTo(ANALYSIS_UUID);
+  }
+
+  private void insertBaseBlock(String fileUuid, ScannerReport.CpdTextBlock block, int indexInFile) {
+    dbClient.duplicationDao().insert(dbTester.getSession(), new DuplicationUnitDto()
+      .setHash(block.getHash())
+      .setStartLine(block.getStartLine())
+      .setEndLine(block.getEndLine())
+      .setIndexInFile(indexInFile)
+      .setAnalysisUuid(BASE_ANALYSIS_UUID)
+      .setComponentUuid(fileUuid));
+    dbTester.commit();
+  }
+
 }
@@ -39,6 +39,7 @@ import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.component.VisitException;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepositoryRule;
@@ -48,9 +49,11 @@ import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -83,6 +86,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   public DuplicationRepositoryRule duplicationRepository = DuplicationRepositoryRule.create(treeRootHolder);
 
   private DbClient dbClient = dbTester.getDbClient();
+  private ComputationStepStatistics statistics = new ComputationStepStatistics();
   private DbSession session = dbTester.getSession();
 
   private PersistFileSourcesStep underTest;
@@ -91,7 +95,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   public void setup() {
     when(system2.now()).thenReturn(NOW);
     underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
-      duplicationRepository);
+      duplicationRepository, statistics);
   }
 
   @Override
@@ -459,6 +463,116 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isNull();
   }
 
+  @Test
+  public void persist_sources_of_many_files_with_several_threads() {
+    initReportWithFiles(30);
+    addSourcesOfFiles(30);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
+      duplicationRepository, statistics, 3);
+
+    underTest.execute();
+
+    verifySourcesOfFiles(30);
+  }
+
+  @Test
+  public void persist_sources_of_many_files_with_a_single_thread() {
+    initReportWithFiles(30);
+    addSourcesOfFiles(30);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
+      duplicationRepository, statistics, 1);
+
+    underTest.execute();
+
+    verifySourcesOfFiles(30);
+  }
+
+  @Test
+  public void persist_sources_of_files_bigger_than_the_look_ahead_limit_with_several_threads() {
+    int big = PersistFileSourcesStep.MAX_LINES_AHEAD / 2 + 1;
+    int huge = PersistFileSourcesStep.MAX_LINES_AHEAD + 1;
+    int[] linesByFile = {2, huge, 2, big, big, 2, huge, huge, 2};
+    initReportWithFiles(linesByFile);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
+      duplicationRepository, statistics, 3);
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(linesByFile.length);
+    for (int i = 0; i < linesByFile.length; i++) {
+      DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE" + i).getSourceData();
+      assertThat(data.getLinesCount()).isEqualTo(linesByFile[i]);
+      assertThat(data.getLines(linesByFile[i] - 1).getSource()).isEqualTo("file" + i + "_line" + linesByFile[i]);
+    }
+  }
+
+  @Test
+  public void fail_with_key_of_file_when_its_sources_can_not_be_computed() {
+    initReportWithFiles(10);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
+      duplicationRepository, statistics, 2);
+
+    try {
+      underTest.execute();
+      fail("An exception should have been thrown");
+    } catch (VisitException e) {
+      assertThat(e.getCause())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Cannot persist sources of MODULE_KEY:src/Foo0.java");
+    }
+  }
+
+  @Test
+  public void fail_if_number_of_threads_is_not_positive() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Number of threads must be greater than zero");
+
+    new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
+      duplicationRepository, statistics, 0);
+  }
+
+  private void initReportWithFiles(int numberOfFiles) {
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int i = 0; i < numberOfFiles; i++) {
+      int ref = 10 + i;
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE" + i).setKey("MODULE_KEY:src/Foo" + i + ".java")
+        .setFileAttributes(new FileAttributes(false, null, 2)).build());
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+  }
+
+  private void initReportWithFiles(int... linesByFile) {
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int i = 0; i < linesByFile.length; i++) {
+      int ref = 10 + i;
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE" + i).setKey("MODULE_KEY:src/Foo" + i + ".java")
+        .setFileAttributes(new FileAttributes(false, null, linesByFile[i])).build());
+      String[] lines = new String[linesByFile[i]];
+      for (int line = 0; line < lines.length; line++) {
+        lines[line] = "file" + i + "_line" + (line + 1);
+      }
+      fileSourceRepository.addLines(ref, lines);
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+  }
+
+  private void addSourcesOfFiles(int numberOfFiles) {
+    for (int i = 0; i < numberOfFiles; i++) {
+      fileSourceRepository.addLines(10 + i, "file" + i + "_line1", "file" + i + "_line2");
+    }
+  }
+
+  private void verifySourcesOfFiles(int numberOfFiles) {
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(numberOfFiles);
+    for (int i = 0; i < numberOfFiles; i++) {
+      DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE" + i).getSourceData();
+      assertThat(data.getLinesCount()).isEqualTo(2);
+      assertThat(data.getLines(0).getSource()).isEqualTo("file" + i + "_line1");
+      assertThat(data.getLines(1).getSource()).isEqualTo("file" + i + "_line2");
+    }
+    assertThat(statistics.getRowsWritten()).containsEntry("Persist sources", (long) numberOfFiles);
+  }
+
   private void initBasicReport(int numberOfLines) {
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
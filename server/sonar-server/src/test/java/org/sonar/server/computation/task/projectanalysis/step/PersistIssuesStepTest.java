@@ -50,6 +50,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 import org.sonar.server.util.cache.DiskCache;
 
 import static java.util.Collections.singletonList;
@@ -78,6 +79,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
 
   private DbSession session = db.getSession();
   private DbClient dbClient = db.getDbClient();
+  private ComputationStepStatistics statistics = new ComputationStepStatistics();
   private System2 system2;
   private IssueCache issueCache;
   private ComputationStep step;
@@ -94,7 +96,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(NOW);
     reportReader.setMetadata(ScannerReport.Metadata.getDefaultInstance());
 
-    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient, analysisMetadataHolder), issueCache);
+    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient, analysisMetadataHolder), issueCache, statistics);
   }
 
   @After
@@ -236,6 +238,8 @@ public class PersistIssuesStepTest extends BaseStepTest {
     assertThat(result.getSeverity()).isEqualTo(BLOCKER);
     assertThat(result.getStatus()).isEqualTo(STATUS_OPEN);
     assertThat(result.getType()).isEqualTo(RuleType.BUG.getDbConstant());
+    assertThat(statistics.getRowsWritten()).containsEntry("Persist issues", 1L);
+    assertThat(statistics.getIssuesPerTask().getCount()).isEqualTo(1);
   }
 
   @Test
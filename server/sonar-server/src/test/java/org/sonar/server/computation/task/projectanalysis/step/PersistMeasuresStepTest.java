@@ -19,16 +19,19 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.List;
 import java.util.Optional;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.utils.System2;
+import org.sonar.core.timemachine.MeasureSeries;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureSeriesDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.computation.task.projectanalysis.analysis.MutableAnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -39,8 +42,10 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureReposito
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureToMeasureDto;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationStepStatistics;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
@@ -57,6 +62,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
 
   private static final String ANALYSIS_UUID = "a1";
 
+  private static final long ANALYSIS_DATE = 1_500_000_000_000L;
   private static final int REF_1 = 1;
   private static final int REF_2 = 2;
   private static final int REF_3 = 3;
@@ -74,10 +80,12 @@ public class PersistMeasuresStepTest extends BaseStepTest {
   public MutableAnalysisMetadataHolderRule analysisMetadataHolder = new MutableAnalysisMetadataHolderRule();
 
   private DbClient dbClient = db.getDbClient();
+  private ComputationStepStatistics statistics = new ComputationStepStatistics();
 
   @Before
   public void setUp() {
     analysisMetadataHolder.setUuid(ANALYSIS_UUID);
+    analysisMetadataHolder.setAnalysisDate(ANALYSIS_DATE);
     MetricDto stringMetricDto = db.measures().insertMetric(m -> m.setKey(STRING_METRIC.getKey()).setValueType(Metric.ValueType.STRING.name()));
     MetricDto intMetricDto = db.measures().insertMetric(m -> m.setKey(INT_METRIC.getKey()).setValueType(Metric.ValueType.INT.name()));
     metricRepository.add(stringMetricDto.getId(), STRING_METRIC);
@@ -165,6 +173,45 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     assertThat(selectMeasure("project-uuid", STRING_METRIC).get().getData()).isEqualTo("project-value");
   }
 
+  @Test
+  public void numerical_measures_of_root_component_are_appended_to_series() {
+    prepareProject();
+    MeasureSeries existing = new MeasureSeries().add(new MeasureSeries.Point("previous-analysis", ANALYSIS_DATE - 1_000L, 10d, null));
+    dbClient.measureSeriesDao().insert(db.getSession(), new MeasureSeriesDto()
+      .setComponentUuid("project-uuid")
+      .setMetricId(metricRepository.getByKey(INT_METRIC.getKey()).getId())
+      .setSeries(existing));
+    db.commit();
+    measureRepository.addRawMeasure(REF_1, INT_METRIC.getKey(), newMeasureBuilder().setVariation(2.0).create(12));
+    measureRepository.addRawMeasure(REF_1, STRING_METRIC.getKey(), newMeasureBuilder().create("project-value"));
+    measureRepository.addRawMeasure(REF_2, INT_METRIC.getKey(), newMeasureBuilder().create(5));
+
+    execute(true);
+
+    List<MeasureSeriesDto> series = dbClient.measureSeriesDao().selectByComponentUuid(db.getSession(), "project-uuid");
+    assertThat(series).hasSize(1);
+    assertThat(series.get(0).getSeries().getPoints())
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getDate, MeasureSeries.Point::getValue, MeasureSeries.Point::getVariation)
+      .containsExactly(
+        tuple("previous-analysis", ANALYSIS_DATE - 1_000L, 10d, null),
+        tuple(ANALYSIS_UUID, ANALYSIS_DATE, 12d, 2d));
+    assertThat(dbClient.measureSeriesDao().selectByComponentUuid(db.getSession(), "module-uuid")).isEmpty();
+  }
+
+  @Test
+  public void series_is_created_for_first_numerical_measure_of_root_component() {
+    prepareProject();
+    measureRepository.addRawMeasure(REF_1, INT_METRIC.getKey(), newMeasureBuilder().create(12));
+
+    execute(true);
+
+    List<MeasureSeriesDto> series = dbClient.measureSeriesDao().selectByComponentUuid(db.getSession(), "project-uuid");
+    assertThat(series).extracting(MeasureSeriesDto::getMetricId).containsExactly(metricRepository.getByKey(INT_METRIC.getKey()).getId());
+    assertThat(series.get(0).getSeries().getPoints())
+      .extracting(MeasureSeries.Point::getAnalysisUuid, MeasureSeries.Point::getValue)
+      .containsExactly(tuple(ANALYSIS_UUID, 12d));
+  }
+
   private void prepareProject() {
     // tree of components as defined by scanner report
     Component project = ReportComponent.builder(PROJECT, REF_1).setUuid("project-uuid")
@@ -217,7 +264,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
   }
 
   private void execute(boolean persistDirectories) {
-    new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository, persistDirectories)
+    new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository, analysisMetadataHolder, statistics, persistDirectories)
       .execute();
   }
 
@@ -239,6 +286,6 @@ public class PersistMeasuresStepTest extends BaseStepTest {
 
   @Override
   protected ComputationStep step() {
-    return new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository, true);
+    return new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository, analysisMetadataHolder, statistics, true);
   }
 }
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -59,13 +60,16 @@ import org.sonar.server.issue.notification.NewIssuesStatistics;
 import org.sonar.server.notification.NotificationService;
 import org.sonar.server.util.cache.DiskCache;
 
+import static java.util.Collections.singletonList;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphanumeric;
 import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.db.component.ComponentTesting.newBranchDto;
@@ -111,6 +115,8 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
   private NewIssuesNotification newIssuesNotificationMock = createNewIssuesNotificationMock();
   private MyNewIssuesNotification myNewIssuesNotificationMock = createMyNewIssuesNotificationMock();
 
+  private ArgumentCaptor<Collection> collectionCaptor = ArgumentCaptor.forClass(Collection.class);
+
   private IssueCache issueCache;
   private SendIssueNotificationsStep underTest;
 
@@ -131,6 +137,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService, never()).deliver(any(Notification.class));
+    verify(notificationService, never()).deliver(anyCollection());
   }
 
   @Test
@@ -194,6 +201,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService, never()).deliver(any(Notification.class));
+    verify(notificationService, never()).deliver(anyCollection());
   }
 
   @Test
@@ -224,6 +232,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService, never()).deliver(any(Notification.class));
+    verify(notificationService, never()).deliver(anyCollection());
   }
 
   @Test
@@ -237,7 +246,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService).deliver(newIssuesNotificationMock);
-    verify(notificationService).deliver(myNewIssuesNotificationMock);
+    verify(notificationService).deliver(singletonList(myNewIssuesNotificationMock));
     verify(myNewIssuesNotificationMock).setAssignee(ISSUE_ASSIGNEE);
     verify(myNewIssuesNotificationMock).setProject(PROJECT.getPublicKey(), PROJECT.getName(), null);
     verify(myNewIssuesNotificationMock).setAnalysisDate(new Date(ANALYSE_DATE));
@@ -274,8 +283,8 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService).deliver(newIssuesNotificationMock);
-    verify(notificationService).deliver(myNewIssuesNotificationMock);
-    verify(notificationService).deliver(myNewIssuesNotificationMock2);
+    verify(notificationService).deliver((Collection<Notification>) collectionCaptor.capture());
+    assertThat(collectionCaptor.getValue()).containsOnly(myNewIssuesNotificationMock, myNewIssuesNotificationMock2);
 
     MyNewIssuesNotification effectiveMyNewIssuesNotificationMock = this.myNewIssuesNotificationMock;
     try {
@@ -322,7 +331,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService).deliver(newIssuesNotificationMock);
-    verify(notificationService).deliver(myNewIssuesNotificationMock);
+    verify(notificationService).deliver(singletonList(myNewIssuesNotificationMock));
     verify(myNewIssuesNotificationMock).setAssignee(ISSUE_ASSIGNEE);
     ArgumentCaptor<NewIssuesStatistics.Stats> statsCaptor = ArgumentCaptor.forClass(NewIssuesStatistics.Stats.class);
     verify(myNewIssuesNotificationMock).setStatistics(eq(PROJECT.getName()), statsCaptor.capture());
@@ -347,6 +356,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService, never()).deliver(any(Notification.class));
+    verify(notificationService, never()).deliver(anyCollection());
   }
 
   @Test
@@ -371,9 +381,9 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    ArgumentCaptor<IssueChangeNotification> issueChangeNotificationCaptor = ArgumentCaptor.forClass(IssueChangeNotification.class);
-    verify(notificationService).deliver(issueChangeNotificationCaptor.capture());
-    IssueChangeNotification issueChangeNotification = issueChangeNotificationCaptor.getValue();
+    verify(notificationService).deliver((Collection<Notification>) collectionCaptor.capture());
+    assertThat(collectionCaptor.getValue()).hasSize(1);
+    IssueChangeNotification issueChangeNotification = (IssueChangeNotification) collectionCaptor.getValue().iterator().next();
     assertThat(issueChangeNotification.getFieldValue("key")).isEqualTo(issue.key());
     assertThat(issueChangeNotification.getFieldValue("assignee")).isEqualTo(issue.assignee());
     assertThat(issueChangeNotification.getFieldValue("message")).isEqualTo(issue.message());
@@ -413,9 +423,9 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    ArgumentCaptor<IssueChangeNotification> issueChangeNotificationCaptor = ArgumentCaptor.forClass(IssueChangeNotification.class);
-    verify(notificationService).deliver(issueChangeNotificationCaptor.capture());
-    IssueChangeNotification issueChangeNotification = issueChangeNotificationCaptor.getValue();
+    verify(notificationService).deliver((Collection<Notification>) collectionCaptor.capture());
+    assertThat(collectionCaptor.getValue()).hasSize(1);
+    IssueChangeNotification issueChangeNotification = (IssueChangeNotification) collectionCaptor.getValue().iterator().next();
     assertThat(issueChangeNotification.getFieldValue("projectName")).isEqualTo(branch.longName());
     assertThat(issueChangeNotification.getFieldValue("projectKey")).isEqualTo(branch.getKey());
     assertThat(issueChangeNotification.getFieldValue("branch")).isEqualTo(BRANCH_NAME);
@@ -423,6 +433,29 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     assertThat(issueChangeNotification.getFieldValue("componentName")).isEqualTo(file.longName());
   }
 
+  @Test
+  public void send_issues_change_notifications_by_batches() {
+    ComponentDto project = newPrivateProjectDto(newOrganizationDto()).setDbKey(PROJECT.getKey()).setLongName(PROJECT.getName());
+    ComponentDto file = newFileDto(project).setDbKey(FILE.getKey()).setLongName(FILE.getName());
+    RuleDefinitionDto ruleDefinitionDto = newRule();
+    ruleRepository.add(ruleDefinitionDto.getKey()).setName(ruleDefinitionDto.getName());
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    int nbIssues = SendIssueNotificationsStep.CHANGE_NOTIFICATIONS_BATCH_SIZE + 10;
+    for (int i = 0; i < nbIssues; i++) {
+      appender.append(newIssue(ruleDefinitionDto, project, file).toDefaultIssue()
+        .setNew(false).setChanged(true).setSendNotifications(true).setCreationDate(new Date(ANALYSE_DATE)));
+    }
+    appender.close();
+    when(notificationService.hasProjectSubscribersForTypes(PROJECT.getUuid(), SendIssueNotificationsStep.NOTIF_TYPES)).thenReturn(true);
+
+    underTest.execute();
+
+    verify(notificationService, times(2)).deliver((Collection<Notification>) collectionCaptor.capture());
+    assertThat(collectionCaptor.getAllValues()).extracting(Collection::size)
+      .containsExactly(SendIssueNotificationsStep.CHANGE_NOTIFICATIONS_BATCH_SIZE, 10);
+    verify(notificationService, never()).deliver(any(Notification.class));
+  }
+
   private NewIssuesNotification createNewIssuesNotificationMock() {
     NewIssuesNotification notification = mock(NewIssuesNotification.class);
     when(notification.setProject(anyString(), anyString(), anyString())).thenReturn(notification);
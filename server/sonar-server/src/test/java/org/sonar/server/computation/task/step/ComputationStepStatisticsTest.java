@@ -0,0 +1,83 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ComputationStepStatisticsTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ComputationStepStatistics underTest = new ComputationStepStatistics();
+
+  @Test
+  public void durations_are_recorded_by_step() {
+    underTest.addDuration("step1", 10);
+    underTest.addDuration("step1", 20);
+    underTest.addDuration("step2", 5);
+
+    assertThat(underTest.getDurations()).containsOnlyKeys("step1", "step2");
+    assertThat(underTest.getDurations().get("step1").getCount()).isEqualTo(2);
+    assertThat(underTest.getDurations().get("step1").getMax()).isEqualTo(20);
+    assertThat(underTest.getDurations().get("step2").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void rows_written_are_summed_by_step() {
+    underTest.addRowsWritten("step1", 10);
+    underTest.addRowsWritten("step1", 20);
+    underTest.addRowsWritten("step2", 0);
+
+    assertThat(underTest.getRowsWritten()).containsOnly(entry("step1", 30L), entry("step2", 0L));
+  }
+
+  @Test
+  public void components_and_issues_are_recorded_by_task() {
+    underTest.addComponentsOfTask(100);
+    underTest.addComponentsOfTask(200);
+    underTest.addIssuesOfTask(3);
+
+    assertThat(underTest.getComponentsPerTask().getCount()).isEqualTo(2);
+    assertThat(underTest.getComponentsPerTask().getMax()).isEqualTo(200);
+    assertThat(underTest.getIssuesPerTask().getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void fail_if_duration_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Duration can not be < 0");
+
+    underTest.addDuration("step1", -1);
+  }
+
+  @Test
+  public void fail_if_rows_written_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Number of rows can not be < 0");
+
+    underTest.addRowsWritten("step1", -1);
+  }
+}
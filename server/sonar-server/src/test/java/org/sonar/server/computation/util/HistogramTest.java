@@ -0,0 +1,107 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.util;
+
+import java.util.stream.IntStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HistogramTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private Histogram underTest = new Histogram();
+
+  @Test
+  public void empty_histogram() {
+    assertThat(underTest.getCount()).isEqualTo(0);
+    assertThat(underTest.getMax()).isEqualTo(0);
+    assertThat(underTest.getPercentile(50)).isEqualTo(0);
+    assertThat(underTest.getPercentile(99)).isEqualTo(0);
+  }
+
+  @Test
+  public void single_value() {
+    underTest.record(42);
+
+    assertThat(underTest.getCount()).isEqualTo(1);
+    assertThat(underTest.getMax()).isEqualTo(42);
+    assertThat(underTest.getPercentile(50)).isEqualTo(42);
+    assertThat(underTest.getPercentile(100)).isEqualTo(42);
+  }
+
+  @Test
+  public void zero_values() {
+    underTest.record(0);
+    underTest.record(0);
+
+    assertThat(underTest.getCount()).isEqualTo(2);
+    assertThat(underTest.getPercentile(99)).isEqualTo(0);
+  }
+
+  @Test
+  public void percentiles_are_at_most_twice_the_exact_value() {
+    IntStream.rangeClosed(1, 1_000).forEach(underTest::record);
+
+    assertThat(underTest.getCount()).isEqualTo(1_000);
+    assertThat(underTest.getMax()).isEqualTo(1_000);
+    assertThat(underTest.getPercentile(50)).isBetween(500L, 1_000L);
+    assertThat(underTest.getPercentile(95)).isBetween(950L, 1_000L);
+    assertThat(underTest.getPercentile(99)).isBetween(990L, 1_000L);
+  }
+
+  @Test
+  public void percentiles_distinguish_slow_outliers() {
+    IntStream.range(0, 98).forEach(i -> underTest.record(10));
+    underTest.record(5_000);
+    underTest.record(5_000);
+
+    assertThat(underTest.getPercentile(50)).isEqualTo(15);
+    assertThat(underTest.getPercentile(95)).isEqualTo(15);
+    assertThat(underTest.getPercentile(99)).isEqualTo(5_000);
+  }
+
+  @Test
+  public void record_supports_greatest_long() {
+    underTest.record(Long.MAX_VALUE);
+
+    assertThat(underTest.getPercentile(50)).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void fail_to_record_negative_value() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Value can not be < 0");
+
+    underTest.record(-1);
+  }
+
+  @Test
+  public void fail_if_percentile_is_out_of_range() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Percentile must be in ]0, 100]");
+
+    underTest.getPercentile(0);
+  }
+}
@@ -20,24 +20,36 @@
 package org.sonar.server.es;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.server.es.metadata.MetadataIndex;
+import org.sonar.server.user.index.UserIndexDefinition;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.sonar.server.es.FakeIndexDefinition.INDEX_TYPE_FAKE;
+import static org.sonar.server.user.index.UserIndexDefinition.INDEX_TYPE_USER;
 
 public class IndexerStartupTaskTest {
 
   @Rule
-  public EsTester es = new EsTester(new FakeIndexDefinition());
+  public EsTester es = new EsTester(new FakeIndexDefinition(), new UserIndexDefinition(new MapSettings().asConfig()));
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
 
   private final MapSettings settings = new MapSettings();
   private final MetadataIndex metadataIndex = mock(MetadataIndex.class);
@@ -88,4 +100,130 @@ public class IndexerStartupTaskTest {
     // do not index
     verifyNoMoreInteractions(indexer);
   }
+
+  @Test
+  public void indexers_of_different_indexes_are_executed_concurrently() {
+    // each indexer waits for the other one to start
+    CountDownLatch started = new CountDownLatch(2);
+    RecordingIndexer fakeIndexer = new RecordingIndexer(INDEX_TYPE_FAKE, () -> awaitOthers(started));
+    RecordingIndexer userIndexer = new RecordingIndexer(INDEX_TYPE_USER, () -> awaitOthers(started));
+
+    new IndexerStartupTask(es.client(), settings.asConfig(), metadataIndex, fakeIndexer, userIndexer).execute();
+
+    assertThat(fakeIndexer.calls).hasSize(1);
+    assertThat(userIndexer.calls).hasSize(1);
+    assertThat(fakeIndexer.threadName).isNotEqualTo(userIndexer.threadName);
+    verify(metadataIndex).setInitialized(INDEX_TYPE_FAKE, true);
+    verify(metadataIndex).setInitialized(INDEX_TYPE_USER, true);
+  }
+
+  @Test
+  public void indexers_of_same_index_are_executed_sequentially_in_order_of_declaration() {
+    List<String> executions = Collections.synchronizedList(new ArrayList<>());
+    RecordingIndexer first = new RecordingIndexer(INDEX_TYPE_FAKE, () -> executions.add("first"));
+    RecordingIndexer other = new RecordingIndexer(INDEX_TYPE_USER, () -> executions.add("other"));
+    RecordingIndexer second = new RecordingIndexer(INDEX_TYPE_FAKE, () -> executions.add("second"));
+
+    new IndexerStartupTask(es.client(), settings.asConfig(), metadataIndex, first, other, second).execute();
+
+    assertThat(executions).containsOnly("first", "other", "second");
+    assertThat(executions.indexOf("first")).isLessThan(executions.indexOf("second"));
+    assertThat(first.threadName).isEqualTo(second.threadName);
+  }
+
+  @Test
+  public void indexer_supporting_indexing_by_index_is_called_once_per_index() {
+    // each call waits for the other one to start
+    CountDownLatch started = new CountDownLatch(2);
+    RecordingIndexer multiIndexer = new RecordingIndexer(ImmutableSet.of(INDEX_TYPE_FAKE, INDEX_TYPE_USER), true, () -> awaitOthers(started));
+
+    new IndexerStartupTask(es.client(), settings.asConfig(), metadataIndex, multiIndexer).execute();
+
+    assertThat(multiIndexer.calls).containsOnly(ImmutableSet.of(INDEX_TYPE_FAKE), ImmutableSet.of(INDEX_TYPE_USER));
+    verify(metadataIndex).setInitialized(INDEX_TYPE_FAKE, true);
+    verify(metadataIndex).setInitialized(INDEX_TYPE_USER, true);
+  }
+
+  @Test
+  public void indexer_of_several_indexes_is_called_once_if_it_does_not_support_indexing_by_index() {
+    RecordingIndexer multiIndexer = new RecordingIndexer(ImmutableSet.of(INDEX_TYPE_FAKE, INDEX_TYPE_USER), false, () -> {
+    });
+
+    new IndexerStartupTask(es.client(), settings.asConfig(), metadataIndex, multiIndexer).execute();
+
+    assertThat(multiIndexer.calls).containsExactly(ImmutableSet.of(INDEX_TYPE_FAKE, INDEX_TYPE_USER));
+  }
+
+  @Test
+  public void indexers_are_executed_in_current_thread_if_single_thread_is_configured() {
+    settings.setProperty(IndexerStartupTask.PROPERTY_THREADS, "1");
+    RecordingIndexer fakeIndexer = new RecordingIndexer(INDEX_TYPE_FAKE, () -> {
+    });
+    RecordingIndexer userIndexer = new RecordingIndexer(INDEX_TYPE_USER, () -> {
+    });
+
+    new IndexerStartupTask(es.client(), settings.asConfig(), metadataIndex, fakeIndexer, userIndexer).execute();
+
+    assertThat(fakeIndexer.threadName).isEqualTo(Thread.currentThread().getName());
+    assertThat(userIndexer.threadName).isEqualTo(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void fail_if_a_concurrent_indexer_fails() {
+    RecordingIndexer fakeIndexer = new RecordingIndexer(INDEX_TYPE_FAKE, () -> {
+      throw new IllegalStateException("Boom");
+    });
+    RecordingIndexer userIndexer = new RecordingIndexer(INDEX_TYPE_USER, () -> {
+    });
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Boom");
+
+    new IndexerStartupTask(es.client(), settings.asConfig(), metadataIndex, fakeIndexer, userIndexer).execute();
+  }
+
+  private static void awaitOthers(CountDownLatch latch) {
+    latch.countDown();
+    try {
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class RecordingIndexer implements StartupIndexer {
+    private final Set<IndexType> indexTypes;
+    private final boolean byIndex;
+    private final Runnable action;
+    private final List<Set<IndexType>> calls = Collections.synchronizedList(new ArrayList<>());
+    private String threadName;
+
+    private RecordingIndexer(IndexType indexType, Runnable action) {
+      this(ImmutableSet.of(indexType), false, action);
+    }
+
+    private RecordingIndexer(Set<IndexType> indexTypes, boolean byIndex, Runnable action) {
+      this.indexTypes = indexTypes;
+      this.byIndex = byIndex;
+      this.action = action;
+    }
+
+    @Override
+    public void indexOnStartup(Set<IndexType> uninitializedIndexTypes) {
+      calls.add(uninitializedIndexTypes);
+      threadName = Thread.currentThread().getName();
+      action.run();
+    }
+
+    @Override
+    public Set<IndexType> getIndexTypes() {
+      return indexTypes;
+    }
+
+    @Override
+    public boolean supportsIndexingByIndexOnStartup() {
+      return byIndex;
+    }
+  }
 }
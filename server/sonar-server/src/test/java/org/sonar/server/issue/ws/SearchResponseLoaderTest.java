@@ -0,0 +1,129 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.issue.IssueChangeDto;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.user.UserDto;
+import org.sonar.server.issue.IssueFieldsSetter;
+import org.sonar.server.issue.TransitionService;
+import org.sonar.server.issue.workflow.FunctionExecutor;
+import org.sonar.server.issue.workflow.IssueWorkflow;
+import org.sonar.server.tester.UserSessionRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.server.issue.ws.SearchAdditionalField.ALL_ADDITIONAL_FIELDS;
+import static org.sonar.server.issue.ws.SearchAdditionalField.RULES;
+
+public class SearchResponseLoaderTest {
+
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+  @Rule
+  public DbTester db = DbTester.create();
+
+  private IssueFieldsSetter issueFieldsSetter = new IssueFieldsSetter();
+  private IssueWorkflow issueWorkflow = new IssueWorkflow(new FunctionExecutor(issueFieldsSetter), issueFieldsSetter);
+  private SearchResponseLoader underTest = new SearchResponseLoader(userSession, db.getDbClient(), new TransitionService(userSession, issueWorkflow));
+
+  @Before
+  public void setUp() {
+    issueWorkflow.start();
+  }
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void load_rules_comments_and_users_concurrently() {
+    underTest.start();
+    UserDto assignee = db.users().insertUser();
+    UserDto commenter = db.users().insertUser();
+    userSession.logIn(commenter);
+    RuleDefinitionDto rule = db.rules().insert();
+    OrganizationDto organization = db.organizations().insert();
+    ComponentDto project = db.components().insertPrivateProject(organization);
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    IssueDto issue1 = db.issues().insert(rule, project, file, i -> i.setAssignee(assignee.getLogin()));
+    IssueDto issue2 = db.issues().insert(rule, project, file);
+    db.issues().insertComment(issue2, commenter.getLogin(), "the comment");
+
+    SearchResponseLoader.Collector collector = new SearchResponseLoader.Collector(ALL_ADDITIONAL_FIELDS, Arrays.asList(issue1.getKey(), issue2.getKey()));
+    SearchResponseData result = underTest.load(collector, null);
+
+    assertThat(result.getIssues()).extracting(IssueDto::getKey).containsExactly(issue1.getKey(), issue2.getKey());
+    assertThat(result.getRules()).extracting(RuleDefinitionDto::getKey).containsExactly(rule.getKey());
+    assertThat(result.getUsers()).extracting(UserDto::getLogin).containsOnly(assignee.getLogin(), commenter.getLogin());
+    assertThat(result.getCommentsForIssueKey(issue1.getKey())).isNull();
+    assertThat(result.getCommentsForIssueKey(issue2.getKey())).extracting(IssueChangeDto::getChangeData).containsExactly("the comment");
+    assertThat(result.isUpdatableComment(result.getCommentsForIssueKey(issue2.getKey()).get(0).getKey())).isTrue();
+    assertThat(result.getComponents()).extracting(ComponentDto::uuid).contains(project.uuid(), file.uuid());
+    assertThat(result.getOrganizationKey(project.getOrganizationUuid())).isEqualTo(organization.getKey());
+    assertThat(result.getActionsForIssueKey(issue1.getKey())).isNotEmpty();
+  }
+
+  @Test
+  public void load_only_requested_data_when_not_started() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    IssueDto issue = db.issues().insert(rule, project, project, i -> i.setAssignee("the_assignee"));
+
+    SearchResponseLoader.Collector collector = new SearchResponseLoader.Collector(EnumSet.of(RULES), Collections.singletonList(issue.getKey()));
+    SearchResponseData result = underTest.load(collector, null);
+
+    assertThat(result.getRules()).extracting(RuleDefinitionDto::getKey).containsExactly(rule.getKey());
+    assertThat(result.getUsers()).isNull();
+    assertThat(result.getCommentsForIssueKey(issue.getKey())).isNull();
+  }
+
+  @Test
+  public void load_data_not_already_preloaded() {
+    underTest.start();
+    UserDto assignee = db.users().insertUser();
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    IssueDto issue = db.issues().insert(rule, project, project, i -> i.setAssignee(assignee.getLogin()));
+    SearchResponseData preloaded = new SearchResponseData(issue);
+    preloaded.setRules(Collections.singletonList(rule));
+
+    SearchResponseLoader.Collector collector = new SearchResponseLoader.Collector(ALL_ADDITIONAL_FIELDS, Collections.singletonList(issue.getKey()));
+    SearchResponseData result = underTest.load(preloaded, collector, null);
+
+    // preloaded rule is not loaded again
+    assertThat(result.getRules()).hasSize(1);
+    assertThat(result.getRules().get(0)).isSameAs(rule);
+    assertThat(result.getUsers()).extracting(UserDto::getLogin).containsExactly(assignee.getLogin());
+    assertThat(result.getComponents()).extracting(ComponentDto::uuid).containsExactly(project.uuid());
+  }
+}
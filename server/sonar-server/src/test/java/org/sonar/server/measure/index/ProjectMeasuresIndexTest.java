@@ -457,6 +457,35 @@ public class ProjectMeasuresIndexTest {
     assertResults(new ProjectMeasuresQuery(), PROJECT1);
   }
 
+  @Test
+  public void same_search_is_served_by_request_cache() {
+    index(newDoc(PROJECT1, NCLOC, 10d).setLanguages(asList("java", "js")), newDoc(PROJECT2, NCLOC, 20_000d).setLanguages(singletonList("xoo")));
+    userSession.logIn().setGroups(GROUP2, GROUP1);
+    ProjectMeasuresQuery query = new ProjectMeasuresQuery().setLanguages(newHashSet("java", "js", "xoo"));
+    SearchOptions options = new SearchOptions().addFacets(LANGUAGES, NCLOC);
+
+    SearchIdResult<String> first = underTest.search(query, options);
+    long hitsBefore = requestCacheHits();
+    userSession.logIn().setGroups(GROUP1, GROUP2);
+    SearchIdResult<String> second = underTest.search(new ProjectMeasuresQuery().setLanguages(newHashSet("xoo", "js", "java")),
+      new SearchOptions().addFacets(NCLOC, LANGUAGES));
+
+    assertThat(requestCacheHits()).isGreaterThan(hitsBefore);
+    assertThat(second.getIds()).containsExactlyElementsOf(first.getIds());
+    assertThat(second.getFacets().get(NCLOC)).isEqualTo(first.getFacets().get(NCLOC));
+    assertThat(second.getFacets().get(LANGUAGES)).isEqualTo(first.getFacets().get(LANGUAGES));
+  }
+
+  @Test
+  public void request_cache_is_invalidated_when_projects_are_indexed() {
+    index(newDoc(PROJECT1));
+    assertResults(new ProjectMeasuresQuery(), PROJECT1);
+
+    index(newDoc(PROJECT2));
+
+    assertResults(new ProjectMeasuresQuery(), PROJECT1, PROJECT2);
+  }
+
   @Test
   public void does_not_return_facet_when_no_facets_in_options() throws Exception {
     index(
@@ -1471,6 +1500,11 @@ public class ProjectMeasuresIndexTest {
     return newDoc(ComponentTesting.newPrivateProjectDto(ORG), metric1, value1, metric2, value2, metric3, value3);
   }
 
+  private long requestCacheHits() {
+    return es.client().prepareStats(INDEX_TYPE_PROJECT_MEASURES.getIndex()).setRequestCache(true).get()
+      .getTotal().getRequestCache().getHitCount();
+  }
+
   private void assertResults(ProjectMeasuresQuery query, ComponentDto... expectedProjects) {
     List<String> result = underTest.search(query, new SearchOptions()).getIds();
     assertThat(result).containsExactly(Arrays.stream(expectedProjects).map(ComponentDto::uuid).toArray(String[]::new));
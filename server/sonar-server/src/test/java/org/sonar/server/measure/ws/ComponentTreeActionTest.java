@@ -42,6 +42,8 @@ import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricTesting;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.component.ComponentService;
+import org.sonar.server.es.TestProjectIndexers;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
@@ -109,10 +111,11 @@ public class ComponentTreeActionTest {
   private DbClient dbClient = db.getDbClient();
   private DbSession dbSession = db.getSession();
 
+  private ComponentTreeCache componentTreeCache = new ComponentTreeCache();
   private WsActionTester ws = new WsActionTester(
     new ComponentTreeAction(
       dbClient, new ComponentFinder(dbClient, resourceTypes), userSession,
-      i18n, resourceTypes));
+      i18n, resourceTypes, componentTreeCache));
 
   @Test
   public void json_example() {
@@ -359,6 +362,58 @@ public class ComponentTreeActionTest {
     assertThat(response.getPaging().getTotal()).isEqualTo(4);
   }
 
+  @Test
+  public void measures_are_loaded_again_when_project_is_analyzed_again() {
+    ComponentDto project = db.components().insertPrivateProject();
+    db.components().insertSnapshot(project);
+    ComponentDto file = componentDb.insertComponent(newFileDto(project, null, "file-uuid"));
+    MetricDto ncloc = insertNclocMetric();
+    db.commit();
+    LiveMeasureDto measure = db.measures().insertLiveMeasure(file, ncloc, m -> m.setValue(1.0d));
+    assertThat(requestNclocOfFirstComponent(project)).isEqualTo("1");
+
+    // same analysis, measures are read from cache
+    dbClient.liveMeasureDao().insertOrUpdate(dbSession, measure.setValue(2.0d), null);
+    db.commit();
+    assertThat(requestNclocOfFirstComponent(project)).isEqualTo("1");
+
+    SnapshotDto newAnalysis = db.components().insertSnapshot(project, s -> s.setLast(false));
+    dbClient.snapshotDao().switchIsLastFlagAndSetProcessedStatus(dbSession, project.uuid(), newAnalysis.getUuid());
+    db.commit();
+    assertThat(requestNclocOfFirstComponent(project)).isEqualTo("2");
+  }
+
+  @Test
+  public void tree_is_loaded_again_when_key_of_project_is_updated() {
+    ComponentDto project = db.components().insertPrivateProject(p -> p.setDbKey("old-key"));
+    db.components().insertSnapshot(project);
+    componentDb.insertComponent(newFileDto(project, null, "file-uuid").setDbKey("old-key:src/File.xoo"));
+    insertNclocMetric();
+    db.commit();
+    assertThat(requestKeyOfFirstComponent("old-key")).isEqualTo("old-key:src/File.xoo");
+
+    new ComponentService(dbClient, userSession, new TestProjectIndexers(), componentTreeCache).updateKey(dbSession, project, "new-key");
+    db.commit();
+
+    assertThat(requestKeyOfFirstComponent("new-key")).isEqualTo("new-key:src/File.xoo");
+  }
+
+  private String requestKeyOfFirstComponent(String projectKey) {
+    ComponentTreeWsResponse response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, projectKey)
+      .setParam(PARAM_METRIC_KEYS, "ncloc")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+    return response.getComponents(0).getKey();
+  }
+
+  private String requestNclocOfFirstComponent(ComponentDto project) {
+    ComponentTreeWsResponse response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, project.getKey())
+      .setParam(PARAM_METRIC_KEYS, "ncloc")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+    return response.getComponents(0).getMeasures(0).getValue();
+  }
+
   @Test
   public void remove_components_without_measure_on_the_metric_sort() {
     ComponentDto project = db.components().insertPrivateProject();
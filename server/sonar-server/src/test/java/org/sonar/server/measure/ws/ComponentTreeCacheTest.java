@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.ws;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.HashBasedTable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTreeQuery;
+import org.sonar.db.organization.OrganizationTesting;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.component.ComponentTesting.newPrivateProjectDto;
+
+public class ComponentTreeCacheTest {
+
+  private FakeTicker ticker = new FakeTicker();
+  private ComponentTreeCache underTest = new ComponentTreeCache(ticker, 100);
+  private AtomicInteger loads = new AtomicInteger();
+
+  private ComponentDto project = newPrivateProjectDto(OrganizationTesting.newOrganizationDto());
+
+  @Test
+  public void tree_is_loaded_once_for_same_analysis_and_request() {
+    ComponentTreeCache.SortedTree tree = underTest.get(key("A1", "ncloc"), this::load);
+
+    assertThat(underTest.get(key("A1", "ncloc"), this::load)).isSameAs(tree);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void tree_is_loaded_for_each_different_request() {
+    underTest.get(key("A1", "ncloc"), this::load);
+    underTest.get(key("A1", "coverage"), this::load);
+    underTest.get(new ComponentTreeCache.Key(project, "A1", query(), request("ncloc").setAsc(false)), this::load);
+
+    assertThat(loads.get()).isEqualTo(3);
+    assertThat(underTest.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void trees_of_previous_analyses_of_project_are_evicted() {
+    ComponentDto otherProject = newPrivateProjectDto(OrganizationTesting.newOrganizationDto());
+    underTest.get(key("A1", "ncloc"), this::load);
+    underTest.get(key("A1", "coverage"), this::load);
+    underTest.get(new ComponentTreeCache.Key(otherProject, "B1", query(otherProject), request("ncloc")), this::load);
+
+    underTest.get(key("A2", "ncloc"), this::load);
+
+    assertThat(loads.get()).isEqualTo(4);
+    assertThat(underTest.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void trees_of_evicted_project_are_loaded_again() {
+    ComponentDto otherProject = newPrivateProjectDto(OrganizationTesting.newOrganizationDto());
+    underTest.get(key("A1", "ncloc"), this::load);
+    underTest.get(key("A1", "coverage"), this::load);
+    underTest.get(new ComponentTreeCache.Key(otherProject, "B1", query(otherProject), request("ncloc")), this::load);
+
+    underTest.evictProject(project.uuid());
+    underTest.get(key("A1", "ncloc"), this::load);
+
+    assertThat(loads.get()).isEqualTo(4);
+    assertThat(underTest.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void trees_expire_after_ttl_even_if_accessed() {
+    underTest.get(key("A1", "ncloc"), this::load);
+
+    ticker.advance(ComponentTreeCache.TTL_MINUTES - 1, TimeUnit.MINUTES);
+    underTest.get(key("A1", "ncloc"), this::load);
+    ticker.advance(2, TimeUnit.MINUTES);
+    underTest.get(key("A1", "ncloc"), this::load);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void trees_bigger_than_max_weight_are_not_kept() {
+    ComponentTreeCache.SortedTree tree = underTest.get(key("A1", "ncloc"), () -> new ComponentTreeCache.SortedTree(
+      IntStream.range(0, 100).mapToObj(i -> newFileDto(project)).collect(Collectors.toList()),
+      emptyList(), HashBasedTable.create()));
+
+    assertThat(tree.getComponents()).hasSize(100);
+    assertThat(underTest.size()).isEqualTo(0);
+  }
+
+  private ComponentTreeCache.Key key(String analysisUuid, String metricKey) {
+    return new ComponentTreeCache.Key(project, analysisUuid, query(), request(metricKey));
+  }
+
+  private ComponentTreeQuery query() {
+    return query(project);
+  }
+
+  private static ComponentTreeQuery query(ComponentDto base) {
+    return ComponentTreeQuery.builder()
+      .setBaseUuid(base.uuid())
+      .setStrategy(ComponentTreeQuery.Strategy.LEAVES)
+      .setQualifiers(asList("FIL", "UTS"))
+      .build();
+  }
+
+  private static ComponentTreeRequest request(String metricKey) {
+    return new ComponentTreeRequest()
+      .setMetricKeys(singletonList(metricKey))
+      .setSort(singletonList("name"))
+      .setAsc(true);
+  }
+
+  private ComponentTreeCache.SortedTree load() {
+    loads.incrementAndGet();
+    return new ComponentTreeCache.SortedTree(singletonList(newFileDto(project)), emptyList(), HashBasedTable.create());
+  }
+
+  private static class FakeTicker extends Ticker {
+    private long nanos = 0;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+}
@@ -31,6 +31,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
+import org.sonar.core.timemachine.MeasureSeries;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -38,6 +39,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureSeriesDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.component.TestComponentFinder;
@@ -193,6 +195,50 @@ public class SearchHistoryActionTest {
       .containsExactly(tuple(analysisDate, "5"), tuple(laterAnalysisDate, "10"));
   }
 
+  @Test
+  public void return_measures_stored_in_series() {
+    SnapshotDto laterAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(analysis.getCreatedAt() + 42_000));
+    insertSeries(complexityMetric, new MeasureSeries()
+      .add(new MeasureSeries.Point(analysis.getUuid(), analysis.getCreatedAt(), 101d, null))
+      .add(new MeasureSeries.Point(laterAnalysis.getUuid(), laterAnalysis.getCreatedAt(), 100d, null)));
+    insertSeries(newViolationMetric, new MeasureSeries()
+      .add(new MeasureSeries.Point(laterAnalysis.getUuid(), laterAnalysis.getCreatedAt(), null, 10d)));
+    // metrics without series are still read from project_measures
+    dbClient.measureDao().insert(dbSession, newMeasureDto(nclocMetric, project, analysis).setValue(201d));
+    db.commit();
+
+    SearchHistoryResponse result = call();
+
+    String analysisDate = formatDateTime(analysis.getCreatedAt());
+    String laterAnalysisDate = formatDateTime(laterAnalysis.getCreatedAt());
+    assertThat(result.getMeasures(0).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(analysisDate, "101"), tuple(laterAnalysisDate, "100"));
+    assertThat(result.getMeasures(1).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(analysisDate, "201"), tuple(laterAnalysisDate, ""));
+    assertThat(result.getMeasures(2).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(analysisDate, ""), tuple(laterAnalysisDate, "10"));
+  }
+
+  @Test
+  public void inclusive_from_and_to_dates_of_measures_stored_in_series() {
+    project = db.components().insertPrivateProject();
+    userSession.addProjectPermission(UserRole.USER, project);
+    MeasureSeries series = new MeasureSeries();
+    List<String> analysisDates = LongStream.rangeClosed(1, 9)
+      .mapToObj(i -> dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(System2.INSTANCE.now() + i * 1_000_000_000L)))
+      .peek(a -> series.add(new MeasureSeries.Point(a.getUuid(), a.getCreatedAt(), (double) a.getCreatedAt(), null)))
+      .map(a -> formatDateTime(a.getCreatedAt()))
+      .collect(MoreCollectors.toList());
+    insertSeries(complexityMetric, series);
+    db.commit();
+    wsRequest.setComponent(project.getDbKey()).setFrom(analysisDates.get(1)).setTo(analysisDates.get(3));
+
+    SearchHistoryResponse result = call();
+
+    assertThat(result.getMeasures(0).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::hasValue).containsExactly(
+      tuple(analysisDates.get(1), true), tuple(analysisDates.get(2), true), tuple(analysisDates.get(3), true));
+  }
+
   @Test
   public void pagination_applies_to_analyses() {
     project = db.components().insertPrivateProject();
@@ -401,6 +447,13 @@ public class SearchHistoryActionTest {
     assertJson(result).isSimilarTo(ws.getDef().responseExampleAsString());
   }
 
+  private void insertSeries(MetricDto metric, MeasureSeries series) {
+    dbClient.measureSeriesDao().insert(dbSession, new MeasureSeriesDto()
+      .setComponentUuid(project.uuid())
+      .setMetricId(metric.getId())
+      .setSeries(series));
+  }
+
   private SearchHistoryResponse call() {
     SearchHistoryRequest wsRequest = this.wsRequest.build();
 
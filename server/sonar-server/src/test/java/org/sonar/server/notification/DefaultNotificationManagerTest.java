@@ -243,4 +243,37 @@ public class DefaultNotificationManagerTest {
     verify(authorizationDao, times(0)).keepAuthorizedLoginsOnProject(eq(dbSession), anySet(), anyString(), eq(globalPermission));
     verify(authorizationDao, times(1)).keepAuthorizedLoginsOnProject(eq(dbSession), anySet(), anyString(), eq(projectPermission));
   }
+
+  @Test
+  public void load_recipients_once_per_dispatcher_and_project_within_cached_recipients() {
+    String projectUuid = "uuid_45";
+    when(propertiesDao.findUsersForNotification("NewViolations", "Email", projectUuid))
+      .thenReturn(newHashSet(new Subscriber("user1", false)));
+    when(authorizationDao.keepAuthorizedLoginsOnProject(dbSession, newHashSet("user1"), projectUuid, "user"))
+      .thenReturn(newHashSet("user1"));
+
+    underTest.withCachedRecipients(() -> {
+      for (int i = 0; i < 3; i++) {
+        Multimap<String, NotificationChannel> multiMap = underTest.findSubscribedRecipientsForDispatcher(dispatcher, projectUuid,
+          SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER);
+        assertThat(multiMap.get("user1")).containsOnly(emailChannel);
+      }
+      underTest.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_56", SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER);
+    });
+
+    verify(propertiesDao, times(1)).findUsersForNotification("NewViolations", "Email", projectUuid);
+    verify(propertiesDao, times(1)).findUsersForNotification("NewViolations", "Email", "uuid_56");
+  }
+
+  @Test
+  public void do_not_cache_recipients_outside_of_cached_recipients() {
+    String projectUuid = "uuid_45";
+    underTest.withCachedRecipients(() -> underTest.findSubscribedRecipientsForDispatcher(dispatcher, projectUuid,
+      SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER));
+
+    underTest.findSubscribedRecipientsForDispatcher(dispatcher, projectUuid, SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER);
+    underTest.findSubscribedRecipientsForDispatcher(dispatcher, projectUuid, SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER);
+
+    verify(propertiesDao, times(3)).findUsersForNotification("NewViolations", "Email", projectUuid);
+  }
 }
@@ -244,6 +244,36 @@ public class NotificationDaemonTest {
     assertThat(service.hasProjectSubscribersForTypes("PROJECT_UUID", Sets.newHashSet("issue-changes"))).isTrue();
   }
 
+  @Test
+  public void deliver_many_notifications_within_cached_recipients() {
+    setUpMocks();
+    Notification notification2 = mock(Notification.class);
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArguments()[0]).run();
+      return null;
+    }).when(manager).withCachedRecipients(any(Runnable.class));
+    NotificationService underTest = new NotificationService(dbClient, new NotificationDispatcher[] {commentOnIssueAssignedToMe}, manager);
+
+    underTest.deliver(Arrays.asList(notification, notification2));
+
+    verify(manager).withCachedRecipients(any(Runnable.class));
+    verify(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel).deliver(notification2, ASSIGNEE_SIMON);
+  }
+
+  @Test
+  public void deliver_many_notifications_without_notification_manager() {
+    setUpMocks();
+    Notification notification2 = mock(Notification.class);
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+
+    service.deliver(Arrays.asList(notification, notification2));
+
+    verify(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel).deliver(notification2, ASSIGNEE_SIMON);
+  }
+
   private static Answer<Object> addUser(final String user, final NotificationChannel channel) {
     return addUser(user, new NotificationChannel[] {channel});
   }
@@ -34,6 +34,7 @@ import org.sonar.core.config.CorePropertyDefinitions;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.util.SequenceUuidFactory;
 import org.sonar.core.util.UuidFactory;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
@@ -55,6 +56,7 @@ import org.sonar.server.qualitygate.QualityGateFinder;
 import org.sonar.server.qualityprofile.BuiltInQProfile;
 import org.sonar.server.qualityprofile.BuiltInQProfileRepositoryRule;
 import org.sonar.server.qualityprofile.QProfileName;
+import org.sonar.server.user.AuthenticatedUserCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -107,8 +109,9 @@ public class OrganizationCreationImplTest {
   private UserIndex userIndex = new UserIndex(es.client(), system2);
   private DefaultGroupCreator defaultGroupCreator = new DefaultGroupCreatorImpl(dbClient);
   private QualityGateFinder qualityGateFinder = new QualityGateFinder(dbClient);
+  private AuthenticatedUserCache authenticatedUserCache = new AuthenticatedUserCache();
   private OrganizationCreationImpl underTest = new OrganizationCreationImpl(dbClient, system2, uuidFactory, organizationValidation, settings.asConfig(), userIndexer,
-    builtInQProfileRepositoryRule, defaultGroupCreator);
+    builtInQProfileRepositoryRule, defaultGroupCreator, authenticatedUserCache);
 
   @Test
   public void create_throws_NPE_if_NewOrganization_arg_is_null() throws OrganizationCreation.KeyConflictException {
@@ -231,6 +234,18 @@ public class OrganizationCreationImplTest {
     verifyMembersGroup(user, FULL_POPULATED_NEW_ORGANIZATION.getKey());
   }
 
+  @Test
+  public void create_evicts_groups_of_current_user_from_cache() throws OrganizationCreation.KeyConflictException {
+    UserDto user = db.users().insertUser();
+    builtInQProfileRepositoryRule.initialize();
+    db.qualityGates().insertBuiltInQualityGate();
+    assertThat(cachedGroupNamesOf(user)).isEmpty();
+
+    underTest.create(dbSession, user, FULL_POPULATED_NEW_ORGANIZATION);
+
+    assertThat(cachedGroupNamesOf(user)).containsOnly("Owners", "Members");
+  }
+
   @Test
   public void create_does_not_require_description_url_and_avatar_to_be_non_null() throws OrganizationCreation.KeyConflictException {
     builtInQProfileRepositoryRule.initialize();
@@ -424,6 +439,20 @@ public class OrganizationCreationImplTest {
     verifyMembersGroup(user, SLUG_OF_A_LOGIN);
   }
 
+  @Test
+  public void createForUser_evicts_groups_of_user_from_cache() {
+    UserDto user = db.users().insertUser(dto -> dto.setLogin(A_LOGIN).setName(A_NAME));
+    when(organizationValidation.generateKeyFrom(A_LOGIN)).thenReturn(SLUG_OF_A_LOGIN);
+    enableCreatePersonalOrg(true);
+    builtInQProfileRepositoryRule.initialize();
+    db.qualityGates().insertBuiltInQualityGate();
+    assertThat(cachedGroupNamesOf(user)).isEmpty();
+
+    underTest.createForUser(dbSession, user);
+
+    assertThat(cachedGroupNamesOf(user)).containsOnly("Members");
+  }
+
   @Test
   public void createForUser_creates_default_template_for_new_organization() {
     UserDto user = db.users().insertUser(dto -> dto.setLogin(A_LOGIN).setName(A_NAME));
@@ -548,6 +577,13 @@ public class OrganizationCreationImplTest {
     assertThat(dbClient.qualityGateDao().selectDefault(dbSession, organization).getUuid()).isEqualTo(builtInQualityGate.getUuid());
   }
 
+  private List<String> cachedGroupNamesOf(UserDto user) {
+    return authenticatedUserCache.getGroupsByLogin(user.getLogin(), () -> dbClient.groupDao().selectByUserLogin(dbSession, user.getLogin()))
+      .stream()
+      .map(GroupDto::getName)
+      .collect(MoreCollectors.toList());
+  }
+
   private void enableCreatePersonalOrg(boolean flag) {
     settings.setProperty(CorePropertyDefinitions.ORGANIZATIONS_CREATE_PERSONAL_ORG, flag);
   }
@@ -54,6 +54,8 @@ public class EsIndexesSectionTest {
     assertThat(attribute(section, "Index issues - Docs").getLongValue()).isEqualTo(0L);
     assertThat(attribute(section, "Index issues - Shards").getLongValue()).isGreaterThan(0);
     assertThat(attribute(section, "Index issues - Store Size").getStringValue()).isNotNull();
+    assertThat(attribute(section, "Index issues - Request Cache Memory").getStringValue()).isNotNull();
+    assertThat(attribute(section, "Index issues - Request Cache Hit Ratio").getStringValue()).isEqualTo("-");
   }
 
   @Test
@@ -955,6 +955,46 @@ public class RuleActivatorTest {
     assertThatRuleIsActivated(grandchildProfile, rule2, null, rule2.getSeverityString(), INHERITED, emptyMap());
   }
 
+  @Test
+  public void bulk_activation_cascades_to_descendants() {
+    RuleDefinitionDto rule1 = createJavaRule();
+    RuleParamDto param = db.rules().insertRuleParam(rule1);
+    RuleDefinitionDto rule2 = createJavaRule();
+    QProfileDto parentProfile = createProfile(rule1);
+    QProfileDto childProfile = createChildProfile(parentProfile);
+    QProfileDto grandChildProfile = createChildProfile(childProfile);
+    QProfileDto otherChildProfile = createChildProfile(parentProfile);
+    activate(grandChildProfile, RuleActivation.create(rule1.getKey(), CRITICAL, of(param.getName(), "bar")));
+
+    ruleIndexer.indexOnStartup(ruleIndexer.getIndexTypes());
+
+    RuleQuery query = new RuleQuery()
+      .setLanguages(singletonList(rule1.getLanguage()));
+    BulkChangeResult result = underTest.bulkActivateAndCommit(db.getSession(), query, parentProfile, BLOCKER);
+
+    assertThat(result.countSucceeded()).isEqualTo(2);
+    assertThat(result.countFailed()).isEqualTo(0);
+    // rule1 on parent, child, other child, grand child (override) + rule2 on all the profiles
+    assertThat(result.getChanges()).hasSize(8);
+    assertThatRuleIsUpdated(parentProfile, rule1, BLOCKER, null, of(param.getName(), param.getDefaultValue()));
+    assertThatRuleIsUpdated(childProfile, rule1, BLOCKER, INHERITED, of(param.getName(), param.getDefaultValue()));
+    assertThatRuleIsUpdated(otherChildProfile, rule1, BLOCKER, INHERITED, of(param.getName(), param.getDefaultValue()));
+    assertThatRuleIsUpdated(grandChildProfile, rule1, CRITICAL, ActiveRule.Inheritance.OVERRIDES, of(param.getName(), "bar"));
+    assertThatRuleIsUpdated(parentProfile, rule2, BLOCKER, null, emptyMap());
+    assertThatRuleIsUpdated(childProfile, rule2, BLOCKER, INHERITED, emptyMap());
+    assertThatRuleIsUpdated(otherChildProfile, rule2, BLOCKER, INHERITED, emptyMap());
+    assertThatRuleIsUpdated(grandChildProfile, rule2, BLOCKER, INHERITED, emptyMap());
+
+    result = underTest.bulkDeactivateAndCommit(db.getSession(), query, parentProfile);
+
+    assertThat(result.countSucceeded()).isEqualTo(2);
+    assertThat(result.getChanges()).hasSize(8);
+    assertThatProfileHasNoActiveRules(parentProfile);
+    assertThatProfileHasNoActiveRules(childProfile);
+    assertThatProfileHasNoActiveRules(otherChildProfile);
+    assertThatProfileHasNoActiveRules(grandChildProfile);
+  }
+
   @Test
   public void activateOnBuiltInProfile_throws_IAE_when_profile_is_not_built_in() {
     RuleDefinitionDto rule = createJavaRule();
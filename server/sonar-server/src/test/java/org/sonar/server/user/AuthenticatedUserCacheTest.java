@@ -0,0 +1,243 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.base.Ticker;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.db.user.GroupDto;
+import org.sonar.db.user.UserDto;
+import org.sonar.process.cluster.hz.DistributedAnswer;
+import org.sonar.process.cluster.hz.DistributedCall;
+import org.sonar.process.cluster.hz.HazelcastMember;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.user.GroupTesting.newGroupDto;
+import static org.sonar.db.user.UserTesting.newUserDto;
+
+public class AuthenticatedUserCacheTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private FakeTicker ticker = new FakeTicker();
+  private AuthenticatedUserCache underTest = new AuthenticatedUserCache(null, ticker);
+
+  @Test
+  public void cache_login_of_token() {
+    CountingLoader<String> loader = new CountingLoader<>(Optional.of("john"));
+
+    assertThat(underTest.getLoginByTokenHash("hash", loader)).contains("john");
+    assertThat(underTest.getLoginByTokenHash("hash", loader)).contains("john");
+
+    assertThat(loader.calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void do_not_cache_unknown_token() {
+    CountingLoader<String> loader = new CountingLoader<>(Optional.empty());
+
+    assertThat(underTest.getLoginByTokenHash("hash", loader)).isEmpty();
+    assertThat(underTest.getLoginByTokenHash("hash", loader)).isEmpty();
+
+    assertThat(loader.calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void cache_active_user_and_groups() {
+    UserDto user = newUserDto();
+    Collection<GroupDto> groups = singletonList(newGroupDto());
+    CountingLoader<UserDto> userLoader = new CountingLoader<>(Optional.of(user));
+
+    assertThat(underTest.getActiveUserByLogin(user.getLogin(), userLoader).map(UserDto::getLogin)).contains(user.getLogin());
+    assertThat(underTest.getActiveUserByLogin(user.getLogin(), userLoader).map(UserDto::getLogin)).contains(user.getLogin());
+    assertThat(underTest.getGroupsByLogin(user.getLogin(), () -> groups)).isSameAs(groups);
+
+    assertThat(userLoader.calls.get()).isEqualTo(1);
+    assertThat(underTest.getGroupsByLogin(user.getLogin(), () -> {
+      throw new IllegalStateException("groups must be cached");
+    })).extracting(GroupDto::getId).containsExactly(groups.iterator().next().getId());
+  }
+
+  @Test
+  public void cached_user_and_groups_are_not_shared_between_callers() {
+    UserDto user = newUserDto();
+    GroupDto group = newGroupDto();
+    underTest.getActiveUserByLogin(user.getLogin(), () -> Optional.of(user));
+    underTest.getGroupsByLogin(user.getLogin(), () -> singletonList(group));
+
+    user.setName("changed by loader caller");
+    group.setName("changed by loader caller");
+    UserDto cachedUser = underTest.getActiveUserByLogin(user.getLogin(), Optional::empty).get();
+    GroupDto cachedGroup = underTest.getGroupsByLogin(user.getLogin(), Collections::emptyList).iterator().next();
+    cachedUser.setName("changed by cache caller");
+    cachedGroup.setName("changed by cache caller");
+
+    assertThat(cachedUser).isNotSameAs(user);
+    assertThat(underTest.getActiveUserByLogin(user.getLogin(), Optional::empty).get().getName()).isNotIn("changed by loader caller", "changed by cache caller");
+    assertThat(underTest.getGroupsByLogin(user.getLogin(), Collections::emptyList)).extracting(GroupDto::getName)
+      .doesNotContain("changed by loader caller", "changed by cache caller");
+  }
+
+  @Test
+  public void entries_expire_after_ttl() {
+    CountingLoader<String> loader = new CountingLoader<>(Optional.of("john"));
+    underTest.getLoginByTokenHash("hash", loader);
+
+    ticker.advance(AuthenticatedUserCache.TTL_SECONDS - 1, TimeUnit.SECONDS);
+    underTest.getLoginByTokenHash("hash", loader);
+    assertThat(loader.calls.get()).isEqualTo(1);
+
+    ticker.advance(1, TimeUnit.SECONDS);
+    underTest.getLoginByTokenHash("hash", loader);
+    assertThat(loader.calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void evictUser_evicts_user_groups_and_tokens_of_given_login_only() {
+    UserDto john = newUserDto().setLogin("john");
+    UserDto jane = newUserDto().setLogin("jane");
+    underTest.getLoginByTokenHash("hash1", () -> Optional.of("john"));
+    underTest.getLoginByTokenHash("hash2", () -> Optional.of("john"));
+    underTest.getLoginByTokenHash("hash3", () -> Optional.of("jane"));
+    underTest.getActiveUserByLogin("john", () -> Optional.of(john));
+    underTest.getActiveUserByLogin("jane", () -> Optional.of(jane));
+    underTest.getGroupsByLogin("john", () -> singletonList(newGroupDto()));
+
+    underTest.evictUser("john");
+
+    assertThat(underTest.getLoginByTokenHash("hash1", Optional::empty)).isEmpty();
+    assertThat(underTest.getLoginByTokenHash("hash2", Optional::empty)).isEmpty();
+    assertThat(underTest.getLoginByTokenHash("hash3", Optional::empty)).contains("jane");
+    assertThat(underTest.getActiveUserByLogin("john", Optional::empty)).isEmpty();
+    assertThat(underTest.getActiveUserByLogin("jane", Optional::empty).map(UserDto::getLogin)).contains(jane.getLogin());
+    assertThat(underTest.getGroupsByLogin("john", Collections::emptyList)).isEmpty();
+  }
+
+  @Test
+  public void evictAll_evicts_all_entries() {
+    underTest.getLoginByTokenHash("hash", () -> Optional.of("john"));
+    underTest.getActiveUserByLogin("john", () -> Optional.of(newUserDto()));
+
+    underTest.evictAll();
+
+    assertThat(underTest.getLoginByTokenHash("hash", Optional::empty)).isEmpty();
+    assertThat(underTest.getActiveUserByLogin("john", Optional::empty)).isEmpty();
+  }
+
+  @Test
+  public void value_loaded_during_eviction_is_not_cached() {
+    underTest.getLoginByTokenHash("hash", () -> {
+      // token is revoked while being loaded
+      underTest.evictUser("john");
+      return Optional.of("john");
+    });
+
+    assertThat(underTest.getLoginByTokenHash("hash", Optional::empty)).isEmpty();
+  }
+
+  @Test
+  public void propagate_eviction_to_cluster() throws InterruptedException {
+    HazelcastMember member = mock(HazelcastMember.class);
+    when(member.call(any(DistributedCall.class), any(), anyLong())).thenReturn(new DistributedAnswer<>());
+    underTest = new AuthenticatedUserCache(member, ticker);
+
+    underTest.evictUser("john");
+    underTest.evictAll();
+
+    verify(member, times(2)).call(any(DistributedCall.class), any(), anyLong());
+  }
+
+  @Test
+  public void distributed_call_evicts_entries_of_started_cache() throws Exception {
+    HazelcastMember member = mock(HazelcastMember.class);
+    when(member.call(any(DistributedCall.class), any(), anyLong())).then(invocation -> {
+      ((DistributedCall) invocation.getArguments()[0]).call();
+      return new DistributedAnswer<>();
+    });
+    AuthenticatedUserCache otherNode = new AuthenticatedUserCache(null, ticker);
+    otherNode.start();
+    try {
+      otherNode.getLoginByTokenHash("hash", () -> Optional.of("john"));
+
+      new AuthenticatedUserCache(member, ticker).evictUser("john");
+
+      assertThat(otherNode.getLoginByTokenHash("hash", Optional::empty)).isEmpty();
+    } finally {
+      otherNode.stop();
+    }
+  }
+
+  @Test
+  public void failure_of_cluster_eviction_is_logged() throws InterruptedException {
+    HazelcastMember member = mock(HazelcastMember.class);
+    when(member.call(any(DistributedCall.class), any(), anyLong())).thenThrow(new IllegalStateException("BOOM"));
+    underTest = new AuthenticatedUserCache(member, ticker);
+    underTest.getLoginByTokenHash("hash", () -> Optional.of("john"));
+
+    underTest.evictUser("john");
+
+    assertThat(underTest.getLoginByTokenHash("hash", Optional::empty)).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsOnly("Fail to evict authenticated users on other cluster nodes");
+  }
+
+  private static class CountingLoader<T> implements Supplier<Optional<T>> {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Optional<T> value;
+
+    private CountingLoader(Optional<T> value) {
+      this.value = value;
+    }
+
+    @Override
+    public Optional<T> get() {
+      calls.incrementAndGet();
+      return value;
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+    private long nanos = 0;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+}
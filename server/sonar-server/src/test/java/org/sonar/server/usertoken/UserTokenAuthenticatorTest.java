@@ -32,6 +32,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.server.user.AuthenticatedUserCache;
 
 public class UserTokenAuthenticatorTest {
   static final String GRACE_HOPPER = "grace.hopper";
@@ -46,7 +47,9 @@ public class UserTokenAuthenticatorTest {
   DbSession dbSession = db.getSession();
   TokenGenerator tokenGenerator = mock(TokenGenerator.class);
 
-  UserTokenAuthenticator underTest = new UserTokenAuthenticator(tokenGenerator, db.getDbClient());
+  AuthenticatedUserCache authenticatedUserCache = new AuthenticatedUserCache();
+
+  UserTokenAuthenticator underTest = new UserTokenAuthenticator(tokenGenerator, db.getDbClient(), authenticatedUserCache);
 
   @Test
   public void return_login_when_token_hash_found_in_db() {
@@ -65,7 +68,26 @@ public class UserTokenAuthenticatorTest {
 
   @Test
   public void return_absent_if_token_hash_is_not_found() {
+    when(tokenGenerator.hash("unknown-token")).thenReturn("unknown-token-hash");
+
     Optional<String> login = underTest.authenticate("unknown-token");
     assertThat(login.isPresent()).isFalse();
   }
+
+  @Test
+  public void login_is_cached_until_tokens_of_user_are_evicted() {
+    String token = "known-token";
+    String tokenHash = "123456789";
+    when(tokenGenerator.hash(token)).thenReturn(tokenHash);
+    dbClient.userTokenDao().insert(dbSession, newUserToken().setLogin(GRACE_HOPPER).setTokenHash(tokenHash));
+    db.commit();
+    assertThat(underTest.authenticate(token)).contains(GRACE_HOPPER);
+
+    dbClient.userTokenDao().deleteByLogin(dbSession, GRACE_HOPPER);
+    db.commit();
+    assertThat(underTest.authenticate(token)).contains(GRACE_HOPPER);
+
+    authenticatedUserCache.evictUser(GRACE_HOPPER);
+    assertThat(underTest.authenticate(token)).isEmpty();
+  }
 }
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.usertoken.ws;
 
+import java.util.Optional;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
@@ -32,6 +33,7 @@ import org.sonar.db.user.UserTokenDto;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.UnauthorizedException;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthenticatedUserCache;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.WsActionTester;
 
@@ -55,12 +57,13 @@ public class RevokeActionTest {
 
   private DbClient dbClient = db.getDbClient();
   private final DbSession dbSession = db.getSession();
+  private AuthenticatedUserCache authenticatedUserCache = new AuthenticatedUserCache();
   private WsActionTester ws;
 
   @Before
   public void setUp() {
     ws = new WsActionTester(
-      new RevokeAction(dbClient, userSession));
+      new RevokeAction(dbClient, userSession, authenticatedUserCache));
   }
 
   @Test
@@ -89,6 +92,19 @@ public class RevokeActionTest {
     assertThat(dbClient.userTokenDao().selectByLogin(dbSession, GRACE_HOPPER)).isEmpty();
   }
 
+  @Test
+  public void evict_tokens_of_user_from_cache() {
+    logInAsSystemAdministrator();
+    insertUserToken(newUserToken().setLogin(GRACE_HOPPER).setName(TOKEN_NAME));
+    authenticatedUserCache.getLoginByTokenHash("grace-hash", () -> Optional.of(GRACE_HOPPER));
+    authenticatedUserCache.getLoginByTokenHash("ada-hash", () -> Optional.of(ADA_LOVELACE));
+
+    newRequest(GRACE_HOPPER, TOKEN_NAME);
+
+    assertThat(authenticatedUserCache.getLoginByTokenHash("grace-hash", Optional::empty)).isEmpty();
+    assertThat(authenticatedUserCache.getLoginByTokenHash("ada-hash", Optional::empty)).contains(ADA_LOVELACE);
+  }
+
   @Test
   public void does_not_fail_when_incorrect_login_or_name() {
     logInAsSystemAdministrator();
@@ -19,9 +19,12 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import java.util.Collection;
+import com.google.common.collect.Lists;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
@@ -39,22 +42,25 @@ public class AbstractTracker<RAW extends Trackable, BASE extends Trackable> {
       return;
     }
 
-    Multimap<SearchKey, BASE> baseSearch = ArrayListMultimap.create();
-    for (BASE base : tracking.getUnmatchedBases()) {
-      baseSearch.put(searchKeyFactory.apply(base), base);
+    // Bases are sorted once, so that the head of each queue is always the best candidate
+    // for the related key. This avoids sorting and removing candidates for each raw issue.
+    List<BASE> sortedBases = Lists.newArrayList(tracking.getUnmatchedBases());
+    if (sortedBases.isEmpty()) {
+      return;
+    }
+    sortedBases.sort(comparing(this::statusRank).reversed()
+      .thenComparing(comparing(Trackable::getCreationDate)));
+
+    Map<SearchKey, Deque<BASE>> baseSearch = new HashMap<>();
+    for (BASE base : sortedBases) {
+      baseSearch.computeIfAbsent(searchKeyFactory.apply(base), k -> new ArrayDeque<>()).add(base);
     }
 
     for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = searchKeyFactory.apply(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      bases.stream()
-        .sorted(comparing(this::statusRank).reversed()
-          .thenComparing(comparing(Trackable::getCreationDate)))
-        .findFirst()
-        .ifPresent(match -> {
-          tracking.match(raw, match);
-          baseSearch.remove(rawKey, match);
-        });
+      Deque<BASE> bases = baseSearch.get(searchKeyFactory.apply(raw));
+      if (bases != null && !bases.isEmpty()) {
+        tracking.match(raw, bases.poll());
+      }
     }
   }
 
@@ -22,12 +22,15 @@ package org.sonar.core.issue.tracking;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.sonar.api.rule.RuleKey;
 
 class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
 
@@ -80,10 +83,12 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
       return;
     }
 
+    LineHashSequence baseLineHashSequence = baseInput.getLineHashSequence();
+    LineHashSequence rawLineHashSequence = rawInput.getLineHashSequence();
     List<LinePair> possibleLinePairs = Lists.newArrayList();
     for (Integer baseLine : basesByLine.keySet()) {
       for (Integer rawLine : rawsByLine.keySet()) {
-        int weight = lengthOfMaximalBlock(baseInput.getLineHashSequence(), baseLine, rawInput.getLineHashSequence(), rawLine);
+        int weight = lengthOfMaximalBlock(baseLineHashSequence, baseLine, rawLineHashSequence, rawLine);
         if (weight > 0) {
           possibleLinePairs.add(new LinePair(baseLine, rawLine, weight));
         }
@@ -124,11 +129,18 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
   }
 
   private void map(Collection<RAW> raws, Collection<BASE> bases, Tracking<RAW, BASE> result) {
+    // unmatched bases are grouped by rule once, so that lines with many issues are not processed in quadratic time
+    Map<RuleKey, Deque<BASE>> unmatchedBasesByRule = new HashMap<>();
+    for (BASE base : bases) {
+      if (result.containsUnmatchedBase(base)) {
+        unmatchedBasesByRule.computeIfAbsent(base.getRuleKey(), k -> new ArrayDeque<>()).add(base);
+      }
+    }
     for (RAW raw : raws) {
-      for (BASE base : bases) {
-        if (result.containsUnmatchedBase(base) && base.getRuleKey().equals(raw.getRuleKey())) {
-          result.match(raw, base);
-          break;
+      if (result.baseFor(raw) == null) {
+        Deque<BASE> candidates = unmatchedBasesByRule.get(raw.getRuleKey());
+        if (candidates != null && !candidates.isEmpty()) {
+          result.match(raw, candidates.poll());
         }
       }
     }
@@ -0,0 +1,241 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.timemachine;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.measures.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * History of the numerical measures of a metric on a component, ordered by date of analysis.
+ * <p>
+ * The binary format stores, for each point, the date as a delta from the date of the previous point, the analysis
+ * UUID and the value and the variation. Values and variations which are integers are stored as deltas from the
+ * previous integer, other values on 8 bytes. Deltas are zigzag varint-encoded, so that a point of a metric
+ * which changes slowly, like the number of lines of code, only takes a few bytes besides its analysis UUID.
+ * </p>
+ */
+public class MeasureSeries {
+
+  private static final byte VERSION = 1;
+
+  private static final int HAS_VALUE = 1;
+  private static final int INTEGER_VALUE = 2;
+  private static final int HAS_VARIATION = 4;
+  private static final int INTEGER_VARIATION = 8;
+
+  private static final Set<String> NUMERICAL_VALUE_TYPES = ImmutableSet.copyOf(asList(
+    Metric.ValueType.INT.name(), Metric.ValueType.FLOAT.name(), Metric.ValueType.PERCENT.name(), Metric.ValueType.BOOL.name(),
+    Metric.ValueType.MILLISEC.name(), Metric.ValueType.RATING.name(), Metric.ValueType.WORK_DUR.name()));
+
+  private static final double MAX_INTEGER = 1L << 53;
+  private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0d);
+
+  private final List<Point> points;
+
+  public MeasureSeries() {
+    this.points = new ArrayList<>();
+  }
+
+  private MeasureSeries(List<Point> points) {
+    this.points = points;
+  }
+
+  /**
+   * Whether the measures of the metrics of the given {@link Metric.ValueType} can be stored in a series. Measures
+   * of the other types have textual values.
+   */
+  public static boolean supportsValueType(String metricValueType) {
+    return NUMERICAL_VALUE_TYPES.contains(metricValueType);
+  }
+
+  public List<Point> getPoints() {
+    return Collections.unmodifiableList(points);
+  }
+
+  public boolean isEmpty() {
+    return points.isEmpty();
+  }
+
+  /**
+   * Adds a point, keeping points ordered by date. A point added at the same date as existing ones is added after them.
+   */
+  public MeasureSeries add(Point point) {
+    int index = points.size();
+    while (index > 0 && points.get(index - 1).getDate() > point.getDate()) {
+      index--;
+    }
+    points.add(index, point);
+    return this;
+  }
+
+  /**
+   * @return {@code true} if at least one point has been removed
+   */
+  public boolean removeIf(Predicate<Point> predicate) {
+    return points.removeIf(predicate);
+  }
+
+  public byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 + points.size() * 32);
+    CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+    try {
+      out.writeRawByte(VERSION);
+      long previousDate = 0L;
+      long previousValue = 0L;
+      long previousVariation = 0L;
+      for (Point point : points) {
+        Double value = point.getValue();
+        Double variation = point.getVariation();
+        boolean integerValue = value != null && isInteger(value);
+        boolean integerVariation = variation != null && isInteger(variation);
+        out.writeRawByte((value == null ? 0 : HAS_VALUE) | (integerValue ? INTEGER_VALUE : 0)
+          | (variation == null ? 0 : HAS_VARIATION) | (integerVariation ? INTEGER_VARIATION : 0));
+        out.writeSInt64NoTag(point.getDate() - previousDate);
+        previousDate = point.getDate();
+        out.writeStringNoTag(point.getAnalysisUuid());
+        if (integerValue) {
+          out.writeSInt64NoTag(value.longValue() - previousValue);
+          previousValue = value.longValue();
+        } else if (value != null) {
+          out.writeDoubleNoTag(value);
+        }
+        if (integerVariation) {
+          out.writeSInt64NoTag(variation.longValue() - previousVariation);
+          previousVariation = variation.longValue();
+        } else if (variation != null) {
+          out.writeDoubleNoTag(variation);
+        }
+      }
+      out.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode measure series", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static MeasureSeries decode(@Nullable byte[] data) {
+    return decode(data, null, null);
+  }
+
+  /**
+   * Decodes only the points of which date is in the given range. Decoding stops at the first point after the range.
+   *
+   * @param fromDate inclusive, {@code null} for no lower bound
+   * @param toDate exclusive, {@code null} for no upper bound
+   */
+  public static MeasureSeries decode(@Nullable byte[] data, @Nullable Long fromDate, @Nullable Long toDate) {
+    List<Point> points = new ArrayList<>();
+    if (data == null || data.length == 0) {
+      return new MeasureSeries(points);
+    }
+    CodedInputStream in = CodedInputStream.newInstance(data);
+    try {
+      byte version = in.readRawByte();
+      checkArgument(version == VERSION, "Unsupported version of measure series: %s", version);
+      long date = 0L;
+      long previousValue = 0L;
+      long previousVariation = 0L;
+      while (!in.isAtEnd()) {
+        int flags = in.readRawByte();
+        date += in.readSInt64();
+        if (toDate != null && date >= toDate) {
+          break;
+        }
+        String analysisUuid = in.readString();
+        Double value = null;
+        if ((flags & INTEGER_VALUE) != 0) {
+          previousValue += in.readSInt64();
+          value = (double) previousValue;
+        } else if ((flags & HAS_VALUE) != 0) {
+          value = in.readDouble();
+        }
+        Double variation = null;
+        if ((flags & INTEGER_VARIATION) != 0) {
+          previousVariation += in.readSInt64();
+          variation = (double) previousVariation;
+        } else if ((flags & HAS_VARIATION) != 0) {
+          variation = in.readDouble();
+        }
+        if (fromDate == null || date >= fromDate) {
+          points.add(new Point(analysisUuid, date, value, variation));
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decode measure series", e);
+    }
+    return new MeasureSeries(points);
+  }
+
+  private static boolean isInteger(double d) {
+    return d == Math.rint(d) && Math.abs(d) < MAX_INTEGER && Double.doubleToRawLongBits(d) != NEGATIVE_ZERO_BITS;
+  }
+
+  @Immutable
+  public static class Point {
+    private final String analysisUuid;
+    private final long date;
+    private final Double value;
+    private final Double variation;
+
+    public Point(String analysisUuid, long date, @Nullable Double value, @Nullable Double variation) {
+      this.analysisUuid = requireNonNull(analysisUuid, "Analysis UUID can't be null");
+      this.date = date;
+      this.value = value;
+      this.variation = variation;
+    }
+
+    public String getAnalysisUuid() {
+      return analysisUuid;
+    }
+
+    /**
+     * Date of the analysis
+     */
+    public long getDate() {
+      return date;
+    }
+
+    @CheckForNull
+    public Double getValue() {
+      return value;
+    }
+
+    @CheckForNull
+    public Double getVariation() {
+      return variation;
+    }
+  }
+}
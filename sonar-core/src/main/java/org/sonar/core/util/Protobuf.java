@@ -19,6 +19,7 @@
  */
 package org.sonar.core.util;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
@@ -27,6 +28,7 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.function.Function;
@@ -127,9 +129,10 @@ public class Protobuf {
    */
   public static <MSG extends Message> CloseableIterator<MSG> readStream(File file, Parser<MSG> parser) {
     try {
-      // the input stream is closed by the CloseableIterator
-      BufferedInputStream input = new BufferedInputStream(new FileInputStream(file));
-      return readStream(input, parser);
+      // the input stream is closed by the CloseableIterator. It is not wrapped into a BufferedInputStream
+      // as it's already buffered by the underlying CodedInputStream.
+      InputStream input = new FileInputStream(file);
+      return new CodedStreamIterator<>(parser, input);
     } catch (Exception e) {
       throw ContextException.of("Unable to read messages", e).addContext("file", file);
     }
@@ -142,6 +145,10 @@ public class Protobuf {
    *   The stream is not closed by this method. It is closed when {@link CloseableIterator} traverses 
    *   all messages or when {@link CloseableIterator#close()} is called.
    * </p>
+   * <p>
+   *   Bytes are not read ahead of the current message, so the stream can still be read once the iterator has
+   *   returned the expected messages.
+   * </p>
    */
   public static <MSG extends Message> CloseableIterator<MSG> readStream(InputStream input, Parser<MSG> parser) {
     // the stream is closed by the CloseableIterator
@@ -172,6 +179,47 @@ public class Protobuf {
     }
   }
 
+  /**
+   * Messages are parsed from a single {@link CodedInputStream} for the whole stream, instead of
+   * {@link Parser#parsePartialDelimitedFrom(InputStream)} which allocates a new {@link CodedInputStream} and its
+   * buffer for each message. That matters on the large streams of small messages, for example the per-line data of
+   * files. The {@link CodedInputStream} reads ahead, so it is used only when the iterator owns the stream.
+   */
+  private static class CodedStreamIterator<MSG extends Message> extends CloseableIterator<MSG> {
+    private final Parser<MSG> parser;
+    private final InputStream input;
+    private final CodedInputStream codedInput;
+
+    private CodedStreamIterator(Parser<MSG> parser, InputStream input) {
+      this.parser = parser;
+      this.input = input;
+      this.codedInput = CodedInputStream.newInstance(input);
+    }
+
+    @Override
+    protected MSG doNext() {
+      try {
+        if (codedInput.isAtEnd()) {
+          return null;
+        }
+        int size = codedInput.readRawVarint32();
+        int previousLimit = codedInput.pushLimit(size);
+        MSG message = parser.parsePartialFrom(codedInput);
+        codedInput.popLimit(previousLimit);
+        // size limit of CodedInputStream applies to each message, not to the whole stream
+        codedInput.resetSizeCounter();
+        return message;
+      } catch (IOException e) {
+        throw ContextException.of(e);
+      }
+    }
+
+    @Override
+    protected void doClose() {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
   /**
    * Call a setter method of {@link com.google.protobuf.GeneratedMessage.Builder} if the parameter
    * is not null. Do nothing if parameter is null.
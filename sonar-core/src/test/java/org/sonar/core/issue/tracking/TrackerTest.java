@@ -432,6 +432,42 @@ public class TrackerTest {
     assertThat(tracking.baseFor(raw1)).isEqualTo(base1);
   }
 
+  @Test
+  public void match_resolved_then_confirmed_then_oldest_issues_first() {
+    FakeInput baseInput = new FakeInput("H1");
+    Issue baseOpenNew = new Issue(1, "H1", RULE_SYSTEM_PRINT, "msg", org.sonar.api.issue.Issue.STATUS_OPEN, new Date(3_000L));
+    Issue baseOpenOld = new Issue(1, "H1", RULE_SYSTEM_PRINT, "msg", org.sonar.api.issue.Issue.STATUS_OPEN, new Date(1_000L));
+    Issue baseConfirmed = new Issue(1, "H1", RULE_SYSTEM_PRINT, "msg", org.sonar.api.issue.Issue.STATUS_CONFIRMED, new Date(2_000L));
+    Issue baseResolved = new Issue(1, "H1", RULE_SYSTEM_PRINT, "msg", org.sonar.api.issue.Issue.STATUS_RESOLVED, new Date(4_000L));
+    baseInput.addIssue(baseOpenNew).addIssue(baseOpenOld).addIssue(baseConfirmed).addIssue(baseResolved);
+
+    FakeInput rawInput = new FakeInput("H1");
+    Issue raw1 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue raw2 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue raw3 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw1)).isSameAs(baseResolved);
+    assertThat(tracking.baseFor(raw2)).isSameAs(baseConfirmed);
+    assertThat(tracking.baseFor(raw3)).isSameAs(baseOpenOld);
+    assertThat(tracking.getUnmatchedBases()).containsOnly(baseOpenNew);
+  }
+
+  @Test
+  public void match_large_number_of_similar_issues() {
+    int nbIssues = 50_000;
+    FakeInput baseInput = new FakeInput("H1", "H2");
+    FakeInput rawInput = new FakeInput("H2", "H1");
+    for (int i = 0; i < nbIssues; i++) {
+      baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+      rawInput.createIssueOnLine(2, RULE_SYSTEM_PRINT, "msg");
+    }
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.getMatchedRaws()).hasSize(nbIssues);
+    assertThat(tracking.getUnmatchedBases()).isEmpty();
+  }
+
   private static class Issue implements Trackable {
     private final RuleKey ruleKey;
     private final Integer line;
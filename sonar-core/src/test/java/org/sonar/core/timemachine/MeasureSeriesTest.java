@@ -0,0 +1,139 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.timemachine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.core.timemachine.MeasureSeries.Point;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class MeasureSeriesTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void encode_and_decode_points() {
+    MeasureSeries series = new MeasureSeries()
+      .add(new Point("A1", 1_500_000_000_000L, 1_000d, null))
+      .add(new Point("A2", 1_500_000_100_000L, 980d, -20d))
+      .add(new Point("A3", 1_500_000_200_000L, 12.5d, 0.1d))
+      .add(new Point("A4", 1_500_000_300_000L, null, 3d))
+      .add(new Point("A5", 1_500_000_400_000L, null, null))
+      .add(new Point("A6", 1_500_000_500_000L, -0d, Double.NaN))
+      .add(new Point("A7", 1_500_000_600_000L, Double.MAX_VALUE, 1e18));
+
+    MeasureSeries decoded = MeasureSeries.decode(series.encode());
+
+    assertThat(decoded.getPoints())
+      .extracting(Point::getAnalysisUuid, Point::getDate, Point::getValue, Point::getVariation)
+      .containsExactly(
+        tuple("A1", 1_500_000_000_000L, 1_000d, null),
+        tuple("A2", 1_500_000_100_000L, 980d, -20d),
+        tuple("A3", 1_500_000_200_000L, 12.5d, 0.1d),
+        tuple("A4", 1_500_000_300_000L, null, 3d),
+        tuple("A5", 1_500_000_400_000L, null, null),
+        tuple("A6", 1_500_000_500_000L, -0d, Double.NaN),
+        tuple("A7", 1_500_000_600_000L, Double.MAX_VALUE, 1e18));
+    assertThat(Double.doubleToRawLongBits(decoded.getPoints().get(5).getValue())).isEqualTo(Double.doubleToRawLongBits(-0d));
+  }
+
+  @Test
+  public void integer_values_are_delta_encoded() {
+    MeasureSeries series = new MeasureSeries();
+    for (int i = 0; i < 100; i++) {
+      series.add(new Point("AU_" + i, 1_500_000_000_000L + i * 86_400_000L, 120_000d + i, 1d));
+    }
+
+    byte[] data = series.encode();
+
+    // flags, date, analysis UUID, value, variation
+    assertThat(data.length).isLessThan(1 + 100 * (1 + 5 + 6 + 1 + 1) + 16);
+    assertThat(MeasureSeries.decode(data).getPoints()).hasSize(100);
+  }
+
+  @Test
+  public void add_keeps_points_ordered_by_date() {
+    MeasureSeries series = new MeasureSeries()
+      .add(new Point("A2", 20L, 2d, null))
+      .add(new Point("A1", 10L, 1d, null))
+      .add(new Point("A3", 20L, 3d, null));
+
+    assertThat(MeasureSeries.decode(series.encode()).getPoints()).extracting(Point::getAnalysisUuid).containsExactly("A1", "A2", "A3");
+  }
+
+  @Test
+  public void decode_points_in_date_range() {
+    MeasureSeries series = new MeasureSeries();
+    for (int i = 0; i < 10; i++) {
+      series.add(new Point("A" + i, i * 10L, (double) i, null));
+    }
+    byte[] data = series.encode();
+
+    assertThat(MeasureSeries.decode(data, 30L, 60L).getPoints()).extracting(Point::getAnalysisUuid, Point::getValue)
+      .containsExactly(tuple("A3", 3d), tuple("A4", 4d), tuple("A5", 5d));
+    assertThat(MeasureSeries.decode(data, 85L, null).getPoints()).extracting(Point::getAnalysisUuid).containsExactly("A9");
+    assertThat(MeasureSeries.decode(data, null, 10L).getPoints()).extracting(Point::getAnalysisUuid).containsExactly("A0");
+    assertThat(MeasureSeries.decode(data, 100L, null).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void remove_points() {
+    MeasureSeries series = new MeasureSeries()
+      .add(new Point("A1", 10L, 1d, null))
+      .add(new Point("A2", 20L, 2d, null))
+      .add(new Point("A3", 30L, 5d, null));
+
+    assertThat(series.removeIf(p -> p.getAnalysisUuid().equals("A2"))).isTrue();
+    assertThat(series.removeIf(p -> p.getAnalysisUuid().equals("A2"))).isFalse();
+
+    assertThat(MeasureSeries.decode(series.encode()).getPoints()).extracting(Point::getAnalysisUuid, Point::getValue)
+      .containsExactly(tuple("A1", 1d), tuple("A3", 5d));
+  }
+
+  @Test
+  public void decode_empty_data() {
+    assertThat(MeasureSeries.decode(null).isEmpty()).isTrue();
+    assertThat(MeasureSeries.decode(new byte[0]).isEmpty()).isTrue();
+    assertThat(MeasureSeries.decode(new MeasureSeries().encode()).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void fail_to_decode_unsupported_version() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unsupported version of measure series: 2");
+
+    MeasureSeries.decode(new byte[] {2});
+  }
+
+  @Test
+  public void supports_numerical_value_types() {
+    assertThat(MeasureSeries.supportsValueType("INT")).isTrue();
+    assertThat(MeasureSeries.supportsValueType("WORK_DUR")).isTrue();
+    assertThat(MeasureSeries.supportsValueType("RATING")).isTrue();
+    assertThat(MeasureSeries.supportsValueType("LEVEL")).isFalse();
+    assertThat(MeasureSeries.supportsValueType("DATA")).isFalse();
+    assertThat(MeasureSeries.supportsValueType("STRING")).isFalse();
+    assertThat(MeasureSeries.supportsValueType("DISTRIB")).isFalse();
+  }
+}
@@ -19,8 +19,16 @@
  */
 package org.sonar.core.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.junit.Rule;
 import org.junit.Test;
@@ -100,6 +108,52 @@ public class ProtobufTest {
     assertThat(it.hasNext()).isFalse();
   }
 
+  @Test
+  public void write_and_read_many_messages_in_stream() throws Exception {
+    File file = temp.newFile();
+    List<Fake> items = new ArrayList<>();
+    for (int i = 1; i <= 10_000; i++) {
+      items.add(Fake.newBuilder().setLabel("label " + i).setLine(i).build());
+    }
+    Protobuf.writeStream(items, file, false);
+
+    try (CloseableIterator<Fake> it = Protobuf.readStream(file, Fake.parser())) {
+      for (int i = 1; i <= 10_000; i++) {
+        Fake read = it.next();
+        assertThat(read.getLabel()).isEqualTo("label " + i);
+        assertThat(read.getLine()).isEqualTo(i);
+      }
+      assertThat(it.hasNext()).isFalse();
+    }
+  }
+
+  @Test
+  public void stream_can_be_read_after_messages() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    Protobuf.writeStream(asList(Fake.newBuilder().setLabel("one").build(), Fake.newBuilder().setLabel("two").build()), output);
+    output.write("trailer".getBytes(StandardCharsets.UTF_8));
+    InputStream input = new ByteArrayInputStream(output.toByteArray());
+
+    CloseableIterator<Fake> it = Protobuf.readStream(input, Fake.parser());
+    assertThat(it.next().getLabel()).isEqualTo("one");
+    assertThat(it.next().getLabel()).isEqualTo("two");
+
+    assertThat(IOUtils.toString(input, StandardCharsets.UTF_8)).isEqualTo("trailer");
+  }
+
+  @Test
+  public void fail_to_read_truncated_stream() throws Exception {
+    File file = temp.newFile();
+    Protobuf.writeStream(asList(Fake.newBuilder().setLabel("one").build()), file, false);
+    byte[] bytes = FileUtils.readFileToByteArray(file);
+    FileUtils.writeByteArrayToFile(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+    CloseableIterator<Fake> it = Protobuf.readStream(file, Fake.parser());
+
+    thrown.expect(ContextException.class);
+    it.next();
+  }
+
   @Test
   public void fail_to_read_stream() throws Exception {
     thrown.expect(ContextException.class);
@@ -0,0 +1,304 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.java;
+
+import org.sonar.channel.Channel;
+import org.sonar.channel.CodeReader;
+import org.sonar.duplications.token.Token;
+import org.sonar.duplications.token.TokenQueue;
+
+/**
+ * Lexer of Java source code, which consumes the whole code in a single pass.
+ * <p>
+ * Produces the same tokens as the following sequence of regular expressions, which are tried in this order at each
+ * position of the code:
+ * <ul>
+ *   <li>ignored white space {@code \s}</li>
+ *   <li>ignored comments {@code //[^\n\r]*+} and {@code /\*[\s\S]*?\*}{@code /}</li>
+ *   <li>string literal {@code "([^"\\]*+(\\[\s\S])?+)*+"} and character literal {@code '([^'\n\\]*+(\\.)?+)*+'},
+ *   normalized into {@value #NORMALIZED_CHARACTER_LITERAL}</li>
+ *   <li>identifiers, keywords, boolean and null literals {@code \p{javaJavaIdentifierStart}++\p{javaJavaIdentifierPart}*+}</li>
+ *   <li>floating-point and integer literals, including hexadecimal, binary and underscores, normalized into
+ *   {@value #NORMALIZED_NUMERIC_LITERAL}</li>
+ *   <li>any other character {@code .}</li>
+ * </ul>
+ * Literals, which are not terminated, are not considered as literals: their first character is a token by itself.
+ * </p>
+ */
+class JavaTokenChannel extends Channel<TokenQueue> {
+
+  static final String NORMALIZED_CHARACTER_LITERAL = "$CHARS";
+  static final String NORMALIZED_NUMERIC_LITERAL = "$NUMBER";
+
+  private static final String FLOAT_SUFFIXES = "fFdD";
+  private static final String INT_SUFFIXES = "lL";
+  private static final int NO_MATCH = -1;
+
+  private final StringBuilder tmpBuilder = new StringBuilder();
+
+  @Override
+  public boolean consume(CodeReader code, TokenQueue output) {
+    int length = code.length();
+    while (length > 0) {
+      int end = consumeToken(code, length, output);
+      for (int i = 0; i < end; i++) {
+        code.pop();
+      }
+      length -= end;
+    }
+    return true;
+  }
+
+  /**
+   * Adds the token, if any, which starts at the current position of the code, and returns its number of characters.
+   */
+  private int consumeToken(CodeReader code, int length, TokenQueue output) {
+    char c = code.charAt(0);
+    if (isWhitespace(c)) {
+      return 1;
+    }
+    if (c == '/' && length > 1) {
+      int end = comment(code, length);
+      if (end != NO_MATCH) {
+        return end;
+      }
+    }
+    if (c == '"' || c == '\'') {
+      int end = c == '"' ? stringLiteral(code, length) : characterLiteral(code, length);
+      if (end != NO_MATCH) {
+        output.add(new Token(NORMALIZED_CHARACTER_LITERAL, code.getLinePosition(), code.getColumnPosition()));
+        return end;
+      }
+    }
+    int codePoint = Character.codePointAt(code, 0);
+    if (Character.isJavaIdentifierStart(codePoint)) {
+      return addToken(code, identifier(code, length, Character.charCount(codePoint)), output);
+    }
+    if (isDigit(c) || (c == '.' && length > 1 && (isDigit(code.charAt(1)) || code.charAt(1) == '_'))) {
+      output.add(new Token(NORMALIZED_NUMERIC_LITERAL, code.getLinePosition(), code.getColumnPosition()));
+      return c == '.' ? fraction(code, 1, length) : number(code, length);
+    }
+    int end = Character.charCount(codePoint);
+    if (isLineTerminator(c)) {
+      // not matched by any token
+      return end;
+    }
+    return addToken(code, end, output);
+  }
+
+  private int addToken(CodeReader code, int end, TokenQueue output) {
+    for (int i = 0; i < end; i++) {
+      tmpBuilder.append(code.charAt(i));
+    }
+    output.add(new Token(tmpBuilder.toString(), code.getLinePosition(), code.getColumnPosition()));
+    tmpBuilder.setLength(0);
+    return end;
+  }
+
+  private static int comment(CodeReader code, int length) {
+    char next = code.charAt(1);
+    if (next == '/') {
+      int end = 2;
+      while (end < length && code.charAt(end) != '\n' && code.charAt(end) != '\r') {
+        end++;
+      }
+      return end;
+    }
+    if (next == '*') {
+      for (int i = 2; i + 1 < length; i++) {
+        if (code.charAt(i) == '*' && code.charAt(i + 1) == '/') {
+          return i + 2;
+        }
+      }
+    }
+    return NO_MATCH;
+  }
+
+  private static int stringLiteral(CodeReader code, int length) {
+    int i = 1;
+    while (i < length) {
+      char c = code.charAt(i);
+      if (c == '"') {
+        return i + 1;
+      }
+      if (c == '\\') {
+        if (i + 1 == length) {
+          return NO_MATCH;
+        }
+        i += 2;
+      } else {
+        i++;
+      }
+    }
+    return NO_MATCH;
+  }
+
+  private static int characterLiteral(CodeReader code, int length) {
+    int i = 1;
+    while (i < length) {
+      char c = code.charAt(i);
+      if (c == '\'') {
+        return i + 1;
+      }
+      if (c == '\n') {
+        return NO_MATCH;
+      }
+      if (c == '\\') {
+        if (i + 1 == length || isLineTerminator(code.charAt(i + 1))) {
+          return NO_MATCH;
+        }
+        i += 2;
+      } else {
+        i++;
+      }
+    }
+    return NO_MATCH;
+  }
+
+  private static int identifier(CodeReader code, int length, int start) {
+    int end = start;
+    while (end < length) {
+      int codePoint = Character.codePointAt(code, end);
+      if (!Character.isJavaIdentifierPart(codePoint)) {
+        break;
+      }
+      end += Character.charCount(codePoint);
+    }
+    return end;
+  }
+
+  private static int number(CodeReader code, int length) {
+    int end = digits(code, 0, length);
+    if (end < length && code.charAt(end) == '.') {
+      return fraction(code, end + 1, length);
+    }
+    int exponentEnd = exponent(code, end, length, 'e', 'E');
+    if (exponentEnd > end) {
+      return suffix(code, exponentEnd, length, FLOAT_SUFFIXES);
+    }
+    if (end == 1 && length > 2 && code.charAt(0) == '0') {
+      char radix = code.charAt(1);
+      if (radix == 'x' || radix == 'X') {
+        int hexEnd = hexDigits(code, 2, length);
+        if (hexEnd > 2) {
+          return hexNumber(code, hexEnd, length);
+        }
+      } else if (radix == 'b' || radix == 'B') {
+        int binaryEnd = binaryDigits(code, 2, length);
+        if (binaryEnd > 2) {
+          return suffix(code, binaryEnd, length, INT_SUFFIXES);
+        }
+      }
+    }
+    return suffix(code, end, length, INT_SUFFIXES);
+  }
+
+  /**
+   * Decimal floating-point literal, from the first character after the dot.
+   */
+  private static int fraction(CodeReader code, int start, int length) {
+    int end = digits(code, start, length);
+    return suffix(code, exponent(code, end, length, 'e', 'E'), length, FLOAT_SUFFIXES);
+  }
+
+  /**
+   * Hexadecimal literal, from the first character after the hexadecimal digits following {@code 0x}.
+   */
+  private static int hexNumber(CodeReader code, int start, int length) {
+    if (start < length && code.charAt(start) == '.') {
+      int end = hexDigits(code, start + 1, length);
+      return suffix(code, exponent(code, end, length, 'p', 'P'), length, FLOAT_SUFFIXES);
+    }
+    int exponentEnd = exponent(code, start, length, 'p', 'P');
+    if (exponentEnd > start) {
+      return suffix(code, exponentEnd, length, FLOAT_SUFFIXES);
+    }
+    return suffix(code, start, length, INT_SUFFIXES);
+  }
+
+  /**
+   * Returns the end of the exponent starting at given position, or the given position if there is no exponent.
+   */
+  private static int exponent(CodeReader code, int start, int length, char lowerCaseIndicator, char upperCaseIndicator) {
+    if (start == length || (code.charAt(start) != lowerCaseIndicator && code.charAt(start) != upperCaseIndicator)) {
+      return start;
+    }
+    int i = start + 1;
+    if (i < length && (code.charAt(i) == '+' || code.charAt(i) == '-')) {
+      i++;
+    }
+    int end = digits(code, i, length);
+    return end > i ? end : start;
+  }
+
+  private static int suffix(CodeReader code, int start, int length, String suffixes) {
+    if (start < length && suffixes.indexOf(code.charAt(start)) >= 0) {
+      return start + 1;
+    }
+    return start;
+  }
+
+  private static int digits(CodeReader code, int start, int length) {
+    int end = start;
+    while (end < length && (isDigit(code.charAt(end)) || code.charAt(end) == '_')) {
+      end++;
+    }
+    return end;
+  }
+
+  private static int hexDigits(CodeReader code, int start, int length) {
+    int end = start;
+    while (end < length && (isHexDigit(code.charAt(end)) || code.charAt(end) == '_')) {
+      end++;
+    }
+    return end;
+  }
+
+  private static int binaryDigits(CodeReader code, int start, int length) {
+    int end = start;
+    while (end < length && (code.charAt(end) == '0' || code.charAt(end) == '1' || code.charAt(end) == '_')) {
+      end++;
+    }
+    return end;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  /**
+   * Same as {@code \s} in regular expressions.
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * Characters not matched by {@code .} in regular expressions.
+   */
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+}
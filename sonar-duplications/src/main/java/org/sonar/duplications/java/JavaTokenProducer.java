@@ -30,55 +30,20 @@ import org.sonar.duplications.token.TokenChunker;
  * because according to Java Language Specification it supposed to be used only in mechanically generated source code.
  * Thus probability to find it within a normal code should be low.
  * </p>
+ * <p>
+ * Tokens are produced by the hand-written lexer {@link JavaTokenChannel} rather than by a sequence of regular expressions,
+ * as tokenizing is a hot spot when indexing large Java projects.
+ * </p>
  */
 public final class JavaTokenProducer {
 
   private JavaTokenProducer() {
   }
 
-  private static final String NORMALIZED_CHARACTER_LITERAL = "$CHARS";
-  private static final String NORMALIZED_NUMERIC_LITERAL = "$NUMBER";
-
-  private static final String EXP = "([Ee][+-]?+[0-9_]++)";
-  private static final String BINARY_EXP = "([Pp][+-]?+[0-9_]++)";
-
-  private static final String FLOAT_SUFFIX = "[fFdD]";
-  private static final String INT_SUFFIX = "[lL]";
-
   public static TokenChunker build() {
     return TokenChunker.builder()
-        // White Space
-        .ignore("\\s")
-        // Comments
-        .ignore("//[^\\n\\r]*+")
-        .ignore("/\\*[\\s\\S]*?\\*/")
-        // String Literals
-        .token("\"([^\"\\\\]*+(\\\\[\\s\\S])?+)*+\"", NORMALIZED_CHARACTER_LITERAL)
-        // Character Literals
-        .token("'([^'\\n\\\\]*+(\\\\.)?+)*+'", NORMALIZED_CHARACTER_LITERAL)
-        // Identifiers, Keywords, Boolean Literals, The Null Literal
-        .token("\\p{javaJavaIdentifierStart}++\\p{javaJavaIdentifierPart}*+")
-        // Floating-Point Literals
-        // Decimal
-        .token("[0-9_]++\\.([0-9_]++)?+" + EXP + "?+" + FLOAT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Decimal
-        .token("\\.[0-9_]++" + EXP + "?+" + FLOAT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Decimal
-        .token("[0-9_]++" + EXP + FLOAT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Hexadecimal
-        .token("0[xX][0-9a-fA-F_]++\\.[0-9a-fA-F_]*+" + BINARY_EXP + "?+" + FLOAT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Hexadecimal
-        .token("0[xX][0-9a-fA-F_]++" + BINARY_EXP + FLOAT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Integer Literals
-        // Hexadecimal
-        .token("0[xX][0-9a-fA-F_]++" + INT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Binary (Java 7)
-        .token("0[bB][01_]++" + INT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Decimal and Octal
-        .token("[0-9_]++" + INT_SUFFIX + "?+", NORMALIZED_NUMERIC_LITERAL)
-        // Any other character
-        .token(".")
-        .build();
+      .channel(new JavaTokenChannel())
+      .build();
   }
 
 }
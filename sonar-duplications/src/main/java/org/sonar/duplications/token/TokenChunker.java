@@ -22,6 +22,7 @@ package org.sonar.duplications.token;
 import java.io.Reader;
 import java.io.StringReader;
 
+import org.sonar.channel.Channel;
 import org.sonar.channel.ChannelDispatcher;
 import org.sonar.channel.CodeReader;
 import org.sonar.duplications.DuplicationsException;
@@ -93,6 +94,14 @@ public final class TokenChunker {
       return this;
     }
 
+    /**
+     * Defines a channel, which produces tokens by itself.
+     */
+    public Builder channel(Channel<TokenQueue> channel) {
+      channelDispatcherBuilder.addChannel(channel);
+      return this;
+    }
+
     private ChannelDispatcher<TokenQueue> getChannelDispatcher() {
       return channelDispatcherBuilder.build();
     }
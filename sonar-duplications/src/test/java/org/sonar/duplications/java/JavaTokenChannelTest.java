@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonar.duplications.DuplicationsTestUtil;
+import org.sonar.duplications.token.Token;
+import org.sonar.duplications.token.TokenChunker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the tokens produced by {@link JavaTokenChannel} to the ones produced by the regular expressions
+ * it replaces.
+ */
+public class JavaTokenChannelTest {
+
+  private static final String EXP = "([Ee][+-]?+[0-9_]++)";
+  private static final String BINARY_EXP = "([Pp][+-]?+[0-9_]++)";
+  private static final String FLOAT_SUFFIX = "[fFdD]";
+  private static final String INT_SUFFIX = "[lL]";
+
+  private final TokenChunker regexChunker = TokenChunker.builder()
+    .ignore("\\s")
+    .ignore("//[^\\n\\r]*+")
+    .ignore("/\\*[\\s\\S]*?\\*/")
+    .token("\"([^\"\\\\]*+(\\\\[\\s\\S])?+)*+\"", "$CHARS")
+    .token("'([^'\\n\\\\]*+(\\\\.)?+)*+'", "$CHARS")
+    .token("\\p{javaJavaIdentifierStart}++\\p{javaJavaIdentifierPart}*+")
+    .token("[0-9_]++\\.([0-9_]++)?+" + EXP + "?+" + FLOAT_SUFFIX + "?+", "$NUMBER")
+    .token("\\.[0-9_]++" + EXP + "?+" + FLOAT_SUFFIX + "?+", "$NUMBER")
+    .token("[0-9_]++" + EXP + FLOAT_SUFFIX + "?+", "$NUMBER")
+    .token("0[xX][0-9a-fA-F_]++\\.[0-9a-fA-F_]*+" + BINARY_EXP + "?+" + FLOAT_SUFFIX + "?+", "$NUMBER")
+    .token("0[xX][0-9a-fA-F_]++" + BINARY_EXP + FLOAT_SUFFIX + "?+", "$NUMBER")
+    .token("0[xX][0-9a-fA-F_]++" + INT_SUFFIX + "?+", "$NUMBER")
+    .token("0[bB][01_]++" + INT_SUFFIX + "?+", "$NUMBER")
+    .token("[0-9_]++" + INT_SUFFIX + "?+", "$NUMBER")
+    .token(".")
+    .build();
+
+  private final TokenChunker chunker = JavaTokenProducer.build();
+
+  @Test
+  public void should_produce_same_tokens_as_regular_expressions_on_real_files() throws IOException {
+    List<File> files = new ArrayList<>();
+    files.add(DuplicationsTestUtil.findFile("/java/MessageResources.java"));
+    files.add(DuplicationsTestUtil.findFile("/java/RequestUtils.java"));
+    for (int i = 1; i <= 3; i++) {
+      File file = new File("test-resources/org/sonar/duplications/cpd/CPDTest/CPDFile" + i + ".java");
+      if (!file.exists()) {
+        file = new File("sonar-duplications/" + file.getPath());
+      }
+      files.add(file);
+    }
+
+    for (File file : files) {
+      assertSameTokens(FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void should_produce_same_tokens_as_regular_expressions_on_corner_cases() {
+    String[] sources = {
+      "", " ", "a", "/", "/*", "/*/", "/**/", "/* a */b", "// a\rb", "// a\r\nb", "a\r\nb\rc\nd", "\ta\tb",
+      "\"", "\"a", "\"a\\\"", "\"a\\\"b\"", "\"a\nb\"", "\"\\", "'", "'a", "'\\'", "'\\''", "'a\nb'", "'a\rb'", "'\\\n'",
+      "0", "0x", "0b", "0x.", "0x.p1", "0xAF.", "0xAFp", "0xAFp+", "0xAFL", "0b12", "0b1L", "00x1", "0_x1",
+      "1.", ".", "..", "._", "._a", ".e1", "1e", "1e+", "1e+1", "1.e", "1.e-2f", "1_000L", "1__.__e__d", "1fL", "1.5fx",
+      "a.b", "a1.5", "_1", "$a", "αβγ", "\uD835\uDC00bc", "a\uD835\uDC00", "\uD835", "\uDC00", "\u0085", "\u2028a\u2029",
+      "'\\\u2028'", "'\\\uD835\uDC00'", "\u0000a\u0000", "a\u200Bb", "@Override", "a->b", "a<<=b>>>=c"
+    };
+    for (String source : sources) {
+      assertSameTokens(source);
+    }
+  }
+
+  @Test
+  public void should_produce_same_tokens_as_regular_expressions_on_random_sources() {
+    String alphabet = " \t\n\r/*\"'\\.0123456789_xXbBeEpPfFdDlLaz+-$\u00e9\u0085\u2028\uD835\uDC00;";
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder source = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int j = 0; j < length; j++) {
+        source.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      assertSameTokens(source.toString());
+    }
+  }
+
+  private void assertSameTokens(String source) {
+    List<Token> expected = new ArrayList<>();
+    regexChunker.chunk(source).forEach(expected::add);
+    List<Token> actual = new ArrayList<>();
+    chunker.chunk(source).forEach(actual::add);
+
+    assertThat(actual).as(source).isEqualTo(expected);
+  }
+
+}
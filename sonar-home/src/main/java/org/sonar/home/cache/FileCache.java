@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
 import java.util.zip.GZIPInputStream;
@@ -102,6 +103,24 @@ public class FileCache {
     renameQuietly(tempFile, targetFile);
   }
 
+  /**
+   * Downloads a file and adds it to the cache, replacing the file with the same name and key if any.
+   * Contrary to {@link #get(String, String, Downloader)}, the key is not the checksum of the file but an opaque
+   * identifier of its content provided by the caller, for example an HTTP ETag, so the downloaded file is not verified.
+   */
+  public File put(String filename, String key, Downloader downloader) {
+    File targetFile = new File(hashDir(key), filename);
+    File tempFile = newTempFile();
+    download(downloader, filename, tempFile);
+    mkdirQuietly(targetFile.getParentFile());
+    try {
+      Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to move " + tempFile.getAbsolutePath() + " to " + targetFile, e);
+    }
+    return targetFile;
+  }
+
   public File getCompressed(String filename, String hash, Downloader downloader) {
     File hashDir = hashDir(hash);
     File compressedFile = new File(hashDir, filename);
@@ -113,6 +113,34 @@ public class FileCacheTest {
     assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("body");
   }
 
+  @Test
+  public void put_file_in_cache_without_verifying_its_hash() throws IOException {
+    File cachedFile = cache.put("active_rules.pb", "ETAG", (filename, toFile) -> FileUtils.write(toFile, "body"));
+
+    assertThat(cachedFile).exists().isFile().isEqualTo(new File(new File(cache.getDir(), "ETAG"), "active_rules.pb"));
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("body");
+    assertThat(cache.get("active_rules.pb", "ETAG")).isEqualTo(cachedFile);
+    verifyZeroInteractions(fileHashes);
+  }
+
+  @Test
+  public void put_replaces_file_already_in_cache() throws IOException {
+    cache.put("active_rules.pb", "ETAG", (filename, toFile) -> FileUtils.write(toFile, "old"));
+    File cachedFile = cache.put("active_rules.pb", "ETAG", (filename, toFile) -> FileUtils.write(toFile, "new"));
+
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("new");
+  }
+
+  @Test
+  public void put_fails_if_download_fails() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to download");
+
+    cache.put("active_rules.pb", "ETAG", (filename, toFile) -> {
+      throw new IOException("fail");
+    });
+  }
+
   @Test
   public void download_and_add_to_cache_compressed_file() throws IOException {
     when(fileHashes.of(any(File.class))).thenReturn("ABCDE");
@@ -19,19 +19,35 @@
  */
 package org.sonar.scanner.issue.ignore.scanner;
 
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.StringUtils;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.internal.charhandler.CharHandler;
 import org.sonar.scanner.issue.ignore.pattern.BlockIssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 
-public final class IssueExclusionsLoader {
-  private final List<java.util.regex.Pattern> allFilePatterns;
+public final class IssueExclusionsLoader implements Startable {
+  private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsLoader.class);
+  private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(\\d|k<)");
+
+  private final List<Pattern> allFilePatterns;
   private final List<DoubleRegexpMatcher> blockMatchers;
+  @CheckForNull
+  private final Pattern anyAllFilePattern;
+  @CheckForNull
+  private final Pattern anyBlockStartPattern;
+  private final Multiset<String> hitsByPattern = ConcurrentHashMultiset.create();
   private final PatternMatcher patternMatcher;
   private final IssueExclusionPatternInitializer patternsInitializer;
   private final boolean enableCharHandler;
@@ -43,16 +59,64 @@ public final class IssueExclusionsLoader {
     this.blockMatchers = new ArrayList<>();
 
     for (String pattern : patternsInitializer.getAllFilePatterns()) {
-      allFilePatterns.add(java.util.regex.Pattern.compile(pattern));
+      allFilePatterns.add(Pattern.compile(pattern));
     }
     for (BlockIssuePattern pattern : patternsInitializer.getBlockPatterns()) {
       blockMatchers.add(new DoubleRegexpMatcher(
-        java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
-        java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
+        Pattern.compile(pattern.getBeginBlockRegexp()),
+        Pattern.compile(pattern.getEndBlockRegexp())));
     }
+    this.anyAllFilePattern = union(allFilePatterns);
+    this.anyBlockStartPattern = union(blockMatchers.stream().map(DoubleRegexpMatcher::getFirstPattern).collect(Collectors.toList()));
     enableCharHandler = !allFilePatterns.isEmpty() || !blockMatchers.isEmpty();
   }
 
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    if (LOG.isDebugEnabled()) {
+      for (Pattern pattern : allFilePatterns) {
+        LOG.debug("Issue exclusion pattern '{}' matched in {} file(s)", pattern, hitsByPattern.count(pattern.pattern()));
+      }
+      for (DoubleRegexpMatcher matcher : blockMatchers) {
+        LOG.debug("Issue exclusion block start pattern '{}' matched {} time(s)", matcher.getFirstPattern(), hitsByPattern.count(matcher.getFirstPattern().pattern()));
+      }
+    }
+  }
+
+  /**
+   * Number of times the given regular expression matched, either as an "all file" pattern or as the beginning of a block.
+   */
+  int getHits(String regexp) {
+    return hitsByPattern.count(regexp);
+  }
+
+  /**
+   * Single regular expression which finds a match in a line if, and only if, at least one of the given patterns does.
+   * It allows to check lines in one pass whatever the number of patterns, the patterns themselves being
+   * evaluated only on lines that do match. Returns {@code null} when there is no need for such a pre-filter
+   * or when patterns can't be safely combined, because of back references to numbered or named groups, or because
+   * the combination does not compile, for example when several patterns define the same named group. Patterns are
+   * then evaluated one by one.
+   */
+  @CheckForNull
+  static Pattern union(List<Pattern> patterns) {
+    if (patterns.size() < 2 || patterns.stream().anyMatch(p -> p.flags() != 0 || BACK_REFERENCE.matcher(p.pattern()).find())) {
+      return null;
+    }
+    String union = patterns.stream().map(p -> "(?:" + p.pattern() + ")").collect(Collectors.joining("|"));
+    try {
+      return Pattern.compile(union);
+    } catch (PatternSyntaxException e) {
+      LOG.debug("Issue exclusion patterns can't be combined, they are evaluated one by one: {}", e.getDescription());
+      return null;
+    }
+  }
+
   public boolean shouldExecute() {
     return patternsInitializer.hasMulticriteriaPatterns();
   }
@@ -68,17 +132,18 @@ public final class IssueExclusionsLoader {
   @CheckForNull
   public CharHandler createCharHandlerFor(String componentKey) {
     if (enableCharHandler) {
-      return new IssueExclusionsRegexpScanner(componentKey, allFilePatterns, blockMatchers, patternMatcher);
+      return new IssueExclusionsRegexpScanner(componentKey, allFilePatterns, anyAllFilePattern, blockMatchers, anyBlockStartPattern,
+        patternMatcher, hitsByPattern);
     }
     return null;
   }
 
   public static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private Pattern firstPattern;
+    private Pattern secondPattern;
 
-    DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
+    DoubleRegexpMatcher(Pattern firstPattern, Pattern secondPattern) {
       this.firstPattern = firstPattern;
       this.secondPattern = secondPattern;
     }
@@ -94,6 +159,10 @@ public final class IssueExclusionsLoader {
     boolean hasSecondPattern() {
       return StringUtils.isNotEmpty(secondPattern.toString());
     }
+
+    Pattern getFirstPattern() {
+      return firstPattern;
+    }
   }
 
   @Override
@@ -19,11 +19,14 @@
  */
 package org.sonar.scanner.issue.ignore.scanner;
 
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,20 +40,36 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
 
   private final StringBuilder sb = new StringBuilder();
   private final List<Pattern> allFilePatterns;
+  private final Pattern anyAllFilePattern;
   private final List<DoubleRegexpMatcher> blockMatchers;
+  private final Pattern anyBlockStartPattern;
   private final String componentKey;
   private final PatternMatcher patternMatcher;
+  private final Multiset<String> hitsByPattern;
 
   private int lineIndex = 1;
   private List<LineExclusion> lineExclusions = new ArrayList<>();
   private LineExclusion currentLineExclusion = null;
   private int fileLength = 0;
   private DoubleRegexpMatcher currentMatcher;
+  private boolean fileExcluded = false;
 
   IssueExclusionsRegexpScanner(String componentKey, List<Pattern> allFilePatterns, List<DoubleRegexpMatcher> blockMatchers, PatternMatcher patternMatcher) {
+    this(componentKey, allFilePatterns, null, blockMatchers, null, patternMatcher, ConcurrentHashMultiset.create());
+  }
+
+  /**
+   * @param anyAllFilePattern optional pre-filter matching a line if, and only if, one of {@code allFilePatterns} does
+   * @param anyBlockStartPattern optional pre-filter matching a line if, and only if, the first pattern of one of {@code blockMatchers} does
+   */
+  IssueExclusionsRegexpScanner(String componentKey, List<Pattern> allFilePatterns, @Nullable Pattern anyAllFilePattern, List<DoubleRegexpMatcher> blockMatchers,
+    @Nullable Pattern anyBlockStartPattern, PatternMatcher patternMatcher, Multiset<String> hitsByPattern) {
     this.allFilePatterns = allFilePatterns;
+    this.anyAllFilePattern = anyAllFilePattern;
     this.blockMatchers = blockMatchers;
+    this.anyBlockStartPattern = anyBlockStartPattern;
     this.patternMatcher = patternMatcher;
+    this.hitsByPattern = hitsByPattern;
     this.componentKey = componentKey;
     String relativePath = StringUtils.substringAfterLast(componentKey, ":");
     LOG.info("'{}' generating issue exclusions", relativePath);
@@ -58,7 +77,9 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
 
   @Override
   public void handleIgnoreEoL(char c) {
-    sb.append(c);
+    if (!fileExcluded) {
+      sb.append(c);
+    }
   }
 
   @Override
@@ -71,6 +92,10 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   @Override
   public void eof() {
     processLine(sb.toString());
+    if (fileExcluded) {
+      // every issue of the file is ignored, line exclusions are useless
+      return;
+    }
 
     if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
       // this will happen when there is a start block regexp but no end block regexp
@@ -87,17 +112,21 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   }
 
   private void processLine(String line) {
-    if (line.trim().length() == 0) {
+    if (fileExcluded || isBlank(line)) {
       return;
     }
 
     // first check the single regexp patterns that can be used to totally exclude a file
-    for (Pattern pattern : allFilePatterns) {
-      if (pattern.matcher(line).find()) {
-        patternMatcher.addPatternToExcludeResource(componentKey);
-        // nothing more to do on this file
-        LOG.debug("- Exclusion pattern '{}': every issue in this file will be ignored.", pattern);
-        return;
+    if (anyAllFilePattern == null || anyAllFilePattern.matcher(line).find()) {
+      for (Pattern pattern : allFilePatterns) {
+        if (pattern.matcher(line).find()) {
+          patternMatcher.addPatternToExcludeResource(componentKey);
+          hitsByPattern.add(pattern.pattern());
+          // nothing more to do on this file
+          fileExcluded = true;
+          LOG.debug("- Exclusion pattern '{}': every issue in this file will be ignored.", pattern);
+          return;
+        }
       }
     }
 
@@ -105,6 +134,15 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     checkDoubleRegexps(line, lineIndex);
   }
 
+  private static boolean isBlank(String line) {
+    for (int i = 0; i < line.length(); i++) {
+      if (line.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Set<LineRange> convertLineExclusionsToLineRanges() {
     Set<LineRange> lineRanges = new HashSet<>(lineExclusions.size());
     for (LineExclusion lineExclusion : lineExclusions) {
@@ -115,10 +153,14 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
 
   private void checkDoubleRegexps(String line, int lineIndex) {
     if (currentMatcher == null) {
+      if (anyBlockStartPattern != null && !anyBlockStartPattern.matcher(line).find()) {
+        return;
+      }
       for (DoubleRegexpMatcher matcher : blockMatchers) {
         if (matcher.matchesFirstPattern(line)) {
           startExclusion(lineIndex);
           currentMatcher = matcher;
+          hitsByPattern.add(matcher.getFirstPattern().pattern());
           break;
         }
       }
@@ -19,81 +19,65 @@
  */
 package org.sonar.scanner.report;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import javax.annotation.Nonnull;
-import org.apache.commons.lang.StringUtils;
+import java.util.ArrayList;
+import java.util.List;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
-import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
-import org.sonar.api.measures.CoreMetrics;
-import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.scanner.protocol.output.ScannerReport.LineCoverage;
-import org.sonar.scanner.protocol.output.ScannerReport.LineCoverage.Builder;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
-import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.scan.measure.FileLineCoverage;
+import org.sonar.scanner.scan.measure.LineCoverageCache;
 
 public class CoveragePublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentStore;
-  private final MeasureCache measureCache;
+  private final LineCoverageCache lineCoverageCache;
 
-  public CoveragePublisher(InputComponentStore componentStore, MeasureCache measureCache) {
+  public CoveragePublisher(InputComponentStore componentStore, LineCoverageCache lineCoverageCache) {
     this.componentStore = componentStore;
-    this.measureCache = measureCache;
+    this.lineCoverageCache = lineCoverageCache;
   }
 
   @Override
   public void publish(ScannerReportWriter writer) {
+    LineCoverage.Builder builder = LineCoverage.newBuilder();
     for (final DefaultInputFile inputFile : componentStore.allFilesToPublish()) {
-      Map<Integer, LineCoverage.Builder> coveragePerLine = new LinkedHashMap<>();
-
-      int lineCount = inputFile.lines();
-      applyLineMeasure(inputFile.key(), lineCount, CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY, coveragePerLine,
-        (value, builder) -> builder.setHits(Integer.parseInt(value) > 0));
-      applyLineMeasure(inputFile.key(), lineCount, CoreMetrics.CONDITIONS_BY_LINE_KEY, coveragePerLine,
-        (value, builder) -> builder.setConditions(Integer.parseInt(value)));
-      applyLineMeasure(inputFile.key(), lineCount, CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY, coveragePerLine,
-        (value, builder) -> builder.setCoveredConditions(Integer.parseInt(value)));
-      writer.writeComponentCoverage(inputFile.batchId(), Iterables.transform(coveragePerLine.values(), BuildCoverage.INSTANCE));
-    }
-  }
-
-  void applyLineMeasure(String inputFileKey, int lineCount, String metricKey, Map<Integer, LineCoverage.Builder> coveragePerLine, MeasureOperation op) {
-    DefaultMeasure<?> measure = measureCache.byMetric(inputFileKey, metricKey);
-    if (measure != null) {
-      Map<Integer, String> lineMeasures = KeyValueFormat.parseIntString((String) measure.value());
-      for (Map.Entry<Integer, String> lineMeasure : lineMeasures.entrySet()) {
-        int lineIdx = lineMeasure.getKey();
-        if (lineIdx <= lineCount) {
-          String value = lineMeasure.getValue();
-          if (StringUtils.isNotEmpty(value)) {
-            LineCoverage.Builder coverageBuilder = coveragePerLine.get(lineIdx);
-            if (coverageBuilder == null) {
-              coverageBuilder = LineCoverage.newBuilder();
-              coverageBuilder.setLine(lineIdx);
-              coveragePerLine.put(lineIdx, coverageBuilder);
-            }
-            op.apply(value, coverageBuilder);
+      FileLineCoverage coverage = lineCoverageCache.byFileKey(inputFile.key());
+      List<LineCoverage> coveragePerLine = new ArrayList<>();
+      if (coverage != null) {
+        int maxLine = Math.min(inputFile.lines(), coverage.maxLine());
+        for (int line = 1; line <= maxLine; line++) {
+          if (toLineCoverage(coverage, line, builder)) {
+            coveragePerLine.add(builder.build());
           }
         }
       }
+      writer.writeComponentCoverage(inputFile.batchId(), coveragePerLine);
     }
   }
 
-  interface MeasureOperation {
-    void apply(String value, LineCoverage.Builder builder);
-  }
-
-  private enum BuildCoverage implements Function<LineCoverage.Builder, LineCoverage> {
-    INSTANCE;
-
-    @Override
-    public LineCoverage apply(@Nonnull Builder input) {
-      return input.build();
+  private static boolean toLineCoverage(FileLineCoverage coverage, int line, LineCoverage.Builder builder) {
+    builder.clear();
+    boolean hasValue = false;
+    int hits = coverage.hits(line);
+    if (hits != FileLineCoverage.NO_VALUE) {
+      builder.setHits(hits > 0);
+      hasValue = true;
+    }
+    int conditions = coverage.conditions(line);
+    if (conditions != FileLineCoverage.NO_VALUE) {
+      builder.setConditions(conditions);
+      hasValue = true;
+    }
+    int coveredConditions = coverage.coveredConditions(line);
+    if (coveredConditions != FileLineCoverage.NO_VALUE) {
+      builder.setCoveredConditions(coveredConditions);
+      hasValue = true;
+    }
+    if (hasValue) {
+      builder.setLine(line);
     }
+    return hasValue;
   }
 
 }
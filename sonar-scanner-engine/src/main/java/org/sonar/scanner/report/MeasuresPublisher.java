@@ -21,8 +21,6 @@ package org.sonar.scanner.report;
 
 import com.google.common.collect.Iterables;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.sonar.api.batch.fs.InputComponent;
@@ -35,7 +33,6 @@ import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.test.MutableTestPlan;
 import org.sonar.api.test.TestCase.Status;
-import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.scanner.deprecated.test.TestPlanBuilder;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.BoolValue;
@@ -45,10 +42,15 @@ import org.sonar.scanner.protocol.output.ScannerReport.Measure.LongValue;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
+import org.sonar.scanner.scan.measure.FileLineCoverage;
+import org.sonar.scanner.scan.measure.LineCoverageCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
+import static org.sonar.api.measures.CoreMetrics.CONDITIONS_BY_LINE;
 import static org.sonar.api.measures.CoreMetrics.CONDITIONS_TO_COVER;
 import static org.sonar.api.measures.CoreMetrics.CONDITIONS_TO_COVER_KEY;
+import static org.sonar.api.measures.CoreMetrics.COVERAGE_LINE_HITS_DATA;
+import static org.sonar.api.measures.CoreMetrics.COVERED_CONDITIONS_BY_LINE;
 import static org.sonar.api.measures.CoreMetrics.LINES_TO_COVER;
 import static org.sonar.api.measures.CoreMetrics.LINES_TO_COVER_KEY;
 import static org.sonar.api.measures.CoreMetrics.SKIPPED_TESTS;
@@ -70,11 +72,13 @@ public class MeasuresPublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentStore;
   private final MeasureCache measureCache;
+  private final LineCoverageCache lineCoverageCache;
   private final TestPlanBuilder testPlanBuilder;
 
-  public MeasuresPublisher(InputComponentStore componentStore, MeasureCache measureCache, TestPlanBuilder testPlanBuilder) {
+  public MeasuresPublisher(InputComponentStore componentStore, MeasureCache measureCache, LineCoverageCache lineCoverageCache, TestPlanBuilder testPlanBuilder) {
     this.componentStore = componentStore;
     this.measureCache = measureCache;
+    this.lineCoverageCache = lineCoverageCache;
     this.testPlanBuilder = testPlanBuilder;
   }
 
@@ -145,36 +149,37 @@ public class MeasuresPublisher implements ReportPublisherStep {
   }
 
   private void updateCoverageFromLineData(final InputFile inputFile) {
+    FileLineCoverage coverage = lineCoverageCache.byFileKey(inputFile.key());
+    if (coverage == null) {
+      return;
+    }
+    // line data is kept in memory during the whole analysis and serialized only once, here
+    if (coverage.hasHits()) {
+      putData(inputFile, COVERAGE_LINE_HITS_DATA, coverage.hitsData());
+    }
+    if (coverage.hasConditions()) {
+      putData(inputFile, CONDITIONS_BY_LINE, coverage.conditionsData());
+    }
+    if (coverage.hasCoveredConditions()) {
+      putData(inputFile, COVERED_CONDITIONS_BY_LINE, coverage.coveredConditionsData());
+    }
+
     if (inputFile.type() != Type.MAIN) {
       return;
     }
-    DefaultMeasure<String> lineHitsMeasure = (DefaultMeasure<String>) measureCache.byMetric(inputFile.key(), CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY);
-    if (lineHitsMeasure != null) {
-      Map<Integer, Integer> lineHits = KeyValueFormat.parseIntInt(lineHitsMeasure.value());
-      measureCache.put(inputFile.key(), LINES_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(lineHits.keySet().size()));
-      measureCache.put(inputFile.key(), UNCOVERED_LINES_KEY,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_LINES).withValue((int) lineHits.values()
-          .stream()
-          .filter(hit -> hit == 0)
-          .count()));
+    if (coverage.hasHits()) {
+      measureCache.put(inputFile.key(), LINES_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(coverage.linesToCover()));
+      measureCache.put(inputFile.key(), UNCOVERED_LINES_KEY, new DefaultMeasure<Integer>().forMetric(UNCOVERED_LINES).withValue(coverage.uncoveredLines()));
     }
-    DefaultMeasure<String> conditionsMeasure = (DefaultMeasure<String>) measureCache.byMetric(inputFile.key(), CoreMetrics.CONDITIONS_BY_LINE_KEY);
-    DefaultMeasure<String> coveredConditionsMeasure = (DefaultMeasure<String>) measureCache.byMetric(inputFile.key(), CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY);
-    if (conditionsMeasure != null) {
-      Map<Integer, Integer> conditions = KeyValueFormat.parseIntInt(conditionsMeasure.value());
-      Map<Integer, Integer> coveredConditions = coveredConditionsMeasure != null ? KeyValueFormat.parseIntInt(coveredConditionsMeasure.value()) : Collections.emptyMap();
-      measureCache.put(inputFile.key(), CONDITIONS_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(CONDITIONS_TO_COVER).withValue(conditions
-        .values()
-        .stream()
-        .mapToInt(Integer::intValue)
-        .sum()));
+    if (coverage.hasConditions()) {
+      measureCache.put(inputFile.key(), CONDITIONS_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(CONDITIONS_TO_COVER).withValue(coverage.conditionsToCover()));
       measureCache.put(inputFile.key(), UNCOVERED_CONDITIONS_KEY,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_CONDITIONS)
-          .withValue((int) conditions.keySet()
-            .stream()
-            .mapToInt(line -> conditions.get(line) - coveredConditions.get(line))
-            .sum()));
+        new DefaultMeasure<Integer>().forMetric(UNCOVERED_CONDITIONS).withValue(coverage.uncoveredConditions()));
     }
   }
 
+  private void putData(InputFile inputFile, Metric<String> metric, String data) {
+    measureCache.put(inputFile.key(), metric.key(), new DefaultMeasure<String>().forMetric(metric).withValue(data));
+  }
+
 }
@@ -27,6 +27,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.scanner.analysis.AnalysisProperties;
+import org.sonar.scanner.rule.ActiveRulesPrefetcher;
 import org.sonar.scanner.rule.ModuleQProfiles;
 import org.sonarqube.ws.Qualityprofiles.SearchWsResponse.QualityProfile;
 
@@ -35,14 +36,16 @@ public class QualityProfileProvider extends ProviderAdapter {
   private static final String LOG_MSG = "Load quality profiles";
   private ModuleQProfiles profiles = null;
 
-  public ModuleQProfiles provide(ProjectKey projectKey, QualityProfileLoader loader, ProjectRepositories projectRepositories, AnalysisProperties props) {
+  public ModuleQProfiles provide(ProjectKey projectKey, QualityProfileLoader loader, ProjectRepositories projectRepositories, AnalysisProperties props,
+    ActiveRulesPrefetcher prefetcher) {
     if (this.profiles == null) {
       List<QualityProfile> profileList;
       Profiler profiler = Profiler.create(LOG).startInfo(LOG_MSG);
+      String profileName = getSonarProfile(props);
       if (!projectRepositories.exists()) {
-        profileList = loader.loadDefault(getSonarProfile(props));
+        profileList = loader.loadDefault(profileName);
       } else {
-        profileList = loader.load(projectKey.get(), getSonarProfile(props));
+        profileList = prefetcher.qualityProfiles().orElseGet(() -> loader.load(projectKey.get(), profileName));
       }
       profiler.stopInfo();
       profiles = new ModuleQProfiles(profileList);
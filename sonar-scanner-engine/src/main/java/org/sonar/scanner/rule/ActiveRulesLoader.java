@@ -19,8 +19,9 @@
  */
 package org.sonar.scanner.rule;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ActiveRulesLoader {
-  List<LoadedActiveRule> load(String qualityProfileKey);
+  List<LoadedActiveRule> load(Collection<QProfile> qualityProfiles);
 }
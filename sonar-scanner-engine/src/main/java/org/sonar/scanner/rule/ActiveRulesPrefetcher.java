@@ -0,0 +1,145 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.rule;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.batch.bootstrap.ProjectKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.analysis.AnalysisProperties;
+import org.sonar.scanner.repository.ProjectRepositoriesProvider;
+import org.sonar.scanner.repository.QualityProfileLoader;
+import org.sonar.scanner.repository.QualityProfileProvider;
+import org.sonarqube.ws.Qualityprofiles.SearchWsResponse.QualityProfile;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Loads in background the quality profiles of the project and their active rules, concurrently with the project
+ * repositories (see {@link ProjectRepositoriesProvider}).
+ * <p>
+ * The profiles of a project which does not exist yet on server are the default ones, which is known only once project
+ * repositories are loaded. The prefetch assumes that the project exists, which is the case of all its analyses but the
+ * first one. Otherwise, or if the prefetch fails, {@link QualityProfileProvider} and {@link ActiveRulesProvider} load
+ * profiles and active rules as usual.
+ * </p>
+ */
+public class ActiveRulesPrefetcher implements Startable {
+  private static final Logger LOG = Loggers.get(ActiveRulesPrefetcher.class);
+
+  private final ProjectKey projectKey;
+  private final QualityProfileLoader qualityProfileLoader;
+  private final ActiveRulesLoader activeRulesLoader;
+  private final AnalysisProperties props;
+
+  @CheckForNull
+  private ExecutorService executorService;
+  @CheckForNull
+  private Future<Result> future;
+
+  public ActiveRulesPrefetcher(ProjectKey projectKey, QualityProfileLoader qualityProfileLoader, ActiveRulesLoader activeRulesLoader, AnalysisProperties props) {
+    this.projectKey = projectKey;
+    this.qualityProfileLoader = qualityProfileLoader;
+    this.activeRulesLoader = activeRulesLoader;
+    this.props = props;
+  }
+
+  public void prefetch() {
+    if (executorService != null) {
+      return;
+    }
+    String key = projectKey.get();
+    String profileName = props.property(ModuleQProfiles.SONAR_PROFILE_PROP);
+    executorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("ActiveRulesPrefetch-%d")
+      .build());
+    future = executorService.submit(() -> {
+      List<QualityProfile> profiles = qualityProfileLoader.load(key, profileName);
+      return new Result(profiles, activeRulesLoader.load(new ModuleQProfiles(profiles).findAll()));
+    });
+  }
+
+  /**
+   * Quality profiles of the project, waiting for the end of the prefetch if needed. Empty if prefetch has not been
+   * requested or if it failed.
+   */
+  public Optional<List<QualityProfile>> qualityProfiles() {
+    return getResult().map(r -> r.profiles);
+  }
+
+  /**
+   * Active rules of the given profiles, if they are the prefetched ones.
+   */
+  public Optional<List<LoadedActiveRule>> activeRules(Collection<QProfile> profiles) {
+    Set<String> keys = profiles.stream().map(QProfile::getKey).collect(toSet());
+    return getResult()
+      .filter(r -> r.profiles.stream().map(QualityProfile::getKey).collect(toSet()).equals(keys))
+      .map(r -> r.activeRules);
+  }
+
+  private Optional<Result> getResult() {
+    if (future == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(future.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Optional.empty();
+    } catch (ExecutionException e) {
+      // project may not exist yet, profiles and active rules are loaded again as usual
+      LOG.debug("Prefetch of active rules failed: {}", e.getCause().getMessage());
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void start() {
+    // prefetch is requested explicitly, before the project repositories are loaded
+  }
+
+  @Override
+  public void stop() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static class Result {
+    private final List<QualityProfile> profiles;
+    private final List<LoadedActiveRule> activeRules;
+
+    private Result(List<QualityProfile> profiles, List<LoadedActiveRule> activeRules) {
+      this.profiles = profiles;
+      this.activeRules = activeRules;
+    }
+  }
+}
@@ -19,7 +19,6 @@
  */
 package org.sonar.scanner.rule;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -42,29 +41,21 @@ public class ActiveRulesProvider extends ProviderAdapter {
   private static final String LOG_MSG = "Load active rules";
   private ActiveRules singleton = null;
 
-  public ActiveRules provide(ActiveRulesLoader loader, ModuleQProfiles qProfiles) {
+  public ActiveRules provide(ActiveRulesLoader loader, ModuleQProfiles qProfiles, ActiveRulesPrefetcher prefetcher) {
     if (singleton == null) {
       Profiler profiler = Profiler.create(LOG).startInfo(LOG_MSG);
-      singleton = load(loader, qProfiles);
+      singleton = load(loader, qProfiles, prefetcher);
       profiler.stopInfo();
     }
     return singleton;
   }
 
-  private static ActiveRules load(ActiveRulesLoader loader, ModuleQProfiles qProfiles) {
-
-    Collection<String> qProfileKeys = getKeys(qProfiles);
+  private static ActiveRules load(ActiveRulesLoader loader, ModuleQProfiles qProfiles, ActiveRulesPrefetcher prefetcher) {
+    Collection<QProfile> profiles = qProfiles.findAll();
+    List<LoadedActiveRule> loadedRules = prefetcher.activeRules(profiles).orElseGet(() -> loader.load(profiles));
     Map<RuleKey, LoadedActiveRule> loadedRulesByKey = new HashMap<>();
-
-    for (String qProfileKey : qProfileKeys) {
-      Collection<LoadedActiveRule> qProfileRules;
-      qProfileRules = load(loader, qProfileKey);
-
-      for (LoadedActiveRule r : qProfileRules) {
-        if (!loadedRulesByKey.containsKey(r.getRuleKey())) {
-          loadedRulesByKey.put(r.getRuleKey(), r);
-        }
-      }
+    for (LoadedActiveRule r : loadedRules) {
+      loadedRulesByKey.putIfAbsent(r.getRuleKey(), r);
     }
 
     return transform(loadedRulesByKey.values());
@@ -93,18 +84,4 @@ public class ActiveRulesProvider extends ProviderAdapter {
     }
     return builder.build();
   }
-
-  private static List<LoadedActiveRule> load(ActiveRulesLoader loader, String qProfileKey) {
-    return loader.load(qProfileKey);
-  }
-
-  private static Collection<String> getKeys(ModuleQProfiles qProfiles) {
-    List<String> keys = new ArrayList<>(qProfiles.findAll().size());
-
-    for (QProfile qp : qProfiles.findAll()) {
-      keys.add(qp.getKey());
-    }
-
-    return keys;
-  }
 }
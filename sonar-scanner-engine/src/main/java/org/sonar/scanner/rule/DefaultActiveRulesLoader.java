@@ -19,115 +19,111 @@
  */
 package org.sonar.scanner.rule;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.protocol.input.ActiveRulesETag;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerActiveRule;
 import org.sonar.scanner.util.ScannerUtils;
-import org.sonarqube.ws.Rules;
-import org.sonarqube.ws.Rules.Active;
-import org.sonarqube.ws.Rules.Active.Param;
-import org.sonarqube.ws.Rules.ActiveList;
-import org.sonarqube.ws.Rules.Rule;
-import org.sonarqube.ws.Rules.SearchResponse;
 import org.sonarqube.ws.client.GetRequest;
-
-import static org.sonar.api.utils.DateUtils.dateToLong;
-import static org.sonar.api.utils.DateUtils.parseDateTime;
-
+import org.sonarqube.ws.client.WsResponse;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Loads the active rules of all the quality profiles with a single call to the web service api/batch/active_rules.
+ * <p>
+ * The response is kept in the user cache (see {@link FileCache}), indexed by the keys of the profiles. When the cache
+ * already contains it, the call is conditional: its ETag, the hash of its content (see {@link ActiveRulesETag}), is
+ * sent to the server, which returns the active rules again only if they changed.
+ * </p>
+ */
 public class DefaultActiveRulesLoader implements ActiveRulesLoader {
-  private static final String RULES_SEARCH_URL = "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives,createdAt&activation=true";
+  private static final Logger LOG = Loggers.get(DefaultActiveRulesLoader.class);
+  private static final String ACTIVE_RULES_URL = "/batch/active_rules.protobuf?qprofiles=";
+  static final String CACHE_FILENAME = "active_rules.pb";
 
   private final ScannerWsClient wsClient;
+  private final FileCache fileCache;
 
-  public DefaultActiveRulesLoader(ScannerWsClient wsClient) {
+  public DefaultActiveRulesLoader(ScannerWsClient wsClient, FileCache fileCache) {
     this.wsClient = wsClient;
+    this.fileCache = fileCache;
   }
 
   @Override
-  public List<LoadedActiveRule> load(String qualityProfileKey) {
-    List<LoadedActiveRule> ruleList = new LinkedList<>();
-    int page = 1;
-    int pageSize = 500;
-    int loaded = 0;
-
-    while (true) {
-      GetRequest getRequest = new GetRequest(getUrl(qualityProfileKey, page, pageSize));
-      SearchResponse response = loadFromStream(wsClient.call(getRequest).contentStream());
-      List<LoadedActiveRule> pageRules = readPage(response);
-      ruleList.addAll(pageRules);
-      loaded += response.getPs();
-
-      if (response.getTotal() <= loaded) {
-        break;
-      }
-      page++;
+  public List<LoadedActiveRule> load(Collection<QProfile> qualityProfiles) {
+    if (qualityProfiles.isEmpty()) {
+      return Collections.emptyList();
     }
+    String profileKeys = qualityProfiles.stream().map(qp -> ScannerUtils.encodeForUrl(qp.getKey())).sorted().collect(joining(","));
+    String cacheKey = DigestUtils.md5Hex(profileKeys);
 
-    return ruleList;
-  }
-
-  private static String getUrl(String qualityProfileKey, int page, int pageSize) {
-    StringBuilder builder = new StringBuilder(1024);
-    builder.append(RULES_SEARCH_URL);
-    builder.append("&qprofile=").append(ScannerUtils.encodeForUrl(qualityProfileKey));
-    builder.append("&p=").append(page);
-    builder.append("&ps=").append(pageSize);
-    return builder.toString();
+    GetRequest request = new GetRequest(ACTIVE_RULES_URL + profileKeys);
+    File cachedFile = fileCache.get(CACHE_FILENAME, cacheKey);
+    if (cachedFile != null) {
+      request.setHeader("If-None-Match", etagOf(cachedFile));
+    }
+    WsResponse response = wsClient.call(request);
+    if (cachedFile != null && response.code() == HTTP_NOT_MODIFIED) {
+      response.close();
+      LOG.debug("Active rules are loaded from cache");
+      return readFile(cachedFile);
+    }
+    File file = fileCache.put(CACHE_FILENAME, cacheKey, (filename, toFile) -> {
+      try (InputStream is = response.contentStream()) {
+        FileUtils.copyInputStreamToFile(is, toFile);
+      }
+    });
+    return readFile(file);
   }
 
-  private static SearchResponse loadFromStream(InputStream is) {
-    try {
-      return SearchResponse.parseFrom(is);
+  private static String etagOf(File cachedFile) {
+    try (InputStream is = Files.newInputStream(cachedFile.toPath())) {
+      return ActiveRulesETag.of(is);
     } catch (IOException e) {
-      throw new IllegalStateException("Failed to load quality profiles", e);
-    } finally {
-      IOUtils.closeQuietly(is);
+      throw new IllegalStateException("Failed to read cached active rules", e);
     }
   }
 
-  private static List<LoadedActiveRule> readPage(SearchResponse response) {
-    List<LoadedActiveRule> loadedRules = new LinkedList<>();
-
-    List<Rule> rulesList = response.getRulesList();
-    Map<String, ActiveList> actives = response.getActives().getActives();
-
-    for (Rule r : rulesList) {
-      ActiveList activeList = actives.get(r.getKey());
-      Active active = activeList.getActiveList(0);
-
-      LoadedActiveRule loadedRule = new LoadedActiveRule();
-
-      loadedRule.setRuleKey(RuleKey.parse(r.getKey()));
-      loadedRule.setName(r.getName());
-      loadedRule.setSeverity(active.getSeverity());
-      loadedRule.setCreatedAt(dateToLong(parseDateTime(active.getCreatedAt())));
-      loadedRule.setLanguage(r.getLang());
-      loadedRule.setInternalKey(r.getInternalKey());
-      if (r.hasTemplateKey()) {
-        RuleKey templateRuleKey = RuleKey.parse(r.getTemplateKey());
-        loadedRule.setTemplateRuleKey(templateRuleKey.rule());
-      }
-
-      Map<String, String> params = new HashMap<>();
-
-      for (Rules.Rule.Param param : r.getParams().getParamsList()) {
-        params.put(param.getKey(), param.getDefaultValue());
+  private static List<LoadedActiveRule> readFile(File file) {
+    List<LoadedActiveRule> loadedRules = new ArrayList<>();
+    try (InputStream is = Files.newInputStream(file.toPath())) {
+      ServerActiveRule rule = ServerActiveRule.parseDelimitedFrom(is);
+      while (rule != null) {
+        loadedRules.add(toLoadedActiveRule(rule));
+        rule = ServerActiveRule.parseDelimitedFrom(is);
       }
-
-      // overrides defaultValue if the key is the same
-      for (Param param : active.getParamsList()) {
-        params.put(param.getKey(), param.getValue());
-      }
-      loadedRule.setParams(params);
-      loadedRules.add(loadedRule);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to load active rules", e);
     }
-
     return loadedRules;
   }
+
+  private static LoadedActiveRule toLoadedActiveRule(ServerActiveRule rule) {
+    LoadedActiveRule loadedRule = new LoadedActiveRule();
+    loadedRule.setRuleKey(RuleKey.of(rule.getRuleRepository(), rule.getRuleKey()));
+    loadedRule.setName(rule.getName());
+    loadedRule.setSeverity(rule.getSeverity().name());
+    loadedRule.setCreatedAt(rule.getCreatedAt());
+    loadedRule.setLanguage(rule.getLanguage());
+    loadedRule.setInternalKey(rule.hasInternalKey() ? rule.getInternalKey() : null);
+    loadedRule.setTemplateRuleKey(rule.hasTemplateRuleKey() ? rule.getTemplateRuleKey() : null);
+    loadedRule.setParams(new HashMap<>(rule.getParamsByKey()));
+    return loadedRule;
+  }
 }
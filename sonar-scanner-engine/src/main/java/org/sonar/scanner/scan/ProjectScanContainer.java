@@ -82,6 +82,7 @@ import org.sonar.scanner.repository.QualityProfileProvider;
 import org.sonar.scanner.repository.ServerIssuesLoader;
 import org.sonar.scanner.repository.language.DefaultLanguagesRepository;
 import org.sonar.scanner.rule.ActiveRulesLoader;
+import org.sonar.scanner.rule.ActiveRulesPrefetcher;
 import org.sonar.scanner.rule.ActiveRulesProvider;
 import org.sonar.scanner.rule.DefaultActiveRulesLoader;
 import org.sonar.scanner.rule.DefaultRulesLoader;
@@ -96,6 +97,7 @@ import org.sonar.scanner.scan.filesystem.InputComponentStoreProvider;
 import org.sonar.scanner.scan.filesystem.StatusDetection;
 import org.sonar.scanner.scan.measure.DefaultMetricFinder;
 import org.sonar.scanner.scan.measure.DeprecatedMetricFinder;
+import org.sonar.scanner.scan.measure.LineCoverageCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
 import org.sonar.scanner.scm.ScmChangedFilesProvider;
 import org.sonar.scanner.storage.Storages;
@@ -118,6 +120,8 @@ public class ProjectScanContainer extends ComponentContainer {
     ProjectLock lock = getComponentByType(ProjectLock.class);
     lock.tryLock();
     getComponentByType(WorkDirectoriesInitializer.class).execute();
+    // loaded concurrently with project repositories, which are required below
+    getComponentByType(ActiveRulesPrefetcher.class).prefetch();
     Settings settings = getComponentByType(Settings.class);
     if (settings != null && settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
       add(PhasesSumUpTimeProfiler.class);
@@ -165,6 +169,7 @@ public class ProjectScanContainer extends ComponentContainer {
       // rules
       new ActiveRulesProvider(),
       new QualityProfileProvider(),
+      ActiveRulesPrefetcher.class,
 
       // issues
       IssueCache.class,
@@ -185,6 +190,7 @@ public class ProjectScanContainer extends ComponentContainer {
 
       // Measures
       MeasureCache.class,
+      LineCoverageCache.class,
 
       // context
       ContextPropertiesCache.class,
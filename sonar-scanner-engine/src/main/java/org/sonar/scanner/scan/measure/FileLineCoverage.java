@@ -0,0 +1,194 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.measure;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Line coverage of a file, merged in place from all the coverage reports imported by sensors.
+ * Values are indexed by line number, {@link #NO_VALUE} meaning that the line has no value.
+ */
+public class FileLineCoverage {
+
+  public static final int NO_VALUE = -1;
+  private static final int[] EMPTY = new int[0];
+
+  private int[] hits = EMPTY;
+  private int[] conditions = EMPTY;
+  private int[] coveredConditions = EMPTY;
+
+  private final int lines;
+
+  public FileLineCoverage(int lines) {
+    this.lines = lines;
+  }
+
+  /**
+   * Hits are summed with the ones previously added on the same line.
+   */
+  public FileLineCoverage addHits(int line, int lineHits) {
+    hits = ensureCapacity(hits, line);
+    hits[line] = hits[line] == NO_VALUE ? lineHits : (hits[line] + lineHits);
+    return this;
+  }
+
+  /**
+   * Keeps the max of the conditions previously added on the same line.
+   */
+  public FileLineCoverage addConditions(int line, int lineConditions) {
+    conditions = ensureCapacity(conditions, line);
+    conditions[line] = Math.max(conditions[line], lineConditions);
+    return this;
+  }
+
+  /**
+   * Keeps the max of the covered conditions previously added on the same line.
+   */
+  public FileLineCoverage addCoveredConditions(int line, int lineCoveredConditions) {
+    coveredConditions = ensureCapacity(coveredConditions, line);
+    coveredConditions[line] = Math.max(coveredConditions[line], lineCoveredConditions);
+    return this;
+  }
+
+  private int[] ensureCapacity(int[] values, int line) {
+    if (line < values.length) {
+      return values;
+    }
+    int[] result = Arrays.copyOf(values, Math.max(line, lines) + 1);
+    Arrays.fill(result, values.length, result.length, NO_VALUE);
+    return result;
+  }
+
+  /**
+   * @return {@link #NO_VALUE} if line has no hits
+   */
+  public int hits(int line) {
+    return valueAt(hits, line);
+  }
+
+  /**
+   * @return {@link #NO_VALUE} if line has no conditions
+   */
+  public int conditions(int line) {
+    return valueAt(conditions, line);
+  }
+
+  /**
+   * @return {@link #NO_VALUE} if line has no covered conditions
+   */
+  public int coveredConditions(int line) {
+    return valueAt(coveredConditions, line);
+  }
+
+  private static int valueAt(int[] values, int line) {
+    return line < values.length ? values[line] : NO_VALUE;
+  }
+
+  /**
+   * Greatest line number which may have a value
+   */
+  public int maxLine() {
+    return Math.max(hits.length, Math.max(conditions.length, coveredConditions.length)) - 1;
+  }
+
+  public boolean hasHits() {
+    return hasValue(hits);
+  }
+
+  public boolean hasConditions() {
+    return hasValue(conditions);
+  }
+
+  public boolean hasCoveredConditions() {
+    return hasValue(coveredConditions);
+  }
+
+  public int linesToCover() {
+    return count(hits, v -> v != NO_VALUE);
+  }
+
+  public int uncoveredLines() {
+    return count(hits, v -> v == 0);
+  }
+
+  public int conditionsToCover() {
+    int sum = 0;
+    for (int value : conditions) {
+      if (value != NO_VALUE) {
+        sum += value;
+      }
+    }
+    return sum;
+  }
+
+  public int uncoveredConditions() {
+    int sum = 0;
+    for (int line = 0; line < conditions.length; line++) {
+      if (conditions[line] != NO_VALUE) {
+        sum += conditions[line] - Math.max(0, coveredConditions(line));
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Same format as {@link org.sonar.api.utils.KeyValueFormat#format(java.util.Map)}, ie. "line=hits;line=hits"
+   */
+  public String hitsData() {
+    return format(hits);
+  }
+
+  public String conditionsData() {
+    return format(conditions);
+  }
+
+  public String coveredConditionsData() {
+    return format(coveredConditions);
+  }
+
+  private static boolean hasValue(int[] values) {
+    return count(values, v -> v != NO_VALUE) > 0;
+  }
+
+  private static int count(int[] values, IntPredicate predicate) {
+    int count = 0;
+    for (int value : values) {
+      if (predicate.test(value)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static String format(int[] values) {
+    StringBuilder sb = new StringBuilder();
+    for (int line = 0; line < values.length; line++) {
+      if (values[line] != NO_VALUE) {
+        if (sb.length() > 0) {
+          sb.append(';');
+        }
+        sb.append(line).append('=').append(values[line]);
+      }
+    }
+    return sb.toString();
+  }
+
+}
@@ -21,15 +21,12 @@ package org.sonar.scanner.sensor;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
@@ -63,6 +60,8 @@ import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.report.ScannerReportUtils;
 import org.sonar.scanner.repository.ContextPropertiesCache;
 import org.sonar.scanner.scan.branch.BranchConfiguration;
+import org.sonar.scanner.scan.measure.FileLineCoverage;
+import org.sonar.scanner.scan.measure.LineCoverageCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
 import static java.util.stream.Collectors.toList;
@@ -143,6 +142,7 @@ public class DefaultSensorStorage implements SensorStorage {
   private final ModuleIssues moduleIssues;
   private final ReportPublisher reportPublisher;
   private final MeasureCache measureCache;
+  private final LineCoverageCache lineCoverageCache;
   private final SonarCpdBlockIndex index;
   private final ContextPropertiesCache contextPropertiesCache;
   private final Configuration settings;
@@ -154,13 +154,14 @@ public class DefaultSensorStorage implements SensorStorage {
   private final Set<String> alreadyLogged = new HashSet<>();
 
   public DefaultSensorStorage(MetricFinder metricFinder, ModuleIssues moduleIssues, Configuration settings,
-    ReportPublisher reportPublisher, MeasureCache measureCache, SonarCpdBlockIndex index,
+    ReportPublisher reportPublisher, MeasureCache measureCache, LineCoverageCache lineCoverageCache, SonarCpdBlockIndex index,
     ContextPropertiesCache contextPropertiesCache, ScannerMetrics scannerMetrics, BranchConfiguration branchConfiguration) {
     this.metricFinder = metricFinder;
     this.moduleIssues = moduleIssues;
     this.settings = settings;
     this.reportPublisher = reportPublisher;
     this.measureCache = measureCache;
+    this.lineCoverageCache = lineCoverageCache;
     this.index = index;
     this.contextPropertiesCache = contextPropertiesCache;
     this.scannerMetrics = scannerMetrics;
@@ -273,14 +274,10 @@ public class DefaultSensorStorage implements SensorStorage {
 
   private void saveCoverageMetricInternal(InputFile file, Metric<?> metric, DefaultMeasure<?> measure) {
     if (isLineMetrics(metric)) {
-      validateCoverageMeasure((String) measure.value(), file);
-      DefaultMeasure<?> previousMeasure = measureCache.byMetric(file.key(), metric.key());
-      if (previousMeasure != null) {
-        measureCache.put(file.key(), metric.key(), new DefaultMeasure<String>()
-          .forMetric((Metric<String>) metric)
-          .withValue(mergeCoverageLineMetric(metric, (String) previousMeasure.value(), (String) measure.value())));
-      } else {
-        measureCache.put(file.key(), metric.key(), measure);
+      Map<Integer, Integer> valuesByLine = validateCoverageMeasure((String) measure.value(), file);
+      FileLineCoverage coverage = lineCoverageCache.getOrCreate(file);
+      for (Map.Entry<Integer, Integer> entry : valuesByLine.entrySet()) {
+        mergeLineValue(coverage, metric, entry.getKey(), entry.getValue());
       }
     } else {
       // Other coverage metrics are all integer values. Just erase value, it will be recomputed at the end anyway
@@ -289,32 +286,16 @@ public class DefaultSensorStorage implements SensorStorage {
   }
 
   /**
-   * Merge the two line coverage data measures. For lines hits use the sum, and for conditions 
+   * Merge a value of line coverage data into the coverage of the file. For lines hits use the sum, and for conditions
    * keep max value in case they both contains a value for the same line.
    */
-  static String mergeCoverageLineMetric(Metric<?> metric, String value1, String value2) {
-    Map<Integer, Integer> data1 = KeyValueFormat.parseIntInt(value1);
-    Map<Integer, Integer> data2 = KeyValueFormat.parseIntInt(value2);
+  private static void mergeLineValue(FileLineCoverage coverage, Metric<?> metric, int line, int value) {
     if (metric.key().equals(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)) {
-      return KeyValueFormat.format(Stream.of(data1, data2)
-        .map(Map::entrySet)
-        .flatMap(Collection::stream)
-        .collect(
-          Collectors.toMap(
-            Map.Entry::getKey,
-            Map.Entry::getValue,
-            Integer::sum,
-            TreeMap::new)));
+      coverage.addHits(line, value);
+    } else if (metric.key().equals(CoreMetrics.CONDITIONS_BY_LINE_KEY)) {
+      coverage.addConditions(line, value);
     } else {
-      return KeyValueFormat.format(Stream.of(data1, data2)
-        .map(Map::entrySet)
-        .flatMap(Collection::stream)
-        .collect(
-          Collectors.toMap(
-            Map.Entry::getKey,
-            Map.Entry::getValue,
-            Integer::max,
-            TreeMap::new)));
+      coverage.addCoveredConditions(line, value);
     }
   }
 
@@ -330,10 +311,11 @@ public class DefaultSensorStorage implements SensorStorage {
     return this.byLineMetrics.contains(metric);
   }
 
-  public static void validateCoverageMeasure(String value, InputFile inputFile) {
+  public static Map<Integer, Integer> validateCoverageMeasure(String value, InputFile inputFile) {
     Map<Integer, Integer> m = KeyValueFormat.parseIntInt(value);
     validatePositiveLine(m, inputFile.toString());
     validateMaxLine(m, inputFile);
+    return m;
   }
 
   private static void validateMaxLine(Map<Integer, Integer> m, InputFile inputFile) {
@@ -448,19 +430,22 @@ public class DefaultSensorStorage implements SensorStorage {
       saveCoverageMetricInternal(inputFile, LINES_TO_COVER, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(defaultCoverage.linesToCover()));
       saveCoverageMetricInternal(inputFile, UNCOVERED_LINES,
         new DefaultMeasure<Integer>().forMetric(UNCOVERED_LINES).withValue(defaultCoverage.linesToCover() - defaultCoverage.coveredLines()));
-      saveCoverageMetricInternal(inputFile, COVERAGE_LINE_HITS_DATA,
-        new DefaultMeasure<String>().forMetric(COVERAGE_LINE_HITS_DATA).withValue(KeyValueFormat.format(defaultCoverage.hitsByLine())));
     }
     if (defaultCoverage.conditions() > 0) {
       saveCoverageMetricInternal(inputFile, CONDITIONS_TO_COVER,
         new DefaultMeasure<Integer>().forMetric(CONDITIONS_TO_COVER).withValue(defaultCoverage.conditions()));
       saveCoverageMetricInternal(inputFile, UNCOVERED_CONDITIONS,
         new DefaultMeasure<Integer>().forMetric(UNCOVERED_CONDITIONS).withValue(defaultCoverage.conditions() - defaultCoverage.coveredConditions()));
-      saveCoverageMetricInternal(inputFile, COVERED_CONDITIONS_BY_LINE,
-        new DefaultMeasure<String>().forMetric(COVERED_CONDITIONS_BY_LINE).withValue(KeyValueFormat.format(defaultCoverage.coveredConditionsByLine())));
-      saveCoverageMetricInternal(inputFile, CONDITIONS_BY_LINE,
-        new DefaultMeasure<String>().forMetric(CONDITIONS_BY_LINE).withValue(KeyValueFormat.format(defaultCoverage.conditionsByLine())));
     }
+    if (defaultCoverage.hitsByLine().isEmpty() && defaultCoverage.conditionsByLine().isEmpty()) {
+      // an empty report must not prevent ZeroCoverageSensor from computing the coverage of the file
+      return;
+    }
+    // line data is already validated by DefaultCoverage
+    FileLineCoverage coverage = lineCoverageCache.getOrCreate(inputFile);
+    defaultCoverage.hitsByLine().forEach(coverage::addHits);
+    defaultCoverage.conditionsByLine().forEach(coverage::addConditions);
+    defaultCoverage.coveredConditionsByLine().forEach(coverage::addCoveredConditions);
   }
 
   @Override
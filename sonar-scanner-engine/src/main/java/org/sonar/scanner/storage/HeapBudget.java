@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maximum number of values that storages can keep in heap, shared by all the storages of the analysis.
+ * Values are not encoded in heap, so their size is not known: the budget is expressed as a number of values.
+ */
+class HeapBudget {
+
+  private final long maxValues;
+  private final AtomicLong values = new AtomicLong();
+
+  HeapBudget(long maxValues) {
+    this.maxValues = maxValues;
+  }
+
+  boolean allowsHeap() {
+    return maxValues > 0;
+  }
+
+  void add(long delta) {
+    values.addAndGet(delta);
+  }
+
+  boolean isExceeded() {
+    return values.get() > maxValues;
+  }
+
+  long values() {
+    return values.get();
+  }
+}
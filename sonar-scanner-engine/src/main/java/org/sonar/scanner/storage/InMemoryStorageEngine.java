@@ -0,0 +1,177 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import static com.google.common.collect.Iterators.transform;
+
+/**
+ * Storage engine keeping values in heap, in a concurrent sorted map. Values are stored as is, without any encoding.
+ * Keys are ordered as in Persistit, as long as all the parts of keys at a given position have the same type.
+ */
+class InMemoryStorageEngine<V> implements StorageEngine<V> {
+
+  private static final Object BEFORE = new Object();
+  private static final Object AFTER = new Object();
+
+  private final ConcurrentSkipListMap<Object[], V> map = new ConcurrentSkipListMap<>(KeyComparator.INSTANCE);
+  private final HeapBudget budget;
+
+  InMemoryStorageEngine(HeapBudget budget) {
+    this.budget = budget;
+  }
+
+  @Override
+  public void put(Object[] key, V value) {
+    if (map.put(key.clone(), value) == null) {
+      budget.add(1);
+    }
+  }
+
+  @CheckForNull
+  @Override
+  public V get(Object[] key) {
+    return map.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object[] key) {
+    return map.containsKey(key);
+  }
+
+  @Override
+  public boolean remove(Object[] key) {
+    if (map.remove(key) != null) {
+      budget.add(-1);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void clear(Object[] key) {
+    for (Iterator<Object[]> it = map.subMap(key, true, append(key, AFTER), false).keySet().iterator(); it.hasNext();) {
+      it.next();
+      it.remove();
+      budget.add(-1);
+    }
+  }
+
+  @Override
+  public void clear() {
+    budget.add(-map.size());
+    map.clear();
+  }
+
+  /**
+   * Gives back to the budget the values, which are expected to have been copied to another engine. The values are
+   * not removed, so that the iterators opened before the copy are not truncated. The map is garbage collected
+   * once these iterators are not referenced anymore.
+   */
+  void release() {
+    budget.add(-map.size());
+  }
+
+  @Override
+  public Set<Object> keySet(Object[] key) {
+    Set<Object> keys = new LinkedHashSet<>();
+    for (Object[] k : children(key).keySet()) {
+      keys.add(k[key.length]);
+    }
+    return keys;
+  }
+
+  @Override
+  public Iterable<V> values(Object[] key) {
+    return () -> children(key).values().iterator();
+  }
+
+  @Override
+  public Iterable<Storage.Entry<V>> entries(Object[] key) {
+    return () -> transform(children(key).entrySet().iterator(), InMemoryStorageEngine::toEntry);
+  }
+
+  Iterable<Map.Entry<Object[], V>> all() {
+    return map.entrySet();
+  }
+
+  private ConcurrentNavigableMap<Object[], V> children(Object[] key) {
+    return map.subMap(append(key, BEFORE), false, append(key, AFTER), false);
+  }
+
+  private static <V> Storage.Entry<V> toEntry(Map.Entry<Object[], V> entry) {
+    return new Storage.Entry<>(entry.getKey().clone(), entry.getValue());
+  }
+
+  private static Object[] append(Object[] key, Object part) {
+    Object[] result = Arrays.copyOf(key, key.length + 1);
+    result[key.length] = part;
+    return result;
+  }
+
+  private enum KeyComparator implements Comparator<Object[]> {
+    INSTANCE;
+
+    @Override
+    public int compare(Object[] key1, Object[] key2) {
+      int length = Math.min(key1.length, key2.length);
+      for (int i = 0; i < length; i++) {
+        int result = comparePart(key1[i], key2[i]);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return Integer.compare(key1.length, key2.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int comparePart(@Nullable Object part1, @Nullable Object part2) {
+      if (part1 == part2) {
+        return 0;
+      }
+      if (part1 == BEFORE || part2 == AFTER) {
+        return -1;
+      }
+      if (part1 == AFTER || part2 == BEFORE) {
+        return 1;
+      }
+      if (part1 == null || part2 == null) {
+        return part1 == null ? -1 : 1;
+      }
+      if (part1.getClass() != part2.getClass()) {
+        return part1.getClass().getName().compareTo(part2.getClass().getName());
+      }
+      if (!(part1 instanceof Comparable)) {
+        throw new IllegalArgumentException("Unsupported type of key: " + part1.getClass().getName());
+      }
+      return ((Comparable<Object>) part1).compareTo(part2);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.Set;
+import javax.annotation.CheckForNull;
+
+/**
+ * Backend of a {@link Storage}. Keys are arrays of key parts, compared part by part.
+ */
+interface StorageEngine<V> {
+
+  void put(Object[] key, V value);
+
+  @CheckForNull
+  V get(Object[] key);
+
+  boolean containsKey(Object[] key);
+
+  boolean remove(Object[] key);
+
+  /**
+   * Removes the value associated to key, as well as all the values of the keys starting with key.
+   */
+  void clear(Object[] key);
+
+  void clear();
+
+  /**
+   * Distinct parts following the given key parts, ordered
+   */
+  Set<Object> keySet(Object[] key);
+
+  /**
+   * Lazy-loading values of the keys starting with the given key parts, ordered by key. The value of the exact given
+   * key is not included.
+   */
+  Iterable<V> values(Object[] key);
+
+  /**
+   * Same as {@link #values(Object[])} with the keys
+   */
+  Iterable<Storage.Entry<V>> entries(Object[] key);
+
+}
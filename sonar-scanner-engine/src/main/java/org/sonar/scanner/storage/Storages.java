@@ -27,20 +27,48 @@ import com.persistit.Volume;
 import com.persistit.encoding.CoderManager;
 import com.persistit.encoding.ValueCoder;
 import com.persistit.exception.PersistitException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.bootstrap.GlobalConfiguration;
 
+/**
+ * Storages of the analysis. Values are kept in heap until the number of values of all storages exceeds
+ * {@link #MAX_VALUES_IN_HEAP_PROPERTY}. Then the storages which are updated are moved to disk.
+ */
 @ScannerSide
 public class Storages implements Startable {
-  private final Map<String, Exchange> cacheMap = new HashMap<>();
+
+  private static final Logger LOG = Loggers.get(Storages.class);
+
+  /**
+   * Zero to always store values on disk
+   */
+  public static final String MAX_VALUES_IN_HEAP_PROPERTY = "sonar.scanner.storage.maxValuesInHeap";
+  static final long DEFAULT_MAX_VALUES_IN_HEAP = 500_000L;
+
+  private final Map<String, Storage<?>> cacheMap = new LinkedHashMap<>();
+  private final List<Exchange> exchanges = new ArrayList<>();
+  private final HeapBudget heapBudget;
   private Persistit persistit;
   private Volume volume;
 
+  public Storages(StoragesManager storagesManager, GlobalConfiguration settings) {
+    this(storagesManager, settings.getLong(MAX_VALUES_IN_HEAP_PROPERTY).orElse(DEFAULT_MAX_VALUES_IN_HEAP));
+  }
+
   public Storages(StoragesManager storagesManager) {
+    this(storagesManager, DEFAULT_MAX_VALUES_IN_HEAP);
+  }
+
+  Storages(StoragesManager storagesManager, long maxValuesInHeap) {
     persistit = storagesManager.persistit();
+    heapBudget = new HeapBudget(maxValuesInHeap);
     doStart();
   }
 
@@ -66,12 +94,17 @@ public class Storages implements Startable {
   public <V> Storage<V> createCache(String cacheName) {
     Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
+    Storage<V> cache = new Storage<>(cacheName, heapBudget, () -> createDiskEngine(cacheName));
+    cacheMap.put(cacheName, cache);
+    return cache;
+  }
+
+  private synchronized <V> StorageEngine<V> createDiskEngine(String cacheName) {
     try {
       Exchange exchange = persistit.getExchange(volume, cacheName, true);
       exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
-      cacheMap.put(cacheName, exchange);
-      return cache;
+      exchanges.add(exchange);
+      return new PersistitStorageEngine<>(cacheName, exchange);
     } catch (Exception e) {
       throw new IllegalStateException("Fail to create cache: " + cacheName, e);
     }
@@ -79,10 +112,16 @@ public class Storages implements Startable {
 
   @Override
   public void stop() {
-    for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
+    if (LOG.isDebugEnabled()) {
+      for (Storage<?> storage : cacheMap.values()) {
+        LOG.debug("Storage '{}': {} reads, {} writes, values in {}", storage.name(), storage.reads(), storage.writes(), storage.isInHeap() ? "heap" : "disk");
+      }
+    }
+    for (Exchange exchange : exchanges) {
+      persistit.releaseExchange(exchange);
     }
 
+    exchanges.clear();
     cacheMap.clear();
 
     if (volume != null) {
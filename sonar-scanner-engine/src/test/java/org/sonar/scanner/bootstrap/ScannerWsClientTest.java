@@ -68,6 +68,17 @@ public class ScannerWsClientTest {
     assertThat(debugLogs.get(0)).contains("GET 200 https://local/api/issues/search | time=");
   }
 
+  @Test
+  public void do_not_fail_if_not_modified() {
+    WsRequest request = newRequest();
+    WsResponse response = newResponse().setCode(304);
+    when(wsClient.wsConnector().call(request)).thenReturn(response);
+
+    WsResponse result = new ScannerWsClient(wsClient, false, new GlobalAnalysisMode(new GlobalProperties(Collections.emptyMap()))).call(request);
+
+    assertThat(result).isSameAs(response);
+  }
+
   @Test
   public void fail_if_requires_credentials() throws Exception {
     expectedException.expect(MessageException.class);
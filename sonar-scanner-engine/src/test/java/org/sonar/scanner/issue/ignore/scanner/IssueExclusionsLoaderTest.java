@@ -19,19 +19,24 @@
  */
 package org.sonar.scanner.issue.ignore.scanner;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.regex.Pattern;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.scanner.issue.ignore.pattern.BlockIssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -73,6 +78,64 @@ public class IssueExclusionsLoaderTest {
 
   }
 
+  @Test
+  public void union_of_patterns() {
+    Pattern union = IssueExclusionsLoader.union(Arrays.asList(Pattern.compile("@NOSONAR-(FOO|BAR)"), Pattern.compile("^\\s*//\\s*BAZ$"), Pattern.compile("a|b")));
+
+    assertThat(union.matcher("  @NOSONAR-BAR").find()).isTrue();
+    assertThat(union.matcher("  // BAZ").find()).isTrue();
+    assertThat(union.matcher("code(); // BAZ").find()).isFalse();
+    assertThat(union.matcher("b").find()).isTrue();
+    assertThat(union.matcher("@NOSONAR-QIX").find()).isFalse();
+  }
+
+  @Test
+  public void no_union_of_single_pattern_or_patterns_with_back_references_or_flags() {
+    assertThat(IssueExclusionsLoader.union(Collections.emptyList())).isNull();
+    assertThat(IssueExclusionsLoader.union(Collections.singletonList(Pattern.compile("foo")))).isNull();
+    assertThat(IssueExclusionsLoader.union(Arrays.asList(Pattern.compile("foo"), Pattern.compile("(a)\\1")))).isNull();
+    assertThat(IssueExclusionsLoader.union(Arrays.asList(Pattern.compile("foo"), Pattern.compile("(?<x>a)\\k<x>")))).isNull();
+    assertThat(IssueExclusionsLoader.union(Arrays.asList(Pattern.compile("foo"), Pattern.compile("bar", Pattern.CASE_INSENSITIVE)))).isNull();
+  }
+
+  @Test
+  public void no_union_of_patterns_defining_same_named_group() {
+    assertThat(IssueExclusionsLoader.union(Arrays.asList(Pattern.compile("(?<tag>FOO)-OFF"), Pattern.compile("(?<tag>BAR)-OFF")))).isNull();
+  }
+
+  @Test
+  public void patterns_defining_same_named_group_are_evaluated_one_by_one() throws IOException {
+    when(exclusionPatternInitializer.getAllFilePatterns()).thenReturn(Arrays.asList("@(?<tag>FOO)-IGNORE-ALL", "@(?<tag>BAR)-IGNORE-ALL"));
+    IssueExclusionsLoader loader = new IssueExclusionsLoader(exclusionPatternInitializer, patternMatcher);
+
+    read(loader, "polop:src/Foo.java", "a\n// @BAR-IGNORE-ALL\n");
+
+    assertThat(loader.getHits("@(?<tag>FOO)-IGNORE-ALL")).isZero();
+    assertThat(loader.getHits("@(?<tag>BAR)-IGNORE-ALL")).isEqualTo(1);
+  }
+
+  @Test
+  public void count_hits_of_patterns() throws IOException {
+    when(exclusionPatternInitializer.getAllFilePatterns()).thenReturn(Arrays.asList("@FOO-IGNORE-ALL", "@BAR-IGNORE-ALL"));
+    when(exclusionPatternInitializer.getBlockPatterns()).thenReturn(Collections.singletonList(new BlockIssuePattern("// OFF", "// ON")));
+    IssueExclusionsLoader loader = new IssueExclusionsLoader(exclusionPatternInitializer, patternMatcher);
+
+    read(loader, "polop:src/Foo.java", "a\n// @BAR-IGNORE-ALL\nb\n// @FOO-IGNORE-ALL\n");
+    read(loader, "polop:src/Bar.java", "a\n// @BAR-IGNORE-ALL\n");
+    read(loader, "polop:src/Baz.java", "// OFF\na\n// ON\n// OFF\n");
+    loader.stop();
+
+    assertThat(loader.getHits("@BAR-IGNORE-ALL")).isEqualTo(2);
+    assertThat(loader.getHits("@FOO-IGNORE-ALL")).isZero();
+    assertThat(loader.getHits("// OFF")).isEqualTo(2);
+    assertThat(patternMatcher.getPatternsForComponent("polop:src/Foo.java")).hasSize(1);
+    assertThat(patternMatcher.getPatternsForComponent("polop:src/Baz.java")).hasSize(1);
+  }
+
+  private static void read(IssueExclusionsLoader loader, String componentKey, String content) {
+    new FileMetadata().readMetadata(new ByteArrayInputStream(content.getBytes(UTF_8)), UTF_8, componentKey, loader.createCharHandlerFor(componentKey));
+  }
+
   @Test
   public void shouldHavePatternsBasedOnMulticriteriaPattern() {
     IssuePattern pattern1 = new IssuePattern("org/foo/Bar.java", "*");
@@ -19,6 +19,8 @@
  */
 package org.sonar.scanner.issue.ignore.scanner;
 
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
 import com.google.common.io.Resources;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -42,6 +44,7 @@ import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsLoader.DoubleRegexpMatcher;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -104,11 +107,35 @@ public class IssueExclusionsRegexpScannerTest {
     Path filePath = getResource("file-with-single-regexp-and-double-regexp.txt");
     fileMetadata.readMetadata(Files.newInputStream(filePath), UTF_8, filePath.toString(), regexpScanner);
 
-    Set<LineRange> lineRanges = new HashSet<>();
-    lineRanges.add(new LineRange(5, 26));
+    // line exclusions are useless once the whole file is excluded
     verify(patternMatcher, times(1)).addPatternToExcludeResource(javaFile);
+    verifyNoMoreInteractions(patternMatcher);
+  }
+
+  @Test
+  public void shouldUsePreFilters() throws Exception {
+    List<Pattern> severalAllFilePatterns = Arrays.asList(Pattern.compile("@FOO-IGNORE-ALL"), Pattern.compile("@SONAR-IGNORE-ALL"));
+    Pattern anyAllFilePattern = IssueExclusionsLoader.union(severalAllFilePatterns);
+    Pattern anyBlockStartPattern = IssueExclusionsLoader.union(Arrays.asList(Pattern.compile("// SONAR-OFF"), Pattern.compile("// FOO-OFF")));
+    Multiset<String> hits = ConcurrentHashMultiset.create();
+
+    Path filePath = getResource("file-with-double-regexp-twice.txt");
+    fileMetadata.readMetadata(Files.newInputStream(filePath), UTF_8, filePath.toString(),
+      new IssueExclusionsRegexpScanner(javaFile, severalAllFilePatterns, anyAllFilePattern, blockPatterns, anyBlockStartPattern, patternMatcher, hits));
+    filePath = getResource("file-with-single-regexp.txt");
+    fileMetadata.readMetadata(Files.newInputStream(filePath), UTF_8, filePath.toString(),
+      new IssueExclusionsRegexpScanner(javaFile, severalAllFilePatterns, anyAllFilePattern, blockPatterns, anyBlockStartPattern, patternMatcher, hits));
+
+    Set<LineRange> lineRanges = new HashSet<>();
+    lineRanges.add(new LineRange(21, 25));
+    lineRanges.add(new LineRange(29, 33));
     verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, lineRanges);
+    verify(patternMatcher, times(1)).addPatternToExcludeResource(javaFile);
     verifyNoMoreInteractions(patternMatcher);
+    assertThat(hits.count("@SONAR-IGNORE-ALL")).isEqualTo(1);
+    assertThat(hits.count("@FOO-IGNORE-ALL")).isZero();
+    assertThat(hits.count("// SONAR-OFF")).isEqualTo(1);
+    assertThat(hits.count("// FOO-OFF")).isEqualTo(1);
   }
 
   @Test
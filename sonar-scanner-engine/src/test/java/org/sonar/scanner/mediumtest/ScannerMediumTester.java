@@ -29,6 +29,7 @@ import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -67,6 +68,7 @@ import org.sonar.scanner.repository.ServerIssuesLoader;
 import org.sonar.scanner.repository.settings.SettingsLoader;
 import org.sonar.scanner.rule.ActiveRulesLoader;
 import org.sonar.scanner.rule.LoadedActiveRule;
+import org.sonar.scanner.rule.QProfile;
 import org.sonar.scanner.rule.RulesLoader;
 import org.sonar.scanner.scan.branch.BranchConfiguration;
 import org.sonar.scanner.scan.branch.BranchConfigurationLoader;
@@ -343,7 +345,7 @@ public class ScannerMediumTester extends ExternalResource {
     }
 
     @Override
-    public List<LoadedActiveRule> load(String qualityProfileKey) {
+    public List<LoadedActiveRule> load(Collection<QProfile> qualityProfiles) {
       return activeRules;
     }
   }
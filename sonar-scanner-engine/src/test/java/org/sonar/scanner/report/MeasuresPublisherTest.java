@@ -28,6 +28,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentMatcher;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
@@ -40,13 +41,19 @@ import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.branch.BranchConfiguration;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
+import org.sonar.scanner.scan.measure.LineCoverageCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class MeasuresPublisherTest {
@@ -57,6 +64,7 @@ public class MeasuresPublisherTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   private MeasureCache measureCache;
+  private LineCoverageCache lineCoverageCache = new LineCoverageCache();
   private MeasuresPublisher publisher;
 
   private File outputDir;
@@ -68,12 +76,12 @@ public class MeasuresPublisherTest {
   public void prepare() throws IOException {
     String moduleKey = "foo";
     inputModule = TestInputFileBuilder.newDefaultInputModule(moduleKey, temp.newFolder());
-    inputFile = new TestInputFileBuilder(moduleKey, "src/Foo.php").setPublish(true).build();
+    inputFile = new TestInputFileBuilder(moduleKey, "src/Foo.php").setLines(10).setPublish(true).build();
     InputComponentStore componentCache = new InputComponentStore(inputModule, mock(BranchConfiguration.class));
     componentCache.put(inputFile);
     measureCache = mock(MeasureCache.class);
     when(measureCache.byComponentKey(anyString())).thenReturn(Collections.<DefaultMeasure<?>>emptyList());
-    publisher = new MeasuresPublisher(componentCache, measureCache, mock(TestPlanBuilder.class));
+    publisher = new MeasuresPublisher(componentCache, measureCache, lineCoverageCache, mock(TestPlanBuilder.class));
     outputDir = temp.newFolder();
     writer = new ScannerReportWriter(outputDir);
   }
@@ -96,6 +104,42 @@ public class MeasuresPublisherTest {
     }
   }
 
+  @Test
+  public void publish_measures_of_line_coverage() throws Exception {
+    lineCoverageCache.getOrCreate(inputFile)
+      .addHits(1, 2)
+      .addHits(3, 0)
+      .addHits(4, 0)
+      .addConditions(3, 4)
+      .addCoveredConditions(3, 1);
+
+    publisher.publish(writer);
+
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY), argThat(hasValue("1=2;3=0;4=0")));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.CONDITIONS_BY_LINE_KEY), argThat(hasValue("3=4")));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY), argThat(hasValue("3=1")));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.LINES_TO_COVER_KEY), argThat(hasValue(3)));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.UNCOVERED_LINES_KEY), argThat(hasValue(2)));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.CONDITIONS_TO_COVER_KEY), argThat(hasValue(4)));
+    verify(measureCache).put(eq(inputFile.key()), eq(CoreMetrics.UNCOVERED_CONDITIONS_KEY), argThat(hasValue(3)));
+  }
+
+  @Test
+  public void do_not_publish_measures_of_line_coverage_when_no_coverage() throws Exception {
+    publisher.publish(writer);
+
+    verify(measureCache, never()).put(anyString(), anyString(), any(DefaultMeasure.class));
+  }
+
+  private static ArgumentMatcher<DefaultMeasure<?>> hasValue(Object value) {
+    return new ArgumentMatcher<DefaultMeasure<?>>() {
+      @Override
+      public boolean matches(Object argument) {
+        return value.equals(((DefaultMeasure<?>) argument).value());
+      }
+    };
+  }
+
   @Test
   public void fail_with_IAE_when_measure_has_no_value() throws Exception {
     DefaultMeasure<Integer> measure = new DefaultMeasure<Integer>().forMetric(CoreMetrics.LINES_TO_COVER);
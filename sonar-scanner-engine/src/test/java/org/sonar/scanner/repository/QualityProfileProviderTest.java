@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,6 +34,7 @@ import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.scanner.analysis.AnalysisProperties;
+import org.sonar.scanner.rule.ActiveRulesPrefetcher;
 import org.sonar.scanner.rule.ModuleQProfiles;
 import org.sonarqube.ws.Qualityprofiles.SearchWsResponse.QualityProfile;
 
@@ -41,6 +43,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class QualityProfileProviderTest {
@@ -58,6 +61,8 @@ public class QualityProfileProviderTest {
   private ProjectKey key;
   @Mock
   private ProjectRepositories projectRepo;
+  @Mock
+  private ActiveRulesPrefetcher prefetcher;
 
   private List<QualityProfile> response;
 
@@ -68,6 +73,7 @@ public class QualityProfileProviderTest {
 
     when(key.get()).thenReturn("project");
     when(projectRepo.exists()).thenReturn(true);
+    when(prefetcher.qualityProfiles()).thenReturn(Optional.empty());
 
     response = new ArrayList<>(1);
     response.add(QualityProfile.newBuilder().setKey("profile").setName("profile").setLanguage("lang").setRulesUpdatedAt(DateUtils.formatDateTime(new Date())).build());
@@ -76,19 +82,42 @@ public class QualityProfileProviderTest {
   @Test
   public void testProvide() {
     when(loader.load("project", null)).thenReturn(response);
-    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props);
+    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props, prefetcher);
     assertResponse(qps);
 
     verify(loader).load("project", null);
     verifyNoMoreInteractions(loader);
   }
 
+  @Test
+  public void use_prefetched_profiles() {
+    when(prefetcher.qualityProfiles()).thenReturn(Optional.of(response));
+
+    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props, prefetcher);
+
+    assertResponse(qps);
+    verifyZeroInteractions(loader);
+  }
+
+  @Test
+  public void ignore_prefetched_profiles_if_project_does_not_exist() {
+    when(projectRepo.exists()).thenReturn(false);
+    when(prefetcher.qualityProfiles()).thenReturn(Optional.of(new ArrayList<>()));
+    when(loader.loadDefault(null)).thenReturn(response);
+
+    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props, prefetcher);
+
+    assertResponse(qps);
+    verify(loader).loadDefault(null);
+    verifyNoMoreInteractions(loader);
+  }
+
   @Test
   public void testProjectDoesntExist() {
     when(projectRepo.exists()).thenReturn(false);
     when(loader.loadDefault(anyString())).thenReturn(response);
     when(props.property(ModuleQProfiles.SONAR_PROFILE_PROP)).thenReturn("profile");
-    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props);
+    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props, prefetcher);
     assertResponse(qps);
 
     verify(loader).loadDefault(anyString());
@@ -101,7 +130,7 @@ public class QualityProfileProviderTest {
     when(props.property(ModuleQProfiles.SONAR_PROFILE_PROP)).thenReturn("custom");
     when(props.properties()).thenReturn(ImmutableMap.of(ModuleQProfiles.SONAR_PROFILE_PROP, "custom"));
 
-    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props);
+    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props, prefetcher);
     assertResponse(qps);
 
     verify(loader).load(eq("project"), eq("custom"));
@@ -117,7 +146,7 @@ public class QualityProfileProviderTest {
     when(props.property(ModuleQProfiles.SONAR_PROFILE_PROP)).thenReturn("custom");
     when(props.properties()).thenReturn(ImmutableMap.of(ModuleQProfiles.SONAR_PROFILE_PROP, "custom"));
 
-    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props);
+    ModuleQProfiles qps = qualityProfileProvider.provide(key, loader, projectRepo, props, prefetcher);
     assertResponse(qps);
 
     verify(loader).loadDefault(eq("custom"));
@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.rule;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.api.batch.bootstrap.ProjectKey;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.scanner.analysis.AnalysisProperties;
+import org.sonar.scanner.repository.QualityProfileLoader;
+import org.sonarqube.ws.Qualityprofiles.SearchWsResponse.QualityProfile;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class ActiveRulesPrefetcherTest {
+
+  private ProjectKey projectKey = () -> "project";
+  private QualityProfileLoader qualityProfileLoader = mock(QualityProfileLoader.class);
+  private ActiveRulesLoader activeRulesLoader = mock(ActiveRulesLoader.class);
+  private AnalysisProperties props = mock(AnalysisProperties.class);
+
+  private ActiveRulesPrefetcher underTest = new ActiveRulesPrefetcher(projectKey, qualityProfileLoader, activeRulesLoader, props);
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void prefetch_profiles_of_project_and_their_active_rules() {
+    List<QualityProfile> profiles = singletonList(profile("java-1"));
+    List<LoadedActiveRule> activeRules = singletonList(activeRule("S1"));
+    when(props.property(ModuleQProfiles.SONAR_PROFILE_PROP)).thenReturn("custom");
+    when(qualityProfileLoader.load("project", "custom")).thenReturn(profiles);
+    when(activeRulesLoader.load(anyCollectionOf(QProfile.class))).thenReturn(activeRules);
+
+    underTest.prefetch();
+
+    assertThat(underTest.qualityProfiles()).hasValue(profiles);
+    assertThat(underTest.activeRules(qProfiles("java-1"))).hasValue(activeRules);
+    verify(qualityProfileLoader).load("project", "custom");
+  }
+
+  @Test
+  public void do_not_return_active_rules_of_other_profiles() {
+    when(qualityProfileLoader.load("project", null)).thenReturn(singletonList(profile("java-1")));
+    when(activeRulesLoader.load(anyCollectionOf(QProfile.class))).thenReturn(singletonList(activeRule("S1")));
+
+    underTest.prefetch();
+
+    assertThat(underTest.activeRules(qProfiles("java-2"))).isEmpty();
+    assertThat(underTest.activeRules(qProfiles("java-1", "js-1"))).isEmpty();
+  }
+
+  @Test
+  public void return_nothing_if_prefetch_fails() {
+    when(qualityProfileLoader.load("project", null)).thenThrow(new IllegalStateException("project not found"));
+
+    underTest.prefetch();
+
+    assertThat(underTest.qualityProfiles()).isEmpty();
+    assertThat(underTest.activeRules(qProfiles("java-1"))).isEmpty();
+    verifyZeroInteractions(activeRulesLoader);
+  }
+
+  @Test
+  public void return_nothing_if_prefetch_is_not_requested() {
+    assertThat(underTest.qualityProfiles()).isEmpty();
+    assertThat(underTest.activeRules(qProfiles("java-1"))).isEmpty();
+    verifyZeroInteractions(qualityProfileLoader, activeRulesLoader);
+  }
+
+  private static QualityProfile profile(String key) {
+    return QualityProfile.newBuilder().setKey(key).setLanguage(key).setRulesUpdatedAt(DateUtils.formatDateTime(new Date())).build();
+  }
+
+  private static Collection<QProfile> qProfiles(String... keys) {
+    return new ModuleQProfiles(Arrays.stream(keys).map(ActiveRulesPrefetcherTest::profile).collect(toList())).findAll();
+  }
+
+  private static LoadedActiveRule activeRule(String key) {
+    LoadedActiveRule rule = new LoadedActiveRule();
+    rule.setRuleKey(RuleKey.of("squid", key));
+    return rule;
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -33,9 +34,10 @@ import org.sonar.api.utils.DateUtils;
 import org.sonarqube.ws.Qualityprofiles.SearchWsResponse.QualityProfile;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class ActiveRulesProviderTest {
@@ -43,11 +45,14 @@ public class ActiveRulesProviderTest {
 
   @Mock
   private DefaultActiveRulesLoader loader;
+  @Mock
+  private ActiveRulesPrefetcher prefetcher;
 
   @Before
   public void setUp() {
     MockitoAnnotations.initMocks(this);
     provider = new ActiveRulesProvider();
+    when(prefetcher.activeRules(anyCollectionOf(QProfile.class))).thenReturn(Optional.empty());
   }
 
   @Test
@@ -56,27 +61,30 @@ public class ActiveRulesProviderTest {
     LoadedActiveRule r2 = mockRule("rule2");
     LoadedActiveRule r3 = mockRule("rule3");
 
-    List<LoadedActiveRule> qp1Rules = ImmutableList.of(r1, r2);
-    List<LoadedActiveRule> qp2Rules = ImmutableList.of(r2, r3);
-    List<LoadedActiveRule> qp3Rules = ImmutableList.of(r1, r3);
-
-    when(loader.load(eq("qp1"))).thenReturn(qp1Rules);
-    when(loader.load(eq("qp2"))).thenReturn(qp2Rules);
-    when(loader.load(eq("qp3"))).thenReturn(qp3Rules);
-
     ModuleQProfiles profiles = mockProfiles("qp1", "qp2", "qp3");
-    ActiveRules activeRules = provider.provide(loader, profiles);
+    when(loader.load(profiles.findAll())).thenReturn(ImmutableList.of(r1, r2, r2, r3, r1, r3));
+
+    ActiveRules activeRules = provider.provide(loader, profiles, prefetcher);
 
     assertThat(activeRules.findAll()).hasSize(3);
     assertThat(activeRules.findAll()).extracting("ruleKey").containsOnly(
       RuleKey.of("rule1", "rule1"), RuleKey.of("rule2", "rule2"), RuleKey.of("rule3", "rule3"));
 
-    verify(loader).load(eq("qp1"));
-    verify(loader).load(eq("qp2"));
-    verify(loader).load(eq("qp3"));
+    verify(loader).load(profiles.findAll());
     verifyNoMoreInteractions(loader);
   }
 
+  @Test
+  public void use_prefetched_active_rules() {
+    ModuleQProfiles profiles = mockProfiles("qp1", "qp2");
+    when(prefetcher.activeRules(profiles.findAll())).thenReturn(Optional.of(ImmutableList.of(mockRule("rule1"), mockRule("rule2"))));
+
+    ActiveRules activeRules = provider.provide(loader, profiles, prefetcher);
+
+    assertThat(activeRules.findAll()).extracting("ruleKey").containsOnly(RuleKey.of("rule1", "rule1"), RuleKey.of("rule2", "rule2"));
+    verifyZeroInteractions(loader);
+  }
+
   private static ModuleQProfiles mockProfiles(String... keys) {
     List<QualityProfile> profiles = new LinkedList<>();
 
@@ -19,110 +19,196 @@
  */
 package org.sonar.scanner.rule;
 
-import com.google.common.collect.ImmutableSortedMap;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.IntStream;
+import java.util.Date;
+import java.util.List;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.rule.RuleKey;
-import org.sonar.api.rule.Severity;
-import org.sonar.scanner.WsTestUtil;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
-import org.sonarqube.ws.Rules;
-import org.sonarqube.ws.Rules.Active;
-import org.sonarqube.ws.Rules.ActiveList;
-import org.sonarqube.ws.Rules.Actives;
-import org.sonarqube.ws.Rules.Rule;
-import org.sonarqube.ws.Rules.SearchResponse;
-import org.sonarqube.ws.Rules.SearchResponse.Builder;
-
+import org.sonar.scanner.protocol.Constants.Severity;
+import org.sonar.scanner.protocol.input.ActiveRulesETag;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerActiveRule;
+import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 public class DefaultActiveRulesLoaderTest {
 
-  private static final int PAGE_SIZE_1 = 150;
-  private static final int PAGE_SIZE_2 = 76;
   private static final RuleKey EXAMPLE_KEY = RuleKey.of("squid", "S108");
   private static final String FORMAT_KEY = "format";
   private static final String FORMAT_VALUE = "^[a-z][a-zA-Z0-9]*$";
-  private static final String SEVERITY_VALUE = Severity.MINOR;
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ScannerWsClient wsClient = mock(ScannerWsClient.class);
+  private FileCache fileCache;
   private DefaultActiveRulesLoader loader;
-  private ScannerWsClient wsClient;
 
   @Before
-  public void setUp() {
-    wsClient = mock(ScannerWsClient.class);
-    loader = new DefaultActiveRulesLoader(wsClient);
+  public void setUp() throws IOException {
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
+    loader = new DefaultActiveRulesLoader(wsClient, fileCache);
+  }
+
+  @Test
+  public void load_active_rules_of_all_profiles_in_a_single_call() throws IOException {
+    mockResponse(200, responseOfSize(150));
+
+    List<LoadedActiveRule> activeRules = loader.load(profiles("c+-test_c+-values-17445", "java-1"));
+
+    assertThat(activeRules).hasSize(150);
+    LoadedActiveRule example = activeRules.stream().filter(r -> r.getRuleKey().equals(EXAMPLE_KEY)).findFirst().get();
+    assertThat(example.getParams()).containsOnly(entry(FORMAT_KEY, FORMAT_VALUE));
+    assertThat(example.getSeverity()).isEqualTo("MINOR");
+    assertThat(example.getName()).isEqualTo("Rule S108");
+    assertThat(example.getLanguage()).isEqualTo("java");
+    assertThat(example.getInternalKey()).isEqualTo("S108");
+    assertThat(example.getTemplateRuleKey()).isEqualTo("template");
+    assertThat(example.getCreatedAt()).isEqualTo(1_000L);
+    LoadedActiveRule other = activeRules.stream().filter(r -> !r.getRuleKey().equals(EXAMPLE_KEY)).findFirst().get();
+    assertThat(other.getInternalKey()).isNull();
+    assertThat(other.getTemplateRuleKey()).isNull();
+    assertThat(other.getParams()).isEmpty();
+
+    WsRequest request = verifyCall();
+    assertThat(request.getPath()).isEqualTo("/batch/active_rules.protobuf?qprofiles=c%2B-test_c%2B-values-17445,java-1");
+    assertThat(request.getHeaders().getValue("If-None-Match")).isEmpty();
+  }
+
+  @Test
+  public void load_active_rules_from_cache_if_not_modified() throws IOException {
+    Collection<QProfile> profiles = profiles("java-1");
+    byte[] content = contentOfSize(10);
+    mockResponse(200, new ByteArrayInputStream(content));
+    loader.load(profiles);
+
+    mockResponse(304, new ByteArrayInputStream(new byte[0]));
+    List<LoadedActiveRule> activeRules = loader.load(profiles);
+
+    assertThat(activeRules).hasSize(10);
+    WsRequest request = verifyCall(2);
+    assertThat(request.getHeaders().getValue("If-None-Match")).hasValue(ActiveRulesETag.of(content));
+  }
+
+  @Test
+  public void replace_cached_active_rules_if_modified() throws IOException {
+    Collection<QProfile> profiles = profiles("java-1");
+    mockResponse(200, responseOfSize(10));
+    loader.load(profiles);
+
+    mockResponse(200, responseOfSize(5));
+    assertThat(loader.load(profiles)).hasSize(5);
+
+    mockResponse(304, new ByteArrayInputStream(new byte[0]));
+    assertThat(loader.load(profiles)).hasSize(5);
+  }
+
+  @Test
+  public void do_not_use_cache_of_other_profiles() throws IOException {
+    mockResponse(200, responseOfSize(10));
+    loader.load(profiles("java-1"));
+
+    mockResponse(200, responseOfSize(5));
+    List<LoadedActiveRule> activeRules = loader.load(profiles("java-1", "js-1"));
+
+    assertThat(activeRules).hasSize(5);
+    assertThat(verifyCall(2).getHeaders().getValue("If-None-Match")).isEmpty();
+  }
+
+  @Test
+  public void etag_does_not_depend_on_dates_of_last_change_of_rules() throws IOException {
+    byte[] content = contentOfSize(10);
+    mockResponse(200, new ByteArrayInputStream(content));
+    loader.load(Arrays.asList(new QProfile("java-1", "Java", "java", new Date(1_000L))));
+
+    mockResponse(200, responseOfSize(5));
+    // rules changed again within the same second: the server decides whether the cached content is outdated
+    List<LoadedActiveRule> activeRules = loader.load(Arrays.asList(new QProfile("java-1", "Java", "java", new Date(1_000L))));
+
+    assertThat(activeRules).hasSize(5);
+    assertThat(verifyCall(2).getHeaders().getValue("If-None-Match")).hasValue(ActiveRulesETag.of(content));
   }
 
   @Test
-  public void feed_real_response_encode_qp() throws IOException {
-    int total = PAGE_SIZE_1 + PAGE_SIZE_2;
-
-    WsTestUtil.mockStream(wsClient, urlOfPage(1), responseOfSize(PAGE_SIZE_1, total));
-    WsTestUtil.mockStream(wsClient, urlOfPage(2), responseOfSize(PAGE_SIZE_2, total));
-
-    Collection<LoadedActiveRule> activeRules = loader.load("c+-test_c+-values-17445");
-    assertThat(activeRules).hasSize(total);
-    assertThat(activeRules)
-      .filteredOn(r -> r.getRuleKey().equals(EXAMPLE_KEY))
-      .extracting(LoadedActiveRule::getParams)
-      .extracting(p -> p.get(FORMAT_KEY))
-      .containsExactly(FORMAT_VALUE);
-    assertThat(activeRules)
-      .filteredOn(r -> r.getRuleKey().equals(EXAMPLE_KEY))
-      .extracting(LoadedActiveRule::getSeverity)
-      .containsExactly(SEVERITY_VALUE);
-
-    WsTestUtil.verifyCall(wsClient, urlOfPage(1));
-    WsTestUtil.verifyCall(wsClient, urlOfPage(2));
-
-    verifyNoMoreInteractions(wsClient);
+  public void no_call_if_no_profiles() {
+    assertThat(loader.load(emptyList())).isEmpty();
+
+    verifyZeroInteractions(wsClient);
   }
 
-  private String urlOfPage(int page) {
-    return "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives,createdAt&activation=true&qprofile=c%2B-test_c%2B-values-17445&p=" + page
-      + "&ps=500";
+  private static Collection<QProfile> profiles(String... keys) {
+    return Arrays.stream(keys).map(key -> new QProfile(key, key, "java", new Date())).collect(toList());
+  }
+
+  private void mockResponse(int code, InputStream content) {
+    WsResponse response = mock(WsResponse.class);
+    when(response.code()).thenReturn(code);
+    when(response.contentStream()).thenReturn(content);
+    when(wsClient.call(any(WsRequest.class))).thenReturn(response);
+  }
+
+  private WsRequest verifyCall() {
+    return verifyCall(1);
+  }
+
+  private WsRequest verifyCall(int times) {
+    ArgumentCaptor<WsRequest> captor = ArgumentCaptor.forClass(WsRequest.class);
+    verify(wsClient, times(times)).call(captor.capture());
+    return captor.getValue();
   }
 
   /**
    * Generates an imaginary protobuf result.
    *
    * @param numberOfRules the number of rules, that the response should contain
-   * @param total the number of results on all pages
    * @return the binary stream
    */
-  private InputStream responseOfSize(int numberOfRules, int total) {
-    Builder rules = SearchResponse.newBuilder();
-    Actives.Builder actives = Actives.newBuilder();
-
-    IntStream.rangeClosed(1, numberOfRules)
-      .mapToObj(i -> RuleKey.of("squid", "S" + i))
-      .forEach(key -> {
-
-        Rule.Builder ruleBuilder = Rule.newBuilder();
-        ruleBuilder.setKey(key.toString());
-        rules.addRules(ruleBuilder);
-
-        Active.Builder activeBuilder = Active.newBuilder();
-        activeBuilder.setCreatedAt("2014-05-27T15:50:45+0100");
-        if (EXAMPLE_KEY.equals(key)) {
-          activeBuilder.addParams(Rules.Active.Param.newBuilder().setKey(FORMAT_KEY).setValue(FORMAT_VALUE));
-          activeBuilder.setSeverity(SEVERITY_VALUE);
-        }
-        ActiveList activeList = Rules.ActiveList.newBuilder().addActiveList(activeBuilder).build();
-        actives.putAllActives(ImmutableSortedMap.of(key.toString(), activeList));
-      });
-
-    rules.setActives(actives);
-    rules.setPs(numberOfRules);
-    rules.setTotal(total);
-    return new ByteArrayInputStream(rules.build().toByteArray());
+  private static InputStream responseOfSize(int numberOfRules) throws IOException {
+    return new ByteArrayInputStream(contentOfSize(numberOfRules));
+  }
+
+  private static byte[] contentOfSize(int numberOfRules) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (int i = 1; i <= numberOfRules; i++) {
+      RuleKey key = RuleKey.of("squid", "S" + (107 + i));
+      ServerActiveRule.Builder rule = ServerActiveRule.newBuilder()
+        .setQprofileKey("java-1")
+        .setRuleRepository(key.repository())
+        .setRuleKey(key.rule())
+        .setName("Rule " + key.rule())
+        .setLanguage("java")
+        .setSeverity(Severity.MAJOR)
+        .setCreatedAt(1_000L);
+      if (EXAMPLE_KEY.equals(key)) {
+        rule.setSeverity(Severity.MINOR)
+          .setInternalKey(key.rule())
+          .setTemplateRuleKey("template")
+          .getMutableParamsByKey().put(FORMAT_KEY, FORMAT_VALUE);
+      }
+      rule.build().writeDelimitedTo(output);
+    }
+    return output.toByteArray();
   }
 }
@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.measure;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileLineCoverageTest {
+
+  private FileLineCoverage underTest = new FileLineCoverage(10);
+
+  @Test
+  public void no_coverage() {
+    assertThat(underTest.hasHits()).isFalse();
+    assertThat(underTest.hasConditions()).isFalse();
+    assertThat(underTest.hasCoveredConditions()).isFalse();
+    assertThat(underTest.hits(1)).isEqualTo(FileLineCoverage.NO_VALUE);
+    assertThat(underTest.hitsData()).isEmpty();
+    assertThat(underTest.linesToCover()).isZero();
+    assertThat(underTest.conditionsToCover()).isZero();
+  }
+
+  @Test
+  public void sum_hits_of_same_line() {
+    underTest.addHits(3, 1).addHits(3, 2).addHits(1, 0);
+
+    assertThat(underTest.hits(3)).isEqualTo(3);
+    assertThat(underTest.hits(1)).isZero();
+    assertThat(underTest.hits(2)).isEqualTo(FileLineCoverage.NO_VALUE);
+    assertThat(underTest.hitsData()).isEqualTo("1=0;3=3");
+    assertThat(underTest.linesToCover()).isEqualTo(2);
+    assertThat(underTest.uncoveredLines()).isEqualTo(1);
+  }
+
+  @Test
+  public void keep_max_of_conditions_of_same_line() {
+    underTest.addConditions(2, 4).addConditions(2, 2).addCoveredConditions(2, 1).addCoveredConditions(2, 3).addConditions(5, 2);
+
+    assertThat(underTest.conditionsData()).isEqualTo("2=4;5=2");
+    assertThat(underTest.coveredConditionsData()).isEqualTo("2=3");
+    assertThat(underTest.conditionsToCover()).isEqualTo(6);
+    assertThat(underTest.uncoveredConditions()).isEqualTo(3);
+  }
+
+  @Test
+  public void accept_lines_greater_than_number_of_lines_of_file() {
+    underTest.addHits(12, 1);
+
+    assertThat(underTest.hits(12)).isEqualTo(1);
+    assertThat(underTest.maxLine()).isEqualTo(12);
+  }
+
+}
@@ -20,6 +20,7 @@
 package org.sonar.scanner.scan.measure;
 
 import java.util.Iterator;
+import java.util.Optional;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -27,8 +28,10 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
 import org.sonar.api.measures.CoreMetrics;
+import org.sonar.scanner.bootstrap.GlobalConfiguration;
 import org.sonar.scanner.index.AbstractCachesTest;
 import org.sonar.scanner.storage.Storage.Entry;
+import org.sonar.scanner.storage.Storages;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -104,6 +107,13 @@ public class MeasureCacheTest extends AbstractCachesTest {
 
   @Test
   public void should_add_measure_with_too_big_data_for_persistit() {
+    // values kept in heap have no size limit
+    GlobalConfiguration settings = mock(GlobalConfiguration.class);
+    when(settings.getLong(Storages.MAX_VALUES_IN_HEAP_PROPERTY)).thenReturn(Optional.of(0L));
+    caches.stop();
+    caches = new Storages(cachesManager, settings);
+    measureCache = new MeasureCache(caches, metricFinder);
+
     assertThat(measureCache.entries()).hasSize(0);
     assertThat(measureCache.byComponentKey(COMPONENT_KEY)).hasSize(0);
 
@@ -34,6 +34,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.measure.MetricFinder;
+import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
 import org.sonar.api.batch.sensor.issue.Issue;
@@ -52,12 +53,16 @@ import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.repository.ContextPropertiesCache;
 import org.sonar.scanner.scan.branch.BranchConfiguration;
+import org.sonar.scanner.scan.measure.FileLineCoverage;
+import org.sonar.scanner.scan.measure.LineCoverageCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.MapEntry.entry;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -74,6 +79,7 @@ public class DefaultSensorStorageTest {
   private MapSettings settings;
   private ModuleIssues moduleIssues;
   private MeasureCache measureCache;
+  private LineCoverageCache lineCoverageCache = new LineCoverageCache();
   private ScannerReportWriter reportWriter;
   private ContextPropertiesCache contextPropertiesCache = new ContextPropertiesCache();
   private BranchConfiguration branchConfiguration;
@@ -83,6 +89,7 @@ public class DefaultSensorStorageTest {
     MetricFinder metricFinder = mock(MetricFinder.class);
     when(metricFinder.<Integer>findByKey(CoreMetrics.NCLOC_KEY)).thenReturn(CoreMetrics.NCLOC);
     when(metricFinder.<String>findByKey(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION_KEY)).thenReturn(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION);
+    when(metricFinder.<String>findByKey(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)).thenReturn(CoreMetrics.COVERAGE_LINE_HITS_DATA);
 
     settings = new MapSettings();
     moduleIssues = mock(ModuleIssues.class);
@@ -95,7 +102,7 @@ public class DefaultSensorStorageTest {
     branchConfiguration = mock(BranchConfiguration.class);
 
     underTest = new DefaultSensorStorage(metricFinder,
-      moduleIssues, settings.asConfig(), reportPublisher, measureCache,
+      moduleIssues, settings.asConfig(), reportPublisher, measureCache, lineCoverageCache,
       mock(SonarCpdBlockIndex.class), contextPropertiesCache, new ScannerMetrics(), branchConfiguration);
   }
 
@@ -254,14 +261,39 @@ public class DefaultSensorStorageTest {
   }
 
   @Test
-  public void mergeCoverageLineMetrics_should_be_sorted() {
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=1", "1=1")).isEqualTo("1=2");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=1", "2=1")).isEqualTo("1=1;2=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "2=1", "1=1")).isEqualTo("1=1;2=1");
-
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "1=1", "1=1")).isEqualTo("1=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "1=1", "2=1")).isEqualTo("1=1;2=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "2=1", "1=1")).isEqualTo("1=1;2=1");
+  public void merge_line_coverage_of_several_reports() {
+    DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(5).build();
+
+    new DefaultCoverage(underTest).onFile(file).lineHits(1, 1).lineHits(2, 0).conditions(2, 4, 1).save();
+    new DefaultCoverage(underTest).onFile(file).lineHits(1, 2).lineHits(3, 0).conditions(2, 2, 3).save();
+
+    FileLineCoverage coverage = lineCoverageCache.byFileKey(file.key());
+    assertThat(coverage.hitsData()).isEqualTo("1=3;2=0;3=0");
+    assertThat(coverage.conditionsData()).isEqualTo("2=4");
+    assertThat(coverage.coveredConditionsData()).isEqualTo("2=3");
+    verify(measureCache, never()).put(eq(file.key()), eq(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY), any(DefaultMeasure.class));
+  }
+
+  @Test
+  public void empty_coverage_is_not_stored() {
+    DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(5).build();
+
+    new DefaultCoverage(underTest).onFile(file).save();
+
+    assertThat(lineCoverageCache.contains(file.key())).isFalse();
+  }
+
+  @Test
+  public void merge_line_coverage_saved_as_measure() {
+    DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(5).build();
+
+    new DefaultCoverage(underTest).onFile(file).lineHits(2, 1).save();
+    underTest.store(new DefaultMeasure<String>()
+      .on(file)
+      .forMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA)
+      .withValue("1=1;2=1"));
+
+    assertThat(lineCoverageCache.byFileKey(file.key()).hitsData()).isEqualTo("1=1;2=2");
   }
 
 }
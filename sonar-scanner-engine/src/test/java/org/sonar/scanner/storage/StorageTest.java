@@ -20,14 +20,42 @@
 package org.sonar.scanner.storage;
 
 import com.google.common.collect.Iterables;
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import org.sonar.scanner.index.AbstractCachesTest;
 import org.sonar.scanner.storage.Storage.Entry;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+@RunWith(Parameterized.class)
 public class StorageTest extends AbstractCachesTest {
 
+  private final long maxValuesInHeap;
+
+  public StorageTest(String engine, long maxValuesInHeap) {
+    this.maxValuesInHeap = maxValuesInHeap;
+  }
+
+  @Parameterized.Parameters(name = "{0}")
+  public static Collection<Object[]> engines() {
+    return Arrays.asList(new Object[][] {
+      {"heap", 1_000L},
+      {"disk", 0L},
+      {"heap moved to disk", 2L}
+    });
+  }
+
+  @Before
+  public void setUpStorages() {
+    caches.stop();
+    caches = new Storages(cachesManager, maxValuesInHeap);
+    caches.start();
+  }
+
   @Test
   public void one_part_key() {
     Storage<String> cache = caches.createCache("capitals");
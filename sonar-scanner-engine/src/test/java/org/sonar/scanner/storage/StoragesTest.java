@@ -21,6 +21,7 @@ package org.sonar.scanner.storage;
 
 import com.persistit.exception.PersistitException;
 import java.io.Serializable;
+import java.util.Iterator;
 import org.junit.Test;
 import org.sonar.scanner.index.AbstractCachesTest;
 
@@ -83,6 +84,62 @@ public class StoragesTest extends AbstractCachesTest {
     }
   }
 
+  @Test
+  public void keep_values_in_heap_until_budget_is_exceeded() {
+    caches.stop();
+    caches = new Storages(cachesManager, 3L);
+    Storage<String> first = caches.createCache("first");
+    Storage<String> second = caches.createCache("second");
+
+    first.put("a", "1");
+    first.put("a", "2");
+    second.put("b", "3");
+    first.remove("a");
+    second.put("c", "4");
+    second.put("d", "5");
+    assertThat(first.isInHeap()).isTrue();
+    assertThat(second.isInHeap()).isTrue();
+
+    second.put("e", "6");
+    assertThat(second.isInHeap()).isFalse();
+    assertThat(second.values()).containsExactly("3", "4", "5", "6");
+    assertThat(first.isInHeap()).isTrue();
+    assertThat(first.reads()).isZero();
+    assertThat(first.writes()).isEqualTo(3);
+  }
+
+  @Test
+  public void iterators_are_not_truncated_when_values_are_moved_to_disk() {
+    caches.stop();
+    caches = new Storages(cachesManager, 3L);
+    Storage<String> cache = caches.createCache("foo");
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.put("c", "3");
+
+    Iterator<String> values = cache.values().iterator();
+    Iterator<Storage.Entry<String>> entries = cache.entries().iterator();
+    assertThat(values.next()).isEqualTo("1");
+    assertThat(entries.next().value()).isEqualTo("1");
+    cache.put("d", "4");
+
+    assertThat(cache.isInHeap()).isFalse();
+    assertThat(values).containsExactly("2", "3", "4");
+    assertThat(entries).extracting(Storage.Entry::value).containsExactly("2", "3", "4");
+    assertThat(cache.values()).containsExactly("1", "2", "3", "4");
+  }
+
+  @Test
+  public void store_values_on_disk_if_no_heap_budget() {
+    caches.stop();
+    caches = new Storages(cachesManager, 0L);
+
+    Storage<String> cache = caches.createCache("foo");
+    assertThat(cache.isInHeap()).isFalse();
+    cache.put("a", "1");
+    assertThat(cache.get("a")).isEqualTo("1");
+  }
+
   private static class Element implements Serializable {
     private static final long serialVersionUID = 1L;
 
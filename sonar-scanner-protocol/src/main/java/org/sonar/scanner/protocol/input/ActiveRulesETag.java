@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * ETag of the active rules of a set of quality profiles, as returned by the web service api/batch/active_rules.
+ * <p>
+ * It is the MD5 hash of the content of the response, so that it changes whenever the active rules change, whatever
+ * the precision of the dates of the profiles. The scanner computes it from the response it kept in its cache in order
+ * to make a conditional request.
+ * </p>
+ */
+public final class ActiveRulesETag {
+
+  private ActiveRulesETag() {
+    // only static methods
+  }
+
+  /**
+   * Value of the HTTP headers ETag and If-None-Match for the given content of response
+   */
+  public static String of(byte[] content) {
+    return quote(DigestUtils.md5Hex(content));
+  }
+
+  /**
+   * Same as {@link #of(byte[])}, the stream being read until its end but not closed
+   */
+  public static String of(InputStream content) throws IOException {
+    return quote(DigestUtils.md5Hex(content));
+  }
+
+  private static String quote(String hash) {
+    return "\"" + hash + "\"";
+  }
+}
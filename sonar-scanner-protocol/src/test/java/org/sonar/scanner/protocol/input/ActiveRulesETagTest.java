@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActiveRulesETagTest {
+
+  private static final byte[] CONTENT = "active rules".getBytes(UTF_8);
+
+  @Test
+  public void etag_is_quoted_md5_hash_of_content() {
+    assertThat(ActiveRulesETag.of(CONTENT)).isEqualTo("\"322c2285a1812b5fdb20cfd699142763\"");
+  }
+
+  @Test
+  public void etag_of_stream_is_etag_of_its_content() throws IOException {
+    assertThat(ActiveRulesETag.of(new ByteArrayInputStream(CONTENT))).isEqualTo(ActiveRulesETag.of(CONTENT));
+  }
+
+  @Test
+  public void etag_changes_with_content() {
+    assertThat(ActiveRulesETag.of(CONTENT)).isNotEqualTo(ActiveRulesETag.of("other active rules".getBytes(UTF_8)));
+  }
+
+  @Test
+  public void etag_of_empty_content() {
+    assertThat(ActiveRulesETag.of(new byte[0])).isEqualTo("\"d41d8cd98f00b204e9800998ecf8427e\"");
+  }
+}